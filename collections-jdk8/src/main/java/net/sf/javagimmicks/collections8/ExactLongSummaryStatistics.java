@@ -0,0 +1,148 @@
+package net.sf.javagimmicks.collections8;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.LongSummaryStatistics;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A state object for collecting statistics such as count, min, max, sum and
+ * average of {@code long} (or {@code int}) values - like
+ * {@link LongSummaryStatistics} but with a sum that cannot overflow.
+ * <p>
+ * The sum is accumulated in primitive {@code long}s, a {@link BigInteger} is
+ * only created when retrieving it (see {@link #getSum()}).
+ * <p>
+ * This class is designed to work with (though does not require) streams - see
+ * {@link MoreCollectors#summarizingLongToBigInteger(java.util.function.ToLongFunction)}.
+ * Like {@link LongSummaryStatistics} it is not thread-safe.
+ */
+public class ExactLongSummaryStatistics implements LongConsumer, IntConsumer
+{
+   private final LongSum _sum = new LongSum();
+   private long _count;
+   private long _min = Long.MAX_VALUE;
+   private long _max = Long.MIN_VALUE;
+
+   /**
+    * Creates a new empty instance.
+    */
+   public ExactLongSummaryStatistics()
+   {}
+
+   @Override
+   public void accept(final int value)
+   {
+      accept((long) value);
+   }
+
+   @Override
+   public void accept(final long value)
+   {
+      ++_count;
+      _sum.add(value);
+      _min = Math.min(_min, value);
+      _max = Math.max(_max, value);
+   }
+
+   /**
+    * Combines the state of another {@link ExactLongSummaryStatistics} into
+    * this one.
+    * 
+    * @param other
+    *           another {@link ExactLongSummaryStatistics}
+    */
+   public void combine(final ExactLongSummaryStatistics other)
+   {
+      _count += other._count;
+      _sum.add(other._sum);
+      _min = Math.min(_min, other._min);
+      _max = Math.max(_max, other._max);
+   }
+
+   /**
+    * Returns the number of recorded values.
+    * 
+    * @return the number of recorded values
+    */
+   public long getCount()
+   {
+      return _count;
+   }
+
+   /**
+    * Returns the sum of the recorded values or zero if there are none.
+    * 
+    * @return the sum of the recorded values
+    */
+   public BigInteger getSum()
+   {
+      return _sum.toBigInteger();
+   }
+
+   /**
+    * Returns the minimum recorded value or {@link Long#MAX_VALUE} if there are
+    * none.
+    * 
+    * @return the minimum recorded value
+    */
+   public long getMin()
+   {
+      return _min;
+   }
+
+   /**
+    * Returns the maximum recorded value or {@link Long#MIN_VALUE} if there are
+    * none.
+    * 
+    * @return the maximum recorded value
+    */
+   public long getMax()
+   {
+      return _max;
+   }
+
+   /**
+    * Returns the arithmetic mean of the recorded values or zero if there are
+    * none.
+    * 
+    * @return the arithmetic mean of the recorded values
+    */
+   public double getAverage()
+   {
+      if (_count == 0)
+      {
+         return 0.0d;
+      }
+
+      return _sum.fitsIntoLong() ? (double) _sum.longValue() / _count : getAverage(MathContext.DECIMAL64)
+            .doubleValue();
+   }
+
+   /**
+    * Returns the arithmetic mean of the recorded values rounded according to
+    * the given {@link MathContext} or zero if there are none.
+    * 
+    * @param mathContext
+    *           the {@link MathContext} to use for the division
+    * @return the arithmetic mean of the recorded values
+    */
+   public BigDecimal getAverage(final MathContext mathContext)
+   {
+      if (_count == 0)
+      {
+         return BigDecimal.ZERO;
+      }
+
+      return new BigDecimal(getSum()).divide(BigDecimal.valueOf(_count), mathContext);
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("%s{count=%d, sum=%d, min=%d, average=%f, max=%d}", getClass().getSimpleName(),
+            getCount(), getSum(), getMin(), getAverage(), getMax());
+   }
+}
@@ -0,0 +1,54 @@
+package net.sf.javagimmicks.collections8;
+
+import java.math.BigInteger;
+
+/**
+ * A mutable sum of {@code long} values that cannot overflow - it is kept as a
+ * pair of {@code long}s: the (signed) low part and the number of times the low
+ * part overflowed (i.e. the multiple of 2<sup>64</sup> to add).
+ * <p>
+ * So adding a value costs no more than a {@link Math#addExact(long, long)}
+ * and a {@link BigInteger} is only created on demand.
+ */
+class LongSum
+{
+   private long _low;
+   private long _high;
+
+   void add(final long value)
+   {
+      final long result = _low + value;
+
+      // Same check as Math.addExact(): overflow iff both operands have the
+      // same sign and the result has a different one
+      if (((_low ^ result) & (value ^ result)) < 0)
+      {
+         _high += value > 0 ? 1 : -1;
+      }
+
+      _low = result;
+   }
+
+   void add(final LongSum other)
+   {
+      add(other._low);
+      _high += other._high;
+   }
+
+   boolean fitsIntoLong()
+   {
+      return _high == 0;
+   }
+
+   long longValue()
+   {
+      return _low;
+   }
+
+   BigInteger toBigInteger()
+   {
+      final BigInteger low = BigInteger.valueOf(_low);
+
+      return _high == 0 ? low : BigInteger.valueOf(_high).shiftLeft(Long.SIZE).add(low);
+   }
+}
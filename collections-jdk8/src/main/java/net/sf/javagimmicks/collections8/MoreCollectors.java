@@ -1,6 +1,8 @@
 package net.sf.javagimmicks.collections8;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongFunction;
@@ -44,6 +46,10 @@ public class MoreCollectors
     * Constructs a {@link Collector} that maps elements to {@code long} values
     * using the given {@link ToLongFunction} and sums them up as
     * {@link BigInteger}.
+    * <p>
+    * The values are summed up in primitive {@code long}s with an overflow
+    * carry (see {@link ExactLongSummaryStatistics}), so no {@link BigInteger}
+    * is created per element.
     * 
     * @param toLongFunction
     *           a {@link ToLongFunction} to map elements to {@code long} values
@@ -54,19 +60,23 @@ public class MoreCollectors
    public static <T> Collector<T, ?, BigInteger> summingLongToBigInteger(
          final ToLongFunction<T> toLongFunction)
    {
-      return Collector.of(() -> new BigInteger[] { BigInteger.ZERO },//
-            (c, t) -> c[0] = c[0].add(BigInteger.valueOf(toLongFunction.applyAsLong(t))),//
+      return Collector.of(LongSum::new,//
+            (c, t) -> c.add(toLongFunction.applyAsLong(t)),//
             (a, b) -> {
-               a[0] = a[0].add(b[0]);
+               a.add(b);
                return a;
             },//
-            a -> a[0], Characteristics.UNORDERED);
+            LongSum::toBigInteger, Characteristics.UNORDERED);
    }
 
    /**
     * Constructs a {@link Collector} that maps elements to {@code int} values
     * using the given {@link ToIntFunction} and sums them up as
     * {@link BigInteger}.
+    * <p>
+    * The values are summed up in primitive {@code long}s with an overflow
+    * carry (see {@link ExactLongSummaryStatistics}), so no {@link BigInteger}
+    * is created per element.
     * 
     * @param toIntFunction
     *           a {@link ToIntFunction} to map elements to {@code int} values
@@ -77,12 +87,89 @@ public class MoreCollectors
    public static <T> Collector<T, ?, BigInteger> summingIntToBigInteger(
          final ToIntFunction<T> toIntFunction)
    {
-      return Collector.of(() -> new BigInteger[] { BigInteger.ZERO },//
-            (c, t) -> c[0] = c[0].add(BigInteger.valueOf(toIntFunction.applyAsInt(t))),//
+      return Collector.of(LongSum::new,//
+            (c, t) -> c.add(toIntFunction.applyAsInt(t)),//
             (a, b) -> {
-               a[0] = a[0].add(b[0]);
+               a.add(b);
                return a;
             },//
-            a -> a[0], Characteristics.UNORDERED);
+            LongSum::toBigInteger, Characteristics.UNORDERED);
+   }
+
+   /**
+    * Constructs a {@link Collector} that maps elements to {@code long} values
+    * using the given {@link ToLongFunction} and calculates their arithmetic
+    * mean as {@link BigDecimal} - without the risk of an overflowing sum (like
+    * {@link Collectors#averagingLong(ToLongFunction)}).
+    * 
+    * @param toLongFunction
+    *           a {@link ToLongFunction} to map elements to {@code long} values
+    * @param mathContext
+    *           the {@link MathContext} to use for the final division
+    * @param <T>
+    *           the type of elements the generated {@link Collector} operates on
+    * @return the arithmetic mean of all mapped {@code long} values or zero if
+    *         there are no elements
+    */
+   public static <T> Collector<T, ?, BigDecimal> averagingLongToBigDecimal(
+         final ToLongFunction<T> toLongFunction, final MathContext mathContext)
+   {
+      return Collector.of(ExactLongSummaryStatistics::new,//
+            (c, t) -> c.accept(toLongFunction.applyAsLong(t)),//
+            (a, b) -> {
+               a.combine(b);
+               return a;
+            },//
+            a -> a.getAverage(mathContext), Characteristics.UNORDERED);
+   }
+
+   /**
+    * Constructs a {@link Collector} that maps elements to {@code long} values
+    * using the given {@link ToLongFunction} and returns their count, sum (as
+    * {@link BigInteger}), minimum, maximum and average within an
+    * {@link ExactLongSummaryStatistics}.
+    * 
+    * @param toLongFunction
+    *           a {@link ToLongFunction} to map elements to {@code long} values
+    * @param <T>
+    *           the type of elements the generated {@link Collector} operates on
+    * @return the {@link ExactLongSummaryStatistics} of all mapped {@code long}
+    *         values
+    */
+   public static <T> Collector<T, ?, ExactLongSummaryStatistics> summarizingLongToBigInteger(
+         final ToLongFunction<T> toLongFunction)
+   {
+      return Collector.of(ExactLongSummaryStatistics::new,//
+            (c, t) -> c.accept(toLongFunction.applyAsLong(t)),//
+            (a, b) -> {
+               a.combine(b);
+               return a;
+            },//
+            Characteristics.IDENTITY_FINISH, Characteristics.UNORDERED);
+   }
+
+   /**
+    * Constructs a {@link Collector} that maps elements to {@code int} values
+    * using the given {@link ToIntFunction} and returns their count, sum (as
+    * {@link BigInteger}), minimum, maximum and average within an
+    * {@link ExactLongSummaryStatistics}.
+    * 
+    * @param toIntFunction
+    *           a {@link ToIntFunction} to map elements to {@code int} values
+    * @param <T>
+    *           the type of elements the generated {@link Collector} operates on
+    * @return the {@link ExactLongSummaryStatistics} of all mapped {@code int}
+    *         values
+    */
+   public static <T> Collector<T, ?, ExactLongSummaryStatistics> summarizingIntToBigInteger(
+         final ToIntFunction<T> toIntFunction)
+   {
+      return Collector.of(ExactLongSummaryStatistics::new,//
+            (c, t) -> c.accept(toIntFunction.applyAsInt(t)),//
+            (a, b) -> {
+               a.combine(b);
+               return a;
+            },//
+            Characteristics.IDENTITY_FINISH, Characteristics.UNORDERED);
    }
 }
@@ -5,6 +5,8 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import net.sf.javagimmicks.collections8.diff.Difference.Range;
 
@@ -28,6 +30,17 @@ import net.sf.javagimmicks.collections8.diff.Difference.Range;
  * {@link #equals(Object)} and {@link #hashCode()} in order to make the
  * comparison work.
  * <p>
+ * By default, the {@link Algorithm#LCS LCS} algorithm is used. For large and
+ * mostly similar {@link List}s, the {@link Algorithm#MYERS MYERS} algorithm
+ * can be selected via an additional {@link Algorithm} parameter - it needs
+ * only linear memory and its running time grows with the number of
+ * differences instead of the size of the {@link List}s.
+ * <p>
+ * Sequences that are too large to be held in memory can be compared via
+ * {@link #findDifferences(Spliterator, Spliterator, Comparator, int, Consumer)}
+ * . It reads them through a bounded look-ahead window and emits the
+ * {@link Difference}s one by one as soon as they are found.
+ * <p>
  * This implementation class for the actual algorithm is strongly based upon the
  * <code>Diff</code> class from the <i>java-diff</i> project on <a
  * href="http://www.incava.org/">http://www.incava.org</a> (which seems to be
@@ -37,6 +50,31 @@ import net.sf.javagimmicks.collections8.diff.Difference.Range;
  */
 public class DifferenceUtils
 {
+   /**
+    * The algorithms available for finding differences.
+    */
+   public static enum Algorithm
+   {
+      /**
+       * The "longest common subsequences" algorithm based upon the
+       * <i>java-diff</i> project - the default
+       */
+      LCS,
+
+      /**
+       * The linear space variant of the O(ND) difference algorithm by Eugene
+       * W. Myers - recommended for large and mostly similar {@link List}s
+       */
+      MYERS
+   }
+
+   /**
+    * The default look-ahead window size for
+    * {@link #findDifferences(Spliterator, Spliterator, Comparator, int, Consumer)}
+    * .
+    */
+   public static final int DEFAULT_WINDOW_SIZE = 4096;
+
    private DifferenceUtils()
    {}
 
@@ -120,6 +158,127 @@ public class DifferenceUtils
       return findDifferences(Arrays.asList(fromArray), Arrays.asList(toArray), comparator);
    }
 
+   /**
+    * Finds the differences between two provided {@link List}s using the given
+    * {@link Algorithm}.
+    * 
+    * @param <T>
+    *           the element type for the provided {@link List}s
+    * @param fromList
+    *           the first {@link List} to be analyzed (called 'from' list)
+    * @param toList
+    *           the second {@link List} to be analyzed (called 'to' list)
+    * @param algorithm
+    *           the {@link Algorithm} to use
+    * @return the differences between the two {@link List}s encapsulated in a
+    *         {@link DifferenceList} object
+    */
+   public static <T> DifferenceList<T> findDifferences(final List<T> fromList, final List<T> toList,
+         final Algorithm algorithm)
+   {
+      return findDifferences(fromList, toList, null, algorithm);
+   }
+
+   /**
+    * Finds the differences between two provided {@link List}s using the given
+    * {@link Algorithm}.
+    * 
+    * @param <T>
+    *           the element type for the provided {@link List}s
+    * @param fromList
+    *           the first {@link List} to be analyzed (called 'from' list)
+    * @param toList
+    *           the second {@link List} to be analyzed (called 'to' list)
+    * @param comparator
+    *           a {@link Comparator} able to compare elements of the respective
+    *           type
+    * @param algorithm
+    *           the {@link Algorithm} to use
+    * @return the differences between the two {@link List}s encapsulated in a
+    *         {@link DifferenceList} object
+    */
+   public static <T> DifferenceList<T> findDifferences(final List<T> fromList, final List<T> toList,
+         final Comparator<T> comparator, final Algorithm algorithm)
+   {
+      if (algorithm == null)
+      {
+         throw new IllegalArgumentException("Algorithm must not be null!");
+      }
+
+      switch (algorithm)
+      {
+         case MYERS:
+            return new MyersDifferenceAlgorithm<T>(fromList, toList, comparator).getDifferences();
+         default:
+            return new DifferenceAlgorithm<T>(fromList, toList, comparator).getDifferences();
+      }
+   }
+
+   /**
+    * Finds the differences between two sequences provided by
+    * {@link Spliterator}s and emits them one by one to a given
+    * {@link Consumer} - using a look-ahead window of
+    * {@value #DEFAULT_WINDOW_SIZE} elements.
+    * 
+    * @param <T>
+    *           the element type for the provided {@link Spliterator}s
+    * @param fromSpliterator
+    *           the first sequence to be analyzed (called 'from' sequence)
+    * @param toSpliterator
+    *           the second sequence to be analyzed (called 'to' sequence)
+    * @param consumer
+    *           the {@link Consumer} to emit the found {@link Difference}s to
+    * @see #findDifferences(Spliterator, Spliterator, Comparator, int, Consumer)
+    */
+   public static <T> void findDifferences(final Spliterator<T> fromSpliterator, final Spliterator<T> toSpliterator,
+         final Consumer<? super Difference<T>> consumer)
+   {
+      findDifferences(fromSpliterator, toSpliterator, null, DEFAULT_WINDOW_SIZE, consumer);
+   }
+
+   /**
+    * Finds the differences between two sequences provided by
+    * {@link Spliterator}s and emits them one by one to a given
+    * {@link Consumer}.
+    * <p>
+    * At most <code>windowSize</code> elements of each sequence are held in
+    * memory at any time, so arbitrarily large sequences (e.g. from a
+    * {@link java.util.stream.Stream}) can be compared and the first
+    * {@link Difference}s are emitted before the sequences are read
+    * completely. As soon as the rest of both sequences fits into the window,
+    * it is compared as a whole with the {@link Algorithm#MYERS MYERS}
+    * algorithm. Before that, the sequences are synchronized via elements that
+    * occur exactly once in both windows (like "patience diff") and only the
+    * ranges in between are compared with the {@link Algorithm#MYERS MYERS}
+    * algorithm.
+    * <p>
+    * The emitted {@link Difference}s carry the absolute indexes within the
+    * sequences and copies of the deleted and added elements. Applied in
+    * reverse order to a {@link List} containing the 'from' sequence they
+    * produce the 'to' sequence. The result is minimal if both sequences -
+    * apart from their common prefix - fit into the window. Otherwise it may
+    * contain larger {@link Difference}s than necessary.
+    * 
+    * @param <T>
+    *           the element type for the provided {@link Spliterator}s
+    * @param fromSpliterator
+    *           the first sequence to be analyzed (called 'from' sequence)
+    * @param toSpliterator
+    *           the second sequence to be analyzed (called 'to' sequence)
+    * @param comparator
+    *           a {@link Comparator} able to compare elements of the respective
+    *           type - may be {@code null}
+    * @param windowSize
+    *           the maximum number of elements per sequence to hold in memory
+    * @param consumer
+    *           the {@link Consumer} to emit the found {@link Difference}s to
+    */
+   public static <T> void findDifferences(final Spliterator<T> fromSpliterator, final Spliterator<T> toSpliterator,
+         final Comparator<T> comparator, final int windowSize, final Consumer<? super Difference<T>> consumer)
+   {
+      new StreamingDifferenceAlgorithm<T>(fromSpliterator, toSpliterator, comparator, windowSize, consumer).run();
+   }
+
    /**
     * Returns an inverted {@link Difference} object for a given one. Inverted
     * means that delete and add information are exchanged.
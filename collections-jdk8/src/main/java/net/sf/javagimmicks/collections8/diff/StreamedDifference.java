@@ -0,0 +1,81 @@
+package net.sf.javagimmicks.collections8.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.javagimmicks.collections8.decorators.AbstractUnmodifiableListDecorator;
+
+/**
+ * A {@link Difference} that carries copies of its deleted and added elements
+ * (instead of views on the compared {@link List}s) - as emitted by
+ * {@link StreamingDifferenceAlgorithm}. The indexes are absolute positions
+ * within the compared sequences.
+ */
+class StreamedDifference<T> implements Difference<T>
+{
+   protected final Range<T> _deleteRange;
+   protected final Range<T> _addRange;
+
+   StreamedDifference(final int deleteStartIndex, final List<T> deleted, final int addStartIndex,
+         final List<T> added)
+   {
+      _deleteRange = new CopiedRange<T>(deleteStartIndex, deleted);
+      _addRange = new CopiedRange<T>(addStartIndex, added);
+   }
+
+   @Override
+   public Range<T> deleteRange()
+   {
+      return _deleteRange;
+   }
+
+   @Override
+   public Range<T> addRange()
+   {
+      return _addRange;
+   }
+
+   @Override
+   public Difference<T> invert()
+   {
+      return DifferenceUtils.getInvertedDifference(this);
+   }
+
+   @Override
+   public String toString()
+   {
+      return DifferenceUtils.toString(this);
+   }
+
+   private static class CopiedRange<T> extends AbstractUnmodifiableListDecorator<T> implements Range<T>
+   {
+      private static final long serialVersionUID = -2393867425227934414L;
+
+      private final int _startIndex;
+
+      public CopiedRange(final int startIndex, final List<T> elements)
+      {
+         super(new ArrayList<T>(elements));
+
+         _startIndex = startIndex;
+      }
+
+      @Override
+      public int getStartIndex()
+      {
+         return _startIndex;
+      }
+
+      @Override
+      public int getEndIndex()
+      {
+         return exists() ? _startIndex + size() - 1 : NONE;
+      }
+
+      @Override
+      public boolean exists()
+      {
+         return !isEmpty();
+      }
+   }
+}
@@ -3,6 +3,7 @@ package net.sf.javagimmicks.collections8.event;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import net.sf.javagimmicks.collections8.event.CollectionEvent.Type;
 import net.sf.javagimmicks.event.EventListener;
@@ -12,13 +13,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link Collection} decorator that serves as an {@link Observable} for
  * {@link CollectionEvent}s.
+ * <p>
+ * Events can be collected via {@link #beginBatch()} and {@link #endBatch()} -
+ * subsequent events of the same {@link Type} are then delivered as one.
  */
 public class ObservableEventCollection<E> extends AbstractEventCollection<E> implements
-      Observable<CollectionEvent<E>>
+      Observable<CollectionEvent<E>>, Batchable
 {
    private static final long serialVersionUID = -4055919694275882002L;
 
-   protected final ObservableBase<CollectionEvent<E>> _helper = new ObservableBase<CollectionEvent<E>>();
+   private final CollectionEventBatch _batch = new CollectionEventBatch();
+   protected final ObservableBase<CollectionEvent<E>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventCollection} around a given
@@ -44,6 +49,24 @@ public class ObservableEventCollection<E> extends AbstractEventCollection<E> imp
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    protected void fireElementsAdded(final Collection<? extends E> elements)
    {
@@ -57,6 +80,53 @@ public class ObservableEventCollection<E> extends AbstractEventCollection<E> imp
       _helper.fireEvent(new CollectionEventImpl(Type.REMOVED, Collections.singleton(element)));
    }
 
+   /**
+    * Merges subsequent events of the same {@link Type}.
+    */
+   private class CollectionEventBatch extends EventBatch<CollectionEvent<E>>
+   {
+      private final List<CollectionEvent<E>> _pending = new ArrayList<CollectionEvent<E>>();
+
+      private Type _lastType;
+      private List<E> _lastElements;
+
+      @Override
+      protected void enqueue(final CollectionEvent<E> event)
+      {
+         if (event.getType() != _lastType)
+         {
+            flushLast();
+
+            _lastType = event.getType();
+            _lastElements = new ArrayList<E>();
+         }
+
+         _lastElements.addAll(event.getElements());
+      }
+
+      @Override
+      protected List<CollectionEvent<E>> drain()
+      {
+         flushLast();
+
+         final List<CollectionEvent<E>> result = new ArrayList<CollectionEvent<E>>(_pending);
+         _pending.clear();
+
+         return result;
+      }
+
+      private void flushLast()
+      {
+         if (_lastType != null)
+         {
+            _pending.add(new CollectionEventImpl(_lastType, Collections.unmodifiableCollection(_lastElements)));
+
+            _lastType = null;
+            _lastElements = null;
+         }
+      }
+   }
+
    private class CollectionEventImpl implements CollectionEvent<E>
    {
       protected final Type _type;
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
 
 import net.sf.javagimmicks.collections8.event.ListEvent.Type;
 import net.sf.javagimmicks.event.EventListener;
@@ -13,13 +14,20 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link List} decorator that serves as an {@link Observable} for
  * {@link ListEvent}s.
+ * <p>
+ * Events can be collected via {@link #beginBatch()} and {@link #endBatch()} -
+ * adjacent ranges of the same {@link Type} are then delivered as one event
+ * (e.g. the removals of a {@link java.util.Iterator} walking over the
+ * {@link List}). The {@link ListEvent#getToIndex() end index} of such a
+ * coalesced event is always its start index plus the number of its elements.
  */
 public class ObservableEventList<E> extends AbstractEventList<E> implements
-      Observable<ListEvent<E>>
+      Observable<ListEvent<E>>, Batchable
 {
    private static final long serialVersionUID = -6317396247733734848L;
 
-   protected final ObservableBase<ListEvent<E>> _helper = new ObservableBase<ListEvent<E>>();
+   private final ListEventBatch _batch = new ListEventBatch();
+   protected final ObservableBase<ListEvent<E>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventList} around a given {@link List}.
@@ -44,6 +52,24 @@ public class ObservableEventList<E> extends AbstractEventList<E> implements
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    public ObservableEventList<E> subList(final int fromIndex, final int toIndex)
    {
@@ -87,6 +113,218 @@ public class ObservableEventList<E> extends AbstractEventList<E> implements
       _helper.fireEvent(event);
    }
 
+   /**
+    * Merges adjacent range events: additions within or right next to the
+    * previously added range, removals right at or before the previously
+    * removed range and updates right next to the previously updated range.
+    * Removals and updates within the previously added range are applied to
+    * it directly.
+    */
+   private class ListEventBatch extends EventBatch<ListEvent<E>>
+   {
+      private final List<ListEvent<E>> _pending = new ArrayList<ListEvent<E>>();
+
+      // The run of events that is currently coalesced
+      private ListEvent<E> _lastEvent;
+      private boolean _lastMerged;
+      private int _lastFromIndex;
+      private ElementRun<E> _lastElements;
+      private ElementRun<E> _lastNewElements;
+
+      @Override
+      protected void enqueue(final ListEvent<E> event)
+      {
+         if (_lastEvent != null && merge(event))
+         {
+            _lastMerged = true;
+            return;
+         }
+
+         flushLast();
+
+         _lastEvent = event;
+         _lastMerged = false;
+         _lastFromIndex = event.getFromIndex();
+         _lastElements = new ElementRun<E>(event.getElements());
+         _lastNewElements = event.getType() == Type.UPDATED ? new ElementRun<E>(event.getNewElements()) : null;
+      }
+
+      @Override
+      protected List<ListEvent<E>> drain()
+      {
+         flushLast();
+
+         final List<ListEvent<E>> result = new ArrayList<ListEvent<E>>(_pending);
+         _pending.clear();
+
+         return result;
+      }
+
+      private boolean merge(final ListEvent<E> event)
+      {
+         final Type lastType = _lastEvent.getType();
+         final int index = event.getFromIndex();
+         final int count = event.getElements().size();
+         final int size = _lastElements.size();
+
+         final boolean withinAdded = lastType == Type.ADDED && index >= _lastFromIndex
+               && index + count <= _lastFromIndex + size;
+
+         switch (event.getType())
+         {
+            case ADDED:
+               if (lastType == Type.ADDED && index >= _lastFromIndex && index <= _lastFromIndex + size)
+               {
+                  _lastElements.addAll(index - _lastFromIndex, event.getElements());
+                  return true;
+               }
+               return false;
+
+            case REMOVED:
+               if (lastType == Type.REMOVED && index == _lastFromIndex)
+               {
+                  _lastElements.addAll(size, event.getElements());
+                  return true;
+               }
+               else if (lastType == Type.REMOVED && index + count == _lastFromIndex)
+               {
+                  _lastElements.addAll(0, event.getElements());
+                  _lastFromIndex = index;
+                  return true;
+               }
+               else if (withinAdded)
+               {
+                  _lastElements.remove(index - _lastFromIndex, count);
+                  return true;
+               }
+               return false;
+
+            case UPDATED:
+               if (lastType == Type.UPDATED && index == _lastFromIndex + size)
+               {
+                  _lastElements.addAll(size, event.getElements());
+                  _lastNewElements.addAll(size, event.getNewElements());
+                  return true;
+               }
+               else if (lastType == Type.UPDATED && index + count == _lastFromIndex)
+               {
+                  _lastElements.addAll(0, event.getElements());
+                  _lastNewElements.addAll(0, event.getNewElements());
+                  _lastFromIndex = index;
+                  return true;
+               }
+               else if (withinAdded)
+               {
+                  _lastElements.set(index - _lastFromIndex, event.getNewElements());
+                  return true;
+               }
+               return false;
+
+            default:
+               return false;
+         }
+      }
+
+      private void flushLast()
+      {
+         if (_lastEvent == null)
+         {
+            return;
+         }
+
+         if (!_lastMerged)
+         {
+            _pending.add(_lastEvent);
+         }
+         else if (_lastElements.size() > 0)
+         {
+            final List<E> elements = Collections.unmodifiableList(_lastElements.toList());
+            final List<E> newElements = _lastNewElements != null ? Collections.unmodifiableList(_lastNewElements
+                  .toList()) : null;
+
+            _pending.add(new ListEventImpl(_lastEvent.getType(), _lastFromIndex, _lastFromIndex + elements.size(),
+                  elements, newElements));
+         }
+
+         _lastEvent = null;
+         _lastElements = null;
+         _lastNewElements = null;
+      }
+   }
+
+   /**
+    * A sequence of elements that can be cheaply extended at both ends - the
+    * elements added at the front are kept in reverse order in a separate
+    * {@link List}.
+    */
+   private static class ElementRun<E>
+   {
+      private List<E> _head = new ArrayList<E>();
+      private List<E> _tail;
+
+      public ElementRun(final List<E> elements)
+      {
+         _tail = new ArrayList<E>(elements);
+      }
+
+      public int size()
+      {
+         return _head.size() + _tail.size();
+      }
+
+      public void addAll(final int index, final List<? extends E> elements)
+      {
+         if (index == size())
+         {
+            _tail.addAll(elements);
+         }
+         else if (index == 0)
+         {
+            for (final ListIterator<? extends E> iterator = elements.listIterator(elements.size()); iterator
+                  .hasPrevious();)
+            {
+               _head.add(iterator.previous());
+            }
+         }
+         else
+         {
+            toList().addAll(index, elements);
+         }
+      }
+
+      public void remove(final int index, final int count)
+      {
+         toList().subList(index, index + count).clear();
+      }
+
+      public void set(final int index, final List<? extends E> elements)
+      {
+         final List<E> list = toList();
+         for (int i = 0; i < elements.size(); ++i)
+         {
+            list.set(index + i, elements.get(i));
+         }
+      }
+
+      public List<E> toList()
+      {
+         if (!_head.isEmpty())
+         {
+            final List<E> list = new ArrayList<E>(size());
+            for (int i = _head.size() - 1; i >= 0; --i)
+            {
+               list.add(_head.get(i));
+            }
+            list.addAll(_tail);
+
+            _head = new ArrayList<E>();
+            _tail = list;
+         }
+
+         return _tail;
+      }
+   }
+
    private class ListEventImpl implements ListEvent<E>
    {
       protected final Type _type;
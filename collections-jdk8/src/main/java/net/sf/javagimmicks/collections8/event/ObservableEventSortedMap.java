@@ -10,13 +10,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link SortedMap} decorator that serves as an {@link Observable} for
  * {@link SortedMapEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
 public class ObservableEventSortedMap<K, V> extends AbstractEventSortedMap<K, V> implements
-      Observable<SortedMapEvent<K, V>>
+      Observable<SortedMapEvent<K, V>>, Batchable
 {
    private static final long serialVersionUID = -4377528012758388630L;
 
-   protected final ObservableBase<SortedMapEvent<K, V>> _helper = new ObservableBase<SortedMapEvent<K, V>>();
+   private final SortedMapEventBatch _batch = new SortedMapEventBatch();
+   protected final ObservableBase<SortedMapEvent<K, V>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventSortedMap} around a given
@@ -42,6 +46,24 @@ public class ObservableEventSortedMap<K, V> extends AbstractEventSortedMap<K, V>
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    public ObservableEventSortedMap<K, V> headMap(final K toKey)
    {
@@ -78,6 +100,45 @@ public class ObservableEventSortedMap<K, V> extends AbstractEventSortedMap<K, V>
       _helper.fireEvent(new SortedMapEventImpl(Type.UPDATED, key, oldValue, newValue));
    }
 
+   private class SortedMapEventBatch extends KeyedEventBatch<SortedMapEvent<K, V>>
+   {
+      @Override
+      protected Object getKey(final SortedMapEvent<K, V> event)
+      {
+         return event.getKey();
+      }
+
+      @Override
+      protected Change getChange(final SortedMapEvent<K, V> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case UPDATED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected SortedMapEvent<K, V> create(final Change change, final SortedMapEvent<K, V> first, final SortedMapEvent<K, V> last)
+      {
+         final V newValue = last.getType() == Type.UPDATED ? last.getNewValue() : last.getValue();
+
+         switch (change)
+         {
+            case ADDED:
+               return new SortedMapEventImpl(Type.ADDED, last.getKey(), newValue);
+            case UPDATED:
+               return new SortedMapEventImpl(Type.UPDATED, last.getKey(), first.getValue(), newValue);
+            default:
+               return new SortedMapEventImpl(Type.REMOVED, last.getKey(), first.getValue());
+         }
+      }
+   }
+
    private class SortedMapEventImpl implements SortedMapEvent<K, V>
    {
       protected final Type _type;
@@ -0,0 +1,108 @@
+package net.sf.javagimmicks.collections8;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collector.Characteristics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing {@link MoreCollectors#summingLongToBigInteger(ToLongFunction)}
+ * with the previous implementation that added up every value as a
+ * {@link BigInteger} (see {@link #summingLongToBigIntegerNaive(ToLongFunction)}
+ * ) - sequentially and in parallel, on values that never or frequently
+ * overflow a {@code long} sum.
+ * <p>
+ * Run e.g. via
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main MoreCollectorsBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoreCollectorsBenchmark
+{
+   @Benchmark
+   public BigInteger naiveSequential(final Values state)
+   {
+      return state._values.stream().collect(summingLongToBigIntegerNaive(Long::longValue));
+   }
+
+   @Benchmark
+   public BigInteger naiveParallel(final Values state)
+   {
+      return state._values.parallelStream().collect(summingLongToBigIntegerNaive(Long::longValue));
+   }
+
+   @Benchmark
+   public BigInteger longSumSequential(final Values state)
+   {
+      return state._values.stream().collect(MoreCollectors.summingLongToBigInteger(Long::longValue));
+   }
+
+   @Benchmark
+   public BigInteger longSumParallel(final Values state)
+   {
+      return state._values.parallelStream().collect(MoreCollectors.summingLongToBigInteger(Long::longValue));
+   }
+
+   @Benchmark
+   public ExactLongSummaryStatistics summarizingParallel(final Values state)
+   {
+      return state._values.parallelStream().collect(MoreCollectors.summarizingLongToBigInteger(Long::longValue));
+   }
+
+   /**
+    * The previous implementation of
+    * {@link MoreCollectors#summingLongToBigInteger(ToLongFunction)}.
+    */
+   static <T> Collector<T, ?, BigInteger> summingLongToBigIntegerNaive(final ToLongFunction<T> toLongFunction)
+   {
+      return Collector.of(() -> new BigInteger[] { BigInteger.ZERO },//
+            (a, t) -> a[0] = a[0].add(BigInteger.valueOf(toLongFunction.applyAsLong(t))),//
+            (a, b) -> {
+               a[0] = a[0].add(b[0]);
+               return a;
+            },//
+            a -> a[0], Characteristics.UNORDERED);
+   }
+
+   @State(Scope.Benchmark)
+   public static class Values
+   {
+      @Param({ "100000", "1000000" })
+      public int _size;
+
+      @Param({ "false", "true" })
+      public boolean _overflowing;
+
+      private List<Long> _values;
+
+      @Setup
+      public void setUp()
+      {
+         final Random random = new Random(42);
+         _values = new ArrayList<>(_size);
+         for (int i = 0; i < _size; ++i)
+         {
+            _values.add(_overflowing ? random.nextLong() : random.nextInt());
+         }
+      }
+   }
+}
@@ -0,0 +1,101 @@
+package net.sf.javagimmicks.collections8;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class MoreCollectorsTest
+{
+   @Test
+   public void testSummingLongToBigIntegerOverflow()
+   {
+      final List<Long> values = Arrays.asList(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 5L);
+
+      assertEquals(reference(values), values.stream().collect(MoreCollectors.summingLongToBigInteger(l -> l)));
+   }
+
+   @Test
+   public void testSummingLongToBigIntegerNegativeOverflow()
+   {
+      final List<Long> values = Arrays.asList(Long.MIN_VALUE, Long.MIN_VALUE, -1L, Long.MAX_VALUE, Long.MIN_VALUE);
+
+      assertEquals(reference(values), values.stream().collect(MoreCollectors.summingLongToBigInteger(l -> l)));
+   }
+
+   @Test
+   public void testSummingLongToBigIntegerParallel()
+   {
+      final Random random = new Random(42);
+      final List<Long> values = LongStream.generate(random::nextLong).limit(100000).boxed()
+            .collect(Collectors.toList());
+
+      final BigInteger expected = reference(values);
+      assertEquals(expected, values.stream().collect(MoreCollectors.summingLongToBigInteger(l -> l)));
+      assertEquals(expected, values.parallelStream().collect(MoreCollectors.summingLongToBigInteger(l -> l)));
+   }
+
+   @Test
+   public void testSummingIntToBigInteger()
+   {
+      final List<Integer> values = Arrays.asList(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, 3);
+
+      assertEquals(BigInteger.valueOf(Integer.MAX_VALUE + 2L),
+            values.stream().collect(MoreCollectors.summingIntToBigInteger(i -> i)));
+      assertEquals(BigInteger.ZERO, Arrays.<Integer> asList().stream()
+            .collect(MoreCollectors.summingIntToBigInteger(i -> i)));
+   }
+
+   @Test
+   public void testSummarizingLongToBigInteger()
+   {
+      final List<Long> values = Arrays.asList(Long.MAX_VALUE, 7L, Long.MAX_VALUE, -3L);
+
+      final ExactLongSummaryStatistics stats = values.parallelStream().collect(
+            MoreCollectors.summarizingLongToBigInteger(l -> l));
+
+      assertEquals(4, stats.getCount());
+      assertEquals(reference(values), stats.getSum());
+      assertEquals(-3L, stats.getMin());
+      assertEquals(Long.MAX_VALUE, stats.getMax());
+      assertEquals(new BigDecimal(reference(values)).divide(BigDecimal.valueOf(4), MathContext.DECIMAL128),
+            stats.getAverage(MathContext.DECIMAL128));
+      assertEquals(reference(values).doubleValue() / 4, stats.getAverage(), 1e3);
+   }
+
+   @Test
+   public void testSummarizingIntToBigIntegerEmpty()
+   {
+      final ExactLongSummaryStatistics stats = Arrays.<Integer> asList().stream().collect(
+            MoreCollectors.summarizingIntToBigInteger(i -> i));
+
+      assertEquals(0, stats.getCount());
+      assertEquals(BigInteger.ZERO, stats.getSum());
+      assertEquals(Long.MAX_VALUE, stats.getMin());
+      assertEquals(Long.MIN_VALUE, stats.getMax());
+      assertEquals(0.0, stats.getAverage(), 0.0);
+      assertEquals(BigDecimal.ZERO, stats.getAverage(MathContext.DECIMAL64));
+   }
+
+   @Test
+   public void testAveragingLongToBigDecimal()
+   {
+      final List<Long> values = Arrays.asList(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+      assertEquals(BigDecimal.valueOf(Long.MAX_VALUE),
+            values.stream().collect(MoreCollectors.averagingLongToBigDecimal(l -> l, MathContext.DECIMAL128)));
+   }
+
+   private static BigInteger reference(final List<Long> values)
+   {
+      return values.stream().map(BigInteger::valueOf).reduce(BigInteger.ZERO, BigInteger::add);
+   }
+}
@@ -1,15 +1,19 @@
 package net.sf.javagimmicks.collections8.diff;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
 
 import net.sf.javagimmicks.collections8.diff.Difference;
 import net.sf.javagimmicks.collections8.diff.DifferenceList;
 import net.sf.javagimmicks.collections8.diff.DifferenceUtils;
 import net.sf.javagimmicks.collections8.diff.Difference.Range;
+import net.sf.javagimmicks.collections8.diff.DifferenceUtils.Algorithm;
 
 import org.junit.Test;
 
@@ -100,6 +104,210 @@ public class DifferenceUtilsTest
       assertEquals(from, toCopy);
    }
 
+   @Test
+   public void testMyers()
+   {
+      final List<String> from = Arrays.asList(new String[] { "a", "b", "c", "d", "e", "f" });
+      final List<String> to = Arrays.asList(new String[] { "w", "b", "x", "y", "e", "z" });
+      final DifferenceList<String> d = DifferenceUtils.findDifferences(from, to, Algorithm.MYERS);
+
+      assertEquals(3, d.size());
+      assertDifference(d.get(0), 0, 0, 0, 0);
+      assertDifference(d.get(1), 2, 3, 2, 3);
+      assertDifference(d.get(2), 5, 5, 5, 5);
+
+      final DifferenceList<String> d2 = DifferenceUtils.findDifferences(Arrays.asList("b", "e"), from,
+            Algorithm.MYERS);
+      assertEquals(3, d2.size());
+      assertDifference(d2.get(0), 0, Difference.NONE, 0, 0);
+      assertDifference(d2.get(1), 1, Difference.NONE, 2, 3);
+      assertDifference(d2.get(2), 2, Difference.NONE, 5, 5);
+
+      assertEquals(0, DifferenceUtils.findDifferences(from, from, Algorithm.MYERS).size());
+      assertDifference(DifferenceUtils.findDifferences(new ArrayList<String>(), to, Algorithm.MYERS).get(0), 0,
+            Difference.NONE, 0, 5);
+   }
+
+   @Test
+   public void testMyersRandom()
+   {
+      final Random random = new Random(42L);
+
+      for (int i = 0; i < 500; ++i)
+      {
+         final List<Integer> from = createRandomList(random, 1 + random.nextInt(40), 6);
+         final List<Integer> to = createRandomList(random, 1 + random.nextInt(40), 6);
+
+         final DifferenceList<Integer> lcs = DifferenceUtils.findDifferences(from, to, Algorithm.LCS);
+         final DifferenceList<Integer> myers = DifferenceUtils.findDifferences(from, to, Algorithm.MYERS);
+
+         // Both algorithms must find a minimal edit script
+         assertEquals(getEditCount(lcs), getEditCount(myers));
+
+         final List<Integer> fromCopy = new ArrayList<Integer>(from);
+         myers.applyTo(fromCopy);
+         assertEquals(to, fromCopy);
+      }
+   }
+
+   @Test
+   public void testMyersLarge()
+   {
+      final Random random = new Random(42L);
+      final List<Integer> from = createRandomList(random, 500000, Integer.MAX_VALUE);
+      final List<Integer> to = new ArrayList<Integer>(from);
+      for (int i = 0; i < 50; ++i)
+      {
+         final int index = random.nextInt(to.size());
+         if (random.nextBoolean())
+         {
+            to.remove(index);
+         }
+         else
+         {
+            to.set(index, -1);
+         }
+      }
+
+      final DifferenceList<Integer> d = DifferenceUtils.findDifferences(from, to, Algorithm.MYERS);
+
+      final List<Integer> fromCopy = new ArrayList<Integer>(from);
+      d.applyTo(fromCopy);
+      assertEquals(to, fromCopy);
+   }
+
+   @Test
+   public void testStreaming()
+   {
+      final Random random = new Random(42L);
+
+      for (int i = 0; i < 20; ++i)
+      {
+         final List<Integer> from = createRandomList(random, 2000, 500);
+         final List<Integer> to = createEditedList(random, from, 30);
+
+         final List<Difference<Integer>> differences = new ArrayList<Difference<Integer>>();
+         DifferenceUtils.findDifferences(from.spliterator(), to.spliterator(), null, 64, differences::add);
+
+         // Differences must be emitted in ascending order
+         for (int j = 1; j < differences.size(); ++j)
+         {
+            assertTrue(differences.get(j - 1).deleteRange().getStartIndex() < differences.get(j).deleteRange()
+                  .getStartIndex()
+                  || differences.get(j - 1).addRange().getStartIndex() < differences.get(j).addRange()
+                        .getStartIndex());
+         }
+
+         final List<Integer> fromCopy = new ArrayList<Integer>(from);
+         for (int j = differences.size() - 1; j >= 0; --j)
+         {
+            DifferenceUtils.applyDifference(differences.get(j), fromCopy);
+         }
+         assertEquals(to, fromCopy);
+      }
+   }
+
+   @Test
+   public void testStreamingMinimal()
+   {
+      assertStreamingMinimal(Arrays.asList(0, 1, 1, 0), Arrays.asList(1, 0), DifferenceUtils.DEFAULT_WINDOW_SIZE);
+      assertStreamingMinimal(Arrays.asList(1, 1, 0), Arrays.asList(0, 0, 0, 1, 1, 0),
+            DifferenceUtils.DEFAULT_WINDOW_SIZE);
+
+      final Random random = new Random(42L);
+      for (int i = 0; i < 2000; ++i)
+      {
+         final List<Integer> from = createRandomList(random, random.nextInt(30), 3);
+         final List<Integer> to = createRandomList(random, random.nextInt(30), 3);
+
+         // Also with windows that are filled exactly
+         assertStreamingMinimal(from, to, Math.max(1, Math.max(from.size(), to.size())));
+      }
+   }
+
+   @Test
+   public void testStreamingIncremental()
+   {
+      final Random random = new Random(42L);
+      final List<Integer> from = createRandomList(random, 100000, Integer.MAX_VALUE);
+      final List<Integer> to = new ArrayList<Integer>(from);
+      to.set(10, -1);
+
+      final int[] readCount = new int[1];
+      final Spliterator<Integer> fromSpliterator = from.stream().peek(i -> ++readCount[0]).spliterator();
+
+      final List<Integer> readCountsAtDifference = new ArrayList<Integer>();
+      DifferenceUtils.findDifferences(fromSpliterator, to.spliterator(), difference -> {
+         assertDifference(difference, 10, 10, 10, 10);
+         readCountsAtDifference.add(readCount[0]);
+      });
+
+      assertEquals(1, readCountsAtDifference.size());
+      assertTrue(readCountsAtDifference.get(0) <= 2 * DifferenceUtils.DEFAULT_WINDOW_SIZE);
+      assertEquals(from.size(), readCount[0]);
+   }
+
+   private static void assertStreamingMinimal(final List<Integer> from, final List<Integer> to, final int windowSize)
+   {
+      final List<Difference<Integer>> differences = new ArrayList<Difference<Integer>>();
+      DifferenceUtils.findDifferences(from.spliterator(), to.spliterator(), null, windowSize, differences::add);
+
+      final String message = from + " -> " + to;
+      assertEquals(message, getEditCount(DifferenceUtils.findDifferences(from, to, Algorithm.MYERS)),
+            getEditCount(differences));
+
+      final List<Integer> fromCopy = new ArrayList<Integer>(from);
+      for (int j = differences.size() - 1; j >= 0; --j)
+      {
+         DifferenceUtils.applyDifference(differences.get(j), fromCopy);
+      }
+      assertEquals(message, to, fromCopy);
+   }
+
+   private static List<Integer> createEditedList(final Random random, final List<Integer> list, final int edits)
+   {
+      final List<Integer> result = new ArrayList<Integer>(list);
+      for (int i = 0; i < edits; ++i)
+      {
+         final int index = random.nextInt(result.size());
+         switch (random.nextInt(3))
+         {
+            case 0:
+               result.remove(index);
+               break;
+            case 1:
+               result.add(index, -i);
+               break;
+            default:
+               result.set(index, -i);
+         }
+      }
+
+      return result;
+   }
+
+   private static List<Integer> createRandomList(final Random random, final int size, final int range)
+   {
+      final List<Integer> result = new ArrayList<Integer>(size);
+      for (int i = 0; i < size; ++i)
+      {
+         result.add(random.nextInt(range));
+      }
+
+      return result;
+   }
+
+   private static int getEditCount(final List<? extends Difference<?>> differences)
+   {
+      int result = 0;
+      for (final Difference<?> d : differences)
+      {
+         result += d.deleteRange().size() + d.addRange().size();
+      }
+
+      return result;
+   }
+
    protected static void assertDifference(final Difference<?> d, final int delStart, final int delEnd,
          final int addStart, final int addEnd)
    {
@@ -0,0 +1,313 @@
+package net.sf.javagimmicks.collections.diff;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the differences between two {@link List}s with the linear space
+ * variant of the O(ND) difference algorithm by Eugene W. Myers.
+ * <p>
+ * The algorithm recursively searches the "middle snake" of the edit graph
+ * from both ends and splits the problem there, so memory stays linear in the
+ * size of the input and time grows with the product of the input size and
+ * the number of differences - which makes it much faster than
+ * {@link DifferenceAlgorithm} for large and mostly similar {@link List}s.
+ * <p>
+ * Elements are mapped to {@code int} codes up front (according to the same
+ * equality rules as {@link DifferenceAlgorithm}), so all the work is done on
+ * primitive {@code int} arrays.
+ */
+class MyersDifferenceAlgorithm<T>
+{
+   protected final List<T> _fromList;
+   protected final List<T> _toList;
+
+   protected final DefaultDifferenceList<T> _differences = new DefaultDifferenceList<T>();
+
+   protected final int[] _from;
+   protected final int[] _to;
+
+   // Furthest reaching paths of the forward and backward search
+   protected final int[] _forward;
+   protected final int[] _backward;
+
+   // The end of the last reported match in both lists
+   protected int _fromIndex;
+   protected int _toIndex;
+
+   protected MyersDifferenceAlgorithm(final List<T> fromList, final List<T> toList, final Comparator<T> comparator)
+   {
+      _fromList = fromList;
+      _toList = toList;
+
+      final Map<T, Integer> codes = createElementMap(fromList, toList, comparator);
+      _from = encode(fromList, codes);
+      _to = encode(toList, codes);
+
+      final int vLength = 2 * ((_from.length + _to.length + 1) / 2) + 2;
+      _forward = new int[vLength];
+      _backward = new int[vLength];
+
+      diff(0, _from.length, 0, _to.length);
+
+      // Report the trailing difference, if any
+      onMatch(_from.length, _to.length, 0);
+   }
+
+   public DifferenceList<T> getDifferences()
+   {
+      return _differences;
+   }
+
+   /**
+    * Finds the differences between the ranges
+    * <code>[fromStart, fromEnd)</code> and <code>[toStart, toEnd)</code> and
+    * reports the matches in ascending order.
+    */
+   protected void diff(int fromStart, int fromEnd, int toStart, int toEnd)
+   {
+      if (Thread.currentThread().isInterrupted())
+      {
+         return;
+      }
+
+      // Strip the common prefix
+      final int prefixStart = fromStart;
+      while (fromStart < fromEnd && toStart < toEnd && _from[fromStart] == _to[toStart])
+      {
+         ++fromStart;
+         ++toStart;
+      }
+      if (fromStart > prefixStart)
+      {
+         onMatch(prefixStart, toStart - (fromStart - prefixStart), fromStart - prefixStart);
+      }
+
+      // Strip the common suffix (but report it only at the end)
+      final int suffixEnd = fromEnd;
+      while (fromStart < fromEnd && toStart < toEnd && _from[fromEnd - 1] == _to[toEnd - 1])
+      {
+         --fromEnd;
+         --toEnd;
+      }
+
+      if (fromStart < fromEnd && toStart < toEnd)
+      {
+         final long split = findMiddleSnake(fromStart, fromEnd, toStart, toEnd);
+         if (split >= 0L)
+         {
+            final int fromSplit = (int) (split >>> 32);
+            final int toSplit = (int) split;
+
+            diff(fromStart, fromSplit, toStart, toSplit);
+            diff(fromSplit, fromEnd, toSplit, toEnd);
+         }
+      }
+
+      if (suffixEnd > fromEnd)
+      {
+         onMatch(fromEnd, toEnd, suffixEnd - fromEnd);
+      }
+   }
+
+   /**
+    * Searches the middle snake of the edit graph of the given ranges (which
+    * don't share a common prefix or suffix) simultaneously from the start and
+    * the end.
+    * 
+    * @return the absolute split point with the from index in the upper and
+    *         the to index in the lower 32 bits or {@code -1} if the ranges
+    *         have nothing in common
+    */
+   protected long findMiddleSnake(final int fromStart, final int fromEnd, final int toStart, final int toEnd)
+   {
+      final int n = fromEnd - fromStart;
+      final int m = toEnd - toStart;
+      final int maxD = (n + m + 1) / 2;
+      final int offset = maxD;
+      final int vLength = 2 * maxD + 2;
+
+      final int[] forward = _forward;
+      final int[] backward = _backward;
+      Arrays.fill(forward, 0, vLength, -1);
+      Arrays.fill(backward, 0, vLength, -1);
+      forward[offset + 1] = 0;
+      backward[offset + 1] = 0;
+
+      final int delta = n - m;
+      // If the delta is odd, the paths overlap in a forward step
+      final boolean front = (delta & 1) != 0;
+
+      // Offsets for the diagonals that ran off the edit graph
+      int forwardKStart = 0;
+      int forwardKEnd = 0;
+      int backwardKStart = 0;
+      int backwardKEnd = 0;
+
+      for (int d = 0; d < maxD; ++d)
+      {
+         if (Thread.currentThread().isInterrupted())
+         {
+            return -1L;
+         }
+
+         for (int k = -d + forwardKStart; k <= d - forwardKEnd; k += 2)
+         {
+            final int kOffset = offset + k;
+            int x;
+            if (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1]))
+            {
+               x = forward[kOffset + 1];
+            }
+            else
+            {
+               x = forward[kOffset - 1] + 1;
+            }
+            int y = x - k;
+
+            while (x < n && y < m && _from[fromStart + x] == _to[toStart + y])
+            {
+               ++x;
+               ++y;
+            }
+            forward[kOffset] = x;
+
+            if (x > n)
+            {
+               forwardKEnd += 2;
+            }
+            else if (y > m)
+            {
+               forwardKStart += 2;
+            }
+            else if (front)
+            {
+               final int backwardOffset = offset + delta - k;
+               if (backwardOffset >= 0 && backwardOffset < vLength && backward[backwardOffset] != -1)
+               {
+                  if (x >= n - backward[backwardOffset])
+                  {
+                     return toSplit(fromStart + x, toStart + y);
+                  }
+               }
+            }
+         }
+
+         for (int k = -d + backwardKStart; k <= d - backwardKEnd; k += 2)
+         {
+            final int kOffset = offset + k;
+            int x;
+            if (k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1]))
+            {
+               x = backward[kOffset + 1];
+            }
+            else
+            {
+               x = backward[kOffset - 1] + 1;
+            }
+            int y = x - k;
+
+            while (x < n && y < m && _from[fromEnd - x - 1] == _to[toEnd - y - 1])
+            {
+               ++x;
+               ++y;
+            }
+            backward[kOffset] = x;
+
+            if (x > n)
+            {
+               backwardKEnd += 2;
+            }
+            else if (y > m)
+            {
+               backwardKStart += 2;
+            }
+            else if (!front)
+            {
+               final int forwardOffset = offset + delta - k;
+               if (forwardOffset >= 0 && forwardOffset < vLength && forward[forwardOffset] != -1)
+               {
+                  final int forwardX = forward[forwardOffset];
+                  final int forwardY = offset + forwardX - forwardOffset;
+                  if (forwardX >= n - x)
+                  {
+                     return toSplit(fromStart + forwardX, toStart + forwardY);
+                  }
+               }
+            }
+         }
+      }
+
+      return -1L;
+   }
+
+   /**
+    * Reports a run of matching elements - and the difference between the end
+    * of the last match and the start of this one (if there is any).
+    */
+   protected void onMatch(final int fromIndex, final int toIndex, final int length)
+   {
+      if (fromIndex > _fromIndex || toIndex > _toIndex)
+      {
+         final DefaultDifference<T> difference = new DefaultDifference<T>(
+               _fromIndex, fromIndex > _fromIndex ? fromIndex - 1 : Difference.NONE,
+               _toIndex, toIndex > _toIndex ? toIndex - 1 : Difference.NONE,
+               _fromList, _toList);
+
+         _differences.getDecorated().add(difference);
+      }
+
+      _fromIndex = fromIndex + length;
+      _toIndex = toIndex + length;
+   }
+
+   private static long toSplit(final int fromIndex, final int toIndex)
+   {
+      return ((long) fromIndex << 32) | (toIndex & 0xFFFFFFFFL);
+   }
+
+   /**
+    * Creates a {@link Map} with elements as keys - using the same notion of
+    * equality as {@link DifferenceAlgorithm#equals(Object, Object)}.
+    */
+   static <T, V> Map<T, V> createElementMap(final List<T> fromList, final List<T> toList,
+         final Comparator<T> comparator)
+   {
+      if (comparator != null)
+      {
+         return new TreeMap<T, V>(comparator);
+      }
+
+      final T sample = !fromList.isEmpty() ? fromList.get(0) : (!toList.isEmpty() ? toList.get(0) : null);
+      if (sample instanceof Comparable<?>)
+      {
+         return new TreeMap<T, V>();
+      }
+
+      return new HashMap<T, V>();
+   }
+
+   private static <T> int[] encode(final List<T> list, final Map<T, Integer> codes)
+   {
+      final int[] result = new int[list.size()];
+
+      int i = 0;
+      for (final T element : list)
+      {
+         Integer code = codes.get(element);
+         if (code == null)
+         {
+            code = codes.size();
+            codes.put(element, code);
+         }
+
+         result[i++] = code;
+      }
+
+      return result;
+   }
+}
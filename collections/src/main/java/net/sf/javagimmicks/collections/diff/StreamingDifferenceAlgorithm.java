@@ -0,0 +1,332 @@
+package net.sf.javagimmicks.collections.diff;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.javagimmicks.util.Consumer;
+
+/**
+ * Finds the differences between two sequences provided by {@link Iterator}s
+ * and emits them incrementally to a {@link Consumer} - while holding at most a
+ * fixed number of elements of each sequence in memory.
+ * <p>
+ * The algorithm reads both sequences into a look-ahead window of bounded size
+ * and repeatedly
+ * <ol>
+ * <li>skips the common prefix of both windows,</li>
+ * <li>diffs the complete windows with {@link MyersDifferenceAlgorithm} if both
+ * sequences are read completely - otherwise</li>
+ * <li>searches anchors: elements that occur exactly once in both windows,
+ * reduced to their longest increasing sequence (like "patience diff") - or the
+ * nearest common element if there are no unique ones,</li>
+ * <li>diffs the ranges between the anchors with
+ * {@link MyersDifferenceAlgorithm} and emits the resulting
+ * {@link Difference}s,</li>
+ * <li>drops everything up to the last anchor and refills the windows.</li>
+ * </ol>
+ * If the windows have nothing in common at all, their complete contents are
+ * emitted as one {@link Difference}. So the result is always a correct edit
+ * script. It is minimal if both sequences - apart from their common prefix -
+ * fit into the window. Otherwise the anchors may prevent the minimal one.
+ */
+class StreamingDifferenceAlgorithm<T>
+{
+   protected final Iterator<T> _fromIterator;
+   protected final Iterator<T> _toIterator;
+   protected final Comparator<T> _comparator;
+   protected final int _windowSize;
+   protected final Consumer<Difference<T>> _consumer;
+
+   protected final List<T> _fromWindow;
+   protected final List<T> _toWindow;
+
+   // The absolute indexes of the first window elements
+   protected int _fromIndex;
+   protected int _toIndex;
+
+   protected StreamingDifferenceAlgorithm(final Iterator<T> fromIterator, final Iterator<T> toIterator,
+         final Comparator<T> comparator, final int windowSize, final Consumer<Difference<T>> consumer)
+   {
+      if (windowSize < 1)
+      {
+         throw new IllegalArgumentException("Window size must be at least 1!");
+      }
+
+      _fromIterator = fromIterator;
+      _toIterator = toIterator;
+      _comparator = comparator;
+      _windowSize = windowSize;
+      _consumer = consumer;
+
+      _fromWindow = new ArrayList<T>(windowSize);
+      _toWindow = new ArrayList<T>(windowSize);
+   }
+
+   public void run()
+   {
+      final Thread currentThread = Thread.currentThread();
+
+      while (!currentThread.isInterrupted())
+      {
+         fill(_fromIterator, _fromWindow);
+         fill(_toIterator, _toWindow);
+
+         final int fromSize = _fromWindow.size();
+         final int toSize = _toWindow.size();
+
+         if (fromSize == 0 && toSize == 0)
+         {
+            return;
+         }
+
+         int prefix = 0;
+         while (prefix < fromSize && prefix < toSize && equals(_fromWindow.get(prefix), _toWindow.get(prefix)))
+         {
+            ++prefix;
+         }
+
+         if (prefix > 0)
+         {
+            drop(prefix, prefix);
+            continue;
+         }
+
+         if (!_fromIterator.hasNext() && !_toIterator.hasNext())
+         {
+            // The windows hold the complete rest of both sequences
+            diff(0, fromSize, 0, toSize);
+            return;
+         }
+
+         int[] anchors = fromSize > 0 && toSize > 0 ? findUniqueAnchors() : null;
+         if (anchors == null && fromSize > 0 && toSize > 0)
+         {
+            anchors = findNearestAnchor();
+         }
+
+         if (anchors == null)
+         {
+            // Nothing in common within the window
+            emit(0, fromSize, 0, toSize);
+            drop(fromSize, toSize);
+            continue;
+         }
+
+         int fromStart = 0;
+         int toStart = 0;
+         for (int i = 0; i < anchors.length; i += 2)
+         {
+            diff(fromStart, anchors[i], toStart, anchors[i + 1]);
+
+            fromStart = anchors[i] + 1;
+            toStart = anchors[i + 1] + 1;
+         }
+
+         drop(fromStart, toStart);
+      }
+   }
+
+   /**
+    * Finds the elements occurring exactly once in both windows and returns
+    * the longest sequence of them that is increasing in both windows as
+    * alternating from and to indexes (or {@code null} if there are none).
+    */
+   protected int[] findUniqueAnchors()
+   {
+      // Per element: [from count, to count, from index, to index]
+      final Map<T, int[]> occurrences = MyersDifferenceAlgorithm.createElementMap(_fromWindow, _toWindow,
+            _comparator);
+
+      for (int i = 0; i < _fromWindow.size(); ++i)
+      {
+         final T element = _fromWindow.get(i);
+
+         int[] occurrence = occurrences.get(element);
+         if (occurrence == null)
+         {
+            occurrence = new int[4];
+            occurrences.put(element, occurrence);
+         }
+
+         ++occurrence[0];
+         occurrence[2] = i;
+      }
+
+      for (int j = 0; j < _toWindow.size(); ++j)
+      {
+         final int[] occurrence = occurrences.get(_toWindow.get(j));
+         if (occurrence != null)
+         {
+            ++occurrence[1];
+            occurrence[3] = j;
+         }
+      }
+
+      // Collect the to indexes of unique common elements in from order
+      final int[] candidates = new int[Math.min(_fromWindow.size(), _toWindow.size())];
+      int candidateCount = 0;
+      for (int i = 0; i < _fromWindow.size() && candidateCount < candidates.length; ++i)
+      {
+         final int[] occurrence = occurrences.get(_fromWindow.get(i));
+         if (occurrence[0] == 1 && occurrence[1] == 1)
+         {
+            candidates[candidateCount++] = occurrence[3];
+         }
+      }
+
+      if (candidateCount == 0)
+      {
+         return null;
+      }
+
+      // Patience sorting: find the longest increasing subsequence of the to
+      // indexes (pileTops holds candidate positions, predecessors the links)
+      final int[] pileTops = new int[candidateCount];
+      final int[] predecessors = new int[candidateCount];
+      int pileCount = 0;
+
+      for (int c = 0; c < candidateCount; ++c)
+      {
+         int low = 0;
+         int high = pileCount;
+         while (low < high)
+         {
+            final int middle = (low + high) >>> 1;
+            if (candidates[pileTops[middle]] < candidates[c])
+            {
+               low = middle + 1;
+            }
+            else
+            {
+               high = middle;
+            }
+         }
+
+         predecessors[c] = low > 0 ? pileTops[low - 1] : -1;
+         pileTops[low] = c;
+         if (low == pileCount)
+         {
+            ++pileCount;
+         }
+      }
+
+      final int[] anchors = new int[2 * pileCount];
+      for (int c = pileTops[pileCount - 1], a = anchors.length - 2; c >= 0; c = predecessors[c], a -= 2)
+      {
+         anchors[a + 1] = candidates[c];
+      }
+
+      // Resolve the from indexes (the to indexes identify the elements)
+      for (int a = 0; a < anchors.length; a += 2)
+      {
+         anchors[a] = occurrences.get(_toWindow.get(anchors[a + 1]))[2];
+      }
+
+      return anchors;
+   }
+
+   /**
+    * Finds the common element with the smallest sum of window indexes and
+    * returns its from and to index (or {@code null} if there is none).
+    */
+   protected int[] findNearestAnchor()
+   {
+      final Map<T, Integer> firstToIndexes = MyersDifferenceAlgorithm.createElementMap(_fromWindow, _toWindow,
+            _comparator);
+      for (int j = _toWindow.size() - 1; j >= 0; --j)
+      {
+         firstToIndexes.put(_toWindow.get(j), j);
+      }
+
+      int[] result = null;
+      for (int i = 0; i < _fromWindow.size() && (result == null || i < result[0] + result[1]); ++i)
+      {
+         final Integer j = firstToIndexes.get(_fromWindow.get(i));
+         if (j != null && (result == null || i + j < result[0] + result[1]))
+         {
+            result = new int[] { i, j };
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Diffs the given window ranges and emits the resulting differences.
+    */
+   protected void diff(final int fromStart, final int fromEnd, final int toStart, final int toEnd)
+   {
+      if (fromStart == fromEnd || toStart == toEnd)
+      {
+         emit(fromStart, fromEnd, toStart, toEnd);
+         return;
+      }
+
+      final DifferenceList<T> differences = new MyersDifferenceAlgorithm<T>(_fromWindow.subList(fromStart, fromEnd),
+            _toWindow.subList(toStart, toEnd), _comparator).getDifferences();
+
+      for (final Difference<T> difference : differences)
+      {
+         final int deleteStart = fromStart + difference.deleteRange().getStartIndex();
+         final int addStart = toStart + difference.addRange().getStartIndex();
+
+         emit(deleteStart, deleteStart + difference.deleteRange().size(), addStart, addStart
+               + difference.addRange().size());
+      }
+   }
+
+   protected void emit(final int fromStart, final int fromEnd, final int toStart, final int toEnd)
+   {
+      if (fromStart == fromEnd && toStart == toEnd)
+      {
+         return;
+      }
+
+      _consumer.accept(new StreamedDifference<T>(_fromIndex + fromStart, _fromWindow.subList(fromStart, fromEnd),
+            _toIndex + toStart, _toWindow.subList(toStart, toEnd)));
+   }
+
+   protected void drop(final int fromCount, final int toCount)
+   {
+      _fromWindow.subList(0, fromCount).clear();
+      _toWindow.subList(0, toCount).clear();
+
+      _fromIndex += fromCount;
+      _toIndex += toCount;
+   }
+
+   /**
+    * Compares two elements like {@link DifferenceAlgorithm#equals(Object, Object)}.
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   protected boolean equals(final T x, final T y)
+   {
+      if (_comparator != null)
+      {
+         return _comparator.compare(x, y) == 0;
+      }
+
+      if (x == null || y == null)
+      {
+         return x == y;
+      }
+
+      if (x instanceof Comparable)
+      {
+         return ((Comparable) x).compareTo(y) == 0;
+      }
+
+      return x.equals(y);
+   }
+
+   private void fill(final Iterator<T> iterator, final List<T> window)
+   {
+      while (window.size() < _windowSize && iterator.hasNext())
+      {
+         window.add(iterator.next());
+      }
+   }
+}
@@ -0,0 +1,52 @@
+package net.sf.javagimmicks.collections.event;
+
+import net.sf.javagimmicks.event.EventListener;
+import net.sf.javagimmicks.event.Observable;
+
+/**
+ * Implemented by {@link Observable} decorators that can collect their change
+ * events during a batch of modifications and deliver them coalesced to the
+ * registered {@link EventListener}s when the batch ends - so bulk
+ * modifications result in a few events describing the overall change instead
+ * of one event per element.
+ * <p>
+ * Batches may be nested - the events are delivered when the outermost batch
+ * ends. Always end a batch in a {@code finally} block:
+ * 
+ * <pre>
+ * list.beginBatch();
+ * try
+ * {
+ *    // modify the list
+ * }
+ * finally
+ * {
+ *    list.endBatch();
+ * }
+ * </pre>
+ */
+public interface Batchable
+{
+   /**
+    * Starts a new (possibly nested) batch - from now on events are collected
+    * instead of being delivered until the outermost batch is ended via
+    * {@link #endBatch()}.
+    */
+   void beginBatch();
+
+   /**
+    * Ends the current batch - if it is the outermost one, the collected events
+    * are coalesced and delivered.
+    * 
+    * @throws IllegalStateException
+    *            if there is no active batch
+    */
+   void endBatch();
+
+   /**
+    * Returns if there is an active batch.
+    * 
+    * @return if there is an active batch
+    */
+   boolean isBatching();
+}
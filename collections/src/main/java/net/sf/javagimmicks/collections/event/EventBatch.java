@@ -0,0 +1,69 @@
+package net.sf.javagimmicks.collections.event;
+
+import java.util.List;
+
+import net.sf.javagimmicks.event.Event;
+import net.sf.javagimmicks.event.ObservableBase;
+
+/**
+ * An {@link ObservableBase} that collects the fired {@link Event}s while a
+ * batch is active and delivers them coalesced when it ends - the coalescing
+ * itself is up to the sub classes.
+ */
+abstract class EventBatch<Evt extends Event<Evt>> extends ObservableBase<Evt> implements Batchable
+{
+   private int _depth;
+
+   @Override
+   public void beginBatch()
+   {
+      ++_depth;
+   }
+
+   @Override
+   public void endBatch()
+   {
+      if (_depth == 0)
+      {
+         throw new IllegalStateException("There is no active batch!");
+      }
+
+      if (--_depth == 0)
+      {
+         for (final Evt event : drain())
+         {
+            super.fireEvent(event);
+         }
+      }
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _depth > 0;
+   }
+
+   @Override
+   public void fireEvent(final Evt event)
+   {
+      if (_depth > 0)
+      {
+         enqueue(event);
+      }
+      else
+      {
+         super.fireEvent(event);
+      }
+   }
+
+   /**
+    * Adds an {@link Event} to the current batch - coalescing it with the
+    * already collected ones where possible.
+    */
+   protected abstract void enqueue(Evt event);
+
+   /**
+    * Returns the coalesced {@link Event}s of the current batch and clears it.
+    */
+   protected abstract List<Evt> drain();
+}
@@ -0,0 +1,98 @@
+package net.sf.javagimmicks.collections.event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.javagimmicks.event.Event;
+
+/**
+ * An {@link EventBatch} for {@link Event}s that describe the change of a single
+ * key (or element) - it keeps only the net change per key: e.g. an addition
+ * followed by a removal of the same key cancels out, and two updates become
+ * one update from the first old to the last new value.
+ * <p>
+ * The coalesced {@link Event}s are delivered in the order in which their keys
+ * were first changed.
+ */
+abstract class KeyedEventBatch<Evt extends Event<Evt>> extends EventBatch<Evt>
+{
+   /**
+    * The kind of change that an {@link Event} describes - independent from the
+    * concrete {@link Event} type.
+    */
+   enum Change
+   {
+      ADDED, UPDATED, REMOVED
+   }
+
+   private final Map<Object, Evt> _pending = new LinkedHashMap<Object, Evt>();
+
+   @Override
+   protected void enqueue(final Evt event)
+   {
+      final Object key = getKey(event);
+
+      final Evt first = _pending.get(key);
+      if (first == null)
+      {
+         _pending.put(key, event);
+         return;
+      }
+
+      // Replacing the value of an existing key keeps its position
+      final Change change = coalesce(getChange(first), getChange(event));
+      if (change != null)
+      {
+         _pending.put(key, create(change, first, event));
+      }
+      else
+      {
+         _pending.remove(key);
+      }
+   }
+
+   @Override
+   protected List<Evt> drain()
+   {
+      final List<Evt> result = new ArrayList<Evt>(_pending.values());
+      _pending.clear();
+
+      return result;
+   }
+
+   /**
+    * Returns the key that the given {@link Event} is about.
+    */
+   protected abstract Object getKey(Evt event);
+
+   /**
+    * Returns the {@link Change} that the given {@link Event} describes.
+    */
+   protected abstract Change getChange(Evt event);
+
+   /**
+    * Creates a new {@link Event} with the given {@link Change} that combines
+    * the state before the first {@link Event} with the state after the last
+    * one.
+    */
+   protected abstract Evt create(Change change, Evt first, Evt last);
+
+   /**
+    * Returns the net {@link Change} of two subsequent {@link Change}s of the
+    * same key or {@code null} if they cancel out.
+    */
+   private static Change coalesce(final Change first, final Change next)
+   {
+      switch (first)
+      {
+         case ADDED:
+            return next == Change.REMOVED ? null : Change.ADDED;
+         case UPDATED:
+            return next == Change.REMOVED ? Change.REMOVED : Change.UPDATED;
+         default:
+            return next == Change.REMOVED ? Change.REMOVED : Change.UPDATED;
+      }
+   }
+}
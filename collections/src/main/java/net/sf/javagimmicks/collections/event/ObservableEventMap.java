@@ -10,13 +10,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link Map} decorator that serves as an {@link Observable} for
  * {@link MapEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
 public class ObservableEventMap<K, V> extends AbstractEventMap<K, V> implements
-      Observable<MapEvent<K, V>>
+      Observable<MapEvent<K, V>>, Batchable
 {
    private static final long serialVersionUID = 8006998141057065129L;
 
-   protected final ObservableBase<MapEvent<K, V>> _helper = new ObservableBase<MapEvent<K, V>>();
+   private final MapEventBatch _batch = new MapEventBatch();
+   protected final ObservableBase<MapEvent<K, V>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventMap} around a given {@link Map}.
@@ -41,6 +45,24 @@ public class ObservableEventMap<K, V> extends AbstractEventMap<K, V> implements
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    protected void fireEntryAdded(final K key, final V value)
    {
@@ -59,6 +81,45 @@ public class ObservableEventMap<K, V> extends AbstractEventMap<K, V> implements
       _helper.fireEvent(new MapEventImpl(Type.UPDATED, key, oldValue, newValue));
    }
 
+   private class MapEventBatch extends KeyedEventBatch<MapEvent<K, V>>
+   {
+      @Override
+      protected Object getKey(final MapEvent<K, V> event)
+      {
+         return event.getKey();
+      }
+
+      @Override
+      protected Change getChange(final MapEvent<K, V> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case UPDATED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected MapEvent<K, V> create(final Change change, final MapEvent<K, V> first, final MapEvent<K, V> last)
+      {
+         final V newValue = last.getType() == Type.UPDATED ? last.getNewValue() : last.getValue();
+
+         switch (change)
+         {
+            case ADDED:
+               return new MapEventImpl(Type.ADDED, last.getKey(), newValue);
+            case UPDATED:
+               return new MapEventImpl(Type.UPDATED, last.getKey(), first.getValue(), newValue);
+            default:
+               return new MapEventImpl(Type.REMOVED, last.getKey(), first.getValue());
+         }
+      }
+   }
+
    private class MapEventImpl implements MapEvent<K, V>
    {
       protected final Type _type;
@@ -12,13 +12,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link NavigableMap} decorator that serves as an {@link Observable} for
  * {@link NavigableMapEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
 public class ObservableEventNavigableMap<K, V> extends AbstractEventNavigableMap<K, V> implements
-      Observable<NavigableMapEvent<K, V>>
+      Observable<NavigableMapEvent<K, V>>, Batchable
 {
    private static final long serialVersionUID = -4936595637793434597L;
 
-   protected final ObservableBase<NavigableMapEvent<K, V>> _helper = new ObservableBase<NavigableMapEvent<K, V>>();
+   private final NavigableMapEventBatch _batch = new NavigableMapEventBatch();
+   protected final ObservableBase<NavigableMapEvent<K, V>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventNavigableMap} around a given
@@ -44,6 +48,24 @@ public class ObservableEventNavigableMap<K, V> extends AbstractEventNavigableMap
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    public NavigableSet<K> descendingKeySet()
    {
@@ -120,6 +142,45 @@ public class ObservableEventNavigableMap<K, V> extends AbstractEventNavigableMap
       _helper.fireEvent(new NavigableMapEventImpl(Type.UPDATED, key, oldValue, newValue));
    }
 
+   private class NavigableMapEventBatch extends KeyedEventBatch<NavigableMapEvent<K, V>>
+   {
+      @Override
+      protected Object getKey(final NavigableMapEvent<K, V> event)
+      {
+         return event.getKey();
+      }
+
+      @Override
+      protected Change getChange(final NavigableMapEvent<K, V> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case UPDATED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected NavigableMapEvent<K, V> create(final Change change, final NavigableMapEvent<K, V> first, final NavigableMapEvent<K, V> last)
+      {
+         final V newValue = last.getType() == Type.UPDATED ? last.getNewValue() : last.getValue();
+
+         switch (change)
+         {
+            case ADDED:
+               return new NavigableMapEventImpl(Type.ADDED, last.getKey(), newValue);
+            case UPDATED:
+               return new NavigableMapEventImpl(Type.UPDATED, last.getKey(), first.getValue(), newValue);
+            default:
+               return new NavigableMapEventImpl(Type.REMOVED, last.getKey(), first.getValue());
+         }
+      }
+   }
+
    private class NavigableMapEventImpl implements NavigableMapEvent<K, V>
    {
       protected final Type _type;
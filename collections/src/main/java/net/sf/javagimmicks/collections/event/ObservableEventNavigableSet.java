@@ -11,13 +11,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link NavigableSet} decorator that serves as an {@link Observable} for
  * {@link NavigableSetEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
 public class ObservableEventNavigableSet<E> extends AbstractEventNavigableSet<E> implements
-      Observable<NavigableSetEvent<E>>
+      Observable<NavigableSetEvent<E>>, Batchable
 {
    private static final long serialVersionUID = -6812183248508925850L;
 
-   protected final ObservableBase<NavigableSetEvent<E>> _helper = new ObservableBase<NavigableSetEvent<E>>();
+   private final NavigableSetEventBatch _batch = new NavigableSetEventBatch();
+   protected final ObservableBase<NavigableSetEvent<E>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventNavigableSet} around a given
@@ -43,6 +47,24 @@ public class ObservableEventNavigableSet<E> extends AbstractEventNavigableSet<E>
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    public ObservableEventNavigableSet<E> descendingSet()
    {
@@ -105,6 +127,43 @@ public class ObservableEventNavigableSet<E> extends AbstractEventNavigableSet<E>
       _helper.fireEvent(new NavigableSetEventImpl(Type.REMOVED, element));
    }
 
+   private class NavigableSetEventBatch extends KeyedEventBatch<NavigableSetEvent<E>>
+   {
+      @Override
+      protected Object getKey(final NavigableSetEvent<E> event)
+      {
+         return event.getElement();
+      }
+
+      @Override
+      protected Change getChange(final NavigableSetEvent<E> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case READDED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected NavigableSetEvent<E> create(final Change change, final NavigableSetEvent<E> first, final NavigableSetEvent<E> last)
+      {
+         switch (change)
+         {
+            case ADDED:
+               return new NavigableSetEventImpl(Type.ADDED, last.getElement());
+            case UPDATED:
+               return new NavigableSetEventImpl(Type.READDED, last.getElement());
+            default:
+               return new NavigableSetEventImpl(Type.REMOVED, first.getElement());
+         }
+      }
+   }
+
    private class NavigableSetEventImpl implements NavigableSetEvent<E>
    {
       protected final Type _type;
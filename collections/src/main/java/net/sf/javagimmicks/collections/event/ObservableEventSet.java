@@ -10,12 +10,16 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link Set} decorator that serves as an {@link Observable} for
  * {@link SetEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
-public class ObservableEventSet<E> extends AbstractEventSet<E> implements Observable<SetEvent<E>>
+public class ObservableEventSet<E> extends AbstractEventSet<E> implements Observable<SetEvent<E>>, Batchable
 {
    private static final long serialVersionUID = 4799365684601532982L;
 
-   protected final ObservableBase<SetEvent<E>> _helper = new ObservableBase<SetEvent<E>>();
+   private final SetEventBatch _batch = new SetEventBatch();
+   protected final ObservableBase<SetEvent<E>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventSet} around a given {@link Set}.
@@ -40,6 +44,24 @@ public class ObservableEventSet<E> extends AbstractEventSet<E> implements Observ
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    protected void fireElementAdded(final E element)
    {
@@ -58,6 +80,43 @@ public class ObservableEventSet<E> extends AbstractEventSet<E> implements Observ
       _helper.fireEvent(new SetEventImpl(Type.REMOVED, element));
    }
 
+   private class SetEventBatch extends KeyedEventBatch<SetEvent<E>>
+   {
+      @Override
+      protected Object getKey(final SetEvent<E> event)
+      {
+         return event.getElement();
+      }
+
+      @Override
+      protected Change getChange(final SetEvent<E> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case READDED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected SetEvent<E> create(final Change change, final SetEvent<E> first, final SetEvent<E> last)
+      {
+         switch (change)
+         {
+            case ADDED:
+               return new SetEventImpl(Type.ADDED, last.getElement());
+            case UPDATED:
+               return new SetEventImpl(Type.READDED, last.getElement());
+            default:
+               return new SetEventImpl(Type.REMOVED, first.getElement());
+         }
+      }
+   }
+
    private class SetEventImpl implements SetEvent<E>
    {
       protected final Type _type;
@@ -10,13 +10,17 @@ import net.sf.javagimmicks.event.ObservableBase;
 /**
  * A {@link SortedSet} decorator that serves as an {@link Observable} for
  * {@link SortedSetEvent}s.
+ * <p>
+ * Events can be collected and coalesced via {@link #beginBatch()} and
+ * {@link #endBatch()} - see {@link Batchable}.
  */
 public class ObservableEventSortedSet<E> extends AbstractEventSortedSet<E> implements
-      Observable<SortedSetEvent<E>>
+      Observable<SortedSetEvent<E>>, Batchable
 {
    private static final long serialVersionUID = 7595639007080114146L;
 
-   protected final ObservableBase<SortedSetEvent<E>> _helper = new ObservableBase<SortedSetEvent<E>>();
+   private final SortedSetEventBatch _batch = new SortedSetEventBatch();
+   protected final ObservableBase<SortedSetEvent<E>> _helper = _batch;
 
    /**
     * Wraps a new {@link ObservableEventSortedSet} around a given
@@ -42,6 +46,24 @@ public class ObservableEventSortedSet<E> extends AbstractEventSortedSet<E> imple
       _helper.removeEventListener(listener);
    }
 
+   @Override
+   public void beginBatch()
+   {
+      _batch.beginBatch();
+   }
+
+   @Override
+   public void endBatch()
+   {
+      _batch.endBatch();
+   }
+
+   @Override
+   public boolean isBatching()
+   {
+      return _batch.isBatching();
+   }
+
    @Override
    public ObservableEventSortedSet<E> headSet(final E toElement)
    {
@@ -78,6 +100,43 @@ public class ObservableEventSortedSet<E> extends AbstractEventSortedSet<E> imple
       _helper.fireEvent(new SortedSetEventImpl(Type.REMOVED, element));
    }
 
+   private class SortedSetEventBatch extends KeyedEventBatch<SortedSetEvent<E>>
+   {
+      @Override
+      protected Object getKey(final SortedSetEvent<E> event)
+      {
+         return event.getElement();
+      }
+
+      @Override
+      protected Change getChange(final SortedSetEvent<E> event)
+      {
+         switch (event.getType())
+         {
+            case ADDED:
+               return Change.ADDED;
+            case READDED:
+               return Change.UPDATED;
+            default:
+               return Change.REMOVED;
+         }
+      }
+
+      @Override
+      protected SortedSetEvent<E> create(final Change change, final SortedSetEvent<E> first, final SortedSetEvent<E> last)
+      {
+         switch (change)
+         {
+            case ADDED:
+               return new SortedSetEventImpl(Type.ADDED, last.getElement());
+            case UPDATED:
+               return new SortedSetEventImpl(Type.READDED, last.getElement());
+            default:
+               return new SortedSetEventImpl(Type.REMOVED, first.getElement());
+         }
+      }
+   }
+
    private class SortedSetEventImpl implements SortedSetEvent<E>
    {
       protected final Type _type;
@@ -0,0 +1,237 @@
+package net.sf.javagimmicks.collections.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.javagimmicks.event.Event;
+import net.sf.javagimmicks.event.EventListener;
+import net.sf.javagimmicks.event.Observable;
+
+import org.junit.Test;
+
+public class EventBatchTest
+{
+   @Test
+   public void testListIteratorRemoval()
+   {
+      final ObservableEventList<String> list = new ObservableEventList<String>(new ArrayList<String>(Arrays.asList(
+            "A", "B", "C", "D", "E")));
+      final List<ListEvent<String>> events = listen(list);
+
+      list.beginBatch();
+      for (final Iterator<String> iterator = list.iterator(); iterator.hasNext();)
+      {
+         if (!iterator.next().equals("A"))
+         {
+            iterator.remove();
+         }
+      }
+      assertTrue(events.isEmpty());
+      list.endBatch();
+
+      assertEquals(1, events.size());
+      assertListEvent(events.get(0), ListEvent.Type.REMOVED, 1, 5, Arrays.asList("B", "C", "D", "E"));
+      assertEquals(Arrays.asList("A"), list);
+   }
+
+   @Test
+   public void testListCoalescing()
+   {
+      final ObservableEventList<String> list = new ObservableEventList<String>(new ArrayList<String>(Arrays.asList(
+            "A", "B")));
+      final List<ListEvent<String>> events = listen(list);
+
+      list.beginBatch();
+
+      // Appends and inserts right before the added range are merged
+      list.add("C");
+      list.add("D");
+      list.add(2, "X");
+
+      // Removals and updates within the added range are applied to it
+      list.remove("D");
+      list.set(2, "Y");
+
+      // Removals backwards from the end are merged
+      list.remove(1);
+      list.remove(0);
+
+      list.endBatch();
+
+      assertEquals(2, events.size());
+      assertListEvent(events.get(0), ListEvent.Type.ADDED, 2, 4, Arrays.asList("Y", "C"));
+      assertListEvent(events.get(1), ListEvent.Type.REMOVED, 0, 2, Arrays.asList("A", "B"));
+      assertEquals(Arrays.asList("Y", "C"), list);
+   }
+
+   @Test
+   public void testNestedBatches()
+   {
+      final ObservableEventList<String> list = new ObservableEventList<String>(new ArrayList<String>());
+      final List<ListEvent<String>> events = listen(list);
+
+      list.beginBatch();
+      list.add("A");
+
+      list.beginBatch();
+      list.add("B");
+      list.endBatch();
+
+      assertTrue(list.isBatching());
+      assertTrue(events.isEmpty());
+
+      list.endBatch();
+      assertFalse(list.isBatching());
+
+      assertEquals(1, events.size());
+      assertListEvent(events.get(0), ListEvent.Type.ADDED, 0, 2, Arrays.asList("A", "B"));
+
+      // Without a batch every change is delivered at once
+      list.add("C");
+      assertEquals(2, events.size());
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testEndWithoutBatch()
+   {
+      new ObservableEventList<String>(new ArrayList<String>()).endBatch();
+   }
+
+   @Test
+   public void testCollectionCoalescing()
+   {
+      final ObservableEventCollection<String> collection = new ObservableEventCollection<String>(
+            new ArrayList<String>());
+      final List<CollectionEvent<String>> events = listen(collection);
+
+      collection.beginBatch();
+      collection.add("A");
+      collection.addAll(Arrays.asList("B", "C"));
+      collection.removeAll(Arrays.asList("A", "B"));
+      collection.endBatch();
+
+      assertEquals(2, events.size());
+      assertEquals(CollectionEvent.Type.ADDED, events.get(0).getType());
+      assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<String>(events.get(0).getElements()));
+      assertEquals(CollectionEvent.Type.REMOVED, events.get(1).getType());
+      assertEquals(Arrays.asList("A", "B"), new ArrayList<String>(events.get(1).getElements()));
+   }
+
+   @Test
+   public void testMapCoalescing()
+   {
+      final HashMap<String, String> base = new HashMap<String, String>();
+      base.put("1", "A");
+      base.put("2", "B");
+
+      final ObservableEventMap<String, String> map = new ObservableEventMap<String, String>(base);
+      final List<MapEvent<String, String>> events = listen(map);
+
+      map.beginBatch();
+      map.put("1", "X");
+      map.put("1", "Y");
+      map.put("3", "C");
+      map.remove("3");
+      map.remove("2");
+      map.put("2", "Z");
+      map.put("4", "D");
+      map.put("4", "E");
+      map.endBatch();
+
+      assertEquals(3, events.size());
+      assertMapEvent(events.get(0), MapEvent.Type.UPDATED, "1", "A", "Y");
+      assertMapEvent(events.get(1), MapEvent.Type.UPDATED, "2", "B", "Z");
+      assertMapEvent(events.get(2), MapEvent.Type.ADDED, "4", "E", null);
+   }
+
+   @Test
+   public void testMapFirstChangeOrder()
+   {
+      final ObservableEventMap<String, String> map = new ObservableEventMap<String, String>(
+            new HashMap<String, String>());
+      final List<MapEvent<String, String>> events = listen(map);
+
+      map.beginBatch();
+      map.put("a", "A");
+      map.put("b", "B");
+      map.put("a", "X");
+      map.endBatch();
+
+      // The events are ordered by the first change of their key
+      assertEquals(2, events.size());
+      assertMapEvent(events.get(0), MapEvent.Type.ADDED, "a", "X", null);
+      assertMapEvent(events.get(1), MapEvent.Type.ADDED, "b", "B", null);
+   }
+
+   @Test
+   public void testSetCoalescing()
+   {
+      final ObservableEventSet<String> set = new ObservableEventSet<String>(new HashSet<String>(Arrays.asList("A")));
+      final List<SetEvent<String>> events = listen(set);
+
+      set.beginBatch();
+      set.add("B");
+      set.remove("B");
+      set.remove("A");
+      set.add("A");
+      set.add("C");
+      set.add("C");
+      set.endBatch();
+
+      assertEquals(2, events.size());
+      assertEquals(SetEvent.Type.READDED, events.get(0).getType());
+      assertEquals("A", events.get(0).getElement());
+      assertEquals(SetEvent.Type.ADDED, events.get(1).getType());
+      assertEquals("C", events.get(1).getElement());
+   }
+
+   private static <Evt extends Event<Evt>> List<Evt> listen(final Observable<Evt> observable)
+   {
+      final List<Evt> result = new ArrayList<Evt>();
+      observable.addEventListener(new EventListener<Evt>()
+      {
+         @Override
+         public void eventOccured(final Evt event)
+         {
+            result.add(event);
+         }
+      });
+
+      return result;
+   }
+
+   private static void assertListEvent(final ListEvent<String> event, final ListEvent.Type type,
+         final int fromIndex, final int toIndex, final Collection<String> elements)
+   {
+      assertEquals(type, event.getType());
+      assertEquals(fromIndex, event.getFromIndex());
+      assertEquals(toIndex, event.getToIndex());
+      assertEquals(elements, event.getElements());
+   }
+
+   private static void assertMapEvent(final MapEvent<String, String> event, final MapEvent.Type type,
+         final String key, final String value, final String newValue)
+   {
+      assertEquals(type, event.getType());
+      assertEquals(key, event.getKey());
+      assertEquals(value, event.getValue());
+      if (newValue == null)
+      {
+         assertNull(event.getNewValue());
+      }
+      else
+      {
+         assertEquals(newValue, event.getNewValue());
+      }
+   }
+}
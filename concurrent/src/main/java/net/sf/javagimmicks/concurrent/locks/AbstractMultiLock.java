@@ -0,0 +1,218 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * An abstract base for {@link MultiLock} implementations that keeps track of
+ * the holding {@link Thread} and checks for illegal lock or unlock attempts
+ * before delegating to the respective internal method.
+ * <p>
+ * If a {@link LockMetrics} instance is given, every acquisition, release and
+ * timed out {@link #tryLock(long, TimeUnit)} is recorded there (a failed
+ * {@link #tryLock()} is not). In this case a blocking lock attempt always
+ * tries a non-blocking acquisition first to determine if the lock is
+ * contended - without metrics, no such probe is made.
+ * 
+ * @param <K>
+ *           The type of the internally used resource identifiers
+ */
+abstract class AbstractMultiLock<K> implements MultiLock<K>
+{
+   protected final ThreadLocal<Boolean> _lockedFlag = new ThreadLocal<Boolean>();
+   protected final LockMetrics<K> _metrics;
+   protected final ThreadLocal<long[]> _lockTimestamp;
+
+   protected AbstractMultiLock(final LockMetrics<K> metrics)
+   {
+      _metrics = metrics;
+      _lockTimestamp = metrics != null ? new LockTimestamp() : null;
+   }
+
+   protected AbstractMultiLock()
+   {
+      this(null);
+   }
+
+   @Override
+   public boolean isLockedByThisThread()
+   {
+      final Boolean b = _lockedFlag.get();
+
+      return b != null && b.booleanValue();
+   }
+
+   @Override
+   public void lock()
+   {
+      testUnlocked();
+
+      if (_metrics == null)
+      {
+         lockInternal();
+      }
+      else if (tryLockInternal())
+      {
+         _metrics.recordAcquisition(getResourceIds(), 0L, false);
+      }
+      else
+      {
+         final long start = System.nanoTime();
+         lockInternal();
+         _metrics.recordAcquisition(getResourceIds(), System.nanoTime() - start, true);
+      }
+
+      setLockedByThisThread(true);
+   }
+
+   @Override
+   public void lockInterruptibly() throws InterruptedException
+   {
+      testUnlocked();
+
+      if (_metrics == null)
+      {
+         lockInterruptiblyInternal();
+      }
+      else if (tryLockInternal())
+      {
+         _metrics.recordAcquisition(getResourceIds(), 0L, false);
+      }
+      else
+      {
+         final long start = System.nanoTime();
+         lockInterruptiblyInternal();
+         _metrics.recordAcquisition(getResourceIds(), System.nanoTime() - start, true);
+      }
+
+      setLockedByThisThread(true);
+   }
+
+   @Override
+   public Condition newCondition()
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public boolean tryLock()
+   {
+      testUnlocked();
+
+      final boolean result = tryLockInternal();
+
+      if (result)
+      {
+         if (_metrics != null)
+         {
+            _metrics.recordAcquisition(getResourceIds(), 0L, false);
+         }
+
+         setLockedByThisThread(true);
+      }
+
+      return result;
+   }
+
+   @Override
+   public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException
+   {
+      testUnlocked();
+
+      final boolean result;
+      if (_metrics == null)
+      {
+         result = tryLockInternal(time, unit);
+      }
+      else if (tryLockInternal())
+      {
+         _metrics.recordAcquisition(getResourceIds(), 0L, false);
+         result = true;
+      }
+      else
+      {
+         final long start = System.nanoTime();
+         result = tryLockInternal(time, unit);
+
+         if (result)
+         {
+            _metrics.recordAcquisition(getResourceIds(), System.nanoTime() - start, true);
+         }
+         else
+         {
+            _metrics.recordTimeout(getResourceIds(), System.nanoTime() - start);
+         }
+      }
+
+      if (result)
+      {
+         setLockedByThisThread(true);
+      }
+
+      return result;
+   }
+
+   @Override
+   public void unlock()
+   {
+      testLocked();
+
+      unlockInternal();
+
+      if (_metrics != null)
+      {
+         _metrics.recordRelease(System.nanoTime() - _lockTimestamp.get()[0]);
+      }
+
+      setLockedByThisThread(false);
+   }
+
+   protected final void setLockedByThisThread(final boolean locked)
+   {
+      _lockedFlag.set(locked ? Boolean.TRUE : null);
+
+      if (locked && _lockTimestamp != null)
+      {
+         _lockTimestamp.get()[0] = System.nanoTime();
+      }
+   }
+
+   protected void testLocked()
+   {
+      if (!isLockedByThisThread())
+      {
+         throw new IllegalStateException("Lock is not locked by this thread!");
+      }
+   }
+
+   protected void testUnlocked()
+   {
+      if (isLockedByThisThread())
+      {
+         throw new IllegalStateException("Lock is already locked by this thread!");
+      }
+   }
+
+   abstract protected void lockInternal();
+
+   abstract protected void lockInterruptiblyInternal() throws InterruptedException;
+
+   abstract protected boolean tryLockInternal();
+
+   abstract protected boolean tryLockInternal(long time, TimeUnit unit) throws InterruptedException;
+
+   abstract protected void unlockInternal();
+
+   /**
+    * Holds the time a {@link Thread} acquired the lock - reusing one array
+    * per {@link Thread} avoids allocations when recording hold times.
+    */
+   private static class LockTimestamp extends ThreadLocal<long[]>
+   {
+      @Override
+      protected long[] initialValue()
+      {
+         return new long[1];
+      }
+   }
+}
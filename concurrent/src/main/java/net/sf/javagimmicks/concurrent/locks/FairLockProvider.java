@@ -0,0 +1,625 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fair {@link MultiLockProvider} that grants locks in FIFO order.
+ * <p>
+ * Every waiting {@link Thread} is represented by a node in a single FIFO wait
+ * queue that is annotated with the resources the {@link Thread} waits for. A
+ * lock attempt never overtakes a queued waiter it conflicts with - even if
+ * its own resources are currently free. On every release the queue is scanned
+ * in order and each waiter whose resources are free and who doesn't conflict
+ * with an earlier (still waiting) node is granted its lock directly - so only
+ * those {@link Thread}s get unparked that can actually proceed.
+ * <p>
+ * With writer preference, waiting writers are considered before waiting
+ * readers: writers may overtake queued readers, while readers never overtake
+ * a queued writer that needs one of their resources.
+ * 
+ * @param <K>
+ *           The type of the internally used resource identifiers
+ */
+class FairLockProvider<K> implements MultiLockProvider<K>, Serializable
+{
+   private static final long serialVersionUID = 6143720566218305923L;
+
+   protected final boolean _writerPreference;
+
+   protected final ReentrantLock _lock = new ReentrantLock();
+   protected final Map<K, ResourceState> _states = new HashMap<K, ResourceState>();
+   protected final LinkedList<Node<K>> _queue = new LinkedList<Node<K>>();
+
+   protected final LockMetrics<K> _metrics;
+   protected LockStatisticsImpl _stats;
+
+   public FairLockProvider()
+   {
+      this(false);
+   }
+
+   public FairLockProvider(final boolean writerPreference)
+   {
+      this(writerPreference, false);
+   }
+
+   public FairLockProvider(final boolean writerPreference, final boolean recordMetrics)
+   {
+      _writerPreference = writerPreference;
+      _metrics = recordMetrics ? new LockMetrics<K>() : null;
+   }
+
+   public boolean isWriterPreference()
+   {
+      return _writerPreference;
+   }
+
+   /**
+    * Returns the number of {@link Thread}s currently waiting in the queue.
+    * This is meant for monitoring purposes.
+    * 
+    * @return the number of waiting {@link Thread}s
+    */
+   public int getQueueLength()
+   {
+      _lock.lock();
+      try
+      {
+         return _queue.size();
+      }
+      finally
+      {
+         _lock.unlock();
+      }
+   }
+
+   @Override
+   public MultiReadWriteLock<K> newLock(final Iterable<K> resources)
+   {
+      return new MultiReadWriteLockImpl(resources);
+   }
+
+   @Override
+   public MultiReadWriteLock<K> newLock(final K... resources)
+   {
+      return newLock(Arrays.asList(resources));
+   }
+
+   @Override
+   public LockStatistics<K> getStatistics()
+   {
+      // Lazy getter
+      if (_stats == null)
+      {
+         synchronized (this)
+         {
+            if (_stats == null)
+            {
+               _stats = new LockStatisticsImpl();
+            }
+         }
+      }
+
+      return _stats;
+   }
+
+   /**
+    * Tries to acquire the given resources.
+    * 
+    * @param nanos
+    *           the maximum time to wait - {@code 0} for not waiting at all and
+    *           a negative value for waiting without timeout
+    */
+   protected boolean acquire(final List<K> resources, final boolean exclusive, final boolean interruptible,
+         final long nanos) throws InterruptedException
+   {
+      final Node<K> node = new Node<K>(resources, exclusive, Thread.currentThread());
+
+      _lock.lock();
+      try
+      {
+         if (!isBlockedByQueue(node) && isFree(node))
+         {
+            register(node);
+            return true;
+         }
+
+         if (nanos == 0L)
+         {
+            return false;
+         }
+
+         _queue.add(node);
+      }
+      finally
+      {
+         _lock.unlock();
+      }
+
+      final long deadline = nanos > 0L ? System.nanoTime() + nanos : 0L;
+      boolean interrupted = false;
+
+      while (!node._granted)
+      {
+         boolean cancel = false;
+
+         if (nanos < 0L)
+         {
+            LockSupport.park(this);
+         }
+         else
+         {
+            final long nanosLeft = deadline - System.nanoTime();
+            if (nanosLeft <= 0L)
+            {
+               cancel = true;
+            }
+            else
+            {
+               LockSupport.parkNanos(this, nanosLeft);
+            }
+         }
+
+         if (Thread.interrupted())
+         {
+            interrupted = true;
+            cancel |= interruptible;
+         }
+
+         if (cancel && cancel(node))
+         {
+            if (interrupted && interruptible)
+            {
+               throw new InterruptedException();
+            }
+
+            if (interrupted)
+            {
+               Thread.currentThread().interrupt();
+            }
+
+            return false;
+         }
+      }
+
+      // The lock was granted - even if we were interrupted in the meantime
+      if (interrupted)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      return true;
+   }
+
+   protected void release(final List<K> resources, final boolean exclusive)
+   {
+      final List<Node<K>> granted;
+
+      _lock.lock();
+      try
+      {
+         boolean changed = false;
+         for (final K resource : resources)
+         {
+            final ResourceState state = _states.get(resource);
+            if (state == null)
+            {
+               continue;
+            }
+
+            if (exclusive)
+            {
+               state._writer = null;
+            }
+            else
+            {
+               --state._readerCount;
+            }
+
+            if (state.isFree())
+            {
+               _states.remove(resource);
+               changed = true;
+            }
+         }
+
+         // Waiters can only proceed if at least one resource became free
+         granted = changed ? grantWaiters() : Collections.<Node<K>> emptyList();
+      }
+      finally
+      {
+         _lock.unlock();
+      }
+
+      for (final Node<K> node : granted)
+      {
+         LockSupport.unpark(node._thread);
+      }
+   }
+
+   /**
+    * Removes a timed out or interrupted {@link Node} from the queue - if it
+    * was not granted in the meantime.
+    * 
+    * @return if the {@link Node} was removed - {@code false} means it was
+    *         granted after all
+    */
+   private boolean cancel(final Node<K> node)
+   {
+      final List<Node<K>> granted;
+
+      _lock.lock();
+      try
+      {
+         if (node._granted)
+         {
+            return false;
+         }
+
+         _queue.remove(node);
+
+         // The node may have blocked others from overtaking it
+         granted = grantWaiters();
+      }
+      finally
+      {
+         _lock.unlock();
+      }
+
+      for (final Node<K> grantedNode : granted)
+      {
+         LockSupport.unpark(grantedNode._thread);
+      }
+
+      return true;
+   }
+
+   /**
+    * Scans the queue in FIFO order and grants all {@link Node}s whose
+    * resources are free and which don't conflict with an earlier waiting
+    * {@link Node}. Must be called while holding {@link #_lock}.
+    */
+   private List<Node<K>> grantWaiters()
+   {
+      if (_queue.isEmpty())
+      {
+         return Collections.emptyList();
+      }
+
+      final List<Node<K>> granted = new ArrayList<Node<K>>();
+      final Set<K> blockedExclusive = new HashSet<K>();
+      final Set<K> blockedShared = new HashSet<K>();
+
+      if (_writerPreference)
+      {
+         grantWaiters(true, blockedExclusive, blockedShared, granted);
+         grantWaiters(false, blockedExclusive, blockedShared, granted);
+      }
+      else
+      {
+         grantWaiters(null, blockedExclusive, blockedShared, granted);
+      }
+
+      return granted;
+   }
+
+   private void grantWaiters(final Boolean exclusive, final Set<K> blockedExclusive, final Set<K> blockedShared,
+         final List<Node<K>> granted)
+   {
+      for (final Iterator<Node<K>> it = _queue.iterator(); it.hasNext();)
+      {
+         final Node<K> node = it.next();
+         if (exclusive != null && node._exclusive != exclusive.booleanValue())
+         {
+            continue;
+         }
+
+         if (!conflicts(node, blockedExclusive, blockedShared) && isFree(node))
+         {
+            it.remove();
+            register(node);
+            node._granted = true;
+            granted.add(node);
+         }
+         else
+         {
+            (node._exclusive ? blockedExclusive : blockedShared).addAll(node._resources);
+         }
+      }
+   }
+
+   private boolean isBlockedByQueue(final Node<K> node)
+   {
+      for (final Node<K> queued : _queue)
+      {
+         if (conflicts(node, queued) && !Collections.disjoint(node._resources, queued._resources))
+         {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   /**
+    * Determines if a {@link Node} may not overtake an earlier {@link Node} of
+    * the given kind (if they share resources).
+    */
+   private boolean conflicts(final Node<K> node, final Node<K> earlier)
+   {
+      return earlier._exclusive || (node._exclusive && !_writerPreference);
+   }
+
+   private boolean conflicts(final Node<K> node, final Set<K> blockedExclusive, final Set<K> blockedShared)
+   {
+      final boolean checkShared = node._exclusive && !_writerPreference && !blockedShared.isEmpty();
+
+      for (final K resource : node._resources)
+      {
+         if (blockedExclusive.contains(resource) || (checkShared && blockedShared.contains(resource)))
+         {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   private boolean isFree(final Node<K> node)
+   {
+      for (final K resource : node._resources)
+      {
+         final ResourceState state = _states.get(resource);
+         if (state != null && (node._exclusive || state._writer != null))
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private void register(final Node<K> node)
+   {
+      for (final K resource : node._resources)
+      {
+         ResourceState state = _states.get(resource);
+         if (state == null)
+         {
+            state = new ResourceState();
+            _states.put(resource, state);
+         }
+
+         if (node._exclusive)
+         {
+            state._writer = node._thread;
+         }
+         else
+         {
+            ++state._readerCount;
+         }
+      }
+   }
+
+   protected class LockStatisticsImpl implements LockStatistics<K>
+   {
+      @Override
+      public void dump(final Writer out) throws IOException
+      {
+         final PrintWriter pw = new PrintWriter(out);
+
+         try
+         {
+            _lock.lockInterruptibly();
+         }
+         catch (final InterruptedException e)
+         {
+            // If this thread is interrupted from outside, we just skip dumping
+            Thread.currentThread().interrupt();
+            return;
+         }
+
+         try
+         {
+            pw.println();
+            pw.println("Resource lock entries:");
+            for (final Entry<K, ResourceState> entry : _states.entrySet())
+            {
+               final ResourceState state = entry.getValue();
+
+               pw.println(String.format("\t-Resource: %s is locked by %s", entry.getKey(),
+                     state._writer != null ?
+                           String.format("Thread with name: '%s' and id: '%d'", state._writer.getName(),
+                                 state._writer.getId()) :
+                           String.format("%d reading Threads", state._readerCount)));
+            }
+
+            pw.println();
+            pw.println(String.format("Wait queue (%d Threads):", _queue.size()));
+            for (final Node<K> node : _queue)
+            {
+               pw.println(String.format("\t-Thread with name: '%s' and id: '%d' waits for %s access to %s",
+                     node._thread.getName(), node._thread.getId(), node._exclusive ? "exclusive" : "shared",
+                     node._resources));
+            }
+         }
+         finally
+         {
+            _lock.unlock();
+         }
+
+         pw.flush();
+      }
+
+      @Override
+      public LockStatisticsSnapshot<K> getSnapshot()
+      {
+         return _metrics != null ? _metrics.snapshot() : LockMetrics.<K> emptySnapshot();
+      }
+
+      @Override
+      public void reset()
+      {
+         if (_metrics != null)
+         {
+            _metrics.reset();
+         }
+      }
+   }
+
+   protected class MultiReadWriteLockImpl implements MultiReadWriteLock<K>
+   {
+      protected final List<K> _resources;
+      protected final List<K> _uniqueResources;
+      protected final MultiLock<K> _readLock;
+      protected final MultiLock<K> _writeLock;
+
+      protected MultiReadWriteLockImpl(final Iterable<K> resources)
+      {
+         final List<K> internalResourceList = new ArrayList<K>();
+
+         // Predicate out null resources
+         for (final K resource : resources)
+         {
+            if (resource != null)
+            {
+               internalResourceList.add(resource);
+            }
+         }
+
+         _resources = Collections.unmodifiableList(internalResourceList);
+         _uniqueResources = new ArrayList<K>(new LinkedHashSet<K>(internalResourceList));
+
+         _readLock = new MultiLockImpl(false);
+         _writeLock = new MultiLockImpl(true);
+      }
+
+      @Override
+      public Collection<K> getResourceIds()
+      {
+         return _resources;
+      }
+
+      @Override
+      public MultiLock<K> readLock()
+      {
+         return _readLock;
+      }
+
+      @Override
+      public MultiLock<K> writeLock()
+      {
+         return _writeLock;
+      }
+
+      protected class MultiLockImpl extends AbstractMultiLock<K>
+      {
+         protected final boolean _exclusive;
+
+         protected MultiLockImpl(final boolean exclusive)
+         {
+            super(FairLockProvider.this._metrics);
+            _exclusive = exclusive;
+         }
+
+         @Override
+         public Collection<K> getResourceIds()
+         {
+            return _resources;
+         }
+
+         @Override
+         protected void lockInternal()
+         {
+            try
+            {
+               acquire(_uniqueResources, _exclusive, false, -1L);
+            }
+            catch (final InterruptedException e)
+            {
+               // Cannot happen for non-interruptible acquisition
+               throw new IllegalStateException(e);
+            }
+         }
+
+         @Override
+         protected void lockInterruptiblyInternal() throws InterruptedException
+         {
+            if (Thread.interrupted())
+            {
+               throw new InterruptedException();
+            }
+
+            acquire(_uniqueResources, _exclusive, true, -1L);
+         }
+
+         @Override
+         protected boolean tryLockInternal()
+         {
+            try
+            {
+               return acquire(_uniqueResources, _exclusive, false, 0L);
+            }
+            catch (final InterruptedException e)
+            {
+               // Cannot happen for non-interruptible acquisition
+               throw new IllegalStateException(e);
+            }
+         }
+
+         @Override
+         protected boolean tryLockInternal(final long time, final TimeUnit unit) throws InterruptedException
+         {
+            if (Thread.interrupted())
+            {
+               throw new InterruptedException();
+            }
+
+            return acquire(_uniqueResources, _exclusive, true, Math.max(unit.toNanos(time), 0L));
+         }
+
+         @Override
+         protected void unlockInternal()
+         {
+            release(_uniqueResources, _exclusive);
+         }
+      }
+   }
+
+   /**
+    * A waiting {@link Thread} together with the resources it waits for.
+    */
+   protected static class Node<K>
+   {
+      protected final List<K> _resources;
+      protected final boolean _exclusive;
+      protected final Thread _thread;
+      protected volatile boolean _granted;
+
+      protected Node(final List<K> resources, final boolean exclusive, final Thread thread)
+      {
+         _resources = resources;
+         _exclusive = exclusive;
+         _thread = thread;
+      }
+   }
+}
@@ -0,0 +1,175 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable histogram of durations (in nanoseconds) with a constant
+ * relative precision in the style of an HDR histogram.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} are counted exactly, larger values
+ * fall into buckets whose width doubles with every power of two - so each
+ * bucket covers at most 1/{@value #HALF_SUB_BUCKET_COUNT} of its values. This
+ * allows a fixed number of counters to cover the whole range of {@code long}
+ * values.
+ * <p>
+ * Instances are snapshots that are retrieved via
+ * {@link LockStatisticsSnapshot#getWaitTimes()} and
+ * {@link LockStatisticsSnapshot#getHoldTimes()}.
+ */
+public class LatencyHistogram implements Serializable
+{
+   private static final long serialVersionUID = -4260153873880616398L;
+
+   static final int SUB_BUCKET_BITS = 6;
+   static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+   static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT >> 1;
+
+   /**
+    * The number of counters needed to cover all non-negative {@code long}
+    * values.
+    */
+   static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+   private final long[] _counts;
+   private final long _totalCount;
+   private final long _totalValue;
+   private final long _maxValue;
+
+   LatencyHistogram(final long[] counts, final long totalValue, final long maxValue)
+   {
+      _counts = counts;
+      _totalValue = totalValue;
+      _maxValue = maxValue;
+
+      long totalCount = 0L;
+      for (final long count : counts)
+      {
+         totalCount += count;
+      }
+      _totalCount = totalCount;
+   }
+
+   /**
+    * Returns the number of recorded values.
+    * 
+    * @return the number of recorded values
+    */
+   public long getCount()
+   {
+      return _totalCount;
+   }
+
+   /**
+    * Returns the largest recorded value in nanoseconds.
+    * 
+    * @return the largest recorded value or {@code 0} if the histogram is empty
+    */
+   public long getMax()
+   {
+      return _maxValue;
+   }
+
+   /**
+    * Returns the sum of all recorded values in nanoseconds.
+    * 
+    * @return the sum of all recorded values
+    */
+   public long getTotal()
+   {
+      return _totalValue;
+   }
+
+   /**
+    * Returns the mean of all recorded values in nanoseconds.
+    * 
+    * @return the mean value or {@code 0} if the histogram is empty
+    */
+   public double getMean()
+   {
+      return _totalCount == 0L ? 0.0 : (double) _totalValue / _totalCount;
+   }
+
+   /**
+    * Returns the value (in nanoseconds) below or at which the given percentage
+    * of all recorded values lies. The result is the upper bound of the
+    * respective bucket (but never more than {@link #getMax()}).
+    * 
+    * @param percentile
+    *           the percentile to calculate - between {@code 0.0} and
+    *           {@code 100.0}
+    * @return the value at the given percentile or {@code 0} if the histogram
+    *         is empty
+    */
+   public long getValueAtPercentile(final double percentile)
+   {
+      if (percentile < 0.0 || percentile > 100.0)
+      {
+         throw new IllegalArgumentException("Percentile must be between 0.0 and 100.0!");
+      }
+
+      if (_totalCount == 0L)
+      {
+         return 0L;
+      }
+
+      final long countAtPercentile = Math.max(1L, (long) Math.ceil(percentile / 100.0 * _totalCount));
+
+      long count = 0L;
+      for (int i = 0; i < _counts.length; ++i)
+      {
+         count += _counts[i];
+         if (count >= countAtPercentile)
+         {
+            return Math.min(highestValueAt(i), _maxValue);
+         }
+      }
+
+      return _maxValue;
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, max=%.1fus", _totalCount,
+            getMean() / 1000.0, toMicros(getValueAtPercentile(50.0)), toMicros(getValueAtPercentile(99.0)),
+            toMicros(_maxValue));
+   }
+
+   private static double toMicros(final long nanos)
+   {
+      return (double) nanos / TimeUnit.MICROSECONDS.toNanos(1L);
+   }
+
+   static int indexOf(final long value)
+   {
+      if (value < SUB_BUCKET_COUNT)
+      {
+         return (int) Math.max(value, 0L);
+      }
+
+      // Keep the SUB_BUCKET_BITS most significant bits as mantissa
+      final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+      final int mantissa = (int) (value >>> shift);
+
+      return shift * HALF_SUB_BUCKET_COUNT + mantissa;
+   }
+
+   static long lowestValueAt(final int index)
+   {
+      if (index < SUB_BUCKET_COUNT)
+      {
+         return index;
+      }
+
+      final int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+      final long mantissa = index - shift * HALF_SUB_BUCKET_COUNT;
+
+      return mantissa << shift;
+   }
+
+   static long highestValueAt(final int index)
+   {
+      return index + 1 < BUCKET_COUNT ? lowestValueAt(index + 1) - 1 : Long.MAX_VALUE;
+   }
+}
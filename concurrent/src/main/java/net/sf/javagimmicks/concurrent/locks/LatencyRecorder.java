@@ -0,0 +1,71 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe recorder for durations that uses the bucket layout of
+ * {@link LatencyHistogram}. Recording only increments pre-allocated atomic
+ * counters and never allocates.
+ */
+class LatencyRecorder implements Serializable
+{
+   private static final long serialVersionUID = 8307260735094442386L;
+
+   protected final AtomicLongArray _counts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+   protected final AtomicLong _totalValue = new AtomicLong();
+   protected final AtomicLong _maxValue = new AtomicLong();
+
+   public void record(final long nanos)
+   {
+      final long value = Math.max(nanos, 0L);
+
+      _counts.incrementAndGet(LatencyHistogram.indexOf(value));
+      _totalValue.addAndGet(value);
+
+      long max = _maxValue.get();
+      while (value > max && !_maxValue.compareAndSet(max, value))
+      {
+         max = _maxValue.get();
+      }
+   }
+
+   public LatencyHistogram snapshot()
+   {
+      return snapshot(new LatencyRecorder[] { this });
+   }
+
+   /**
+    * Merges the values of the given recorders into one
+    * {@link LatencyHistogram}.
+    */
+   public static LatencyHistogram snapshot(final LatencyRecorder[] recorders)
+   {
+      final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+      long totalValue = 0L;
+      long maxValue = 0L;
+
+      for (final LatencyRecorder recorder : recorders)
+      {
+         for (int i = 0; i < counts.length; ++i)
+         {
+            counts[i] += recorder._counts.get(i);
+         }
+         totalValue += recorder._totalValue.get();
+         maxValue = Math.max(maxValue, recorder._maxValue.get());
+      }
+
+      return new LatencyHistogram(counts, totalValue, maxValue);
+   }
+
+   public void reset()
+   {
+      for (int i = 0; i < _counts.length(); ++i)
+      {
+         _counts.set(i, 0L);
+      }
+      _totalValue.set(0L);
+      _maxValue.set(0L);
+   }
+}
@@ -0,0 +1,257 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.javagimmicks.concurrent.locks.LockStatisticsSnapshot.ResourceStatistics;
+
+/**
+ * Records contention metrics of a {@link MultiLockProvider} - global counters,
+ * wait and hold time histograms and counters per resource.
+ * <p>
+ * Recording is optional and only done by providers that are explicitly
+ * created with metrics (see {@link MultiLockProviderFactory#withMetrics()}).
+ * <p>
+ * The global counters and histograms are striped over a number of
+ * {@link Cell}s (selected by the id of the recording {@link Thread}), so
+ * {@link Thread}s locking unrelated resources don't contend on shared
+ * counters - a {@link #snapshot()} sums them up. Counters per resource are
+ * only shared by {@link Thread}s locking the same resource. The only
+ * allocation happens when a resource is recorded for the first time. To keep
+ * the memory footprint bounded, at most {@link #_maxTrackedResources}
+ * resources are tracked individually - further resources are only reflected
+ * in the global counters.
+ * 
+ * @param <K>
+ *           The type of the internally used resource identifiers
+ */
+class LockMetrics<K> implements Serializable
+{
+   private static final long serialVersionUID = -3139962582587335906L;
+
+   static final int DEFAULT_MAX_TRACKED_RESOURCES = 10000;
+
+   private static final int MAX_CELL_COUNT = 16;
+
+   /**
+    * Returns an empty {@link LockStatisticsSnapshot} - for providers that
+    * don't record any metrics.
+    */
+   static <K> LockStatisticsSnapshot<K> emptySnapshot()
+   {
+      final LatencyHistogram emptyHistogram = new LatencyHistogram(new long[LatencyHistogram.BUCKET_COUNT], 0L, 0L);
+
+      return new LockStatisticsSnapshot<K>(0L, 0L, 0L, emptyHistogram, emptyHistogram,
+            Collections.<ResourceStatistics<K>> emptyList());
+   }
+
+   protected final int _maxTrackedResources;
+
+   protected final Cell[] _cells;
+   protected final int _cellMask;
+
+   protected final ConcurrentMap<K, ResourceCounters> _resourceCounters = new ConcurrentHashMap<K, ResourceCounters>();
+   protected final AtomicInteger _trackedResourceCount = new AtomicInteger();
+   protected volatile boolean _trackingFull;
+
+   public LockMetrics()
+   {
+      this(DEFAULT_MAX_TRACKED_RESOURCES);
+   }
+
+   public LockMetrics(final int maxTrackedResources)
+   {
+      _maxTrackedResources = maxTrackedResources;
+
+      // A power of two (to allow masking instead of modulo) for each processor
+      int cellCount = 1;
+      while (cellCount < Runtime.getRuntime().availableProcessors() && cellCount < MAX_CELL_COUNT)
+      {
+         cellCount <<= 1;
+      }
+
+      _cells = new Cell[cellCount];
+      for (int i = 0; i < cellCount; ++i)
+      {
+         _cells[i] = new Cell();
+      }
+      _cellMask = cellCount - 1;
+   }
+
+   /**
+    * Records a successful lock acquisition.
+    * 
+    * @param waitNanos
+    *           the time spent waiting for the lock
+    * @param contended
+    *           if the lock could not be acquired immediately
+    */
+   public void recordAcquisition(final Collection<K> resources, final long waitNanos, final boolean contended)
+   {
+      final Cell cell = getCell();
+      cell._acquisitionCount.incrementAndGet();
+      cell._waitTimes.record(waitNanos);
+
+      if (contended)
+      {
+         cell._contendedCount.incrementAndGet();
+      }
+
+      for (final K resource : resources)
+      {
+         final ResourceCounters counters = getCounters(resource);
+         if (counters != null)
+         {
+            counters._acquisitionCount.incrementAndGet();
+
+            if (contended)
+            {
+               counters._contendedCount.incrementAndGet();
+               counters._waitNanos.addAndGet(waitNanos);
+            }
+         }
+      }
+   }
+
+   /**
+    * Records a timed out
+    * {@link MultiLock#tryLock(long, java.util.concurrent.TimeUnit)}.
+    */
+   public void recordTimeout(final Collection<K> resources, final long waitNanos)
+   {
+      getCell()._timeoutCount.incrementAndGet();
+
+      for (final K resource : resources)
+      {
+         final ResourceCounters counters = getCounters(resource);
+         if (counters != null)
+         {
+            counters._timeoutCount.incrementAndGet();
+            counters._waitNanos.addAndGet(waitNanos);
+         }
+      }
+   }
+
+   public void recordRelease(final long holdNanos)
+   {
+      getCell()._holdTimes.record(holdNanos);
+   }
+
+   public LockStatisticsSnapshot<K> snapshot()
+   {
+      long acquisitionCount = 0L;
+      long contendedCount = 0L;
+      long timeoutCount = 0L;
+      final LatencyRecorder[] waitTimes = new LatencyRecorder[_cells.length];
+      final LatencyRecorder[] holdTimes = new LatencyRecorder[_cells.length];
+
+      for (int i = 0; i < _cells.length; ++i)
+      {
+         final Cell cell = _cells[i];
+
+         acquisitionCount += cell._acquisitionCount.get();
+         contendedCount += cell._contendedCount.get();
+         timeoutCount += cell._timeoutCount.get();
+         waitTimes[i] = cell._waitTimes;
+         holdTimes[i] = cell._holdTimes;
+      }
+
+      final List<ResourceStatistics<K>> resourceStatistics = new ArrayList<ResourceStatistics<K>>(
+            _resourceCounters.size());
+      for (final Entry<K, ResourceCounters> entry : _resourceCounters.entrySet())
+      {
+         final ResourceCounters counters = entry.getValue();
+
+         resourceStatistics.add(new ResourceStatistics<K>(entry.getKey(), counters._acquisitionCount.get(),
+               counters._contendedCount.get(), counters._timeoutCount.get(), counters._waitNanos.get()));
+      }
+
+      return new LockStatisticsSnapshot<K>(acquisitionCount, contendedCount, timeoutCount,
+            LatencyRecorder.snapshot(waitTimes), LatencyRecorder.snapshot(holdTimes), resourceStatistics);
+   }
+
+   /**
+    * Resets all counters. Concurrently recorded values may or may not survive
+    * the reset.
+    */
+   public void reset()
+   {
+      for (final Cell cell : _cells)
+      {
+         cell._acquisitionCount.set(0L);
+         cell._contendedCount.set(0L);
+         cell._timeoutCount.set(0L);
+         cell._waitTimes.reset();
+         cell._holdTimes.reset();
+      }
+
+      _resourceCounters.clear();
+      _trackedResourceCount.set(0);
+      _trackingFull = false;
+   }
+
+   private Cell getCell()
+   {
+      // Thread ids are assigned sequentially, so concurrently running
+      // Threads usually end up in different cells
+      return _cells[(int) Thread.currentThread().getId() & _cellMask];
+   }
+
+   private ResourceCounters getCounters(final K resource)
+   {
+      final ResourceCounters counters = _resourceCounters.get(resource);
+      if (counters != null || _trackingFull)
+      {
+         return counters;
+      }
+
+      // Reserve a slot first - this keeps the map size bounded
+      if (_trackedResourceCount.incrementAndGet() > _maxTrackedResources)
+      {
+         _trackedResourceCount.decrementAndGet();
+
+         // Don't touch the shared slot counter again for untracked resources
+         _trackingFull = true;
+         return null;
+      }
+
+      final ResourceCounters newCounters = new ResourceCounters();
+      final ResourceCounters existingCounters = _resourceCounters.putIfAbsent(resource, newCounters);
+      if (existingCounters != null)
+      {
+         _trackedResourceCount.decrementAndGet();
+         return existingCounters;
+      }
+
+      return newCounters;
+   }
+
+   protected static class Cell implements Serializable
+   {
+      private static final long serialVersionUID = -1783302127664880263L;
+
+      protected final AtomicLong _acquisitionCount = new AtomicLong();
+      protected final AtomicLong _contendedCount = new AtomicLong();
+      protected final AtomicLong _timeoutCount = new AtomicLong();
+      protected final LatencyRecorder _waitTimes = new LatencyRecorder();
+      protected final LatencyRecorder _holdTimes = new LatencyRecorder();
+   }
+
+   protected static class ResourceCounters implements Serializable
+   {
+      private static final long serialVersionUID = 6429553117390451587L;
+
+      protected final AtomicLong _acquisitionCount = new AtomicLong();
+      protected final AtomicLong _contendedCount = new AtomicLong();
+      protected final AtomicLong _timeoutCount = new AtomicLong();
+      protected final AtomicLong _waitNanos = new AtomicLong();
+   }
+}
@@ -4,7 +4,8 @@ import java.io.IOException;
 import java.io.Writer;
 
 /**
- * Provides statistical (and other) information about currently held locks.
+ * Provides statistical (and other) information about currently held locks and
+ * about the lock contention observed so far.
  * 
  * @param <K>
  *           The type of the internally used resource identifiers
@@ -23,4 +24,22 @@ public interface LockStatistics<K>
     *            {@link Writer}
     */
    void dump(Writer w) throws IOException;
+
+   /**
+    * Returns a {@link LockStatisticsSnapshot} of the contention metrics
+    * recorded since creation or the last {@link #reset()} - like acquisition
+    * counts, wait and hold time histograms and the most contended resources.
+    * <p>
+    * Metrics are only recorded by {@link MultiLockProvider}s created via
+    * {@link MultiLockProviderFactory#withMetrics()} - for all others the
+    * returned snapshot is always empty.
+    * 
+    * @return a snapshot of the current contention metrics
+    */
+   LockStatisticsSnapshot<K> getSnapshot();
+
+   /**
+    * Resets all contention metrics.
+    */
+   void reset();
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the contention metrics of a
+ * {@link MultiLockProvider} as returned by
+ * {@link LockStatistics#getSnapshot()}.
+ * <p>
+ * Besides global counters and histograms of wait and hold times it contains
+ * {@link ResourceStatistics} for every tracked resource. A lock attempt that
+ * had to wait is attributed to all resources of the respective
+ * {@link MultiLock} - the metrics cannot tell which of them actually blocked.
+ * 
+ * @param <K>
+ *           The type of the internally used resource identifiers
+ */
+public class LockStatisticsSnapshot<K> implements Serializable
+{
+   private static final long serialVersionUID = 1590368137924307285L;
+
+   private final long _acquisitionCount;
+   private final long _contendedCount;
+   private final long _timeoutCount;
+   private final LatencyHistogram _waitTimes;
+   private final LatencyHistogram _holdTimes;
+   private final List<ResourceStatistics<K>> _resourceStatistics;
+   private transient Map<K, ResourceStatistics<K>> _resourceStatisticsMap;
+
+   LockStatisticsSnapshot(final long acquisitionCount, final long contendedCount, final long timeoutCount,
+         final LatencyHistogram waitTimes, final LatencyHistogram holdTimes,
+         final List<ResourceStatistics<K>> resourceStatistics)
+   {
+      _acquisitionCount = acquisitionCount;
+      _contendedCount = contendedCount;
+      _timeoutCount = timeoutCount;
+      _waitTimes = waitTimes;
+      _holdTimes = holdTimes;
+      _resourceStatistics = Collections.unmodifiableList(resourceStatistics);
+   }
+
+   /**
+    * Returns the number of successful lock acquisitions.
+    * 
+    * @return the number of successful lock acquisitions
+    */
+   public long getAcquisitionCount()
+   {
+      return _acquisitionCount;
+   }
+
+   /**
+    * Returns the number of successful lock acquisitions that could not be
+    * granted immediately.
+    * 
+    * @return the number of contended lock acquisitions
+    */
+   public long getContendedCount()
+   {
+      return _contendedCount;
+   }
+
+   /**
+    * Returns the number of failed {@link MultiLock#tryLock()} and
+    * {@link MultiLock#tryLock(long, java.util.concurrent.TimeUnit)} calls.
+    * 
+    * @return the number of failed lock attempts
+    */
+   public long getTimeoutCount()
+   {
+      return _timeoutCount;
+   }
+
+   /**
+    * Returns the histogram of the times spent waiting for successfully
+    * acquired locks.
+    * 
+    * @return the wait time histogram
+    */
+   public LatencyHistogram getWaitTimes()
+   {
+      return _waitTimes;
+   }
+
+   /**
+    * Returns the histogram of the times locks were held.
+    * 
+    * @return the hold time histogram
+    */
+   public LatencyHistogram getHoldTimes()
+   {
+      return _holdTimes;
+   }
+
+   /**
+    * Returns the {@link ResourceStatistics} of all tracked resources.
+    * 
+    * @return an unmodifiable {@link List} of {@link ResourceStatistics}
+    */
+   public List<ResourceStatistics<K>> getResourceStatistics()
+   {
+      return _resourceStatistics;
+   }
+
+   /**
+    * Returns the {@link ResourceStatistics} of a given resource.
+    * 
+    * @param resource
+    *           the resource to get the {@link ResourceStatistics} for
+    * @return the {@link ResourceStatistics} or {@code null} if the resource
+    *         was never locked or is not tracked
+    */
+   public ResourceStatistics<K> getResourceStatistics(final K resource)
+   {
+      // Lazy getter
+      if (_resourceStatisticsMap == null)
+      {
+         final Map<K, ResourceStatistics<K>> resourceStatisticsMap = new HashMap<K, ResourceStatistics<K>>();
+         for (final ResourceStatistics<K> resourceStatistics : _resourceStatistics)
+         {
+            resourceStatisticsMap.put(resourceStatistics.getResource(), resourceStatistics);
+         }
+
+         _resourceStatisticsMap = resourceStatisticsMap;
+      }
+
+      return _resourceStatisticsMap.get(resource);
+   }
+
+   /**
+    * Returns the {@link ResourceStatistics} of the most contended resources -
+    * ordered descending by the number of contended and failed lock attempts
+    * and then by the overall wait time.
+    * 
+    * @param count
+    *           the maximum number of resources to return
+    * @return the {@link ResourceStatistics} of the most contended resources
+    */
+   public List<ResourceStatistics<K>> getTopContendedResources(final int count)
+   {
+      final List<ResourceStatistics<K>> result = new ArrayList<ResourceStatistics<K>>();
+      for (final ResourceStatistics<K> resourceStatistics : _resourceStatistics)
+      {
+         if (resourceStatistics.getContendedCount() + resourceStatistics.getTimeoutCount() > 0L)
+         {
+            result.add(resourceStatistics);
+         }
+      }
+
+      Collections.sort(result, new Comparator<ResourceStatistics<K>>()
+      {
+         @Override
+         public int compare(final ResourceStatistics<K> o1, final ResourceStatistics<K> o2)
+         {
+            final long contention1 = o1.getContendedCount() + o1.getTimeoutCount();
+            final long contention2 = o2.getContendedCount() + o2.getTimeoutCount();
+            if (contention1 != contention2)
+            {
+               return contention1 > contention2 ? -1 : 1;
+            }
+
+            return o1.getWaitNanos() > o2.getWaitNanos() ? -1 : (o1.getWaitNanos() == o2.getWaitNanos() ? 0 : 1);
+         }
+      });
+
+      return result.size() > count ? new ArrayList<ResourceStatistics<K>>(result.subList(0, count)) : result;
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("acquisitions=%d, contended=%d, timeouts=%d, wait=[%s], hold=[%s]", _acquisitionCount,
+            _contendedCount, _timeoutCount, _waitTimes, _holdTimes);
+   }
+
+   /**
+    * The contention metrics of a single resource.
+    * 
+    * @param <K>
+    *           The type of the internally used resource identifiers
+    */
+   public static class ResourceStatistics<K> implements Serializable
+   {
+      private static final long serialVersionUID = -7766106620569330364L;
+
+      private final K _resource;
+      private final long _acquisitionCount;
+      private final long _contendedCount;
+      private final long _timeoutCount;
+      private final long _waitNanos;
+
+      ResourceStatistics(final K resource, final long acquisitionCount, final long contendedCount,
+            final long timeoutCount, final long waitNanos)
+      {
+         _resource = resource;
+         _acquisitionCount = acquisitionCount;
+         _contendedCount = contendedCount;
+         _timeoutCount = timeoutCount;
+         _waitNanos = waitNanos;
+      }
+
+      /**
+       * Returns the resource identifier.
+       * 
+       * @return the resource identifier
+       */
+      public K getResource()
+      {
+         return _resource;
+      }
+
+      /**
+       * Returns the number of successful lock acquisitions on this resource.
+       * 
+       * @return the number of successful lock acquisitions
+       */
+      public long getAcquisitionCount()
+      {
+         return _acquisitionCount;
+      }
+
+      /**
+       * Returns the number of lock acquisitions on this resource that had to
+       * wait.
+       * 
+       * @return the number of contended lock acquisitions
+       */
+      public long getContendedCount()
+      {
+         return _contendedCount;
+      }
+
+      /**
+       * Returns the number of failed lock attempts on this resource.
+       * 
+       * @return the number of failed lock attempts
+       */
+      public long getTimeoutCount()
+      {
+         return _timeoutCount;
+      }
+
+      /**
+       * Returns the overall time in nanoseconds spent waiting for this
+       * resource - by successful and failed lock attempts.
+       * 
+       * @return the overall wait time in nanoseconds
+       */
+      public long getWaitNanos()
+      {
+         return _waitNanos;
+      }
+
+      @Override
+      public String toString()
+      {
+         return String.format("%s: acquisitions=%d, contended=%d, timeouts=%d, wait=%dus", _resource,
+               _acquisitionCount, _contendedCount, _timeoutCount, _waitNanos / 1000L);
+      }
+   }
+}
@@ -8,7 +8,13 @@ import net.sf.javagimmicks.util.Supplier;
 /**
  * Serves as central {@link Supplier} for {@link MultiLockProvider} instances.
  * Instances can only be retrieved by the static getters
- * {@link #getHashBasedInstance()} and {@link #getTreeBasedInstance()}.
+ * {@link #getHashBasedInstance()}, {@link #getTreeBasedInstance()},
+ * {@link #getStripedInstance()} and {@link #getFairInstance(boolean)}.
+ * <p>
+ * By default, the created {@link MultiLockProvider}s don't record any
+ * contention metrics - use {@link #withMetrics()} to get a factory for
+ * {@link MultiLockProvider}s that do (see {@link LockStatistics#getSnapshot()}
+ * ).
  * 
  * @param <K>
  *           The type of the internally used resource identifiers
@@ -21,6 +27,15 @@ public class MultiLockProviderFactory<K> implements Supplier<MultiLockProvider<K
    private static final MultiLockProviderFactory<Object> TREE_INSTANCE = new MultiLockProviderFactory<Object>(
          new TreeLockRegistrySupplier<Object>());
 
+   private static final MultiLockProviderFactory<Object> STRIPED_INSTANCE = new MultiLockProviderFactory<Object>(
+         new StripedLockProviderSupplier<Object>());
+
+   private static final MultiLockProviderFactory<Object> FAIR_INSTANCE = new MultiLockProviderFactory<Object>(
+         new FairLockProviderSupplier<Object>(false));
+
+   private static final MultiLockProviderFactory<Object> FAIR_WRITER_PREFERENCE_INSTANCE = new MultiLockProviderFactory<Object>(
+         new FairLockProviderSupplier<Object>(true));
+
    /**
     * Returns the hash-based {@link MultiLockProviderFactory} instance which
     * manages resource identifiers using {@link HashMap}s.
@@ -49,34 +64,138 @@ public class MultiLockProviderFactory<K> implements Supplier<MultiLockProvider<K
       return (MultiLockProviderFactory<K>) TREE_INSTANCE;
    }
 
-   private final Supplier<LockRegistry<K>> _registrySupplier;
+   /**
+    * Returns the striped {@link MultiLockProviderFactory} instance. It creates
+    * {@link MultiLockProvider}s that distribute their lock state over a number
+    * of independently guarded stripes (based on the {@link Object#hashCode()
+    * hash code} of the resource identifiers) and only wake up waiting
+    * {@link Thread}s whose resources were released. This scales much better
+    * if many {@link Thread}s lock unrelated resources concurrently.
+    * 
+    * @param <K>
+    *           The type of the internally used resource identifiers
+    * @return the striped instance
+    */
+   @SuppressWarnings("unchecked")
+   public static <K> MultiLockProviderFactory<K> getStripedInstance()
+   {
+      return (MultiLockProviderFactory<K>) STRIPED_INSTANCE;
+   }
+
+   /**
+    * Returns a fair {@link MultiLockProviderFactory} instance. It creates
+    * {@link MultiLockProvider}s that keep waiting {@link Thread}s in a FIFO
+    * queue (annotated with the resources each one waits for) and grant locks
+    * in arrival order - a lock attempt never overtakes an earlier conflicting
+    * waiter. On release, only those waiters get unparked whose resources are
+    * free now.
+    * 
+    * @param writerPreference
+    *           if waiting writers should be preferred over waiting readers
+    * @param <K>
+    *           The type of the internally used resource identifiers
+    * @return the fair instance
+    */
+   @SuppressWarnings("unchecked")
+   public static <K> MultiLockProviderFactory<K> getFairInstance(final boolean writerPreference)
+   {
+      return (MultiLockProviderFactory<K>) (writerPreference ? FAIR_WRITER_PREFERENCE_INSTANCE : FAIR_INSTANCE);
+   }
+
+   private final ProviderSupplier<K> _providerSupplier;
+   private final boolean _recordMetrics;
 
-   private MultiLockProviderFactory(final Supplier<LockRegistry<K>> registrySupplier)
+   private MultiLockProviderFactory(final ProviderSupplier<K> providerSupplier)
    {
-      _registrySupplier = registrySupplier;
+      this(providerSupplier, false);
+   }
+
+   private MultiLockProviderFactory(final ProviderSupplier<K> providerSupplier, final boolean recordMetrics)
+   {
+      _providerSupplier = providerSupplier;
+      _recordMetrics = recordMetrics;
+   }
+
+   /**
+    * Returns a {@link MultiLockProviderFactory} that creates the same kind of
+    * {@link MultiLockProvider}s as this one, but with contention metrics
+    * recorded (see {@link LockStatistics#getSnapshot()}).
+    * <p>
+    * Recording adds some overhead to every lock operation (mainly an
+    * additional non-blocking lock attempt before each blocking one), so it is
+    * disabled by default.
+    * 
+    * @return a {@link MultiLockProviderFactory} for {@link MultiLockProvider}s
+    *         recording contention metrics
+    */
+   public MultiLockProviderFactory<K> withMetrics()
+   {
+      return _recordMetrics ? this : new MultiLockProviderFactory<K>(_providerSupplier, true);
+   }
+
+   /**
+    * Returns if the created {@link MultiLockProvider}s record contention
+    * metrics.
+    * 
+    * @return if the created {@link MultiLockProvider}s record contention
+    *         metrics
+    */
+   public boolean isRecordingMetrics()
+   {
+      return _recordMetrics;
    }
 
    @Override
    public MultiLockProvider<K> get()
    {
-      return new RegistryLockProvider<K>(_registrySupplier.get());
+      return _providerSupplier.get(_recordMetrics);
+   }
+
+   private interface ProviderSupplier<K>
+   {
+      MultiLockProvider<K> get(boolean recordMetrics);
    }
 
-   private static class HashLockRegistrySupplier<K> implements Supplier<LockRegistry<K>>
+   private static class HashLockRegistrySupplier<K> implements ProviderSupplier<K>
    {
       @Override
-      public LockRegistry<K> get()
+      public MultiLockProvider<K> get(final boolean recordMetrics)
       {
-         return DefaultLockRegistry.createHashBasedInstance();
+         return new RegistryLockProvider<K>(DefaultLockRegistry.<K> createHashBasedInstance(), recordMetrics);
       }
    }
 
-   private static class TreeLockRegistrySupplier<K> implements Supplier<LockRegistry<K>>
+   private static class TreeLockRegistrySupplier<K> implements ProviderSupplier<K>
    {
       @Override
-      public LockRegistry<K> get()
+      public MultiLockProvider<K> get(final boolean recordMetrics)
+      {
+         return new RegistryLockProvider<K>(DefaultLockRegistry.<K> createTreeBasedInstance(), recordMetrics);
+      }
+   }
+
+   private static class StripedLockProviderSupplier<K> implements ProviderSupplier<K>
+   {
+      @Override
+      public MultiLockProvider<K> get(final boolean recordMetrics)
+      {
+         return new StripedLockProvider<K>(StripedLockProvider.DEFAULT_STRIPE_COUNT, recordMetrics);
+      }
+   }
+
+   private static class FairLockProviderSupplier<K> implements ProviderSupplier<K>
+   {
+      private final boolean _writerPreference;
+
+      private FairLockProviderSupplier(final boolean writerPreference)
+      {
+         _writerPreference = writerPreference;
+      }
+
+      @Override
+      public MultiLockProvider<K> get(final boolean recordMetrics)
       {
-         return DefaultLockRegistry.createTreeBasedInstance();
+         return new FairLockProvider<K>(_writerPreference, recordMetrics);
       }
    }
 }
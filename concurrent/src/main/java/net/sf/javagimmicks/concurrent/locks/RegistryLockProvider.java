@@ -18,6 +18,7 @@ class RegistryLockProvider<K> implements MultiLockProvider<K>, Serializable
    private static final long serialVersionUID = 6807627151240655773L;
 
    protected final LockRegistry<K> _registry;
+   protected final LockMetrics<K> _metrics;
    protected LockStatisticsImpl _stats;
 
    protected final Lock _exLock = new ReentrantLock();
@@ -27,8 +28,14 @@ class RegistryLockProvider<K> implements MultiLockProvider<K>, Serializable
    protected final Condition _shCondition = _shLock.newCondition();
 
    public RegistryLockProvider(final LockRegistry<K> registry)
+   {
+      this(registry, false);
+   }
+
+   public RegistryLockProvider(final LockRegistry<K> registry, final boolean recordMetrics)
    {
       _registry = registry;
+      _metrics = recordMetrics ? new LockMetrics<K>() : null;
    }
 
    @Override
@@ -85,6 +92,21 @@ class RegistryLockProvider<K> implements MultiLockProvider<K>, Serializable
             _exLock.unlock();
          }
       }
+
+      @Override
+      public LockStatisticsSnapshot<K> getSnapshot()
+      {
+         return _metrics != null ? _metrics.snapshot() : LockMetrics.<K> emptySnapshot();
+      }
+
+      @Override
+      public void reset()
+      {
+         if (_metrics != null)
+         {
+            _metrics.reset();
+         }
+      }
    }
 
    protected class MultiReadWriteLockImpl implements MultiReadWriteLock<K>
@@ -130,120 +152,18 @@ class RegistryLockProvider<K> implements MultiLockProvider<K>, Serializable
          return _writeLock;
       }
 
-      protected abstract class MultiLockImpl implements MultiLock<K>
+      protected abstract class MultiLockImpl extends AbstractMultiLock<K>
       {
-         protected final ThreadLocal<Boolean> _lockedFlag = new ThreadLocal<Boolean>();
-
-         @Override
-         public final Collection<K> getResourceIds()
-         {
-            return MultiReadWriteLockImpl.this.getResourceIds();
-         }
-
-         @Override
-         public boolean isLockedByThisThread()
-         {
-            final Boolean b = _lockedFlag.get();
-
-            return b != null && b.booleanValue();
-         }
-
-         @Override
-         public void lock()
-         {
-            testUnlocked();
-
-            lockInternal();
-
-            setLockedByThisThread(true);
-         }
-
-         @Override
-         public void lockInterruptibly() throws InterruptedException
-         {
-            testUnlocked();
-
-            lockInterruptiblyInternal();
-
-            setLockedByThisThread(true);
-         }
-
-         @Override
-         public Condition newCondition()
-         {
-            throw new UnsupportedOperationException();
-         }
-
-         @Override
-         public boolean tryLock()
-         {
-            testUnlocked();
-
-            final boolean result = tryLockInternal();
-
-            if (result)
-            {
-               setLockedByThisThread(true);
-            }
-
-            return result;
-         }
-
-         @Override
-         public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException
+         protected MultiLockImpl()
          {
-            testUnlocked();
-
-            final boolean result = tryLockInternal(time, unit);
-
-            if (result)
-            {
-               setLockedByThisThread(true);
-            }
-
-            return result;
+            super(RegistryLockProvider.this._metrics);
          }
 
          @Override
-         public void unlock()
-         {
-            testLocked();
-
-            unlockInternal();
-
-            setLockedByThisThread(false);
-         }
-
-         protected final void setLockedByThisThread(final boolean locked)
-         {
-            _lockedFlag.set(locked ? Boolean.TRUE : null);
-         }
-
-         protected void testLocked()
-         {
-            if (!isLockedByThisThread())
-            {
-               throw new IllegalStateException("Lock is not locked by this thread!");
-            }
-         }
-
-         protected void testUnlocked()
+         public final Collection<K> getResourceIds()
          {
-            if (isLockedByThisThread())
-            {
-               throw new IllegalStateException("Lock is already locked by this thread!");
-            }
+            return MultiReadWriteLockImpl.this.getResourceIds();
          }
-
-         abstract protected void lockInternal();
-
-         abstract protected void lockInterruptiblyInternal() throws InterruptedException;
-
-         abstract protected boolean tryLockInternal();
-
-         abstract protected boolean tryLockInternal(long time, TimeUnit unit) throws InterruptedException;
-
-         abstract protected void unlockInternal();
       }
 
       protected class MultiReadLockImpl extends MultiLockImpl
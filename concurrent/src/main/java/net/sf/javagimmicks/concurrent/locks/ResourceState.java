@@ -0,0 +1,20 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.Serializable;
+
+/**
+ * The lock state of a single resource - the number of {@link Thread}s holding
+ * it shared and the {@link Thread} holding it exclusively (if any).
+ */
+class ResourceState implements Serializable
+{
+   private static final long serialVersionUID = 2365466404722735025L;
+
+   protected int _readerCount;
+   protected Thread _writer;
+
+   protected boolean isFree()
+   {
+      return _readerCount == 0 && _writer == null;
+   }
+}
@@ -0,0 +1,658 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link MultiLockProvider} that splits its lock state into a number of
+ * stripes, each guarded by its own {@link ReentrantLock}. Every resource
+ * identifier belongs to exactly one stripe (determined by its
+ * {@link Object#hashCode() hash code}), so lock and unlock operations on
+ * unrelated resources mostly touch different stripes and don't serialize on a
+ * global lock like in {@link RegistryLockProvider}.
+ * <p>
+ * A lock attempt takes all stripes of its resources in ascending order (which
+ * avoids deadlocks between the stripes), checks and registers the resources
+ * and releases the stripes again. If the resources are not free, the waiting
+ * {@link Thread} registers itself as a waiter for each of its resources and
+ * parks. An unlock only unparks the waiters registered for the released
+ * resources - instead of waking all waiting {@link Thread}s.
+ * <p>
+ * Like {@link RegistryLockProvider}, this implementation is not fair.
+ * 
+ * @param <K>
+ *           The type of the internally used resource identifiers
+ */
+class StripedLockProvider<K> implements MultiLockProvider<K>, Serializable
+{
+   private static final long serialVersionUID = -2851935411270883062L;
+
+   static final int DEFAULT_STRIPE_COUNT = 64;
+
+   protected final Stripe<K>[] _stripes;
+   protected final int _stripeMask;
+
+   protected final LockMetrics<K> _metrics;
+   protected LockStatisticsImpl _stats;
+
+   public StripedLockProvider()
+   {
+      this(DEFAULT_STRIPE_COUNT);
+   }
+
+   public StripedLockProvider(final int stripeCount)
+   {
+      this(stripeCount, false);
+   }
+
+   public StripedLockProvider(final int stripeCount, final boolean recordMetrics)
+   {
+      if (stripeCount < 1)
+      {
+         throw new IllegalArgumentException("Stripe count must be at least 1!");
+      }
+
+      // Round up to the next power of two to allow masking instead of modulo
+      int size = 1;
+      while (size < stripeCount)
+      {
+         size <<= 1;
+      }
+
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      final Stripe<K>[] stripes = new Stripe[size];
+      for (int i = 0; i < size; ++i)
+      {
+         stripes[i] = new Stripe<K>();
+      }
+      _stripes = stripes;
+      _stripeMask = size - 1;
+      _metrics = recordMetrics ? new LockMetrics<K>() : null;
+   }
+
+   @Override
+   public MultiReadWriteLock<K> newLock(final Iterable<K> resources)
+   {
+      return new MultiReadWriteLockImpl(resources);
+   }
+
+   @Override
+   public MultiReadWriteLock<K> newLock(final K... resources)
+   {
+      return newLock(Arrays.asList(resources));
+   }
+
+   @Override
+   public LockStatistics<K> getStatistics()
+   {
+      // Lazy getter
+      if (_stats == null)
+      {
+         synchronized (this)
+         {
+            if (_stats == null)
+            {
+               _stats = new LockStatisticsImpl();
+            }
+         }
+      }
+
+      return _stats;
+   }
+
+   protected int getStripeIndex(final K resource)
+   {
+      // Spread the higher bits downwards (like HashMap does)
+      int h = resource.hashCode();
+      h ^= (h >>> 20) ^ (h >>> 12);
+      h ^= (h >>> 7) ^ (h >>> 4);
+
+      return h & _stripeMask;
+   }
+
+   /**
+    * Tries to acquire all resources of a {@link Request}.
+    * 
+    * @param nanos
+    *           the maximum time to wait - {@code 0} for not waiting at all and
+    *           a negative value for waiting without timeout
+    */
+   protected boolean acquire(final Request<K> request, final boolean exclusive, final boolean interruptible,
+         final long nanos) throws InterruptedException
+   {
+      final long deadline = nanos > 0L ? System.nanoTime() + nanos : 0L;
+
+      Waiter waiter = null;
+      boolean interrupted = false;
+
+      try
+      {
+         while (true)
+         {
+            lockStripes(request);
+            try
+            {
+               if (isFree(request, exclusive))
+               {
+                  register(request, exclusive);
+
+                  if (waiter != null)
+                  {
+                     removeWaiter(request, waiter);
+                  }
+
+                  return true;
+               }
+
+               if (nanos == 0L || (nanos > 0L && deadline - System.nanoTime() <= 0L))
+               {
+                  if (waiter != null)
+                  {
+                     removeWaiter(request, waiter);
+                  }
+
+                  return false;
+               }
+
+               if (waiter == null)
+               {
+                  waiter = new Waiter(Thread.currentThread());
+                  addWaiter(request, waiter);
+               }
+
+               // Any release after this point will signal and unpark us
+               waiter._signalled = false;
+            }
+            finally
+            {
+               unlockStripes(request);
+            }
+
+            while (!waiter._signalled)
+            {
+               if (nanos < 0L)
+               {
+                  LockSupport.park(this);
+               }
+               else
+               {
+                  final long nanosLeft = deadline - System.nanoTime();
+                  if (nanosLeft <= 0L)
+                  {
+                     break;
+                  }
+
+                  LockSupport.parkNanos(this, nanosLeft);
+               }
+
+               if (Thread.interrupted())
+               {
+                  if (interruptible)
+                  {
+                     lockStripes(request);
+                     try
+                     {
+                        removeWaiter(request, waiter);
+                     }
+                     finally
+                     {
+                        unlockStripes(request);
+                     }
+
+                     throw new InterruptedException();
+                  }
+
+                  interrupted = true;
+               }
+            }
+         }
+      }
+      finally
+      {
+         if (interrupted)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   protected void release(final Request<K> request, final boolean exclusive)
+   {
+      final List<Waiter> waitersToWake = new ArrayList<Waiter>();
+
+      // Stripes can be released one after another - releasing never blocks
+      for (int i = 0; i < request._stripeIndexes.length; ++i)
+      {
+         final Stripe<K> stripe = _stripes[request._stripeIndexes[i]];
+
+         stripe.lock();
+         try
+         {
+            for (final K resource : request._resourcesByStripe[i])
+            {
+               final ResourceState state = stripe._states.get(resource);
+               if (state == null)
+               {
+                  continue;
+               }
+
+               if (exclusive)
+               {
+                  state._writer = null;
+               }
+               else
+               {
+                  --state._readerCount;
+               }
+
+               if (state.isFree())
+               {
+                  stripe._states.remove(resource);
+               }
+
+               // Readers only block writers - which need all readers to be gone
+               if (exclusive || state._readerCount == 0)
+               {
+                  collectWaiters(stripe, resource, waitersToWake);
+               }
+            }
+         }
+         finally
+         {
+            stripe.unlock();
+         }
+      }
+
+      for (final Waiter waiter : waitersToWake)
+      {
+         LockSupport.unpark(waiter._thread);
+      }
+   }
+
+   private boolean isFree(final Request<K> request, final boolean exclusive)
+   {
+      for (int i = 0; i < request._stripeIndexes.length; ++i)
+      {
+         final Map<K, ResourceState> states = _stripes[request._stripeIndexes[i]]._states;
+
+         for (final K resource : request._resourcesByStripe[i])
+         {
+            final ResourceState state = states.get(resource);
+            if (state != null && (exclusive || state._writer != null))
+            {
+               return false;
+            }
+         }
+      }
+
+      return true;
+   }
+
+   private void register(final Request<K> request, final boolean exclusive)
+   {
+      final Thread currentThread = Thread.currentThread();
+
+      for (int i = 0; i < request._stripeIndexes.length; ++i)
+      {
+         final Map<K, ResourceState> states = _stripes[request._stripeIndexes[i]]._states;
+
+         for (final K resource : request._resourcesByStripe[i])
+         {
+            ResourceState state = states.get(resource);
+            if (state == null)
+            {
+               state = new ResourceState();
+               states.put(resource, state);
+            }
+
+            if (exclusive)
+            {
+               state._writer = currentThread;
+            }
+            else
+            {
+               ++state._readerCount;
+            }
+         }
+      }
+   }
+
+   private void addWaiter(final Request<K> request, final Waiter waiter)
+   {
+      for (int i = 0; i < request._stripeIndexes.length; ++i)
+      {
+         final Map<K, List<Waiter>> waiters = _stripes[request._stripeIndexes[i]]._waiters;
+
+         for (final K resource : request._resourcesByStripe[i])
+         {
+            List<Waiter> waitersForResource = waiters.get(resource);
+            if (waitersForResource == null)
+            {
+               waitersForResource = new ArrayList<Waiter>(2);
+               waiters.put(resource, waitersForResource);
+            }
+
+            waitersForResource.add(waiter);
+         }
+      }
+   }
+
+   private void removeWaiter(final Request<K> request, final Waiter waiter)
+   {
+      for (int i = 0; i < request._stripeIndexes.length; ++i)
+      {
+         final Map<K, List<Waiter>> waiters = _stripes[request._stripeIndexes[i]]._waiters;
+
+         for (final K resource : request._resourcesByStripe[i])
+         {
+            final List<Waiter> waitersForResource = waiters.get(resource);
+            if (waitersForResource != null && waitersForResource.remove(waiter) && waitersForResource.isEmpty())
+            {
+               waiters.remove(resource);
+            }
+         }
+      }
+   }
+
+   private static <K> void collectWaiters(final Stripe<K> stripe, final K resource, final List<Waiter> result)
+   {
+      final List<Waiter> waitersForResource = stripe._waiters.get(resource);
+      if (waitersForResource == null)
+      {
+         return;
+      }
+
+      for (final Waiter waiter : waitersForResource)
+      {
+         if (!waiter._signalled)
+         {
+            waiter._signalled = true;
+            result.add(waiter);
+         }
+      }
+   }
+
+   private void lockStripes(final Request<K> request)
+   {
+      for (final int stripeIndex : request._stripeIndexes)
+      {
+         _stripes[stripeIndex].lock();
+      }
+   }
+
+   private void unlockStripes(final Request<K> request)
+   {
+      for (int i = request._stripeIndexes.length - 1; i >= 0; --i)
+      {
+         _stripes[request._stripeIndexes[i]].unlock();
+      }
+   }
+
+   protected class LockStatisticsImpl implements LockStatistics<K>
+   {
+      @Override
+      public void dump(final Writer out) throws IOException
+      {
+         final PrintWriter pw = new PrintWriter(out);
+
+         for (int i = 0; i < _stripes.length; ++i)
+         {
+            final Stripe<K> stripe = _stripes[i];
+
+            try
+            {
+               stripe.lockInterruptibly();
+            }
+            catch (final InterruptedException e)
+            {
+               // If this thread is interrupted from outside, we just skip dumping
+               Thread.currentThread().interrupt();
+               return;
+            }
+
+            try
+            {
+               if (stripe._states.isEmpty())
+               {
+                  continue;
+               }
+
+               pw.println();
+               pw.println(String.format("Stripe %d entries:", i));
+               for (final Entry<K, ResourceState> entry : stripe._states.entrySet())
+               {
+                  final ResourceState state = entry.getValue();
+                  final List<Waiter> waiters = stripe._waiters.get(entry.getKey());
+
+                  pw.println(String.format("\t-Resource: %s is locked by %s (%d waiting Threads)",
+                        entry.getKey(),
+                        state._writer != null ?
+                              String.format("Thread with name: '%s' and id: '%d'", state._writer.getName(),
+                                    state._writer.getId()) :
+                              String.format("%d reading Threads", state._readerCount),
+                        waiters != null ? waiters.size() : 0));
+               }
+            }
+            finally
+            {
+               stripe.unlock();
+            }
+         }
+
+         pw.flush();
+      }
+
+      @Override
+      public LockStatisticsSnapshot<K> getSnapshot()
+      {
+         return _metrics != null ? _metrics.snapshot() : LockMetrics.<K> emptySnapshot();
+      }
+
+      @Override
+      public void reset()
+      {
+         if (_metrics != null)
+         {
+            _metrics.reset();
+         }
+      }
+   }
+
+   protected class MultiReadWriteLockImpl implements MultiReadWriteLock<K>
+   {
+      protected final List<K> _resources;
+      protected final Request<K> _request;
+      protected final MultiLock<K> _readLock;
+      protected final MultiLock<K> _writeLock;
+
+      protected MultiReadWriteLockImpl(final Iterable<K> resources)
+      {
+         final List<K> internalResourceList = new ArrayList<K>();
+
+         // Predicate out null resources
+         for (final K resource : resources)
+         {
+            if (resource != null)
+            {
+               internalResourceList.add(resource);
+            }
+         }
+
+         _resources = Collections.unmodifiableList(internalResourceList);
+         _request = new Request<K>(StripedLockProvider.this, _resources);
+
+         _readLock = new MultiLockImpl(false);
+         _writeLock = new MultiLockImpl(true);
+      }
+
+      @Override
+      public Collection<K> getResourceIds()
+      {
+         return _resources;
+      }
+
+      @Override
+      public MultiLock<K> readLock()
+      {
+         return _readLock;
+      }
+
+      @Override
+      public MultiLock<K> writeLock()
+      {
+         return _writeLock;
+      }
+
+      protected class MultiLockImpl extends AbstractMultiLock<K>
+      {
+         protected final boolean _exclusive;
+
+         protected MultiLockImpl(final boolean exclusive)
+         {
+            super(StripedLockProvider.this._metrics);
+            _exclusive = exclusive;
+         }
+
+         @Override
+         public Collection<K> getResourceIds()
+         {
+            return _resources;
+         }
+
+         @Override
+         protected void lockInternal()
+         {
+            try
+            {
+               acquire(_request, _exclusive, false, -1L);
+            }
+            catch (final InterruptedException e)
+            {
+               // Cannot happen for non-interruptible acquisition
+               throw new IllegalStateException(e);
+            }
+         }
+
+         @Override
+         protected void lockInterruptiblyInternal() throws InterruptedException
+         {
+            if (Thread.interrupted())
+            {
+               throw new InterruptedException();
+            }
+
+            acquire(_request, _exclusive, true, -1L);
+         }
+
+         @Override
+         protected boolean tryLockInternal()
+         {
+            try
+            {
+               return acquire(_request, _exclusive, false, 0L);
+            }
+            catch (final InterruptedException e)
+            {
+               // Cannot happen for non-interruptible acquisition
+               throw new IllegalStateException(e);
+            }
+         }
+
+         @Override
+         protected boolean tryLockInternal(final long time, final TimeUnit unit) throws InterruptedException
+         {
+            if (Thread.interrupted())
+            {
+               throw new InterruptedException();
+            }
+
+            return acquire(_request, _exclusive, true, Math.max(unit.toNanos(time), 0L));
+         }
+
+         @Override
+         protected void unlockInternal()
+         {
+            release(_request, _exclusive);
+         }
+      }
+   }
+
+   /**
+    * The resources of a {@link MultiReadWriteLock} grouped by stripe - with
+    * duplicates removed and the stripes sorted ascending.
+    */
+   protected static class Request<K> implements Serializable
+   {
+      private static final long serialVersionUID = 8127449064437385165L;
+
+      protected final int[] _stripeIndexes;
+      protected final List<K>[] _resourcesByStripe;
+
+      protected Request(final StripedLockProvider<K> provider, final Collection<K> resources)
+      {
+         final Map<Integer, List<K>> resourcesByStripe = new HashMap<Integer, List<K>>();
+         for (final K resource : new LinkedHashSet<K>(resources))
+         {
+            final Integer stripeIndex = provider.getStripeIndex(resource);
+
+            List<K> resourcesForStripe = resourcesByStripe.get(stripeIndex);
+            if (resourcesForStripe == null)
+            {
+               resourcesForStripe = new ArrayList<K>(2);
+               resourcesByStripe.put(stripeIndex, resourcesForStripe);
+            }
+
+            resourcesForStripe.add(resource);
+         }
+
+         _stripeIndexes = new int[resourcesByStripe.size()];
+         int i = 0;
+         for (final Integer stripeIndex : resourcesByStripe.keySet())
+         {
+            _stripeIndexes[i++] = stripeIndex;
+         }
+         Arrays.sort(_stripeIndexes);
+
+         @SuppressWarnings({ "unchecked", "rawtypes" })
+         final List<K>[] resourcesByStripeArray = new List[_stripeIndexes.length];
+         for (i = 0; i < _stripeIndexes.length; ++i)
+         {
+            resourcesByStripeArray[i] = resourcesByStripe.get(_stripeIndexes[i]);
+         }
+         _resourcesByStripe = resourcesByStripeArray;
+      }
+   }
+
+   protected static class Stripe<K> extends ReentrantLock
+   {
+      private static final long serialVersionUID = -4474066433580806446L;
+
+      protected final Map<K, ResourceState> _states = new HashMap<K, ResourceState>();
+      protected final Map<K, List<Waiter>> _waiters = new HashMap<K, List<Waiter>>();
+   }
+
+   protected static class Waiter
+   {
+      protected final Thread _thread;
+      protected volatile boolean _signalled;
+
+      protected Waiter(final Thread thread)
+      {
+         _thread = thread;
+      }
+   }
+}
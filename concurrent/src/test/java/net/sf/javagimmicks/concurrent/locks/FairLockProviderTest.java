@@ -0,0 +1,183 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class FairLockProviderTest
+{
+   private ExecutorService _executor = Executors.newCachedThreadPool();
+
+   @After
+   public void shutdown()
+   {
+      _executor.shutdownNow();
+   }
+
+   @Test
+   public void testNoOvertaking() throws Exception
+   {
+      final FairLockProvider<String> provider = new FairLockProvider<String>();
+
+      final MultiLock<String> writeA = provider.newLock("a").writeLock();
+      final MultiLock<String> writeAB = provider.newLock("a", "b").writeLock();
+      final MultiLock<String> readB = provider.newLock("b").readLock();
+      final MultiLock<String> readC = provider.newLock("c").readLock();
+
+      writeA.lock();
+
+      final List<String> order = new CopyOnWriteArrayList<String>();
+      final Future<Boolean> waitingWriter = lockInOtherThread(writeAB, "writeAB", order);
+      awaitQueueLength(provider, 1);
+
+      // "b" is free, but the queued writer needs it
+      assertFalse(tryLockInOtherThread(readB));
+      assertTrue(tryLockInOtherThread(readC));
+
+      final Future<Boolean> waitingReader = lockInOtherThread(readB, "readB", order);
+      awaitQueueLength(provider, 2);
+
+      writeA.unlock();
+      assertTrue(waitingWriter.get(5, TimeUnit.SECONDS));
+      assertTrue(waitingReader.get(5, TimeUnit.SECONDS));
+
+      assertEquals("writeAB", order.get(0));
+      assertEquals("readB", order.get(1));
+      assertEquals(0, provider.getQueueLength());
+   }
+
+   @Test
+   public void testWriterPreference() throws Exception
+   {
+      assertEquals("readA", lockQueuedReaderAndWriter(new FairLockProvider<String>(false)));
+      assertEquals("writeA", lockQueuedReaderAndWriter(new FairLockProvider<String>(true)));
+   }
+
+   @Test
+   public void testTimeoutAndInterrupt() throws Exception
+   {
+      final FairLockProvider<String> provider = new FairLockProvider<String>();
+
+      final MultiLock<String> writeA = provider.newLock("a").writeLock();
+      final MultiLock<String> writeAB = provider.newLock("a", "b").writeLock();
+      final MultiLock<String> readB = provider.newLock("b").readLock();
+
+      writeA.lock();
+
+      assertFalse(_executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            return writeAB.tryLock(50L, TimeUnit.MILLISECONDS);
+         }
+      }).get());
+
+      // The timed out waiter must not block "b" any longer
+      assertEquals(0, provider.getQueueLength());
+      assertTrue(tryLockInOtherThread(readB));
+
+      final Future<Boolean> interrupted = _executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            try
+            {
+               writeAB.lockInterruptibly();
+               return false;
+            }
+            catch (final InterruptedException e)
+            {
+               return true;
+            }
+         }
+      });
+      awaitQueueLength(provider, 1);
+      interrupted.cancel(true);
+
+      awaitQueueLength(provider, 0);
+      assertTrue(tryLockInOtherThread(readB));
+
+      writeA.unlock();
+   }
+
+   private String lockQueuedReaderAndWriter(final FairLockProvider<String> provider) throws Exception
+   {
+      final MultiLock<String> writeA = provider.newLock("a").writeLock();
+      final MultiLock<String> writeA2 = provider.newLock("a").writeLock();
+      final MultiLock<String> readA = provider.newLock("a").readLock();
+
+      writeA.lock();
+
+      final List<String> order = new CopyOnWriteArrayList<String>();
+      final Future<Boolean> reader = lockInOtherThread(readA, "readA", order);
+      awaitQueueLength(provider, 1);
+      final Future<Boolean> writer = lockInOtherThread(writeA2, "writeA", order);
+      awaitQueueLength(provider, 2);
+
+      writeA.unlock();
+      assertTrue(reader.get(5, TimeUnit.SECONDS));
+      assertTrue(writer.get(5, TimeUnit.SECONDS));
+
+      return order.get(0);
+   }
+
+   private Future<Boolean> lockInOtherThread(final MultiLock<String> lock, final String name,
+         final List<String> order)
+   {
+      return _executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            lock.lockInterruptibly();
+            order.add(name);
+            Thread.sleep(20L);
+            lock.unlock();
+
+            return true;
+         }
+      });
+   }
+
+   private boolean tryLockInOtherThread(final MultiLock<String> lock) throws Exception
+   {
+      return _executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            final boolean result = lock.tryLock();
+            if (result)
+            {
+               lock.unlock();
+            }
+
+            return result;
+         }
+      }).get();
+   }
+
+   private static void awaitQueueLength(final FairLockProvider<?> provider, final int length)
+         throws InterruptedException
+   {
+      for (int i = 0; i < 500 && provider.getQueueLength() != length; ++i)
+      {
+         Thread.sleep(10L);
+      }
+
+      assertEquals(length, provider.getQueueLength());
+   }
+}
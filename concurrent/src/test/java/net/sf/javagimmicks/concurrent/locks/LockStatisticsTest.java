@@ -0,0 +1,222 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.javagimmicks.concurrent.locks.LockStatisticsSnapshot.ResourceStatistics;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LockStatisticsTest
+{
+   private ExecutorService _executor = Executors.newCachedThreadPool();
+
+   @After
+   public void shutdown()
+   {
+      _executor.shutdownNow();
+   }
+
+   @Test
+   public void testHistogramBuckets()
+   {
+      for (long value = 0L; value < 100000L; value = value * 3 / 2 + 1)
+      {
+         final int index = LatencyHistogram.indexOf(value);
+         assertTrue(LatencyHistogram.lowestValueAt(index) <= value);
+         assertTrue(LatencyHistogram.highestValueAt(index) >= value);
+         assertEquals(index + 1, LatencyHistogram.indexOf(LatencyHistogram.highestValueAt(index) + 1));
+      }
+
+      assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+
+      final LatencyRecorder recorder = new LatencyRecorder();
+      for (int i = 1; i <= 1000; ++i)
+      {
+         recorder.record(i * 1000L);
+      }
+
+      final LatencyHistogram histogram = recorder.snapshot();
+      assertEquals(1000L, histogram.getCount());
+      assertEquals(1000000L, histogram.getMax());
+      assertEquals(500500.0, histogram.getMean(), 0.0);
+
+      // The relative error is bounded by the bucket width
+      final long median = histogram.getValueAtPercentile(50.0);
+      assertTrue(median >= 500000L && median <= 500000L * 33 / 32);
+      assertEquals(1000000L, histogram.getValueAtPercentile(100.0));
+   }
+
+   @Test
+   public void testRegistryStatistics() throws Exception
+   {
+      final MultiLockProvider<String> provider = MultiLockProviderFactory.<String> getHashBasedInstance()
+            .withMetrics().get();
+      final LockStatistics<String> statistics = provider.getStatistics();
+
+      final MultiLock<String> writeAB = provider.newLock("a", "b").writeLock();
+      final MultiLock<String> writeB = provider.newLock("b").writeLock();
+      final MultiLock<String> readC = provider.newLock("c").readLock();
+
+      readC.lock();
+      readC.unlock();
+
+      writeAB.lock();
+      assertFalse(_executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            return writeB.tryLock(20L, TimeUnit.MILLISECONDS);
+         }
+      }).get());
+
+      final CountDownLatch started = new CountDownLatch(1);
+      final Thread[] waitingThread = new Thread[1];
+      final Future<?> waiting = _executor.submit(new Callable<Void>()
+      {
+         @Override
+         public Void call() throws Exception
+         {
+            waitingThread[0] = Thread.currentThread();
+            started.countDown();
+            writeB.lock();
+            writeB.unlock();
+
+            return null;
+         }
+      });
+
+      started.await();
+      awaitWaiting(waitingThread[0]);
+      writeAB.unlock();
+      waiting.get(5, TimeUnit.SECONDS);
+
+      final LockStatisticsSnapshot<String> snapshot = statistics.getSnapshot();
+      assertEquals(3L, snapshot.getAcquisitionCount());
+      assertEquals(1L, snapshot.getContendedCount());
+      assertEquals(1L, snapshot.getTimeoutCount());
+      assertEquals(3L, snapshot.getWaitTimes().getCount());
+      assertEquals(3L, snapshot.getHoldTimes().getCount());
+      assertTrue(snapshot.getHoldTimes().getMax() > 0L);
+
+      final ResourceStatistics<String> b = snapshot.getResourceStatistics("b");
+      assertEquals(2L, b.getAcquisitionCount());
+      assertEquals(1L, b.getContendedCount());
+      assertEquals(1L, b.getTimeoutCount());
+      assertTrue(b.getWaitNanos() > 0L);
+
+      final List<ResourceStatistics<String>> top = snapshot.getTopContendedResources(5);
+      assertEquals(1, top.size());
+      assertEquals("b", top.get(0).getResource());
+
+      statistics.reset();
+      assertEquals(0L, statistics.getSnapshot().getAcquisitionCount());
+      assertNull(statistics.getSnapshot().getResourceStatistics("b"));
+   }
+
+   @Test
+   public void testFailedPollIsNoTimeout() throws Exception
+   {
+      final MultiLockProvider<String> provider = MultiLockProviderFactory.<String> getStripedInstance().withMetrics()
+            .get();
+
+      final MultiLock<String> writeA = provider.newLock("a").writeLock();
+      final MultiLock<String> readA = provider.newLock("a").readLock();
+
+      writeA.lock();
+      assertFalse(_executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            return readA.tryLock();
+         }
+      }).get());
+      writeA.unlock();
+
+      final LockStatisticsSnapshot<String> snapshot = provider.getStatistics().getSnapshot();
+      assertEquals(1L, snapshot.getAcquisitionCount());
+      assertEquals(0L, snapshot.getTimeoutCount());
+      assertEquals(0L, snapshot.getResourceStatistics("a").getTimeoutCount());
+   }
+
+   @Test
+   public void testMetricsDisabledByDefault() throws Exception
+   {
+      final MultiLockProviderFactory<String> factory = MultiLockProviderFactory.<String> getFairInstance(false);
+      assertFalse(factory.isRecordingMetrics());
+      assertTrue(factory.withMetrics().isRecordingMetrics());
+
+      final MultiLockProvider<String> provider = factory.get();
+      final MultiLock<String> writeA = provider.newLock("a").writeLock();
+      writeA.lock();
+      writeA.unlock();
+
+      final LockStatisticsSnapshot<String> snapshot = provider.getStatistics().getSnapshot();
+      assertEquals(0L, snapshot.getAcquisitionCount());
+      assertEquals(0L, snapshot.getHoldTimes().getCount());
+      assertNull(snapshot.getResourceStatistics("a"));
+   }
+
+   @Test
+   public void testConcurrentRecording() throws Exception
+   {
+      final MultiLockProvider<Integer> provider = MultiLockProviderFactory.<Integer> getStripedInstance()
+            .withMetrics().get();
+
+      final int threadCount = 8;
+      final int iterations = 1000;
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < threadCount; ++t)
+      {
+         final MultiLock<Integer> lock = provider.newLock(t).writeLock();
+         futures.add(_executor.submit(new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
+            {
+               for (int i = 0; i < iterations; ++i)
+               {
+                  lock.lock();
+                  lock.unlock();
+               }
+
+               return null;
+            }
+         }));
+      }
+      for (final Future<Void> future : futures)
+      {
+         future.get(10, TimeUnit.SECONDS);
+      }
+
+      final LockStatisticsSnapshot<Integer> snapshot = provider.getStatistics().getSnapshot();
+      assertEquals(threadCount * iterations, snapshot.getAcquisitionCount());
+      assertEquals(threadCount * iterations, snapshot.getWaitTimes().getCount());
+      assertEquals(threadCount * iterations, snapshot.getHoldTimes().getCount());
+      assertEquals(iterations, snapshot.getResourceStatistics(0).getAcquisitionCount());
+   }
+
+   private static void awaitWaiting(final Thread thread) throws InterruptedException
+   {
+      for (int i = 0; i < 500 && thread.getState() != Thread.State.WAITING; ++i)
+      {
+         Thread.sleep(10L);
+      }
+
+      assertEquals(Thread.State.WAITING, thread.getState());
+   }
+}
@@ -0,0 +1,127 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.javagimmicks.testing.MultiThreadedTestHelper;
+import net.sf.javagimmicks.util.Supplier;
+
+/**
+ * A simple throughput benchmark for {@link MultiLockProvider} implementations
+ * driven by {@link MultiThreadedTestHelper}.
+ * <p>
+ * A number of workers repeatedly lock and unlock small random sets of
+ * resources (mostly for reading) for a fixed amount of time - the result is
+ * the overall number of lock/unlock cycles per second. Run via {@link #main}.
+ */
+public class MultiLockProviderBenchmark
+{
+   private static final int[] WORKER_COUNTS = { 1, 4, 16, 64 };
+   private static final int NUM_RESOURCES = 10000;
+   private static final int MAX_RESOURCES_PER_LOCK = 3;
+   private static final int FRACTION_EX = 10;
+   private static final long DURATION_MILLIS = 2000;
+
+   public static void main(final String[] args)
+   {
+      for (final int workerCount : WORKER_COUNTS)
+      {
+         run("registry (hash)", MultiLockProviderFactory.<Integer> getHashBasedInstance().get(), workerCount);
+         run("striped", MultiLockProviderFactory.<Integer> getStripedInstance().get(), workerCount);
+         run("fair", MultiLockProviderFactory.<Integer> getFairInstance(false).get(), workerCount);
+      }
+   }
+
+   private static void run(final String name, final MultiLockProvider<Integer> provider, final int workerCount)
+   {
+      final CountDownLatch startSignal = new CountDownLatch(1);
+      final AtomicLong operations = new AtomicLong();
+
+      final MultiThreadedTestHelper<Long> helper = new MultiThreadedTestHelper<Long>();
+      helper.addWorkers(workerCount, Collections.<Supplier<? extends Callable<Long>>> singletonList(
+            new Supplier<Callable<Long>>()
+            {
+               private int _seed;
+
+               @Override
+               public Callable<Long> get()
+               {
+                  return new LockWorker(provider, startSignal, operations, ++_seed);
+               }
+            }));
+
+      helper.executeWorkers(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            startSignal.countDown();
+         }
+      }, DURATION_MILLIS * 10, TimeUnit.MILLISECONDS);
+
+      System.out.printf("%-16s %3d workers: %,12d ops/s%n", name, workerCount, operations.get() * 1000L
+            / DURATION_MILLIS);
+   }
+
+   private static class LockWorker implements Callable<Long>
+   {
+      private final MultiLockProvider<Integer> _provider;
+      private final CountDownLatch _startSignal;
+      private final AtomicLong _operations;
+      private final Random _random;
+
+      public LockWorker(final MultiLockProvider<Integer> provider, final CountDownLatch startSignal,
+            final AtomicLong operations, final long seed)
+      {
+         _provider = provider;
+         _startSignal = startSignal;
+         _operations = operations;
+         _random = new Random(seed);
+      }
+
+      @Override
+      public Long call() throws Exception
+      {
+         // Prepare the locks up front to measure locking only
+         final List<MultiLock<Integer>> locks = new ArrayList<MultiLock<Integer>>(1024);
+         for (int i = 0; i < 1024; ++i)
+         {
+            final List<Integer> resources = new ArrayList<Integer>(MAX_RESOURCES_PER_LOCK);
+            for (int j = 1 + _random.nextInt(MAX_RESOURCES_PER_LOCK); j > 0; --j)
+            {
+               resources.add(_random.nextInt(NUM_RESOURCES));
+            }
+
+            final MultiReadWriteLock<Integer> lock = _provider.newLock(resources);
+            locks.add(_random.nextInt(FRACTION_EX) == 0 ? lock.writeLock() : lock.readLock());
+         }
+
+         _startSignal.await();
+
+         final long end = System.currentTimeMillis() + DURATION_MILLIS;
+         long operations = 0L;
+
+         while (System.currentTimeMillis() < end)
+         {
+            final MultiLock<Integer> lock = locks.get((int) (operations & 1023));
+
+            lock.lock();
+            lock.unlock();
+
+            ++operations;
+         }
+
+         // Don't rely on the worker results - they are collected without
+         // waiting for the last workers to completely finish
+         _operations.addAndGet(operations);
+
+         return operations;
+      }
+   }
+}
@@ -0,0 +1,176 @@
+package net.sf.javagimmicks.concurrent.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.javagimmicks.testing.MultiThreadedTestHelper;
+import net.sf.javagimmicks.util.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class StripedLockProviderTest
+{
+   private ExecutorService _executor = Executors.newCachedThreadPool();
+
+   @After
+   public void shutdown()
+   {
+      _executor.shutdownNow();
+   }
+
+   @Test
+   public void testExclusiveAndShared() throws Exception
+   {
+      final MultiLockProvider<String> provider = MultiLockProviderFactory.<String> getStripedInstance().get();
+
+      final MultiLock<String> writeAB = provider.newLock("a", "b").writeLock();
+      final MultiLock<String> readA = provider.newLock("a").readLock();
+      final MultiLock<String> readA2 = provider.newLock("a", null, "a").readLock();
+      final MultiLock<String> writeC = provider.newLock("c").writeLock();
+
+      writeAB.lock();
+      assertTrue(writeAB.isLockedByThisThread());
+      assertFalse(tryLockInOtherThread(readA, 0L));
+      assertTrue(tryLockInOtherThread(writeC, 0L));
+
+      writeAB.unlock();
+      assertTrue(readA.tryLock());
+      assertTrue(tryLockInOtherThread(readA2, 0L));
+      assertFalse(tryLockInOtherThread(writeAB, 50L));
+
+      readA.unlock();
+      assertTrue(tryLockInOtherThread(writeAB, 0L));
+
+      try
+      {
+         writeC.unlock();
+         fail("IllegalStateException expected");
+      }
+      catch (final IllegalStateException expected)
+      {}
+   }
+
+   @Test
+   public void testWakeUp() throws Exception
+   {
+      final MultiLockProvider<String> provider = new StripedLockProvider<String>(2);
+
+      final MultiLock<String> writeAB = provider.newLock("a", "b").writeLock();
+      final MultiLock<String> writeB = provider.newLock("b").writeLock();
+
+      writeAB.lock();
+
+      final CountDownLatch started = new CountDownLatch(1);
+      final Future<Boolean> waiting = _executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            started.countDown();
+            writeB.lockInterruptibly();
+            writeB.unlock();
+
+            return true;
+         }
+      });
+
+      started.await();
+      Thread.sleep(50L);
+      assertFalse(waiting.isDone());
+
+      writeAB.unlock();
+      assertTrue(waiting.get(5, TimeUnit.SECONDS));
+   }
+
+   @Test
+   public void testMutualExclusion()
+   {
+      final MultiLockProvider<Integer> provider = new StripedLockProvider<Integer>(4);
+      final int[] counters = new int[8];
+      final AtomicInteger violations = new AtomicInteger();
+
+      final MultiThreadedTestHelper<Void> helper = new MultiThreadedTestHelper<Void>();
+      helper.addWorkers(8, Collections.<Supplier<? extends Callable<Void>>> singletonList(new Supplier<Callable<Void>>()
+      {
+         private int _id;
+
+         @Override
+         public Callable<Void> get()
+         {
+            final int id = _id++;
+            return new Callable<Void>()
+            {
+               @Override
+               public Void call() throws Exception
+               {
+                  final int first = id % counters.length;
+                  final int second = (id + 3) % counters.length;
+                  final MultiLock<Integer> lock = provider.newLock(first, second).writeLock();
+
+                  for (int i = 0; i < 2000; ++i)
+                  {
+                     lock.lock();
+                     try
+                     {
+                        final int before = counters[first] + counters[second];
+                        ++counters[first];
+                        ++counters[second];
+                        if (counters[first] + counters[second] != before + 2)
+                        {
+                           violations.incrementAndGet();
+                        }
+                     }
+                     finally
+                     {
+                        lock.unlock();
+                     }
+                  }
+
+                  return null;
+               }
+            };
+         }
+      }));
+
+      helper.executeWorkers(30, TimeUnit.SECONDS);
+
+      int sum = 0;
+      for (final int counter : counters)
+      {
+         sum += counter;
+      }
+
+      assertEquals(0, violations.get());
+      assertEquals(8 * 2000 * 2, sum);
+   }
+
+   private boolean tryLockInOtherThread(final MultiLock<String> lock, final long millis) throws Exception
+   {
+      return _executor.submit(new Callable<Boolean>()
+      {
+         @Override
+         public Boolean call() throws Exception
+         {
+            final boolean result = millis > 0L ? lock.tryLock(millis, TimeUnit.MILLISECONDS) : lock.tryLock();
+            if (result)
+            {
+               lock.unlock();
+            }
+
+            return result;
+         }
+      }).get();
+   }
+}
@@ -11,6 +11,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A {@link Comparator} implementation that compares any bean-like objects by
@@ -19,6 +21,22 @@ import java.util.Map;
  * The set of properties (and optionally a sorting order for any of them) must
  * be specified in any of the constructors.
  * <p>
+ * The getter {@link Method}s ({@code get} or - for {@code boolean} properties
+ * - {@code is} methods) are resolved only once per bean class and cached
+ * within the comparator, together with the sorting orders - so comparing
+ * doesn't do any reflective lookups once the first bean of a class was seen.
+ * Subclasses that modify {@link #_beanProperties} or {@link #_sortOrders}
+ * directly must call {@link #propertiesChanged()} afterwards.
+ * <p>
+ * Subclasses can customize how properties are read in two ways:
+ * <ul>
+ * <li>override {@link #resolveGetter(Class, String)} to choose the getter
+ * {@link Method} of a property - the result is cached like the default
+ * getters</li>
+ * <li>override {@link #invokeGetter(Object, String)} to read property values
+ * in any other way - it is then called for every property of every compared
+ * bean (bypassing the getter cache)</li>
+ * </ul>
  * 
  * @param <T>
  *           the type of objects that may be compared by this comparator
@@ -38,6 +56,8 @@ public class BeanPropertyComparator<T> implements Comparator<T>, Serializable
    protected List<String> _beanProperties;
    protected Map<String, SortOrder> _sortOrders = new HashMap<String, SortOrder>();
 
+   private transient volatile CompiledProperties _compiledProperties;
+
    /**
     * Creates a new {@link BeanPropertyComparator} for the specified bean
     * properties.
@@ -156,6 +176,7 @@ public class BeanPropertyComparator<T> implements Comparator<T>, Serializable
    public void setBeanPropertyNames(final List<String> beanProperties)
    {
       _beanProperties = new ArrayList<String>(beanProperties);
+      propertiesChanged();
    }
 
    /**
@@ -203,57 +224,297 @@ public class BeanPropertyComparator<T> implements Comparator<T>, Serializable
 
          _sortOrders.put(propertyName, sortOrder);
       }
+
+      propertiesChanged();
+   }
+
+   /**
+    * Drops the cached property information - must be called by subclasses
+    * after directly modifying {@link #_beanProperties} or
+    * {@link #_sortOrders}.
+    */
+   protected void propertiesChanged()
+   {
+      _compiledProperties = null;
    }
 
    @Override
    @SuppressWarnings("unchecked")
    public int compare(final T o1, final T o2)
    {
-      for (final String propertyName : _beanProperties)
+      final CompiledProperties properties = getCompiledProperties();
+      if (properties._customInvokeGetter)
+      {
+         return compareViaInvokeGetter(o1, o2, properties);
+      }
+
+      final Class<?> class1 = o1.getClass();
+      final Class<?> class2 = o2.getClass();
+
+      final Method[] getters1 = properties.getGetters(class1);
+      final Method[] getters2 = class1 == class2 ? getters1 : properties.getGetters(class2);
+
+      for (int i = 0; i < getters1.length; ++i)
       {
-         Object propertyValue1;
-         Object propertyValue2;
+         final Object propertyValue1 = invoke(getters1[i], o1, properties._propertyNames[i]);
+         final Object propertyValue2 = invoke(getters2[i], o2, properties._propertyNames[i]);
+
+         @SuppressWarnings("rawtypes")
+         final int result = ((Comparable) propertyValue1).compareTo(propertyValue2);
+
+         if (result != 0)
+         {
+            return properties._descending[i] ? -result : result;
+         }
+      }
+
+      return 0;
+   }
+
+   /**
+    * Reads the given property from the given target object (without using the
+    * cached getter {@link Method}s).
+    * <p>
+    * This method is not called by {@link #compare(Object, Object)} unless a
+    * subclass overrides it - then it is called for every property of both
+    * compared objects.
+    * 
+    * @param target
+    *           the object to read the property from
+    * @param propertyName
+    *           the name of the property to read
+    * @return the property value
+    */
+   protected Object invokeGetter(final Object target, final String propertyName) throws SecurityException,
+         NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException
+   {
+      final Method m = resolveGetter(target.getClass(), propertyName);
+
+      return m.invoke(target);
+   }
+
+   /**
+    * Resolves the getter {@link Method} of the given property in the given
+    * bean class - by default the public {@code get} (or - for {@code boolean}
+    * properties - {@code is}) method.
+    * <p>
+    * This method is called only once per bean class and property, the result
+    * is cached.
+    * 
+    * @param beanClass
+    *           the bean class to resolve the getter in
+    * @param propertyName
+    *           the name of the property to resolve the getter for
+    * @return the getter {@link Method}
+    * @throws NoSuchMethodException
+    *            if there is no getter for the given property
+    */
+   protected Method resolveGetter(final Class<?> beanClass, final String propertyName) throws NoSuchMethodException
+   {
+      return findGetter(beanClass, propertyName);
+   }
+
+   private int compareViaInvokeGetter(final T o1, final T o2, final CompiledProperties properties)
+   {
+      for (int i = 0; i < properties._propertyNames.length; ++i)
+      {
+         final String propertyName = properties._propertyNames[i];
+
+         final Object propertyValue1;
+         final Object propertyValue2;
          try
          {
             propertyValue1 = invokeGetter(o1, propertyName);
             propertyValue2 = invokeGetter(o2, propertyName);
          }
+         catch (final RuntimeException ex)
+         {
+            throw ex;
+         }
          catch (final Exception ex)
          {
-            if (ex instanceof RuntimeException)
-            {
-               throw (RuntimeException) ex;
-            }
-            else
-            {
-               throw new RuntimeException("Error invoking bean getter for property '" + propertyName + "'!", ex);
-            }
+            throw new RuntimeException("Error invoking bean getter for property '" + propertyName + "'!", ex);
          }
 
-         @SuppressWarnings("rawtypes")
-         int result = ((Comparable) propertyValue1).compareTo(propertyValue2);
+         @SuppressWarnings({ "unchecked", "rawtypes" })
+         final int result = ((Comparable) propertyValue1).compareTo(propertyValue2);
 
          if (result != 0)
          {
-            final SortOrder sortOrder = getSortOrder(propertyName);
+            return properties._descending[i] ? -result : result;
+         }
+      }
 
-            if (sortOrder == SortOrder.DESCENDING)
-            {
-               result *= -1;
-            }
+      return 0;
+   }
+
+   private CompiledProperties getCompiledProperties()
+   {
+      CompiledProperties result = _compiledProperties;
+      if (result == null)
+      {
+         result = new CompiledProperties(_beanProperties, this);
+         _compiledProperties = result;
+      }
+
+      return result;
+   }
+
+   private Object invoke(final Method getter, final Object target, final String propertyName)
+   {
+      try
+      {
+         // Missing getters only fail when they are actually needed
+         return getter != null ? getter.invoke(target) : resolveGetter(target.getClass(), propertyName).invoke(target);
+      }
+      catch (final RuntimeException ex)
+      {
+         throw ex;
+      }
+      catch (final Exception ex)
+      {
+         throw new RuntimeException("Error invoking bean getter for property '" + propertyName + "'!", ex);
+      }
+   }
 
-            return result;
+   /**
+    * Finds the public {@code get} (or {@code is}) {@link Method} of the given
+    * property in the given class.
+    */
+   private static Method findGetter(final Class<?> beanClass, final String propertyName)
+         throws NoSuchMethodException
+   {
+      Method result;
+      try
+      {
+         result = beanClass.getMethod("get" + propertyName);
+      }
+      catch (final NoSuchMethodException ex)
+      {
+         result = beanClass.getMethod("is" + propertyName);
+         if (!BeanUtils.isIsMethod(result))
+         {
+            throw ex;
          }
       }
 
-      return 0;
+      // Public methods of non-public classes can only be invoked this way
+      try
+      {
+         result.setAccessible(true);
+      }
+      catch (final SecurityException ignore)
+      {
+      }
+
+      return result;
    }
 
-   protected Object invokeGetter(final Object target, final String propertyName) throws SecurityException,
-         NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException
+   /**
+    * Determines if the given class overrides
+    * {@link #invokeGetter(Object, String)}.
+    */
+   private static boolean overridesInvokeGetter(final Class<?> comparatorClass)
+   {
+      for (Class<?> c = comparatorClass; c != BeanPropertyComparator.class; c = c.getSuperclass())
+      {
+         try
+         {
+            c.getDeclaredMethod("invokeGetter", Object.class, String.class);
+            return true;
+         }
+         catch (final NoSuchMethodException ignore)
+         {
+         }
+         catch (final SecurityException ex)
+         {
+            // Cannot tell - so play safe
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   /**
+    * A snapshot of the property names and their sorting orders together with
+    * the resolved getter {@link Method}s per bean class.
+    */
+   private static class CompiledProperties
    {
-      final Method m = target.getClass().getMethod("get" + propertyName);
+      private final BeanPropertyComparator<?> _comparator;
+      private final boolean _customInvokeGetter;
 
-      return m.invoke(target);
+      private final String[] _propertyNames;
+      private final boolean[] _descending;
+
+      private final ConcurrentMap<Class<?>, Method[]> _getters = new ConcurrentHashMap<Class<?>, Method[]>();
+
+      // Most comparisons are done on beans of a single class
+      private volatile ClassGetters _lastGetters;
+
+      public CompiledProperties(final List<String> propertyNames, final BeanPropertyComparator<?> comparator)
+      {
+         _comparator = comparator;
+         _customInvokeGetter = overridesInvokeGetter(comparator.getClass());
+
+         _propertyNames = propertyNames.toArray(new String[propertyNames.size()]);
+         _descending = new boolean[_propertyNames.length];
+
+         for (int i = 0; i < _propertyNames.length; ++i)
+         {
+            _descending[i] = comparator.getSortOrder(_propertyNames[i]) == SortOrder.DESCENDING;
+         }
+      }
+
+      public Method[] getGetters(final Class<?> beanClass)
+      {
+         final ClassGetters lastGetters = _lastGetters;
+         if (lastGetters != null && lastGetters._beanClass == beanClass)
+         {
+            return lastGetters._getters;
+         }
+
+         Method[] result = _getters.get(beanClass);
+         if (result == null)
+         {
+            result = resolveGetters(beanClass);
+            _getters.putIfAbsent(beanClass, result);
+         }
+
+         _lastGetters = new ClassGetters(beanClass, result);
+
+         return result;
+      }
+
+      private Method[] resolveGetters(final Class<?> beanClass)
+      {
+         final Method[] result = new Method[_propertyNames.length];
+         for (int i = 0; i < result.length; ++i)
+         {
+            try
+            {
+               result[i] = _comparator.resolveGetter(beanClass, _propertyNames[i]);
+            }
+            catch (final NoSuchMethodException ex)
+            {
+               result[i] = null;
+            }
+         }
+
+         return result;
+      }
+   }
+
+   private static class ClassGetters
+   {
+      private final Class<?> _beanClass;
+      private final Method[] _getters;
+
+      public ClassGetters(final Class<?> beanClass, final Method[] getters)
+      {
+         _beanClass = beanClass;
+         _getters = getters;
+      }
    }
 }
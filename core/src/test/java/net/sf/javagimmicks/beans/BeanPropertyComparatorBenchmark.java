@@ -0,0 +1,103 @@
+package net.sf.javagimmicks.beans;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.javagimmicks.beans.BeanPropertyComparatorTest.Person;
+
+/**
+ * A simple benchmark comparing the sort throughput of
+ * {@link BeanPropertyComparator} (with cached getters) against a comparator
+ * that looks up the getters reflectively in every comparison (like
+ * {@link BeanPropertyComparator} did before).
+ * <p>
+ * A {@link List} of random {@link Person}s is sorted by three properties a few
+ * times per comparator - the result is the best time and the resulting number
+ * of sorted beans per second. Run via {@link #main}, optionally passing the
+ * number of beans.
+ */
+public class BeanPropertyComparatorBenchmark
+{
+   private static final String[] PROPERTY_NAMES = { "LastName", "FirstName", "Age" };
+   private static final String[] NAMES = { "Apple", "Banana", "Cherry", "Date", "Elder", "Fig", "Grape", "Kiwi" };
+   private static final int NUM_ROUNDS = 5;
+
+   public static void main(final String[] args)
+   {
+      final int beanCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+      final Random random = new Random(42L);
+      final List<Person> persons = new ArrayList<Person>(beanCount);
+      for (int i = 0; i < beanCount; ++i)
+      {
+         persons.add(new Person(NAMES[random.nextInt(NAMES.length)], NAMES[random.nextInt(NAMES.length)], random
+               .nextInt(100)));
+      }
+
+      run("uncached lookups", persons, new UncachedComparator(PROPERTY_NAMES));
+      run("cached getters", persons, new BeanPropertyComparator<Person>(PROPERTY_NAMES));
+   }
+
+   private static void run(final String name, final List<Person> persons, final Comparator<Person> comparator)
+   {
+      long bestNanos = Long.MAX_VALUE;
+
+      for (int i = 0; i < NUM_ROUNDS; ++i)
+      {
+         final List<Person> copy = new ArrayList<Person>(persons);
+
+         final long start = System.nanoTime();
+         Collections.sort(copy, comparator);
+
+         bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+      }
+
+      System.out.printf("%-18s %,8d ms %,12d beans/s%n", name, bestNanos / 1000000L, persons.size()
+            * 1000000000L / bestNanos);
+   }
+
+   private static class UncachedComparator implements Comparator<Person>
+   {
+      private final String[] _propertyNames;
+
+      public UncachedComparator(final String... propertyNames)
+      {
+         _propertyNames = propertyNames;
+      }
+
+      @Override
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      public int compare(final Person o1, final Person o2)
+      {
+         for (final String propertyName : _propertyNames)
+         {
+            final int result = ((Comparable) invokeGetter(o1, propertyName))
+                  .compareTo(invokeGetter(o2, propertyName));
+            if (result != 0)
+            {
+               return result;
+            }
+         }
+
+         return 0;
+      }
+
+      private static Object invokeGetter(final Object target, final String propertyName)
+      {
+         try
+         {
+            final Method m = target.getClass().getMethod("get" + propertyName);
+
+            return m.invoke(target);
+         }
+         catch (final Exception ex)
+         {
+            throw new RuntimeException(ex);
+         }
+      }
+   }
+}
@@ -3,7 +3,9 @@ package net.sf.javagimmicks.beans;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Method;
 import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -141,6 +143,79 @@ public class BeanPropertyComparatorTest
 		assertInversion(comparator, _person1, _person1);
 	}
 	
+	@Test
+	public void testIsProperty()
+	{
+		Comparator<Task> comparator = new BeanPropertyComparator<Task>("Done", "Name");
+		
+		assertTrue(comparator.compare(new Task("B", false), new Task("A", true)) < 0);
+		assertTrue(comparator.compare(new Task("A", true), new Task("B", true)) < 0);
+		assertEquals(0, comparator.compare(new Task("A", true), new Task("A", true)));
+	}
+	
+	@Test
+	public void testSortOrderChangeAfterCompare()
+	{
+		BeanPropertyComparator<Person> comparator = new BeanPropertyComparator<Person>("LastName", "Age");
+		assertTrue(comparator.compare(_person1, _person4) < 0);
+		
+		comparator.setSortOrder("LastName", SortOrder.DESCENDING);
+		assertTrue(comparator.compare(_person1, _person4) > 0);
+		
+		comparator.setSortOrder("LastName", SortOrder.NONE);
+		assertTrue(comparator.compare(_person1, _person4) < 0);
+		assertTrue(comparator.compare(_person4, _person1) > 0);
+		assertEquals(0, comparator.compare(_person4, _person5));
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testUnknownProperty()
+	{
+		new BeanPropertyComparator<Person>("LastName", "Unknown").compare(_person1, _person2);
+	}
+	
+	@Test
+	public void testOverriddenInvokeGetter()
+	{
+		Comparator<Person> comparator = new BeanPropertyComparator<Person>("NegatedAge")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Object invokeGetter(Object target, String propertyName)
+			{
+				return -((Person) target).getAge();
+			}
+		};
+		
+		assertTrue(comparator.compare(_person1, _person2) > 0);
+		assertEquals(0, comparator.compare(_person1, _person3));
+	}
+	
+	@Test
+	public void testOverriddenResolveGetter()
+	{
+		final AtomicInteger resolveCount = new AtomicInteger();
+		Comparator<Person> comparator = new BeanPropertyComparator<Person>("Surname", "Age")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Method resolveGetter(Class<?> beanClass, String propertyName) throws NoSuchMethodException
+			{
+				resolveCount.incrementAndGet();
+				return super.resolveGetter(beanClass, "Surname".equals(propertyName) ? "LastName" : propertyName);
+			}
+		};
+		
+		assertTrue(comparator.compare(_person1, _person4) < 0);
+		assertTrue(comparator.compare(_person4, _person5) == 0);
+		assertTrue(comparator.compare(_person1, _person2) < 0);
+		
+		// Resolved getters are cached
+		assertEquals(2, resolveCount.get());
+	}
+	
 	protected static void assertInversion(Comparator<Person> comparator, Person p1, Person p2)
 	{
 		assertEquals(comparator.compare(p1, p2), comparator.compare(p2, p1) * -1);
@@ -174,4 +249,26 @@ public class BeanPropertyComparatorTest
 			return _age;
 		}
 	}
+	
+	public static final class Task
+	{
+		protected final String _name;
+		protected final boolean _done;
+		
+		public Task(String name, boolean done)
+		{
+			_name = name;
+			_done = done;
+		}
+
+		public String getName()
+		{
+			return _name;
+		}
+
+		public boolean isDone()
+		{
+			return _done;
+		}
+	}
 }
@@ -32,7 +32,17 @@ abstract class AbstractDefaultEdge<VertexType, EdgeType extends AbstractDefaultE
    @Override
    public void setCost(final double cost)
    {
+      if (cost == _cost)
+      {
+         return;
+      }
+
       _cost = cost;
+
+      if (_graph instanceof AbstractGraph<?, ?>)
+      {
+         ((AbstractGraph<?, ?>) _graph).markModified();
+      }
    }
 
    @Override
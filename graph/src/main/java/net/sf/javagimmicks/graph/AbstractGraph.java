@@ -14,16 +14,37 @@ import net.sf.javagimmicks.util.Supplier;
 /**
  * An abstract {@link Graph} implementation taking care about many basic
  * operations.
+ * <p>
+ * Additionally maintains a {@link #getModificationCount() modification count}
+ * that is increased whenever vertices or {@link Edge}s are added or removed via
+ * the {@link Graph} methods or the cost of a {@link WeightedEdge} is changed.
+ * This allows caches on top of a {@link Graph} (like
+ * {@link net.sf.javagimmicks.graph.routing.CachingRouteFinder}) to detect
+ * outdated results. Modifications applied directly to the {@link Set}s
+ * returned by {@link #edgesOf(Object)} are not tracked.
  */
 public abstract class AbstractGraph<V, E extends Edge<V, E>> implements Graph<V, E>
 {
    protected final Supplier<? extends Set<E>> _edgeSetFactory;
 
+   protected volatile long _modificationCount;
+
    protected AbstractGraph(final Supplier<? extends Set<E>> edgeSetFactory)
    {
       _edgeSetFactory = edgeSetFactory;
    }
 
+   /**
+    * Returns the number of structural modifications and cost changes that
+    * were applied to this instance so far.
+    * 
+    * @return the current modification count of this instance
+    */
+   public long getModificationCount()
+   {
+      return _modificationCount;
+   }
+
    @Override
    public Map<V, Set<E>> edgeMap()
    {
@@ -126,6 +147,11 @@ public abstract class AbstractGraph<V, E extends Edge<V, E>> implements Graph<V,
          }
       }
 
+      if (!result.isEmpty())
+      {
+         markModified();
+      }
+
       return result;
    }
 
@@ -143,12 +169,14 @@ public abstract class AbstractGraph<V, E extends Edge<V, E>> implements Graph<V,
             if (currentTarget == null)
             {
                edges.remove();
+               markModified();
                return edge;
             }
          }
          else if (target.equals(currentTarget))
          {
             edges.remove();
+            markModified();
             return edge;
          }
       }
@@ -172,13 +200,24 @@ public abstract class AbstractGraph<V, E extends Edge<V, E>> implements Graph<V,
          }
       }
 
+      if (!result.isEmpty())
+      {
+         markModified();
+      }
+
       return result;
    }
 
    @Override
    public Set<E> removeVertex(final V vertex)
    {
-      return edgeMap().remove(vertex);
+      final Set<E> result = edgeMap().remove(vertex);
+      if (result != null)
+      {
+         markModified();
+      }
+
+      return result;
    }
 
    protected Set<E> createEdgeSet()
@@ -186,6 +225,15 @@ public abstract class AbstractGraph<V, E extends Edge<V, E>> implements Graph<V,
       return _edgeSetFactory.get();
    }
 
+   /**
+    * Increases the {@link #getModificationCount() modification count} - must
+    * be called by sub-classes after every modification.
+    */
+   protected void markModified()
+   {
+      ++_modificationCount;
+   }
+
    protected class EdgeMap extends AbstractMap2<V, Set<E>>
    {
       @Override
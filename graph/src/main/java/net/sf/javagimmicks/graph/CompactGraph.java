@@ -0,0 +1,481 @@
+package net.sf.javagimmicks.graph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import net.sf.javagimmicks.lang.LangUtils;
+import net.sf.javagimmicks.util.Supplier;
+
+/**
+ * An immutable {@link Graph} implementation that stores its structure in a
+ * compressed sparse row (CSR) layout.
+ * <p>
+ * Every vertex gets a dense index ({@code 0} to {@code size() - 1}). The
+ * outgoing {@link Edge}s of the vertex with index {@code i} occupy the edge
+ * indices from {@link #getEdgeOffset(int) getEdgeOffset(i)} (inclusive) to
+ * {@code getEdgeOffset(i + 1)} (exclusive). For each edge index the
+ * {@link #getTargetIndexAt(int) index of the target vertex}, the
+ * {@link #getCostAt(int) cost} and the {@link #getEdgeAt(int) Edge} itself are
+ * held in flat arrays.
+ * <p>
+ * This makes read operations like {@link #edgesOf(Object)},
+ * {@link #targetsOf(Object)} or {@link #getEdge(Object, Object)} cheap and
+ * allows algorithms (like the ones in
+ * {@link net.sf.javagimmicks.graph.routing}) to walk the {@link Graph} purely
+ * on the index level without allocating any objects.
+ * <p>
+ * Instances cannot be created directly - instead they are compiled from a
+ * {@link MapGraph} via {@link MapGraph#freeze()}. A {@link CompactGraph} is a
+ * snapshot: all mutating operations throw an
+ * {@link UnsupportedOperationException} and later changes to the source
+ * {@link Graph} - including changes of {@link WeightedEdge#setCost(double)
+ * Edge costs} - are not reflected. The contained {@link Edge} instances are
+ * the ones of the source {@link Graph}, so {@link Edge#getGraph()} still
+ * returns the source {@link Graph}.
+ * <p>
+ * For algorithms that need to walk {@link Edge}s backwards (like bidirectional
+ * searches), {@link #reverse()} provides a {@link CompactGraph} with all
+ * {@link Edge}s stored at their target vertex.
+ * 
+ * @see MapGraph#freeze()
+ */
+public class CompactGraph<V, E extends Edge<V, E>> extends AbstractGraph<V, E>
+{
+   protected final Map<V, Integer> _indexes;
+   protected final Object[] _vertices;
+
+   protected final int[] _edgeOffsets;
+   protected final int[] _targetIndexes;
+   protected final double[] _costs;
+   protected final Object[] _edges;
+
+   protected final Set<V> _vertexSet;
+   protected final Set<E>[] _edgeSets;
+
+   protected volatile CompactGraph<V, E> _reverse;
+
+   @SuppressWarnings("unchecked")
+   CompactGraph(final Graph<V, E> source, final Supplier<? extends Set<E>> edgeSetFactory)
+   {
+      super(edgeSetFactory);
+
+      final Set<V> sourceVertices = source.vertexSet();
+      final int vertexCount = sourceVertices.size();
+
+      _indexes = new HashMap<V, Integer>(vertexCount * 4 / 3 + 1);
+      _vertices = new Object[vertexCount];
+
+      int edgeCount = 0;
+      for (final V vertex : sourceVertices)
+      {
+         _vertices[_indexes.size()] = vertex;
+         _indexes.put(vertex, _indexes.size());
+
+         edgeCount += source.edgesOf(vertex).size();
+      }
+
+      _edgeOffsets = new int[vertexCount + 1];
+      _targetIndexes = new int[edgeCount];
+      _costs = new double[edgeCount];
+      _edges = new Object[edgeCount];
+
+      int edgeIndex = 0;
+      for (int vertexIndex = 0; vertexIndex < vertexCount; ++vertexIndex)
+      {
+         _edgeOffsets[vertexIndex] = edgeIndex;
+
+         final V vertex = (V) _vertices[vertexIndex];
+         for (final E edge : source.edgesOf(vertex))
+         {
+            _targetIndexes[edgeIndex] = _indexes.get(edge.getOutgoingVertex(vertex));
+            _costs[edgeIndex] = (edge instanceof WeightedEdge<?, ?>) ? ((WeightedEdge<?, ?>) edge).getCost() : 1.0;
+            _edges[edgeIndex] = edge;
+
+            ++edgeIndex;
+         }
+      }
+      _edgeOffsets[vertexCount] = edgeIndex;
+
+      _vertexSet = Collections.unmodifiableSet(_indexes.keySet());
+      _edgeSets = newEdgeSets(vertexCount);
+   }
+
+   @SuppressWarnings("unchecked")
+   private CompactGraph(final CompactGraph<V, E> forward)
+   {
+      super(forward._edgeSetFactory);
+
+      _indexes = forward._indexes;
+      _vertices = forward._vertices;
+      _vertexSet = forward._vertexSet;
+
+      final int vertexCount = _vertices.length;
+      final int edgeCount = forward._edges.length;
+
+      // Counting sort of all edges by their target index
+      _edgeOffsets = new int[vertexCount + 1];
+      for (int edgeIndex = 0; edgeIndex < edgeCount; ++edgeIndex)
+      {
+         ++_edgeOffsets[forward._targetIndexes[edgeIndex] + 1];
+      }
+      for (int vertexIndex = 0; vertexIndex < vertexCount; ++vertexIndex)
+      {
+         _edgeOffsets[vertexIndex + 1] += _edgeOffsets[vertexIndex];
+      }
+
+      _targetIndexes = new int[edgeCount];
+      _costs = new double[edgeCount];
+      _edges = new Object[edgeCount];
+
+      final int[] nextPositions = Arrays.copyOf(_edgeOffsets, vertexCount);
+      for (int sourceIndex = 0; sourceIndex < vertexCount; ++sourceIndex)
+      {
+         for (int edgeIndex = forward._edgeOffsets[sourceIndex]; edgeIndex < forward._edgeOffsets[sourceIndex + 1]; ++edgeIndex)
+         {
+            final int position = nextPositions[forward._targetIndexes[edgeIndex]]++;
+
+            _targetIndexes[position] = sourceIndex;
+            _costs[position] = forward._costs[edgeIndex];
+            _edges[position] = forward._edges[edgeIndex];
+         }
+      }
+
+      _edgeSets = newEdgeSets(vertexCount);
+      _reverse = forward;
+   }
+
+   /**
+    * Returns a {@link CompactGraph} with the same vertices (and vertex
+    * indices) as this instance but with all {@link Edge}s reversed: the
+    * {@link #edgesOf(Object) Edges of a vertex} are the ones that lead to it
+    * within this instance and {@link #getTargetIndexAt(int)} returns the index
+    * of their original source vertex.
+    * <p>
+    * The {@link Edge} instances themselves are the same ones as within this
+    * instance. The reversed {@link CompactGraph} is created once on the first
+    * call and cached afterwards; reversing it again returns this instance.
+    * 
+    * @return the reversed {@link CompactGraph}
+    */
+   public CompactGraph<V, E> reverse()
+   {
+      CompactGraph<V, E> result = _reverse;
+      if (result == null)
+      {
+         result = new CompactGraph<V, E>(this);
+         _reverse = result;
+      }
+
+      return result;
+   }
+
+   /**
+    * Returns the number of {@link Edge}s stored within this instance. For
+    * non-directed source {@link Graph}s each {@link Edge} is counted once per
+    * connected vertex.
+    * 
+    * @return the number of {@link Edge}s stored within this instance
+    */
+   public int getEdgeCount()
+   {
+      return _edges.length;
+   }
+
+   /**
+    * Returns the dense index of a given vertex.
+    * 
+    * @param vertex
+    *           the vertex to get the index for
+    * @return the index of the given vertex or {@code -1} if it is not contained
+    *         within this instance
+    */
+   public int indexOf(final V vertex)
+   {
+      final Integer index = _indexes.get(vertex);
+      return index == null ? -1 : index.intValue();
+   }
+
+   /**
+    * Returns the vertex with the given dense index.
+    * 
+    * @param vertexIndex
+    *           the index of the vertex to return
+    * @return the vertex with the given index
+    * @throws ArrayIndexOutOfBoundsException
+    *            if the index is negative or not smaller than {@link #size()}
+    */
+   @SuppressWarnings("unchecked")
+   public V getVertexAt(final int vertexIndex)
+   {
+      return (V) _vertices[vertexIndex];
+   }
+
+   /**
+    * Returns the index of the first outgoing {@link Edge} of the vertex with
+    * the given index. As this method also accepts {@link #size()} as argument
+    * (and then returns {@link #getEdgeCount()}), the outgoing {@link Edge}s of
+    * a vertex {@code i} always range from {@code getEdgeOffset(i)} to
+    * {@code getEdgeOffset(i + 1) - 1}.
+    * 
+    * @param vertexIndex
+    *           the index of the vertex to get the first {@link Edge} index for
+    * @return the index of the first outgoing {@link Edge} of the given vertex
+    */
+   public int getEdgeOffset(final int vertexIndex)
+   {
+      return _edgeOffsets[vertexIndex];
+   }
+
+   /**
+    * Returns the index of the target vertex of the {@link Edge} with the given
+    * index.
+    * 
+    * @param edgeIndex
+    *           the index of the {@link Edge}
+    * @return the index of the target vertex of the {@link Edge}
+    */
+   public int getTargetIndexAt(final int edgeIndex)
+   {
+      return _targetIndexes[edgeIndex];
+   }
+
+   /**
+    * Returns the cost of the {@link Edge} with the given index as it was at
+    * creation time of this instance ({@code 1.0} if the {@link Edge} is no
+    * {@link WeightedEdge}).
+    * 
+    * @param edgeIndex
+    *           the index of the {@link Edge}
+    * @return the cost of the {@link Edge}
+    */
+   public double getCostAt(final int edgeIndex)
+   {
+      return _costs[edgeIndex];
+   }
+
+   /**
+    * Returns the {@link Edge} with the given index.
+    * 
+    * @param edgeIndex
+    *           the index of the {@link Edge}
+    * @return the {@link Edge} with the given index
+    */
+   @SuppressWarnings("unchecked")
+   public E getEdgeAt(final int edgeIndex)
+   {
+      return (E) _edges[edgeIndex];
+   }
+
+   @Override
+   public int size()
+   {
+      return _vertices.length;
+   }
+
+   @Override
+   public boolean isEmpty()
+   {
+      return _vertices.length == 0;
+   }
+
+   @Override
+   public Set<V> vertexSet()
+   {
+      return _vertexSet;
+   }
+
+   @Override
+   public boolean containsVertex(final V vertex)
+   {
+      return _indexes.containsKey(vertex);
+   }
+
+   @Override
+   public Set<E> edgesOf(final V vertex)
+   {
+      final int vertexIndex = indexOf(vertex);
+      if (vertexIndex < 0)
+      {
+         return null;
+      }
+
+      Set<E> result = _edgeSets[vertexIndex];
+      if (result == null)
+      {
+         result = new EdgeSet(vertexIndex);
+         _edgeSets[vertexIndex] = result;
+      }
+
+      return result;
+   }
+
+   @Override
+   public Set<V> targetsOf(final V vertex)
+   {
+      final int vertexIndex = indexOf(vertex);
+      return vertexIndex < 0 ? null : new TargetSet(vertexIndex);
+   }
+
+   @Override
+   public E getEdge(final V source, final V target)
+   {
+      final int edgeIndex = findEdgeIndex(source, target);
+      return edgeIndex < 0 ? null : getEdgeAt(edgeIndex);
+   }
+
+   @Override
+   public boolean isConnected(final V source, final V target)
+   {
+      return findEdgeIndex(source, target) >= 0;
+   }
+
+   @Override
+   public Set<E> removeVertex(final V vertex)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public Set<E> removeEdges(final V source, final V target)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public E removeEdge(final V source, final V target)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public Set<E> removeEdges(final V source, final Collection<? extends V> targets)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   protected int findEdgeIndex(final V source, final V target)
+   {
+      final int sourceIndex = indexOf(source);
+      final int targetIndex = indexOf(target);
+
+      if (sourceIndex < 0 || targetIndex < 0)
+      {
+         return -1;
+      }
+
+      for (int edgeIndex = _edgeOffsets[sourceIndex]; edgeIndex < _edgeOffsets[sourceIndex + 1]; ++edgeIndex)
+      {
+         if (_targetIndexes[edgeIndex] == targetIndex)
+         {
+            return edgeIndex;
+         }
+      }
+
+      return -1;
+   }
+
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static <E> Set<E>[] newEdgeSets(final int vertexCount)
+   {
+      return new Set[vertexCount];
+   }
+
+   protected abstract class RangeSet<T> extends AbstractSet<T>
+   {
+      protected final int _vertexIndex;
+
+      protected RangeSet(final int vertexIndex)
+      {
+         _vertexIndex = vertexIndex;
+      }
+
+      protected abstract T get(int edgeIndex);
+
+      @Override
+      public int size()
+      {
+         return _edgeOffsets[_vertexIndex + 1] - _edgeOffsets[_vertexIndex];
+      }
+
+      @Override
+      public Iterator<T> iterator()
+      {
+         return new Iterator<T>()
+         {
+            private int _edgeIndex = _edgeOffsets[_vertexIndex];
+
+            @Override
+            public boolean hasNext()
+            {
+               return _edgeIndex < _edgeOffsets[_vertexIndex + 1];
+            }
+
+            @Override
+            public T next()
+            {
+               if (!hasNext())
+               {
+                  throw new NoSuchElementException();
+               }
+
+               return get(_edgeIndex++);
+            }
+
+            @Override
+            public void remove()
+            {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+   }
+
+   protected class EdgeSet extends RangeSet<E>
+   {
+      protected EdgeSet(final int vertexIndex)
+      {
+         super(vertexIndex);
+      }
+
+      @Override
+      protected E get(final int edgeIndex)
+      {
+         return getEdgeAt(edgeIndex);
+      }
+   }
+
+   protected class TargetSet extends RangeSet<V>
+   {
+      protected TargetSet(final int vertexIndex)
+      {
+         super(vertexIndex);
+      }
+
+      @Override
+      protected V get(final int edgeIndex)
+      {
+         return getVertexAt(_targetIndexes[edgeIndex]);
+      }
+
+      @Override
+      public boolean contains(final Object o)
+      {
+         for (int edgeIndex = _edgeOffsets[_vertexIndex]; edgeIndex < _edgeOffsets[_vertexIndex + 1]; ++edgeIndex)
+         {
+            if (LangUtils.equalsNullSafe(o, getVertexAt(_targetIndexes[edgeIndex])))
+            {
+               return true;
+            }
+         }
+
+         return false;
+      }
+   }
+}
@@ -29,6 +29,9 @@ import net.sf.javagimmicks.util.Supplier;
  * <p>
  * A {@link MapGraph} also can be created in directed or non-directed mode. See
  * {@link #isDirected()} for more details about this modes.
+ * <p>
+ * For read-heavy usage on large and static topologies, a {@link MapGraph} can
+ * be compiled into an immutable {@link CompactGraph} using {@link #freeze()}.
  * 
  * @see MapGraphBuilder
  */
@@ -76,6 +79,21 @@ public class MapGraph<V, E extends Edge<V, E>> extends AbstractGraph<V, E>
       return _directed;
    }
 
+   /**
+    * Compiles the current state of this instance into an immutable
+    * {@link CompactGraph} snapshot that stores all vertices and {@link Edge}s
+    * in flat arrays.
+    * <p>
+    * This instance itself stays unchanged and can be further modified, but
+    * such modifications are not reflected by the returned {@link CompactGraph}.
+    * 
+    * @return the resulting {@link CompactGraph}
+    */
+   public CompactGraph<V, E> freeze()
+   {
+      return new CompactGraph<V, E>(this, _edgeSetFactory);
+   }
+
    @Override
    public int size()
    {
@@ -114,6 +132,8 @@ public class MapGraph<V, E extends Edge<V, E>> extends AbstractGraph<V, E>
          _edges.get(target).add(edge);
       }
 
+      markModified();
+
       return edge;
    }
 
@@ -126,6 +146,8 @@ public class MapGraph<V, E extends Edge<V, E>> extends AbstractGraph<V, E>
       }
 
       _edges.put(vertex, createEdgeSet());
+      markModified();
+
       return true;
    }
 }
@@ -0,0 +1,62 @@
+package net.sf.javagimmicks.graph.routing;
+
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+
+/**
+ * An implementation of {@link RouteFinder} that uses the <a
+ * href="http://en.wikipedia.org/wiki/A*_search_algorithm">A* search
+ * algorithm</a> for finding single {@link Route}s.
+ * <p>
+ * A* works like Dijkstra's algorithm but prioritizes vertices by their cost
+ * from the source plus an estimated remaining cost to the target, which is
+ * provided by a pluggable {@link Heuristic}. With a good {@link Heuristic},
+ * {@link #findRoute(Object, Object)} settles only a fraction of the vertices
+ * that {@link HeapDijkstraRouteFinder} would settle - see
+ * {@link #getLastSettledCount()}. The {@link Heuristic} must be consistent (see
+ * there) for the resulting {@link Route}s to be the cheapest ones.
+ * <p>
+ * As there is no target to estimate against, {@link #findRoutes(Object)} runs
+ * a plain Dijkstra search.
+ */
+public class AStarRouteFinder<VertexType, EdgeType extends Edge<VertexType, EdgeType>> extends
+      HeapDijkstraRouteFinder<VertexType, EdgeType>
+{
+   protected final Heuristic<? super VertexType> _heuristic;
+
+   /**
+    * Creates a new instance for the given {@link Graph} and {@link Heuristic}.
+    * 
+    * @param graph
+    *           the {@link Graph} to create the instance for
+    * @param heuristic
+    *           the {@link Heuristic} to guide point-to-point searches
+    */
+   public AStarRouteFinder(final Graph<VertexType, EdgeType> graph, final Heuristic<? super VertexType> heuristic)
+   {
+      super(graph);
+
+      if (heuristic == null)
+      {
+         throw new IllegalArgumentException("Heuristic must not be null!");
+      }
+
+      _heuristic = heuristic;
+   }
+
+   /**
+    * Returns the {@link Heuristic} used by this instance.
+    * 
+    * @return the {@link Heuristic} used by this instance
+    */
+   public Heuristic<? super VertexType> getHeuristic()
+   {
+      return _heuristic;
+   }
+
+   @Override
+   void prepareSearch(final ShortestPathSearch<VertexType, EdgeType> search, final VertexType target)
+   {
+      search.setHeuristic(_heuristic, target);
+   }
+}
@@ -0,0 +1,482 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+
+/**
+ * An extension of {@link HeapDijkstraRouteFinder} that can additionally find
+ * the cheapest {@link Route}s from many source vertices at once and spreads
+ * the work across multiple threads of a given {@link Executor}.
+ * <p>
+ * Results of batch searches are returned as a {@link DistanceMatrix} instead of
+ * one {@link java.util.Map} of {@link Route}s per source vertex. There are two
+ * strategies:
+ * <ul>
+ * <li>{@link #findRoutes(Collection, Executor)} runs one heap-based Dijkstra
+ * search per source vertex. Each worker thread keeps its own search state and
+ * reuses its arrays for all source vertices it processes.</li>
+ * <li>{@link #findAllRoutes(Executor)} runs a blocked <a
+ * href="http://en.wikipedia.org/wiki/Floyd%E2%80%93Warshall_algorithm">Floyd-Warshall
+ * algorithm</a> for all pairs of vertices, where the blocks of each phase are
+ * processed in parallel. It needs {@code O(V^3)} time and is only worth it for
+ * dense {@link Graph}s - but it also supports negative
+ * {@link net.sf.javagimmicks.graph.WeightedEdge} costs (as long as there are no
+ * negative cycles).</li>
+ * </ul>
+ * The {@link Graph} must not be modified while a batch search is running.
+ * Searches on a {@link CompactGraph} run directly on its flat edge arrays and
+ * are therefore the fastest option.
+ */
+public class BatchRouteFinder<VertexType, EdgeType extends Edge<VertexType, EdgeType>> extends
+      HeapDijkstraRouteFinder<VertexType, EdgeType>
+{
+   static final int FLOYD_WARSHALL_BLOCK_SIZE = 64;
+
+   /**
+    * Creates a new instance for the given {@link Graph}.
+    * 
+    * @param graph
+    *           the {@link Graph} to create the instance for
+    */
+   public BatchRouteFinder(final Graph<VertexType, EdgeType> graph)
+   {
+      super(graph);
+   }
+
+   /**
+    * Finds the cheapest {@link Route}s from all given source vertices to all
+    * reachable vertices using as many parallel workers as there are available
+    * processors.
+    * 
+    * @param sources
+    *           the source vertices to find {@link Route}s for - unknown
+    *           vertices result in rows without any reachable target
+    * @param executor
+    *           the {@link Executor} to run the workers
+    * @return the resulting {@link DistanceMatrix} with one row per given
+    *         source vertex
+    * @throws InterruptedException
+    *            if the calling thread was interrupted while waiting for the
+    *            workers
+    * @see #findRoutes(Collection, Executor, int)
+    */
+   public DistanceMatrix<VertexType, EdgeType> findRoutes(final Collection<? extends VertexType> sources,
+         final Executor executor) throws InterruptedException
+   {
+      return findRoutes(sources, executor, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Finds the cheapest {@link Route}s from all given source vertices to all
+    * reachable vertices using a given number of parallel workers. Each worker
+    * repeatedly picks the next unprocessed source vertex and runs a
+    * heap-based Dijkstra search for it.
+    * 
+    * @param sources
+    *           the source vertices to find {@link Route}s for - unknown
+    *           vertices result in rows without any reachable target
+    * @param executor
+    *           the {@link Executor} to run the workers
+    * @param parallelism
+    *           the number of workers to submit to the {@link Executor}
+    * @return the resulting {@link DistanceMatrix} with one row per given
+    *         source vertex
+    * @throws InterruptedException
+    *            if the calling thread was interrupted while waiting for the
+    *            workers
+    */
+   public DistanceMatrix<VertexType, EdgeType> findRoutes(final Collection<? extends VertexType> sources,
+         final Executor executor, final int parallelism) throws InterruptedException
+   {
+      checkArguments(executor, parallelism);
+
+      final DistanceMatrix<VertexType, EdgeType> result = new DistanceMatrix<VertexType, EdgeType>(_graph,
+            new ArrayList<VertexType>(sources));
+      final List<VertexType> sourceList = result.getSources();
+      final AtomicInteger nextRow = new AtomicInteger();
+
+      final List<Runnable> workers = new ArrayList<Runnable>(parallelism);
+      for (int i = 0; i < Math.min(parallelism, sourceList.size()); ++i)
+      {
+         workers.add(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               final ShortestPathSearch<VertexType, EdgeType> search = new ShortestPathSearch<VertexType, EdgeType>(
+                     _graph, _graph.size());
+               final int[] columns = new int[_graph.size()];
+
+               for (int row = nextRow.getAndIncrement(); row < sourceList.size(); row = nextRow.getAndIncrement())
+               {
+                  if (search.start(sourceList.get(row)))
+                  {
+                     while (search.settleNext() >= 0)
+                     {}
+
+                     fillRow(result, row, search, columns);
+                  }
+               }
+            }
+         });
+      }
+
+      execute(executor, workers);
+
+      return result;
+   }
+
+   /**
+    * Finds the cheapest {@link Route}s between all pairs of vertices using a
+    * blocked Floyd-Warshall algorithm with as many parallel workers as there
+    * are available processors.
+    * 
+    * @param executor
+    *           the {@link Executor} to run the workers
+    * @return the resulting {@link DistanceMatrix} with one row per vertex of
+    *         the {@link Graph}
+    * @throws InterruptedException
+    *            if the calling thread was interrupted while waiting for the
+    *            workers
+    * @see #findAllRoutes(Executor, int)
+    */
+   public DistanceMatrix<VertexType, EdgeType> findAllRoutes(final Executor executor) throws InterruptedException
+   {
+      return findAllRoutes(executor, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Finds the cheapest {@link Route}s between all pairs of vertices using a
+    * blocked Floyd-Warshall algorithm with a given number of parallel workers.
+    * <p>
+    * The cost matrix is split into square blocks. For each diagonal block,
+    * first the block itself is updated, then all blocks in its row and column
+    * (in parallel) and finally all remaining blocks (in parallel). Working on
+    * blocks keeps the accessed parts of the matrix small enough to stay in the
+    * CPU caches.
+    * 
+    * @param executor
+    *           the {@link Executor} to run the workers
+    * @param parallelism
+    *           the maximum number of workers to submit to the {@link Executor}
+    *           per phase
+    * @return the resulting {@link DistanceMatrix} with one row per vertex of
+    *         the {@link Graph}
+    * @throws InterruptedException
+    *            if the calling thread was interrupted while waiting for the
+    *            workers
+    */
+   public DistanceMatrix<VertexType, EdgeType> findAllRoutes(final Executor executor, final int parallelism)
+         throws InterruptedException
+   {
+      checkArguments(executor, parallelism);
+
+      final DistanceMatrix<VertexType, EdgeType> result = initAllPairs();
+
+      final int vertexCount = result.getVertices().size();
+      final int blockCount = (vertexCount + FLOYD_WARSHALL_BLOCK_SIZE - 1) / FLOYD_WARSHALL_BLOCK_SIZE;
+
+      for (int pivotBlock = 0; pivotBlock < blockCount; ++pivotBlock)
+      {
+         final int pivot = pivotBlock;
+
+         // Phase 1: the diagonal block only depends on itself
+         relaxBlock(result, pivot, pivot, pivot);
+
+         // Phase 2: the blocks in the row and column of the diagonal block
+         executeBlocks(executor, parallelism, blockCount, new BlockTask()
+         {
+            @Override
+            public void run(final int block)
+            {
+               if (block != pivot)
+               {
+                  relaxBlock(result, pivot, block, pivot);
+                  relaxBlock(result, block, pivot, pivot);
+               }
+            }
+         });
+
+         // Phase 3: all remaining blocks - one task per block row
+         executeBlocks(executor, parallelism, blockCount, new BlockTask()
+         {
+            @Override
+            public void run(final int rowBlock)
+            {
+               if (rowBlock == pivot)
+               {
+                  return;
+               }
+
+               for (int columnBlock = 0; columnBlock < blockCount; ++columnBlock)
+               {
+                  if (columnBlock != pivot)
+                  {
+                     relaxBlock(result, rowBlock, columnBlock, pivot);
+                  }
+               }
+            }
+         });
+      }
+
+      return result;
+   }
+
+   /**
+    * Creates the initial all-pairs {@link DistanceMatrix} containing the
+    * direct {@link Edge}s of the {@link Graph}.
+    */
+   @SuppressWarnings("unchecked")
+   private DistanceMatrix<VertexType, EdgeType> initAllPairs()
+   {
+      final List<VertexType> vertices = new ArrayList<VertexType>(_graph.size());
+      final DistanceMatrix<VertexType, EdgeType> result;
+
+      if (_graph instanceof CompactGraph<?, ?>)
+      {
+         final CompactGraph<VertexType, EdgeType> graph = (CompactGraph<VertexType, EdgeType>) _graph;
+         for (int index = 0; index < graph.size(); ++index)
+         {
+            vertices.add(graph.getVertexAt(index));
+         }
+
+         result = new DistanceMatrix<VertexType, EdgeType>(_graph, vertices);
+
+         for (int index = 0; index < graph.size(); ++index)
+         {
+            final int edgeEnd = graph.getEdgeOffset(index + 1);
+            for (int edgeIndex = graph.getEdgeOffset(index); edgeIndex < edgeEnd; ++edgeIndex)
+            {
+               initEdge(result, index, graph.getTargetIndexAt(edgeIndex), graph.getCostAt(edgeIndex));
+            }
+         }
+      }
+      else
+      {
+         vertices.addAll(_graph.vertexSet());
+         result = new DistanceMatrix<VertexType, EdgeType>(_graph, vertices);
+
+         for (int index = 0; index < vertices.size(); ++index)
+         {
+            final VertexType vertex = vertices.get(index);
+            final Set<EdgeType> edges = _graph.edgesOf(vertex);
+
+            for (final EdgeType edge : edges)
+            {
+               initEdge(result, index, result.indexOfVertex(edge.getOutgoingVertex(vertex)),
+                     ShortestPathSearch.getCost(edge));
+            }
+         }
+      }
+
+      final int vertexCount = vertices.size();
+      for (int index = 0; index < vertexCount; ++index)
+      {
+         final int cell = index * vertexCount + index;
+         result._costs[cell] = Math.min(result._costs[cell], 0.0);
+         result._predecessors[cell] = -1;
+      }
+
+      return result;
+   }
+
+   private static void initEdge(final DistanceMatrix<?, ?> matrix, final int sourceIndex, final int targetIndex,
+         final double cost)
+   {
+      final int cell = sourceIndex * matrix.getVertices().size() + targetIndex;
+      if (cost < matrix._costs[cell])
+      {
+         matrix._costs[cell] = cost;
+         matrix._predecessors[cell] = sourceIndex;
+      }
+   }
+
+   /**
+    * Relaxes all cells of one block of the matrix via all pivot vertices of
+    * the given pivot block.
+    */
+   private static void relaxBlock(final DistanceMatrix<?, ?> matrix, final int rowBlock, final int columnBlock,
+         final int pivotBlock)
+   {
+      final double[] costs = matrix._costs;
+      final int[] predecessors = matrix._predecessors;
+      final int vertexCount = matrix.getVertices().size();
+
+      final int rowEnd = Math.min(vertexCount, (rowBlock + 1) * FLOYD_WARSHALL_BLOCK_SIZE);
+      final int columnStart = columnBlock * FLOYD_WARSHALL_BLOCK_SIZE;
+      final int columnEnd = Math.min(vertexCount, columnStart + FLOYD_WARSHALL_BLOCK_SIZE);
+      final int pivotEnd = Math.min(vertexCount, (pivotBlock + 1) * FLOYD_WARSHALL_BLOCK_SIZE);
+
+      for (int pivot = pivotBlock * FLOYD_WARSHALL_BLOCK_SIZE; pivot < pivotEnd; ++pivot)
+      {
+         final int pivotRow = pivot * vertexCount;
+
+         for (int row = rowBlock * FLOYD_WARSHALL_BLOCK_SIZE; row < rowEnd; ++row)
+         {
+            final int rowOffset = row * vertexCount;
+            final double costToPivot = costs[rowOffset + pivot];
+            if (costToPivot == Double.POSITIVE_INFINITY)
+            {
+               continue;
+            }
+
+            for (int column = columnStart; column < columnEnd; ++column)
+            {
+               final double cost = costToPivot + costs[pivotRow + column];
+               if (cost < costs[rowOffset + column])
+               {
+                  costs[rowOffset + column] = cost;
+                  predecessors[rowOffset + column] = predecessors[pivotRow + column];
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Copies the results of a finished Dijkstra search into one row of the
+    * matrix.
+    */
+   private static <V, E extends Edge<V, E>> void fillRow(final DistanceMatrix<V, E> matrix, final int row,
+         final ShortestPathSearch<V, E> search, final int[] columns)
+   {
+      final int vertexCount = search.getVertexCount();
+      final boolean compact = search.getCompactGraph() != null;
+
+      for (int id = 0; id < vertexCount; ++id)
+      {
+         columns[id] = compact ? search.getCompactIndex(id) : matrix.indexOfVertex(search.getVertex(id));
+      }
+
+      final int rowOffset = row * matrix.getVertices().size();
+      for (int id = 0; id < vertexCount; ++id)
+      {
+         final int predecessor = search.getPredecessor(id);
+
+         matrix._costs[rowOffset + columns[id]] = search.getCost(id);
+         matrix._predecessors[rowOffset + columns[id]] = predecessor < 0 ? -1 : columns[predecessor];
+      }
+   }
+
+   /**
+    * Processes the given number of blocks with up to the given number of
+    * parallel workers and waits until all of them are done.
+    */
+   private static void executeBlocks(final Executor executor, final int parallelism, final int blockCount,
+         final BlockTask task) throws InterruptedException
+   {
+      final AtomicInteger nextBlock = new AtomicInteger();
+
+      final List<Runnable> workers = new ArrayList<Runnable>(parallelism);
+      for (int i = 0; i < Math.min(parallelism, blockCount); ++i)
+      {
+         workers.add(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               for (int block = nextBlock.getAndIncrement(); block < blockCount; block = nextBlock.getAndIncrement())
+               {
+                  task.run(block);
+               }
+            }
+         });
+      }
+
+      execute(executor, workers);
+   }
+
+   /**
+    * Submits all given workers to the given {@link Executor}, waits until all
+    * of them are done and re-throws the first failure of any worker.
+    */
+   private static void execute(final Executor executor, final List<Runnable> workers) throws InterruptedException
+   {
+      final CountDownLatch latch = new CountDownLatch(workers.size());
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+      for (int i = 0; i < workers.size(); ++i)
+      {
+         final Runnable worker = workers.get(i);
+
+         try
+         {
+            executor.execute(new Runnable()
+            {
+               @Override
+               public void run()
+               {
+                  try
+                  {
+                     worker.run();
+                  }
+                  catch (final Throwable t)
+                  {
+                     failure.compareAndSet(null, t);
+                  }
+                  finally
+                  {
+                     latch.countDown();
+                  }
+               }
+            });
+         }
+         catch (final RejectedExecutionException ex)
+         {
+            // Wait for the already submitted workers before giving up
+            for (int j = i; j < workers.size(); ++j)
+            {
+               latch.countDown();
+            }
+            latch.await();
+
+            throw ex;
+         }
+      }
+
+      latch.await();
+
+      final Throwable t = failure.get();
+      if (t instanceof RuntimeException)
+      {
+         throw (RuntimeException) t;
+      }
+      else if (t instanceof Error)
+      {
+         throw (Error) t;
+      }
+      else if (t != null)
+      {
+         throw new IllegalStateException("Batch route search failed!", t);
+      }
+   }
+
+   private static void checkArguments(final Executor executor, final int parallelism)
+   {
+      if (executor == null)
+      {
+         throw new IllegalArgumentException("Executor must not be null!");
+      }
+
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+   }
+
+   private static interface BlockTask
+   {
+      void run(int block);
+   }
+}
@@ -0,0 +1,202 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Set;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraph;
+
+/**
+ * An implementation of {@link RouteFinder} that finds single {@link Route}s
+ * using a bidirectional variant of <a
+ * href="http://en.wikipedia.org/wiki/Dijkstra's_algorithm">Dijkstra's
+ * algorithm</a>.
+ * <p>
+ * {@link #findRoute(Object, Object)} runs one search forward from the source
+ * vertex and one search backward from the target vertex, always advancing the
+ * one with the smaller frontier cost. It stops as soon as the sum of both
+ * frontier costs reaches the cheapest connection found so far - for typical
+ * networks this settles far fewer vertices than a unidirectional search (see
+ * {@link #getLastSettledCount()}, which reports the sum of both searches).
+ * {@link #findRoutes(Object)} runs a plain (forward) Dijkstra search.
+ * <p>
+ * The backward search needs to walk {@link Edge}s in reverse direction, so the
+ * supported {@link Graph}s are:
+ * <ul>
+ * <li>{@link CompactGraph}s - backward searches run on
+ * {@link CompactGraph#reverse()}</li>
+ * <li>non-directed {@link MapGraph}s (see {@link MapGraph#isDirected()}) -
+ * where every {@link Edge} is reachable from both of its vertices anyway</li>
+ * </ul>
+ * For directed {@link MapGraph}s, use {@link MapGraph#freeze()} to get a
+ * {@link CompactGraph}.
+ */
+public class BidirectionalDijkstraRouteFinder<VertexType, EdgeType extends Edge<VertexType, EdgeType>> extends
+      HeapDijkstraRouteFinder<VertexType, EdgeType>
+{
+   protected final Graph<VertexType, EdgeType> _backwardGraph;
+
+   /**
+    * Creates a new instance for the given {@link Graph}.
+    * 
+    * @param graph
+    *           the {@link Graph} to create the instance for - must be a
+    *           {@link CompactGraph} or a non-directed {@link MapGraph}
+    * @throws IllegalArgumentException
+    *            if the given {@link Graph} is not supported
+    */
+   @SuppressWarnings("unchecked")
+   public BidirectionalDijkstraRouteFinder(final Graph<VertexType, EdgeType> graph) throws IllegalArgumentException
+   {
+      super(graph);
+
+      if (graph instanceof CompactGraph<?, ?>)
+      {
+         _backwardGraph = ((CompactGraph<VertexType, EdgeType>) graph).reverse();
+      }
+      else if (graph instanceof MapGraph<?, ?> && !((MapGraph<?, ?>) graph).isDirected())
+      {
+         _backwardGraph = graph;
+      }
+      else
+      {
+         throw new IllegalArgumentException(
+               "Bidirectional search needs a CompactGraph or a non-directed MapGraph - use MapGraph.freeze() for directed ones!");
+      }
+   }
+
+   @Override
+   public Route<VertexType, EdgeType> findRoute(final VertexType source, final VertexType target)
+   {
+      final ShortestPathSearch<VertexType, EdgeType> forward = createPointToPointSearch(_graph);
+      final ShortestPathSearch<VertexType, EdgeType> backward = createPointToPointSearch(_backwardGraph);
+
+      if (!forward.start(source) || !backward.start(target))
+      {
+         _lastSettledCount = 0;
+         return null;
+      }
+
+      final Meeting<EdgeType> meeting = new Meeting<EdgeType>();
+
+      if (source.equals(target))
+      {
+         meeting._forwardId = 0;
+         meeting._backwardId = 0;
+         meeting._cost = 0.0;
+      }
+
+      while (forward.peekKey() + backward.peekKey() < meeting._cost)
+      {
+         if (forward.peekKey() <= backward.peekKey())
+         {
+            scanConnections(forward, forward.settleNext(), backward, true, meeting);
+         }
+         else
+         {
+            scanConnections(backward, backward.settleNext(), forward, false, meeting);
+         }
+      }
+
+      _lastSettledCount = forward.getSettledCount() + backward.getSettledCount();
+
+      return meeting._forwardId < 0 ? null : createRoute(forward, backward, meeting, target);
+   }
+
+   /**
+    * Checks all {@link Edge}s of a freshly settled vertex if they lead to a
+    * vertex already reached by the opposite search and records the cheapest
+    * such connection.
+    */
+   private static <V, E extends Edge<V, E>> void scanConnections(final ShortestPathSearch<V, E> search,
+         final int id, final ShortestPathSearch<V, E> other, final boolean isForward, final Meeting<E> meeting)
+   {
+      final double cost = search.getCost(id);
+      final CompactGraph<V, E> graph = search.getCompactGraph();
+
+      if (graph != null)
+      {
+         final int index = search.getCompactIndex(id);
+         final int edgeEnd = graph.getEdgeOffset(index + 1);
+         for (int edgeIndex = graph.getEdgeOffset(index); edgeIndex < edgeEnd; ++edgeIndex)
+         {
+            final int otherId = other.getIdByCompactIndex(graph.getTargetIndexAt(edgeIndex));
+            if (otherId >= 0)
+            {
+               meeting.offer(isForward, id, graph.getEdgeAt(edgeIndex), otherId,
+                     cost + graph.getCostAt(edgeIndex) + other.getCost(otherId));
+            }
+         }
+      }
+      else
+      {
+         final V vertex = search.getVertex(id);
+         final Set<E> edges = search.getGraph().edgesOf(vertex);
+         if (edges == null)
+         {
+            return;
+         }
+
+         for (final E edge : edges)
+         {
+            final int otherId = other.getId(edge.getOutgoingVertex(vertex));
+            if (otherId >= 0)
+            {
+               meeting.offer(isForward, id, edge, otherId,
+                     cost + ShortestPathSearch.getCost(edge) + other.getCost(otherId));
+            }
+         }
+      }
+   }
+
+   private static <V, E extends Edge<V, E>> Route<V, E> createRoute(final ShortestPathSearch<V, E> forward,
+         final ShortestPathSearch<V, E> backward, final Meeting<E> meeting, final V target)
+   {
+      int backwardLength = 0;
+      for (int id = meeting._backwardId; backward.getPredecessor(id) >= 0; id = backward.getPredecessor(id))
+      {
+         ++backwardLength;
+      }
+
+      final DefaultRoute<V, E> result = forward.createRoute(meeting._forwardId, target,
+            backwardLength + (meeting._edge != null ? 1 : 0));
+
+      if (meeting._edge != null)
+      {
+         result.add(meeting._edge);
+      }
+
+      // The backward predecessors lead from the meeting point to the target
+      for (int id = meeting._backwardId; backward.getPredecessor(id) >= 0; id = backward.getPredecessor(id))
+      {
+         result.add(backward.getPredecessorEdge(id));
+      }
+
+      return result;
+   }
+
+   /**
+    * The cheapest known connection between the forward and the backward search
+    * - an {@link Edge} between a vertex reached forward and a vertex reached
+    * backward.
+    */
+   private static final class Meeting<E>
+   {
+      private double _cost = Double.POSITIVE_INFINITY;
+      private int _forwardId = -1;
+      private int _backwardId = -1;
+      private E _edge;
+
+      private void offer(final boolean isForward, final int id, final E edge, final int otherId, final double cost)
+      {
+         if (cost < _cost)
+         {
+            _cost = cost;
+            _edge = edge;
+            _forwardId = isForward ? id : otherId;
+            _backwardId = isForward ? otherId : id;
+         }
+      }
+   }
+}
@@ -0,0 +1,221 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.sf.javagimmicks.graph.AbstractGraph;
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+
+/**
+ * A decorator for any {@link RouteFinder} that caches the results of
+ * {@link RouteFinder#findRoutes(Object)} - the shortest path trees for single
+ * source vertices - in a bounded LRU cache.
+ * <p>
+ * {@link #findRoute(Object, Object)} looks up (or calculates once) the
+ * complete shortest path tree of the source vertex and copies the
+ * {@link Route} to the target vertex from there, so repeated queries for the
+ * same source vertex cost a {@link Map} lookup instead of a full search.
+ * <p>
+ * If the {@link Graph} is an {@link AbstractGraph}, all cached trees are
+ * dropped automatically as soon as its
+ * {@link AbstractGraph#getModificationCount() modification count} changes -
+ * i.e. when vertices or {@link Edge}s are added or removed or the cost of a
+ * {@link net.sf.javagimmicks.graph.WeightedEdge} is changed. For other
+ * {@link Graph}s (or modifications that cannot be tracked) the cache can be
+ * cleared manually via {@link #invalidate()}.
+ * <p>
+ * Instances are thread-safe if the decorated {@link RouteFinder} is.
+ */
+public class CachingRouteFinder<VertexType, EdgeType extends Edge<VertexType, EdgeType>> extends
+      AbstractRouteFinder<VertexType, EdgeType>
+{
+   protected final RouteFinder<VertexType, EdgeType> _routeFinder;
+   protected final int _maxSize;
+
+   protected final Map<VertexType, Map<VertexType, Route<VertexType, EdgeType>>> _cache;
+   protected long _cachedModificationCount;
+
+   /**
+    * Creates a new instance for the given {@link Graph} that decorates a
+    * {@link HeapDijkstraRouteFinder}.
+    * 
+    * @param graph
+    *           the {@link Graph} to create the instance for
+    * @param maxSize
+    *           the maximum number of source vertices to cache shortest path
+    *           trees for
+    */
+   public CachingRouteFinder(final Graph<VertexType, EdgeType> graph, final int maxSize)
+   {
+      this(graph, new HeapDijkstraRouteFinder<VertexType, EdgeType>(graph), maxSize);
+   }
+
+   /**
+    * Creates a new instance for the given {@link Graph} that decorates the
+    * given {@link RouteFinder}.
+    * 
+    * @param graph
+    *           the {@link Graph} the given {@link RouteFinder} works on
+    * @param routeFinder
+    *           the {@link RouteFinder} to decorate
+    * @param maxSize
+    *           the maximum number of source vertices to cache shortest path
+    *           trees for
+    */
+   public CachingRouteFinder(final Graph<VertexType, EdgeType> graph,
+         final RouteFinder<VertexType, EdgeType> routeFinder, final int maxSize)
+   {
+      super(graph);
+
+      if (routeFinder == null)
+      {
+         throw new IllegalArgumentException("RouteFinder must not be null!");
+      }
+
+      if (maxSize < 1)
+      {
+         throw new IllegalArgumentException("Maximum cache size must be at least 1!");
+      }
+
+      _routeFinder = routeFinder;
+      _maxSize = maxSize;
+
+      _cache = new LinkedHashMap<VertexType, Map<VertexType, Route<VertexType, EdgeType>>>(16, 0.75f, true)
+      {
+         private static final long serialVersionUID = -1493004837329858411L;
+
+         @Override
+         protected boolean removeEldestEntry(
+               final Entry<VertexType, Map<VertexType, Route<VertexType, EdgeType>>> eldest)
+         {
+            return size() > _maxSize;
+         }
+      };
+      _cachedModificationCount = getModificationCount();
+   }
+
+   /**
+    * Returns the decorated {@link RouteFinder}.
+    * 
+    * @return the decorated {@link RouteFinder}
+    */
+   public RouteFinder<VertexType, EdgeType> getRouteFinder()
+   {
+      return _routeFinder;
+   }
+
+   /**
+    * Returns the maximum number of source vertices to cache shortest path trees
+    * for.
+    * 
+    * @return the maximum cache size
+    */
+   public int getMaxSize()
+   {
+      return _maxSize;
+   }
+
+   /**
+    * Returns the number of source vertices for which shortest path trees are
+    * currently cached.
+    * 
+    * @return the current cache size
+    */
+   public int getCachedSourceCount()
+   {
+      synchronized (_cache)
+      {
+         validate(getModificationCount());
+
+         return _cache.size();
+      }
+   }
+
+   /**
+    * Drops all cached shortest path trees.
+    */
+   public void invalidate()
+   {
+      synchronized (_cache)
+      {
+         _cache.clear();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>
+    * The returned {@link Map} is unmodifiable and shared with the cache, so the
+    * contained {@link Route}s must not be modified.
+    */
+   @Override
+   public Map<VertexType, Route<VertexType, EdgeType>> findRoutes(final VertexType source)
+   {
+      return getRoutes(source);
+   }
+
+   @Override
+   public Route<VertexType, EdgeType> findRoute(final VertexType source, final VertexType target)
+   {
+      final Route<VertexType, EdgeType> cachedRoute = getRoutes(source).get(target);
+      if (cachedRoute == null)
+      {
+         return null;
+      }
+
+      final DefaultRoute<VertexType, EdgeType> result = new DefaultRoute<VertexType, EdgeType>(source, target);
+      result.addAll(cachedRoute);
+
+      return result;
+   }
+
+   private Map<VertexType, Route<VertexType, EdgeType>> getRoutes(final VertexType source)
+   {
+      final long modificationCount;
+
+      synchronized (_cache)
+      {
+         modificationCount = getModificationCount();
+         validate(modificationCount);
+
+         final Map<VertexType, Route<VertexType, EdgeType>> routes = _cache.get(source);
+         if (routes != null)
+         {
+            return routes;
+         }
+      }
+
+      // Search outside the lock, so different sources can be searched in
+      // parallel
+      final Map<VertexType, Route<VertexType, EdgeType>> routes = Collections.unmodifiableMap(_routeFinder
+            .findRoutes(source));
+
+      synchronized (_cache)
+      {
+         // Don't cache results that might be outdated already
+         if (modificationCount == _cachedModificationCount && modificationCount == getModificationCount())
+         {
+            _cache.put(source, routes);
+         }
+      }
+
+      return routes;
+   }
+
+   private void validate(final long modificationCount)
+   {
+      if (modificationCount != _cachedModificationCount)
+      {
+         _cache.clear();
+         _cachedModificationCount = modificationCount;
+      }
+   }
+
+   private long getModificationCount()
+   {
+      return (_graph instanceof AbstractGraph<?, ?>) ? ((AbstractGraph<?, ?>) _graph).getModificationCount() : 0L;
+   }
+}
@@ -0,0 +1,304 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+
+/**
+ * A compact result of a batch route search (see {@link BatchRouteFinder}) that
+ * holds the costs of the cheapest {@link Route}s from a number of source
+ * vertices to all vertices of a {@link Graph}.
+ * <p>
+ * Instead of one {@link Route} object per source and target vertex, the
+ * results are stored in two flat row-major arrays - one {@code double[]} for
+ * the costs and one {@code int[]} for the predecessor of each target vertex on
+ * the cheapest {@link Route} from the respective source vertex. Rows are
+ * addressed by the index of a source vertex within {@link #getSources()},
+ * columns by the index of a target vertex within {@link #getVertices()}.
+ * Single {@link Route}s can be reconstructed on demand via
+ * {@link #getRoute(Object, Object)}.
+ * <p>
+ * Unreachable target vertices have a cost of {@link Double#POSITIVE_INFINITY}
+ * and a predecessor index of {@code -1}.
+ */
+public class DistanceMatrix<VertexType, EdgeType extends Edge<VertexType, EdgeType>>
+{
+   protected final Graph<VertexType, EdgeType> _graph;
+   protected final CompactGraph<VertexType, EdgeType> _compactGraph;
+
+   protected final List<VertexType> _sources;
+   protected final List<VertexType> _vertices;
+   protected final Map<VertexType, Integer> _sourceIndexes;
+   protected final Map<VertexType, Integer> _vertexIndexes;
+
+   final double[] _costs;
+   final int[] _predecessors;
+
+   /**
+    * Creates a new instance where all target vertices are unreachable.
+    * 
+    * @param graph
+    *           the {@link Graph} the instance belongs to
+    * @param sources
+    *           the source vertices - one row per element
+    */
+   @SuppressWarnings("unchecked")
+   DistanceMatrix(final Graph<VertexType, EdgeType> graph, final List<VertexType> sources)
+   {
+      _graph = graph;
+      _compactGraph = (graph instanceof CompactGraph<?, ?>) ? (CompactGraph<VertexType, EdgeType>) graph : null;
+
+      _sources = Collections.unmodifiableList(new ArrayList<VertexType>(sources));
+      _sourceIndexes = new HashMap<VertexType, Integer>();
+      for (int row = _sources.size() - 1; row >= 0; --row)
+      {
+         _sourceIndexes.put(_sources.get(row), row);
+      }
+
+      final List<VertexType> vertices = new ArrayList<VertexType>(graph.size());
+      if (_compactGraph != null)
+      {
+         for (int column = 0; column < _compactGraph.size(); ++column)
+         {
+            vertices.add(_compactGraph.getVertexAt(column));
+         }
+
+         _vertexIndexes = null;
+      }
+      else
+      {
+         vertices.addAll(graph.vertexSet());
+
+         _vertexIndexes = new HashMap<VertexType, Integer>(vertices.size() * 4 / 3 + 1);
+         for (int column = 0; column < vertices.size(); ++column)
+         {
+            _vertexIndexes.put(vertices.get(column), column);
+         }
+      }
+      _vertices = Collections.unmodifiableList(vertices);
+
+      final long cellCount = (long) _sources.size() * _vertices.size();
+      if (cellCount > Integer.MAX_VALUE)
+      {
+         throw new IllegalArgumentException("Matrix of " + _sources.size() + " x " + _vertices.size()
+               + " cells is too large!");
+      }
+
+      _costs = new double[(int) cellCount];
+      _predecessors = new int[(int) cellCount];
+      Arrays.fill(_costs, Double.POSITIVE_INFINITY);
+      Arrays.fill(_predecessors, -1);
+   }
+
+   /**
+    * Returns the {@link Graph} this instance was calculated for.
+    * 
+    * @return the {@link Graph} this instance was calculated for
+    */
+   public Graph<VertexType, EdgeType> getGraph()
+   {
+      return _graph;
+   }
+
+   /**
+    * Returns the source vertices (the rows) of this instance.
+    * 
+    * @return an unmodifiable {@link List} of the source vertices
+    */
+   public List<VertexType> getSources()
+   {
+      return _sources;
+   }
+
+   /**
+    * Returns the target vertices (the columns) of this instance - which are all
+    * vertices of the {@link Graph}.
+    * 
+    * @return an unmodifiable {@link List} of the target vertices
+    */
+   public List<VertexType> getVertices()
+   {
+      return _vertices;
+   }
+
+   /**
+    * Returns the row index of a given source vertex.
+    * 
+    * @param source
+    *           the source vertex to get the row index for
+    * @return the (first) row index of the given source vertex or {@code -1} if
+    *         it is no source vertex of this instance
+    */
+   public int indexOfSource(final VertexType source)
+   {
+      final Integer row = _sourceIndexes.get(source);
+      return row == null ? -1 : row.intValue();
+   }
+
+   /**
+    * Returns the column index of a given target vertex.
+    * 
+    * @param vertex
+    *           the target vertex to get the column index for
+    * @return the column index of the given vertex or {@code -1} if it is not
+    *         contained within the {@link Graph}
+    */
+   public int indexOfVertex(final VertexType vertex)
+   {
+      if (_compactGraph != null)
+      {
+         return _compactGraph.indexOf(vertex);
+      }
+
+      final Integer column = _vertexIndexes.get(vertex);
+      return column == null ? -1 : column.intValue();
+   }
+
+   /**
+    * Returns the cost of the cheapest {@link Route} between the source vertex
+    * of a given row and the target vertex of a given column.
+    * 
+    * @param sourceIndex
+    *           the row index of the source vertex
+    * @param vertexIndex
+    *           the column index of the target vertex
+    * @return the cost of the cheapest {@link Route} or
+    *         {@link Double#POSITIVE_INFINITY} if the target vertex is not
+    *         reachable
+    */
+   public double getCost(final int sourceIndex, final int vertexIndex)
+   {
+      return _costs[getCell(sourceIndex, vertexIndex)];
+   }
+
+   /**
+    * Returns the column index of the last vertex before the target vertex of a
+    * given column on the cheapest {@link Route} from the source vertex of a
+    * given row.
+    * 
+    * @param sourceIndex
+    *           the row index of the source vertex
+    * @param vertexIndex
+    *           the column index of the target vertex
+    * @return the column index of the predecessor vertex or {@code -1} if the
+    *         target vertex is the source vertex itself or is not reachable
+    */
+   public int getPredecessorIndex(final int sourceIndex, final int vertexIndex)
+   {
+      return _predecessors[getCell(sourceIndex, vertexIndex)];
+   }
+
+   /**
+    * Returns the cost of the cheapest {@link Route} between a given source and
+    * target vertex.
+    * 
+    * @param source
+    *           the source vertex
+    * @param target
+    *           the target vertex
+    * @return the cost of the cheapest {@link Route} or
+    *         {@link Double#POSITIVE_INFINITY} if the target vertex is not
+    *         reachable or any of the given vertices is unknown
+    */
+   public double getCost(final VertexType source, final VertexType target)
+   {
+      final int sourceIndex = indexOfSource(source);
+      final int vertexIndex = indexOfVertex(target);
+
+      return sourceIndex < 0 || vertexIndex < 0 ? Double.POSITIVE_INFINITY : getCost(sourceIndex, vertexIndex);
+   }
+
+   /**
+    * Reconstructs the cheapest {@link Route} between a given source and target
+    * vertex by following the stored predecessors.
+    * 
+    * @param source
+    *           the source vertex
+    * @param target
+    *           the target vertex
+    * @return the resulting {@link Route} or {@code null} if the target vertex
+    *         is not reachable or any of the given vertices is unknown
+    */
+   public Route<VertexType, EdgeType> getRoute(final VertexType source, final VertexType target)
+   {
+      final int sourceIndex = indexOfSource(source);
+      final int vertexIndex = indexOfVertex(target);
+
+      if (sourceIndex < 0 || vertexIndex < 0 || getCost(sourceIndex, vertexIndex) == Double.POSITIVE_INFINITY)
+      {
+         return null;
+      }
+
+      final DefaultRoute<VertexType, EdgeType> result = new DefaultRoute<VertexType, EdgeType>(source, target);
+
+      // Collect the edges backwards from the target and reverse them afterwards
+      VertexType current = target;
+      for (int predecessorIndex = getPredecessorIndex(sourceIndex, vertexIndex); predecessorIndex >= 0; predecessorIndex = getPredecessorIndex(
+            sourceIndex, predecessorIndex))
+      {
+         final VertexType predecessor = _vertices.get(predecessorIndex);
+         result.add(getCheapestEdge(predecessor, predecessorIndex, current));
+         current = predecessor;
+      }
+
+      Collections.reverse(result);
+
+      return result;
+   }
+
+   /**
+    * Returns the cheapest {@link Edge} between two vertices - a {@link Graph}
+    * may contain multiple {@link Edge}s between the same vertices.
+    */
+   private EdgeType getCheapestEdge(final VertexType source, final int sourceIndex, final VertexType target)
+   {
+      EdgeType result = null;
+      double resultCost = Double.POSITIVE_INFINITY;
+
+      if (_compactGraph != null)
+      {
+         final int targetIndex = _compactGraph.indexOf(target);
+         final int edgeEnd = _compactGraph.getEdgeOffset(sourceIndex + 1);
+         for (int edgeIndex = _compactGraph.getEdgeOffset(sourceIndex); edgeIndex < edgeEnd; ++edgeIndex)
+         {
+            if (_compactGraph.getTargetIndexAt(edgeIndex) == targetIndex
+                  && (result == null || _compactGraph.getCostAt(edgeIndex) < resultCost))
+            {
+               result = _compactGraph.getEdgeAt(edgeIndex);
+               resultCost = _compactGraph.getCostAt(edgeIndex);
+            }
+         }
+      }
+      else
+      {
+         for (final EdgeType edge : _graph.edgesOf(source))
+         {
+            if (target.equals(edge.getOutgoingVertex(source))
+                  && (result == null || ShortestPathSearch.getCost(edge) < resultCost))
+            {
+               result = edge;
+               resultCost = ShortestPathSearch.getCost(edge);
+            }
+         }
+      }
+
+      return result;
+   }
+
+   private int getCell(final int sourceIndex, final int vertexIndex)
+   {
+      if (vertexIndex < 0 || vertexIndex >= _vertices.size())
+      {
+         throw new IndexOutOfBoundsException("Vertex index " + vertexIndex + " out of range!");
+      }
+
+      return sourceIndex * _vertices.size() + vertexIndex;
+   }
+}
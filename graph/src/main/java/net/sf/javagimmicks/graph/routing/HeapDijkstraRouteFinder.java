@@ -0,0 +1,101 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Map;
+
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+
+/**
+ * An implementation of {@link RouteFinder} that uses <a
+ * href="http://en.wikipedia.org/wiki/Dijkstra's_algorithm">Dijkstra's
+ * algorithm</a> backed by an indexed 4-ary heap with decrease-key for finding
+ * {@link Route}s.
+ * <p>
+ * In contrast to {@link DijkstraRouteFinder}, vertices are mapped to dense
+ * {@code int} ids during the search and costs as well as predecessors are kept
+ * in primitive arrays, so a search runs in {@code O(E log V)} instead of
+ * re-sorting all vertices after every relaxation. Point-to-point searches via
+ * {@link #findRoute(Object, Object)} stop as soon as the target vertex is
+ * settled. On a {@link net.sf.javagimmicks.graph.CompactGraph} the search
+ * runs directly on its flat edge arrays.
+ * <p>
+ * The results are the same {@link DefaultRoute} instances as produced by
+ * {@link DijkstraRouteFinder}. Like any Dijkstra implementation, this class
+ * requires all {@link net.sf.javagimmicks.graph.WeightedEdge} costs to be
+ * non-negative.
+ * <p>
+ * The number of vertices settled by the most recent search is available via
+ * {@link #getLastSettledCount()}, which allows comparing the search effort with
+ * other implementations like {@link AStarRouteFinder} or
+ * {@link BidirectionalDijkstraRouteFinder}.
+ */
+public class HeapDijkstraRouteFinder<VertexType, EdgeType extends Edge<VertexType, EdgeType>> extends
+      AbstractRouteFinder<VertexType, EdgeType>
+{
+   static final int POINT_TO_POINT_INITIAL_CAPACITY = 1024;
+
+   protected volatile int _lastSettledCount;
+
+   /**
+    * Creates a new instance for the given {@link Graph}.
+    * 
+    * @param graph
+    *           the {@link Graph} to create the instance for
+    */
+   public HeapDijkstraRouteFinder(final Graph<VertexType, EdgeType> graph)
+   {
+      super(graph);
+   }
+
+   /**
+    * Returns the number of vertices that were settled (finally visited) by the
+    * most recent call to {@link #findRoute(Object, Object)} or
+    * {@link #findRoutes(Object)} on this instance.
+    * <p>
+    * If the instance is used by multiple threads concurrently, the value
+    * belongs to whichever search finished last.
+    * 
+    * @return the number of settled vertices of the most recent search
+    */
+   public int getLastSettledCount()
+   {
+      return _lastSettledCount;
+   }
+
+   @Override
+   public Route<VertexType, EdgeType> findRoute(final VertexType source, final VertexType target)
+   {
+      final ShortestPathSearch<VertexType, EdgeType> search = createPointToPointSearch(_graph);
+      prepareSearch(search, target);
+
+      final int targetId = search.search(source, target);
+      _lastSettledCount = search.getSettledCount();
+
+      return targetId < 0 ? null : search.createRoute(targetId);
+   }
+
+   @Override
+   public Map<VertexType, Route<VertexType, EdgeType>> findRoutes(final VertexType source)
+   {
+      final ShortestPathSearch<VertexType, EdgeType> search = new ShortestPathSearch<VertexType, EdgeType>(_graph,
+            _graph.size());
+      search.search(source, null);
+      _lastSettledCount = search.getSettledCount();
+
+      return search.createRoutes();
+   }
+
+   /**
+    * Hook for sub-classes to configure the search of
+    * {@link #findRoute(Object, Object)} before it is started.
+    */
+   void prepareSearch(final ShortestPathSearch<VertexType, EdgeType> search, final VertexType target)
+   {}
+
+   static <V, E extends Edge<V, E>> ShortestPathSearch<V, E> createPointToPointSearch(final Graph<V, E> graph)
+   {
+      // Point-to-point searches often settle only a part of the graph, so
+      // start small and let the search grow its arrays on demand
+      return new ShortestPathSearch<V, E>(graph, Math.min(graph.size(), POINT_TO_POINT_INITIAL_CAPACITY));
+   }
+}
@@ -0,0 +1,29 @@
+package net.sf.javagimmicks.graph.routing;
+
+/**
+ * Estimates the remaining cost from a vertex to a target vertex - used by
+ * {@link AStarRouteFinder} to guide its search.
+ * <p>
+ * To make {@link AStarRouteFinder} find cheapest {@link Route}s, a
+ * {@link Heuristic} must be <i>consistent</i>: it must never overestimate the
+ * real cost and for every edge {@code (u, v)} the estimate for {@code u} must
+ * not exceed the cost of the edge plus the estimate for {@code v} (straight
+ * line distances in geometric networks are a typical example).
+ * 
+ * @param <VertexType>
+ *           the type of vertices this {@link Heuristic} can estimate costs for
+ */
+public interface Heuristic<VertexType>
+{
+   /**
+    * Estimates the cost of the cheapest {@link Route} from a given vertex to a
+    * given target vertex.
+    * 
+    * @param vertex
+    *           the vertex to estimate the remaining cost for
+    * @param target
+    *           the target vertex of the search
+    * @return the estimated (non-negative) cost
+    */
+   double estimateCost(VertexType vertex, VertexType target);
+}
@@ -0,0 +1,196 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Arrays;
+
+/**
+ * A 4-ary min-heap of dense {@code int} ids prioritized by {@code double} keys
+ * that supports {@link #decreaseKey(int, double) decrease-key} in logarithmic
+ * time.
+ * <p>
+ * Heap slots, their keys and the slot position of each id are kept in primitive
+ * arrays, so no objects are allocated while operating on the heap (apart from
+ * growing the arrays if ids beyond the initial capacity are used).
+ * <p>
+ * <b>Attention:</b> this class is not thread-safe
+ */
+final class IndexedMinHeap
+{
+   private static final int ARITY = 4;
+
+   private int[] _heap;
+   private double[] _keys;
+   private int[] _positions;
+
+   private int _size;
+
+   /**
+    * Creates a new instance that can initially hold ids from {@code 0} up to
+    * {@code capacity - 1}.
+    * 
+    * @param capacity
+    *           the initial id capacity of the new instance
+    */
+   IndexedMinHeap(final int capacity)
+   {
+      final int initialCapacity = Math.max(capacity, 16);
+
+      _heap = new int[initialCapacity];
+      _keys = new double[initialCapacity];
+      _positions = new int[initialCapacity];
+      Arrays.fill(_positions, -1);
+   }
+
+   boolean isEmpty()
+   {
+      return _size == 0;
+   }
+
+   int size()
+   {
+      return _size;
+   }
+
+   boolean contains(final int id)
+   {
+      return id < _positions.length && _positions[id] >= 0;
+   }
+
+   /**
+    * Returns the smallest key currently contained within the heap.
+    * 
+    * @return the smallest key or {@link Double#POSITIVE_INFINITY} if the heap
+    *         is empty
+    */
+   double peekKey()
+   {
+      return _size == 0 ? Double.POSITIVE_INFINITY : _keys[0];
+   }
+
+   void insert(final int id, final double key)
+   {
+      ensureCapacity(id + 1);
+
+      final int slot = _size++;
+      if (slot == _heap.length)
+      {
+         _heap = Arrays.copyOf(_heap, slot << 1);
+         _keys = Arrays.copyOf(_keys, slot << 1);
+      }
+
+      siftUp(slot, id, key);
+   }
+
+   void decreaseKey(final int id, final double key)
+   {
+      final int slot = _positions[id];
+      if (key < _keys[slot])
+      {
+         siftUp(slot, id, key);
+      }
+   }
+
+   /**
+    * Removes the id with the smallest key from the heap.
+    * 
+    * @return the removed id
+    * @throws IllegalStateException
+    *            if the heap is empty
+    */
+   int poll()
+   {
+      if (_size == 0)
+      {
+         throw new IllegalStateException("Heap is empty!");
+      }
+
+      final int result = _heap[0];
+      _positions[result] = -1;
+
+      final int last = --_size;
+      if (last > 0)
+      {
+         siftDown(0, _heap[last], _keys[last]);
+      }
+
+      return result;
+   }
+
+   void clear()
+   {
+      for (int i = 0; i < _size; ++i)
+      {
+         _positions[_heap[i]] = -1;
+      }
+
+      _size = 0;
+   }
+
+   private void ensureCapacity(final int idCapacity)
+   {
+      final int oldCapacity = _positions.length;
+      if (idCapacity > oldCapacity)
+      {
+         _positions = Arrays.copyOf(_positions, Math.max(idCapacity, oldCapacity << 1));
+         Arrays.fill(_positions, oldCapacity, _positions.length, -1);
+      }
+   }
+
+   private void siftUp(int slot, final int id, final double key)
+   {
+      while (slot > 0)
+      {
+         final int parent = (slot - 1) / ARITY;
+         if (_keys[parent] <= key)
+         {
+            break;
+         }
+
+         place(slot, _heap[parent], _keys[parent]);
+         slot = parent;
+      }
+
+      place(slot, id, key);
+   }
+
+   private void siftDown(int slot, final int id, final double key)
+   {
+      while (true)
+      {
+         final int firstChild = slot * ARITY + 1;
+         if (firstChild >= _size)
+         {
+            break;
+         }
+
+         final int lastChild = Math.min(firstChild + ARITY, _size);
+
+         int minChild = firstChild;
+         double minKey = _keys[firstChild];
+         for (int child = firstChild + 1; child < lastChild; ++child)
+         {
+            if (_keys[child] < minKey)
+            {
+               minChild = child;
+               minKey = _keys[child];
+            }
+         }
+
+         if (key <= minKey)
+         {
+            break;
+         }
+
+         place(slot, _heap[minChild], minKey);
+         slot = minChild;
+      }
+
+      place(slot, id, key);
+   }
+
+   private void place(final int slot, final int id, final double key)
+   {
+      _heap[slot] = id;
+      _keys[slot] = key;
+      _positions[id] = slot;
+   }
+}
@@ -0,0 +1,575 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.Edge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.WeightedEdge;
+
+/**
+ * The internal working state of a heap-based single-source shortest path
+ * search over a {@link Graph}.
+ * <p>
+ * Vertices are mapped to dense {@code int} ids in the order in which they are
+ * discovered, so the costs and predecessors of all reached vertices can be held
+ * in primitive arrays and the priority queue can be an {@link IndexedMinHeap}.
+ * An instance can be {@link #reset() reset} and reused for any number of
+ * searches on the same {@link Graph} without reallocating its arrays.
+ * <p>
+ * If the {@link Graph} is a {@link CompactGraph}, the search walks its flat
+ * edge arrays directly and maps vertex indices to search ids via an
+ * {@code int[]} instead of a {@link Map}, so no objects are allocated while
+ * searching.
+ * <p>
+ * Optionally a {@link Heuristic} and target vertex can be
+ * {@link #setHeuristic(Heuristic, Object) set}, which turns the search into an
+ * A* search.
+ * <p>
+ * <b>Attention:</b> this class is not thread-safe
+ */
+final class ShortestPathSearch<V, E extends Edge<V, E>>
+{
+   private final Graph<V, E> _graph;
+   private final CompactGraph<V, E> _compactGraph;
+
+   private final Map<V, Integer> _ids;
+   private final IndexedMinHeap _heap;
+
+   // Only used for CompactGraphs: graph index -> search id and vice versa
+   private final int[] _compactIds;
+   private int[] _compactIndexes;
+
+   private Object[] _vertices;
+   private double[] _costs;
+   private int[] _predecessors;
+   private Object[] _predecessorEdges;
+   private int[] _settled;
+
+   // Only used for A* searches: the heuristic estimates per search id
+   private Heuristic<? super V> _heuristic;
+   private V _heuristicTarget;
+   private double[] _estimates;
+
+   private int _vertexCount;
+   private int _settledCount;
+
+   /**
+    * Creates a new instance for the given {@link Graph}.
+    * 
+    * @param graph
+    *           the {@link Graph} to search
+    * @param initialCapacity
+    *           the number of vertices to initially reserve space for - the
+    *           internal arrays grow if more vertices are reached
+    */
+   @SuppressWarnings("unchecked")
+   ShortestPathSearch(final Graph<V, E> graph, final int initialCapacity)
+   {
+      _graph = graph;
+      _compactGraph = (graph instanceof CompactGraph<?, ?>) ? (CompactGraph<V, E>) graph : null;
+
+      final int capacity = Math.max(initialCapacity, 16);
+
+      _heap = new IndexedMinHeap(capacity);
+
+      if (_compactGraph != null)
+      {
+         _ids = null;
+         _compactIds = new int[_compactGraph.size()];
+         _compactIndexes = new int[capacity];
+         Arrays.fill(_compactIds, -1);
+      }
+      else
+      {
+         _ids = new HashMap<V, Integer>(capacity * 4 / 3 + 1);
+         _compactIds = null;
+      }
+
+      _vertices = new Object[capacity];
+      _costs = new double[capacity];
+      _predecessors = new int[capacity];
+      _predecessorEdges = new Object[capacity];
+      _settled = new int[capacity];
+   }
+
+   /**
+    * Returns the cost of a given {@link Edge} - which is
+    * {@link WeightedEdge#getCost()} for {@link WeightedEdge}s and {@code 1.0}
+    * for all others.
+    * 
+    * @param edge
+    *           the {@link Edge} to get the cost for
+    * @return the cost of the given {@link Edge}
+    */
+   static double getCost(final Edge<?, ?> edge)
+   {
+      return (edge instanceof WeightedEdge<?, ?>) ? ((WeightedEdge<?, ?>) edge).getCost() : 1.0;
+   }
+
+   /**
+    * Sets a {@link Heuristic} that guides all following searches towards the
+    * given target vertex (or removes it if {@code null} is given).
+    * 
+    * @param heuristic
+    *           the {@link Heuristic} to use or {@code null} for plain Dijkstra
+    * @param target
+    *           the target vertex to estimate the remaining costs for
+    */
+   void setHeuristic(final Heuristic<? super V> heuristic, final V target)
+   {
+      _heuristic = heuristic;
+      _heuristicTarget = target;
+
+      if (heuristic != null && _estimates == null)
+      {
+         _estimates = new double[_vertices.length];
+      }
+   }
+
+   /**
+    * Clears all results of a previous search but keeps the allocated arrays.
+    */
+   void reset()
+   {
+      if (_compactGraph != null)
+      {
+         for (int id = 0; id < _vertexCount; ++id)
+         {
+            _compactIds[_compactIndexes[id]] = -1;
+         }
+      }
+      else
+      {
+         _ids.clear();
+      }
+
+      _heap.clear();
+
+      Arrays.fill(_vertices, 0, _vertexCount, null);
+      Arrays.fill(_predecessorEdges, 0, _vertexCount, null);
+
+      _vertexCount = 0;
+      _settledCount = 0;
+   }
+
+   /**
+    * Runs Dijkstra's algorithm (or A* if a {@link Heuristic} is set) from the
+    * given source vertex until either all reachable vertices are settled or
+    * the given optional target vertex is settled.
+    * 
+    * @param source
+    *           the source vertex of the search
+    * @param optionalTarget
+    *           the target vertex where to stop or {@code null} to settle all
+    *           reachable vertices
+    * @return the id of the target vertex if it was reached or {@code -1}
+    *         otherwise (always {@code -1} if no target vertex was given)
+    */
+   int search(final V source, final V optionalTarget)
+   {
+      if (!start(source))
+      {
+         return -1;
+      }
+
+      for (int currentId = settleNext(); currentId >= 0; currentId = settleNext())
+      {
+         if (optionalTarget != null && optionalTarget.equals(_vertices[currentId]))
+         {
+            return currentId;
+         }
+      }
+
+      return -1;
+   }
+
+   /**
+    * Resets this instance and puts the given source vertex into the queue, so
+    * that the search can be advanced step by step via {@link #settleNext()}.
+    * 
+    * @param source
+    *           the source vertex of the search
+    * @return if the source vertex is contained within the {@link Graph}
+    */
+   boolean start(final V source)
+   {
+      reset();
+
+      final int sourceIndex;
+      if (_compactGraph != null)
+      {
+         sourceIndex = _compactGraph.indexOf(source);
+         if (sourceIndex < 0)
+         {
+            return false;
+         }
+      }
+      else if (_graph.containsVertex(source))
+      {
+         sourceIndex = -1;
+      }
+      else
+      {
+         return false;
+      }
+
+      final int sourceId = discover(source, sourceIndex, -1, null, 0.0);
+      _heap.insert(sourceId, getKey(sourceId, 0.0));
+
+      return true;
+   }
+
+   /**
+    * Settles the next vertex from the queue and relaxes its {@link Edge}s.
+    * 
+    * @return the id of the settled vertex or {@code -1} if the queue was empty
+    */
+   int settleNext()
+   {
+      if (_heap.isEmpty())
+      {
+         return -1;
+      }
+
+      final int currentId = _heap.poll();
+      _settled[_settledCount++] = currentId;
+
+      if (_compactGraph != null)
+      {
+         relaxCompactEdges(currentId);
+      }
+      else
+      {
+         relaxEdges(currentId);
+      }
+
+      return currentId;
+   }
+
+   /**
+    * Returns the smallest key in the queue - which is the cost of the next
+    * vertex to settle for Dijkstra searches.
+    * 
+    * @return the smallest key in the queue or
+    *         {@link Double#POSITIVE_INFINITY} if it is empty
+    */
+   double peekKey()
+   {
+      return _heap.peekKey();
+   }
+
+   Graph<V, E> getGraph()
+   {
+      return _graph;
+   }
+
+   /**
+    * Returns the searched {@link Graph} if it is a {@link CompactGraph}.
+    * 
+    * @return the searched {@link CompactGraph} or {@code null} if the
+    *         {@link Graph} is no {@link CompactGraph}
+    */
+   CompactGraph<V, E> getCompactGraph()
+   {
+      return _compactGraph;
+   }
+
+   int getSettledCount()
+   {
+      return _settledCount;
+   }
+
+   int getVertexCount()
+   {
+      return _vertexCount;
+   }
+
+   double getCost(final int id)
+   {
+      return _costs[id];
+   }
+
+   @SuppressWarnings("unchecked")
+   V getVertex(final int id)
+   {
+      return (V) _vertices[id];
+   }
+
+   int getPredecessor(final int id)
+   {
+      return _predecessors[id];
+   }
+
+   @SuppressWarnings("unchecked")
+   E getPredecessorEdge(final int id)
+   {
+      return (E) _predecessorEdges[id];
+   }
+
+   /**
+    * Returns the search id of a given vertex.
+    * 
+    * @param vertex
+    *           the vertex to get the id for
+    * @return the search id or {@code -1} if the vertex was not yet reached
+    */
+   int getId(final V vertex)
+   {
+      if (_compactGraph != null)
+      {
+         final int index = _compactGraph.indexOf(vertex);
+         return index < 0 ? -1 : _compactIds[index];
+      }
+
+      final Integer id = _ids.get(vertex);
+      return id == null ? -1 : id.intValue();
+   }
+
+   /**
+    * Returns the search id of the vertex with the given {@link CompactGraph}
+    * index - may only be called if this instance searches a
+    * {@link CompactGraph}.
+    * 
+    * @param compactIndex
+    *           the {@link CompactGraph} index of the vertex
+    * @return the search id or {@code -1} if the vertex was not yet reached
+    */
+   int getIdByCompactIndex(final int compactIndex)
+   {
+      return _compactIds[compactIndex];
+   }
+
+   int getCompactIndex(final int id)
+   {
+      return _compactIndexes[id];
+   }
+
+   /**
+    * Builds {@link Route}s to all settled vertices. Vertices are processed in
+    * settle order, so the {@link Route} of each predecessor is always already
+    * available and can be extended by one {@link Edge}.
+    * 
+    * @return a {@link Map} of all settled vertices to their respective
+    *         {@link Route}s
+    */
+   Map<V, Route<V, E>> createRoutes()
+   {
+      final Map<V, Route<V, E>> result = new HashMap<V, Route<V, E>>(_settledCount * 4 / 3 + 1);
+      if (_settledCount == 0)
+      {
+         return result;
+      }
+
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      final DefaultRoute<V, E>[] routes = new DefaultRoute[_vertexCount];
+
+      final V source = getVertex(_settled[0]);
+
+      for (int i = 0; i < _settledCount; ++i)
+      {
+         final int id = _settled[i];
+         final V target = getVertex(id);
+
+         final DefaultRoute<V, E> route = new DefaultRoute<V, E>(source, target);
+
+         final int predecessor = _predecessors[id];
+         if (predecessor >= 0)
+         {
+            final DefaultRoute<V, E> predecessorRoute = routes[predecessor];
+            route.ensureCapacity(predecessorRoute.size() + 1);
+            route.addAll(predecessorRoute);
+            route.add(getPredecessorEdge(id));
+         }
+
+         routes[id] = route;
+         result.put(target, route);
+      }
+
+      return result;
+   }
+
+   /**
+    * Builds the {@link Route} to a single reached vertex by walking back along
+    * its predecessors.
+    * 
+    * @param targetId
+    *           the id of the vertex to build the {@link Route} for
+    * @return the resulting {@link Route}
+    */
+   DefaultRoute<V, E> createRoute(final int targetId)
+   {
+      return createRoute(targetId, getVertex(targetId), 0);
+   }
+
+   /**
+    * Builds the {@link Route} to a single reached vertex by walking back along
+    * its predecessors and reserves space for further {@link Edge}s to append.
+    * 
+    * @param targetId
+    *           the id of the vertex to build the {@link Route} for
+    * @param routeTarget
+    *           the target vertex of the resulting {@link Route}
+    * @param additionalCapacity
+    *           the number of {@link Edge}s the caller will append
+    * @return the resulting {@link Route}
+    */
+   DefaultRoute<V, E> createRoute(final int targetId, final V routeTarget, final int additionalCapacity)
+   {
+      int length = 0;
+      for (int id = targetId; _predecessors[id] >= 0; id = _predecessors[id])
+      {
+         ++length;
+      }
+
+      final Object[] edges = new Object[length];
+      int id = targetId;
+      for (int i = length - 1; i >= 0; --i)
+      {
+         edges[i] = _predecessorEdges[id];
+         id = _predecessors[id];
+      }
+
+      final DefaultRoute<V, E> result = new DefaultRoute<V, E>(getVertex(id), routeTarget);
+      result.ensureCapacity(length + additionalCapacity);
+      for (final Object edge : edges)
+      {
+         @SuppressWarnings("unchecked")
+         final E typedEdge = (E) edge;
+         result.add(typedEdge);
+      }
+
+      return result;
+   }
+
+   private void relaxEdges(final int currentId)
+   {
+      final V current = getVertex(currentId);
+
+      final Set<E> edges = _graph.edgesOf(current);
+      if (edges == null)
+      {
+         return;
+      }
+
+      final double currentCost = _costs[currentId];
+
+      for (final E edge : edges)
+      {
+         final V target = edge.getOutgoingVertex(current);
+         final double targetNewCost = currentCost + getCost(edge);
+
+         final Integer knownId = _ids.get(target);
+         if (knownId == null)
+         {
+            final int targetId = discover(target, -1, currentId, edge, targetNewCost);
+            _heap.insert(targetId, getKey(targetId, targetNewCost));
+         }
+         else
+         {
+            update(knownId.intValue(), currentId, edge, targetNewCost);
+         }
+      }
+   }
+
+   private void relaxCompactEdges(final int currentId)
+   {
+      final CompactGraph<V, E> graph = _compactGraph;
+
+      final double currentCost = _costs[currentId];
+      final int currentIndex = _compactIndexes[currentId];
+
+      final int edgeEnd = graph.getEdgeOffset(currentIndex + 1);
+      for (int edgeIndex = graph.getEdgeOffset(currentIndex); edgeIndex < edgeEnd; ++edgeIndex)
+      {
+         final int targetIndex = graph.getTargetIndexAt(edgeIndex);
+         final double targetNewCost = currentCost + graph.getCostAt(edgeIndex);
+
+         final int knownId = _compactIds[targetIndex];
+         if (knownId < 0)
+         {
+            final int targetId = discover(graph.getVertexAt(targetIndex), targetIndex, currentId,
+                  graph.getEdgeAt(edgeIndex), targetNewCost);
+            _heap.insert(targetId, getKey(targetId, targetNewCost));
+         }
+         else
+         {
+            update(knownId, currentId, graph.getEdgeAt(edgeIndex), targetNewCost);
+         }
+      }
+   }
+
+   private void update(final int targetId, final int predecessor, final E edge, final double targetNewCost)
+   {
+      // Discovered vertices that already left the heap are settled
+      if (_heap.contains(targetId) && targetNewCost < _costs[targetId])
+      {
+         _costs[targetId] = targetNewCost;
+         _predecessors[targetId] = predecessor;
+         _predecessorEdges[targetId] = edge;
+
+         _heap.decreaseKey(targetId, getKey(targetId, targetNewCost));
+      }
+   }
+
+   private double getKey(final int id, final double cost)
+   {
+      return _heuristic == null ? cost : cost + _estimates[id];
+   }
+
+   private int discover(final V vertex, final int compactIndex, final int predecessor, final E edge,
+         final double cost)
+   {
+      final int id = _vertexCount++;
+      if (id == _vertices.length)
+      {
+         grow();
+      }
+
+      if (_compactGraph != null)
+      {
+         _compactIds[compactIndex] = id;
+         _compactIndexes[id] = compactIndex;
+      }
+      else
+      {
+         _ids.put(vertex, id);
+      }
+
+      _vertices[id] = vertex;
+      _costs[id] = cost;
+      _predecessors[id] = predecessor;
+      _predecessorEdges[id] = edge;
+
+      if (_heuristic != null)
+      {
+         _estimates[id] = _heuristic.estimateCost(vertex, _heuristicTarget);
+      }
+
+      return id;
+   }
+
+   private void grow()
+   {
+      final int newCapacity = _vertices.length << 1;
+
+      _vertices = Arrays.copyOf(_vertices, newCapacity);
+      _costs = Arrays.copyOf(_costs, newCapacity);
+      _predecessors = Arrays.copyOf(_predecessors, newCapacity);
+      _predecessorEdges = Arrays.copyOf(_predecessorEdges, newCapacity);
+      _settled = Arrays.copyOf(_settled, newCapacity);
+
+      if (_compactIndexes != null)
+      {
+         _compactIndexes = Arrays.copyOf(_compactIndexes, newCapacity);
+      }
+
+      if (_estimates != null)
+      {
+         _estimates = Arrays.copyOf(_estimates, newCapacity);
+      }
+   }
+}
@@ -0,0 +1,160 @@
+package net.sf.javagimmicks.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import net.sf.javagimmicks.graph.routing.HeapDijkstraRouteFinder;
+import net.sf.javagimmicks.graph.routing.Route;
+
+import org.junit.Test;
+
+public class CompactGraphTest
+{
+   private static final String A = "a";
+   private static final String B = "b";
+   private static final String C = "c";
+   private static final String D = "d";
+
+   @Test
+   public void testDirected()
+   {
+      final MapGraph<String, DefaultEdge<String>> graph = MapGraphBuilder.<String> withDefaultEdgeFactory()
+            .setDirected(true).build();
+      graph.addEdge(A, B).setCost(2.0);
+      graph.addEdge(A, C).setCost(3.0);
+      graph.addEdge(B, C);
+      graph.addVertex(D);
+
+      final CompactGraph<String, DefaultEdge<String>> compactGraph = graph.freeze();
+
+      assertEquals(4, compactGraph.size());
+      assertEquals(3, compactGraph.getEdgeCount());
+      assertEquals(graph.vertexSet(), compactGraph.vertexSet());
+
+      for (final String vertex : graph.vertexSet())
+      {
+         assertEquals(graph.edgesOf(vertex), compactGraph.edgesOf(vertex));
+         assertEquals(graph.targetsOf(vertex), compactGraph.targetsOf(vertex));
+         assertSame(vertex, compactGraph.getVertexAt(compactGraph.indexOf(vertex)));
+      }
+
+      assertTrue(compactGraph.edgesOf(D).isEmpty());
+      assertNull(compactGraph.edgesOf("unknown"));
+      assertEquals(-1, compactGraph.indexOf("unknown"));
+
+      assertSame(graph.getEdge(A, C), compactGraph.getEdge(A, C));
+      assertTrue(compactGraph.isConnected(B, C));
+      assertFalse(compactGraph.isConnected(C, B));
+      assertEquals(new HashSet<String>(Arrays.asList(B, C)), compactGraph.targetsOf(A));
+
+      final int a = compactGraph.indexOf(A);
+      assertEquals(2, compactGraph.getEdgeOffset(a + 1) - compactGraph.getEdgeOffset(a));
+      for (int edgeIndex = compactGraph.getEdgeOffset(a); edgeIndex < compactGraph.getEdgeOffset(a + 1); ++edgeIndex)
+      {
+         final DefaultEdge<String> edge = compactGraph.getEdgeAt(edgeIndex);
+         assertEquals(edge.getTargetVertex(), compactGraph.getVertexAt(compactGraph.getTargetIndexAt(edgeIndex)));
+         assertEquals(edge.getCost(), compactGraph.getCostAt(edgeIndex), 0.0);
+      }
+      assertEquals(compactGraph.getEdgeCount(), compactGraph.getEdgeOffset(compactGraph.size()));
+
+      // The snapshot is not affected by later changes
+      graph.addEdge(C, D);
+      assertFalse(compactGraph.isConnected(C, D));
+   }
+
+   @Test
+   public void testNonDirected()
+   {
+      final MapGraph<String, DefaultEdge<String>> graph = MapGraphBuilder.<String> withDefaultEdgeFactory().build();
+      graph.addEdge(A, B);
+      graph.addEdge(B, C);
+
+      final CompactGraph<String, DefaultEdge<String>> compactGraph = graph.freeze();
+
+      assertEquals(4, compactGraph.getEdgeCount());
+      assertTrue(compactGraph.isConnected(A, B));
+      assertTrue(compactGraph.isConnected(B, A));
+      assertEquals(new HashSet<String>(Arrays.asList(A, C)), compactGraph.targetsOf(B));
+   }
+
+   @Test
+   public void testImmutable()
+   {
+      final MapGraph<String, DefaultEdge<String>> graph = MapGraphBuilder.<String> withDefaultEdgeFactory().build();
+      graph.addEdge(A, B);
+
+      final CompactGraph<String, DefaultEdge<String>> compactGraph = graph.freeze();
+
+      try
+      {
+         compactGraph.addEdge(A, C);
+         fail("UnsupportedOperationException expected");
+      }
+      catch (final UnsupportedOperationException expected)
+      {}
+
+      try
+      {
+         compactGraph.removeEdge(A, B);
+         fail("UnsupportedOperationException expected");
+      }
+      catch (final UnsupportedOperationException expected)
+      {}
+
+      try
+      {
+         compactGraph.removeVertex(A);
+         fail("UnsupportedOperationException expected");
+      }
+      catch (final UnsupportedOperationException expected)
+      {}
+
+      try
+      {
+         compactGraph.edgesOf(A).clear();
+         fail("UnsupportedOperationException expected");
+      }
+      catch (final UnsupportedOperationException expected)
+      {}
+
+      assertEquals(2, compactGraph.size());
+   }
+
+   @Test
+   public void testRouting()
+   {
+      final Random random = new Random(42L);
+
+      final MapGraph<Integer, DefaultEdge<Integer>> graph = MapGraphBuilder.<Integer> withDefaultEdgeFactory()
+            .setDirected(true).build();
+      for (int vertex = 0; vertex < 500; ++vertex)
+      {
+         for (int i = 0; i < 3; ++i)
+         {
+            graph.addEdge(vertex, random.nextInt(500)).setCost(1 + random.nextInt(50));
+         }
+      }
+
+      final CompactGraph<Integer, DefaultEdge<Integer>> compactGraph = graph.freeze();
+
+      final Map<Integer, Route<Integer, DefaultEdge<Integer>>> expected = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph).findRoutes(0);
+      final Map<Integer, Route<Integer, DefaultEdge<Integer>>> actual = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            compactGraph).findRoutes(0);
+
+      assertEquals(expected.keySet(), actual.keySet());
+      for (final Integer target : expected.keySet())
+      {
+         assertEquals(expected.get(target).getCost(), actual.get(target).getCost(), 1e-9);
+      }
+   }
+}
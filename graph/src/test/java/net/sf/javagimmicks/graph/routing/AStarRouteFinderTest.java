@@ -0,0 +1,103 @@
+package net.sf.javagimmicks.graph.routing;
+
+import static net.sf.javagimmicks.graph.routing.HeapDijkstraRouteFinderTest.assertConnected;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraphBuilder;
+
+import org.junit.Test;
+
+public class AStarRouteFinderTest
+{
+   private static final int WIDTH = 60;
+
+   @Test
+   public void testSameCostsAsDijkstra()
+   {
+      final Graph<Integer, DefaultEdge<Integer>> graph = createGrid(WIDTH, 4711L);
+
+      final HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>> dijkstra = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+      final AStarRouteFinder<Integer, DefaultEdge<Integer>> aStar = new AStarRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph, new ManhattanHeuristic(WIDTH));
+
+      final Random random = new Random(42L);
+      for (int i = 0; i < 50; ++i)
+      {
+         final Integer source = random.nextInt(WIDTH * WIDTH);
+         final Integer target = random.nextInt(WIDTH * WIDTH);
+
+         final Route<Integer, DefaultEdge<Integer>> expected = dijkstra.findRoute(source, target);
+         final Route<Integer, DefaultEdge<Integer>> actual = aStar.findRoute(source, target);
+
+         assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+         assertEquals(source, actual.getSourceVertex());
+         assertEquals(target, actual.getTargetVertex());
+         assertConnected(actual);
+         assertTrue(aStar.getLastSettledCount() <= dijkstra.getLastSettledCount());
+      }
+
+      assertNull(aStar.findRoute(0, -1));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNullHeuristic()
+   {
+      new AStarRouteFinder<Integer, DefaultEdge<Integer>>(createGrid(2, 0L), null);
+   }
+
+   /**
+    * Creates a square grid where each vertex is connected with its horizontal
+    * and vertical neighbours in both directions with random costs of at least
+    * {@code 1.0}.
+    */
+   static Graph<Integer, DefaultEdge<Integer>> createGrid(final int width, final long seed)
+   {
+      final Random random = new Random(seed);
+
+      final MapGraphBuilder<Integer, DefaultEdge<Integer>> builder = MapGraphBuilder.withDefaultEdgeFactory();
+      final Graph<Integer, DefaultEdge<Integer>> graph = builder.setDirected(true).build();
+
+      for (int y = 0; y < width; ++y)
+      {
+         for (int x = 0; x < width; ++x)
+         {
+            final Integer vertex = y * width + x;
+            if (x + 1 < width)
+            {
+               graph.addEdge(vertex, vertex + 1).setCost(1 + random.nextInt(10));
+               graph.addEdge(vertex + 1, vertex).setCost(1 + random.nextInt(10));
+            }
+            if (y + 1 < width)
+            {
+               graph.addEdge(vertex, vertex + width).setCost(1 + random.nextInt(10));
+               graph.addEdge(vertex + width, vertex).setCost(1 + random.nextInt(10));
+            }
+         }
+      }
+
+      return graph;
+   }
+
+   static class ManhattanHeuristic implements Heuristic<Integer>
+   {
+      private final int _width;
+
+      ManhattanHeuristic(final int width)
+      {
+         _width = width;
+      }
+
+      @Override
+      public double estimateCost(final Integer vertex, final Integer target)
+      {
+         return Math.abs(vertex % _width - target % _width) + Math.abs(vertex / _width - target / _width);
+      }
+   }
+}
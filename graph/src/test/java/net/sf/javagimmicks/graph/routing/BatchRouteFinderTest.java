@@ -0,0 +1,129 @@
+package net.sf.javagimmicks.graph.routing;
+
+import static net.sf.javagimmicks.graph.routing.HeapDijkstraRouteFinderTest.assertConnected;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraph;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchRouteFinderTest
+{
+   private ExecutorService _executor;
+
+   @Before
+   public void setUp()
+   {
+      _executor = Executors.newFixedThreadPool(4);
+   }
+
+   @After
+   public void tearDown()
+   {
+      _executor.shutdownNow();
+   }
+
+   @Test
+   public void testFindRoutes() throws InterruptedException
+   {
+      final Graph<Integer, DefaultEdge<Integer>> graph = HeapDijkstraRouteFinderTest.createRandomGraph(300, 3, 42L);
+
+      final List<Integer> sources = new ArrayList<Integer>();
+      for (int source = 0; source < 300; source += 7)
+      {
+         sources.add(source);
+      }
+      sources.add(-1);
+
+      assertSameAsDijkstra(graph, sources, new BatchRouteFinder<Integer, DefaultEdge<Integer>>(graph).findRoutes(
+            sources, _executor));
+
+      final Graph<Integer, DefaultEdge<Integer>> compactGraph = ((MapGraph<Integer, DefaultEdge<Integer>>) graph)
+            .freeze();
+      assertSameAsDijkstra(compactGraph, sources, new BatchRouteFinder<Integer, DefaultEdge<Integer>>(compactGraph)
+            .findRoutes(sources, _executor, 3));
+   }
+
+   @Test
+   public void testFindAllRoutes() throws InterruptedException
+   {
+      // More than two blocks with a partially filled last block
+      final Graph<Integer, DefaultEdge<Integer>> graph = HeapDijkstraRouteFinderTest.createRandomGraph(
+            2 * BatchRouteFinder.FLOYD_WARSHALL_BLOCK_SIZE + 22, 3, 4711L);
+
+      final DistanceMatrix<Integer, DefaultEdge<Integer>> matrix = new BatchRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph).findAllRoutes(_executor);
+      assertEquals(graph.size(), matrix.getSources().size());
+      assertSameAsDijkstra(graph, matrix.getSources(), matrix);
+
+      final Graph<Integer, DefaultEdge<Integer>> compactGraph = ((MapGraph<Integer, DefaultEdge<Integer>>) graph)
+            .freeze();
+      final DistanceMatrix<Integer, DefaultEdge<Integer>> compactMatrix = new BatchRouteFinder<Integer, DefaultEdge<Integer>>(
+            compactGraph).findAllRoutes(_executor, 2);
+      assertSameAsDijkstra(compactGraph, compactMatrix.getSources(), compactMatrix);
+   }
+
+   @Test
+   public void testSimpleGraph() throws InterruptedException
+   {
+      final Graph<String, DefaultEdge<String>> graph = HeapDijkstraRouteFinderTest.createSimpleGraph();
+
+      final DistanceMatrix<String, DefaultEdge<String>> matrix = new BatchRouteFinder<String, DefaultEdge<String>>(
+            graph).findRoutes(Arrays.asList("1", "6"), _executor);
+
+      assertEquals(5.0, matrix.getCost("1", "6"), 0.0);
+      assertEquals(4, matrix.getRoute("1", "6").size());
+      assertEquals(0.0, matrix.getCost("6", "6"), 0.0);
+      assertEquals(Double.POSITIVE_INFINITY, matrix.getCost("6", "1"), 0.0);
+      assertNull(matrix.getRoute("6", "1"));
+      assertNull(matrix.getRoute("2", "6"));
+      assertEquals(-1, matrix.getPredecessorIndex(0, matrix.indexOfVertex("1")));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNullExecutor() throws InterruptedException
+   {
+      new BatchRouteFinder<String, DefaultEdge<String>>(HeapDijkstraRouteFinderTest.createSimpleGraph()).findAllRoutes(
+            null);
+   }
+
+   private static void assertSameAsDijkstra(final Graph<Integer, DefaultEdge<Integer>> graph,
+         final List<Integer> sources, final DistanceMatrix<Integer, DefaultEdge<Integer>> matrix)
+   {
+      final HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>> finder = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+
+      assertEquals(sources, matrix.getSources());
+
+      for (final Integer source : sources)
+      {
+         for (final Integer target : graph.vertexSet())
+         {
+            final Route<Integer, DefaultEdge<Integer>> expected = finder.findRoute(source, target);
+            final Route<Integer, DefaultEdge<Integer>> actual = matrix.getRoute(source, target);
+
+            if (expected == null)
+            {
+               assertNull(actual);
+               assertEquals(Double.POSITIVE_INFINITY, matrix.getCost(source, target), 0.0);
+               continue;
+            }
+
+            assertEquals(expected.getCost(), matrix.getCost(source, target), 1e-9);
+            assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+            assertConnected(actual);
+         }
+      }
+   }
+}
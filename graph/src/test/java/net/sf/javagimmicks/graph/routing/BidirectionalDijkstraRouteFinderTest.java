@@ -0,0 +1,96 @@
+package net.sf.javagimmicks.graph.routing;
+
+import static net.sf.javagimmicks.graph.routing.HeapDijkstraRouteFinderTest.assertConnected;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraph;
+import net.sf.javagimmicks.graph.MapGraphBuilder;
+
+import org.junit.Test;
+
+public class BidirectionalDijkstraRouteFinderTest
+{
+   @Test
+   public void testSameCostsAsDijkstra()
+   {
+      final CompactGraph<Integer, DefaultEdge<Integer>> graph = ((MapGraph<Integer, DefaultEdge<Integer>>) HeapDijkstraRouteFinderTest
+            .createRandomGraph(500, 3, 4711L)).freeze();
+
+      final HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>> dijkstra = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+      final BidirectionalDijkstraRouteFinder<Integer, DefaultEdge<Integer>> bidirectional = new BidirectionalDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+
+      for (int source = 0; source < 500; source += 23)
+      {
+         for (int target = 0; target < 500; target += 41)
+         {
+            final Route<Integer, DefaultEdge<Integer>> expected = dijkstra.findRoute(source, target);
+            final Route<Integer, DefaultEdge<Integer>> actual = bidirectional.findRoute(source, target);
+
+            if (expected == null)
+            {
+               assertNull(actual);
+               continue;
+            }
+
+            assertNotNull(actual);
+            assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+            assertEquals(source, actual.getSourceVertex().intValue());
+            assertEquals(target, actual.getTargetVertex().intValue());
+            assertConnected(actual);
+         }
+      }
+
+      assertTrue(bidirectional.findRoute(7, 7).isEmpty());
+      assertNull(bidirectional.findRoute(7, -1));
+   }
+
+   @Test
+   public void testSettlesFewerVertices()
+   {
+      final CompactGraph<Integer, DefaultEdge<Integer>> graph = ((MapGraph<Integer, DefaultEdge<Integer>>) AStarRouteFinderTest
+            .createGrid(80, 42L)).freeze();
+
+      final HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>> dijkstra = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+      final BidirectionalDijkstraRouteFinder<Integer, DefaultEdge<Integer>> bidirectional = new BidirectionalDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+
+      final int source = 40 * 80 + 10;
+      final int target = 40 * 80 + 70;
+
+      assertEquals(dijkstra.findRoute(source, target).getCost(), bidirectional.findRoute(source, target).getCost(),
+            1e-9);
+      assertTrue(bidirectional.getLastSettledCount() < dijkstra.getLastSettledCount());
+   }
+
+   @Test
+   public void testNonDirectedMapGraph()
+   {
+      final Graph<String, DefaultEdge<String>> graph = MapGraphBuilder.<String> withDefaultEdgeFactory()
+            .setDirected(false).build();
+      graph.addEdge("a", "b").setCost(1.0);
+      graph.addEdge("b", "c").setCost(1.0);
+      graph.addEdge("a", "c").setCost(5.0);
+      graph.addEdge("c", "d").setCost(1.0);
+
+      final Route<String, DefaultEdge<String>> route = new BidirectionalDijkstraRouteFinder<String, DefaultEdge<String>>(
+            graph).findRoute("d", "a");
+
+      assertEquals(3.0, route.getCost(), 0.0);
+      assertEquals(3, route.size());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testDirectedMapGraph()
+   {
+      new BidirectionalDijkstraRouteFinder<String, DefaultEdge<String>>(HeapDijkstraRouteFinderTest.createSimpleGraph());
+   }
+}
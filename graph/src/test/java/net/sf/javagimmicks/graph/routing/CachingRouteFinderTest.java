@@ -0,0 +1,98 @@
+package net.sf.javagimmicks.graph.routing;
+
+import static net.sf.javagimmicks.graph.routing.HeapDijkstraRouteFinderTest.assertConnected;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+
+import org.junit.Test;
+
+public class CachingRouteFinderTest
+{
+   @Test
+   public void testCaching()
+   {
+      final Graph<String, DefaultEdge<String>> graph = HeapDijkstraRouteFinderTest.createSimpleGraph();
+      final CountingRouteFinder delegate = new CountingRouteFinder(graph);
+      final CachingRouteFinder<String, DefaultEdge<String>> finder = new CachingRouteFinder<String, DefaultEdge<String>>(
+            graph, delegate, 2);
+
+      final Route<String, DefaultEdge<String>> route = finder.findRoute("1", "6");
+      assertEquals(5.0, route.getCost(), 0.0);
+      assertEquals("1", route.getSourceVertex());
+      assertEquals("6", route.getTargetVertex());
+      assertConnected(route);
+
+      assertEquals(4.0, finder.findRoute("1", "4").getCost(), 0.0);
+      assertNotSame(route, finder.findRoute("1", "6"));
+      assertEquals(1, delegate._searchCount);
+
+      assertNull(finder.findRoute("6", "1"));
+      assertEquals(2, delegate._searchCount);
+      assertEquals(2, finder.getCachedSourceCount());
+
+      // Exceed the maximum size - "1" was used least recently
+      finder.findRoute("6", "1");
+      finder.findRoute("5", "6");
+      assertEquals(3, delegate._searchCount);
+      assertEquals(2, finder.getCachedSourceCount());
+
+      finder.findRoute("1", "6");
+      assertEquals(4, delegate._searchCount);
+
+      finder.invalidate();
+      assertEquals(0, finder.getCachedSourceCount());
+   }
+
+   @Test
+   public void testInvalidation()
+   {
+      final Graph<String, DefaultEdge<String>> graph = HeapDijkstraRouteFinderTest.createSimpleGraph();
+      final CountingRouteFinder delegate = new CountingRouteFinder(graph);
+      final CachingRouteFinder<String, DefaultEdge<String>> finder = new CachingRouteFinder<String, DefaultEdge<String>>(
+            graph, delegate, 10);
+
+      assertEquals(5.0, finder.findRoute("1", "6").getCost(), 0.0);
+
+      graph.getEdge("4", "6").setCost(10.0);
+      assertEquals(10.0, finder.findRoute("1", "6").getCost(), 0.0);
+      assertEquals(2, delegate._searchCount);
+
+      // Setting the same cost again is no modification
+      graph.getEdge("4", "6").setCost(10.0);
+      finder.findRoute("1", "6");
+      assertEquals(2, delegate._searchCount);
+
+      graph.addEdge("1", "6").setCost(2.0);
+      assertEquals(2.0, finder.findRoute("1", "6").getCost(), 0.0);
+
+      graph.removeEdge("1", "6");
+      assertEquals(10.0, finder.findRoute("1", "6").getCost(), 0.0);
+
+      graph.removeVertex("5");
+      assertEquals(14.0, finder.findRoute("1", "6").getCost(), 0.0);
+      assertEquals(5, delegate._searchCount);
+   }
+
+   private static class CountingRouteFinder extends HeapDijkstraRouteFinder<String, DefaultEdge<String>>
+   {
+      private int _searchCount;
+
+      public CountingRouteFinder(final Graph<String, DefaultEdge<String>> graph)
+      {
+         super(graph);
+      }
+
+      @Override
+      public Map<String, Route<String, DefaultEdge<String>>> findRoutes(final String source)
+      {
+         ++_searchCount;
+         return super.findRoutes(source);
+      }
+   }
+}
@@ -0,0 +1,133 @@
+package net.sf.javagimmicks.graph.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraphBuilder;
+
+import org.junit.Test;
+
+public class HeapDijkstraRouteFinderTest
+{
+   @Test
+   public void testSimpleGraph()
+   {
+      final Graph<String, DefaultEdge<String>> graph = createSimpleGraph();
+      final RouteFinder<String, DefaultEdge<String>> finder = new HeapDijkstraRouteFinder<String, DefaultEdge<String>>(
+            graph);
+
+      final Map<String, Route<String, DefaultEdge<String>>> routes = finder.findRoutes("1");
+      assertEquals(6, routes.size());
+      assertEquals(0.0, routes.get("1").getCost(), 0.0);
+      assertEquals(1.0, routes.get("2").getCost(), 0.0);
+      assertEquals(3.0, routes.get("3").getCost(), 0.0);
+      assertEquals(4.0, routes.get("4").getCost(), 0.0);
+      assertEquals(7.0, routes.get("5").getCost(), 0.0);
+      assertEquals(5.0, routes.get("6").getCost(), 0.0);
+
+      final Route<String, DefaultEdge<String>> route = finder.findRoute("1", "6");
+      assertNotNull(route);
+      assertEquals("1", route.getSourceVertex());
+      assertEquals("6", route.getTargetVertex());
+      assertEquals(4, route.size());
+      assertEquals(5.0, route.getCost(), 0.0);
+      assertConnected(route);
+
+      assertNull(finder.findRoute("6", "1"));
+      assertNull(finder.findRoute("unknown", "1"));
+      assertTrue(finder.findRoute("1", "1").isEmpty());
+   }
+
+   @Test
+   public void testSameCostsAsDijkstraRouteFinder()
+   {
+      final Graph<Integer, DefaultEdge<Integer>> graph = createRandomGraph(300, 4, 42L);
+
+      final RouteFinder<Integer, DefaultEdge<Integer>> expectedFinder = new DijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+      final RouteFinder<Integer, DefaultEdge<Integer>> finder = new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(
+            graph);
+
+      for (int source = 0; source < 300; source += 37)
+      {
+         final Map<Integer, Route<Integer, DefaultEdge<Integer>>> expected = expectedFinder.findRoutes(source);
+         final Map<Integer, Route<Integer, DefaultEdge<Integer>>> actual = finder.findRoutes(source);
+
+         assertEquals(expected.keySet(), actual.keySet());
+
+         for (final Entry<Integer, Route<Integer, DefaultEdge<Integer>>> entry : actual.entrySet())
+         {
+            final Route<Integer, DefaultEdge<Integer>> route = entry.getValue();
+
+            assertEquals(expected.get(entry.getKey()).getCost(), route.getCost(), 1e-9);
+            assertEquals(source, route.getSourceVertex().intValue());
+            assertEquals(entry.getKey(), route.getTargetVertex());
+            assertConnected(route);
+
+            assertEquals(route.getCost(), finder.findRoute(source, entry.getKey()).getCost(), 1e-9);
+         }
+      }
+   }
+
+   static Graph<String, DefaultEdge<String>> createSimpleGraph()
+   {
+      final MapGraphBuilder<String, DefaultEdge<String>> builder = MapGraphBuilder.withDefaultEdgeFactory();
+      final Graph<String, DefaultEdge<String>> graph = builder.setDirected(true).build();
+
+      addEdge(graph, "1", "2", 1);
+      addEdge(graph, "1", "3", 4);
+      addEdge(graph, "1", "5", 7);
+      addEdge(graph, "2", "3", 2);
+      addEdge(graph, "3", "4", 1);
+      addEdge(graph, "4", "6", 1);
+      addEdge(graph, "5", "3", 2);
+      addEdge(graph, "5", "6", 3);
+
+      return graph;
+   }
+
+   static Graph<Integer, DefaultEdge<Integer>> createRandomGraph(final int vertexCount, final int edgesPerVertex,
+         final long seed)
+   {
+      final Random random = new Random(seed);
+
+      final MapGraphBuilder<Integer, DefaultEdge<Integer>> builder = MapGraphBuilder.withDefaultEdgeFactory();
+      final Graph<Integer, DefaultEdge<Integer>> graph = builder.setDirected(true).build();
+
+      for (int vertex = 0; vertex < vertexCount; ++vertex)
+      {
+         for (int i = 0; i < edgesPerVertex; ++i)
+         {
+            addEdge(graph, vertex, random.nextInt(vertexCount), 1 + random.nextInt(100));
+         }
+      }
+
+      return graph;
+   }
+
+   static <V> void assertConnected(final Route<V, DefaultEdge<V>> route)
+   {
+      V current = route.getSourceVertex();
+      for (final DefaultEdge<V> edge : route)
+      {
+         assertEquals(current, edge.getSourceVertex());
+         current = edge.getTargetVertex();
+      }
+
+      assertEquals(route.getTargetVertex(), current);
+   }
+
+   private static <V> void addEdge(final Graph<V, DefaultEdge<V>> graph, final V source, final V target,
+         final double cost)
+   {
+      graph.addEdge(source, target).setCost(cost);
+   }
+}
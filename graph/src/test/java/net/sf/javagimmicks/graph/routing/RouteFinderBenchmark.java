@@ -0,0 +1,148 @@
+package net.sf.javagimmicks.graph.routing;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.javagimmicks.graph.CompactGraph;
+import net.sf.javagimmicks.graph.DefaultEdge;
+import net.sf.javagimmicks.graph.Graph;
+import net.sf.javagimmicks.graph.MapGraph;
+import net.sf.javagimmicks.graph.MapGraphBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing {@link DijkstraRouteFinder} and
+ * {@link HeapDijkstraRouteFinder} on randomly generated, sparse and directed
+ * {@link Graph}s.
+ * <p>
+ * {@link DijkstraRouteFinder} re-sorts all vertices after every relaxation and
+ * is therefore only measured up to 10^4 vertices (using the separate
+ * {@link SmallGraph} state) - larger graphs would not finish in reasonable
+ * time.
+ * <p>
+ * Point-to-point searches are additionally measured on a frozen
+ * {@link CompactGraph} for {@link HeapDijkstraRouteFinder} and
+ * {@link BidirectionalDijkstraRouteFinder}.
+ * <p>
+ * Run e.g. via
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main RouteFinderBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouteFinderBenchmark
+{
+   private static final int EDGES_PER_VERTEX = 4;
+
+   @Benchmark
+   public Map<Integer, Route<Integer, DefaultEdge<Integer>>> dijkstraFindRoutes(final SmallGraph state)
+   {
+      return new DijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._graph).findRoutes(0);
+   }
+
+   @Benchmark
+   public Map<Integer, Route<Integer, DefaultEdge<Integer>>> heapDijkstraFindRoutesSmall(final SmallGraph state)
+   {
+      return new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._graph).findRoutes(0);
+   }
+
+   @Benchmark
+   public Map<Integer, Route<Integer, DefaultEdge<Integer>>> heapDijkstraFindRoutes(final LargeGraph state)
+   {
+      return new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._graph).findRoutes(0);
+   }
+
+   @Benchmark
+   public Route<Integer, DefaultEdge<Integer>> heapDijkstraFindRoute(final LargeGraph state)
+   {
+      return new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._graph).findRoute(0, state._target);
+   }
+
+   @Benchmark
+   public Route<Integer, DefaultEdge<Integer>> heapDijkstraFindRouteCompact(final LargeGraph state)
+   {
+      return new HeapDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._compactGraph).findRoute(0,
+            state._target);
+   }
+
+   @Benchmark
+   public Route<Integer, DefaultEdge<Integer>> bidirectionalDijkstraFindRoute(final LargeGraph state)
+   {
+      return new BidirectionalDijkstraRouteFinder<Integer, DefaultEdge<Integer>>(state._compactGraph).findRoute(0,
+            state._target);
+   }
+
+   @State(Scope.Benchmark)
+   public static class SmallGraph
+   {
+      @Param({ "1000", "10000" })
+      public int _vertexCount;
+
+      Graph<Integer, DefaultEdge<Integer>> _graph;
+
+      @Setup
+      public void setUp()
+      {
+         _graph = createGraph(_vertexCount);
+      }
+   }
+
+   @State(Scope.Benchmark)
+   public static class LargeGraph
+   {
+      @Param({ "1000", "10000", "100000", "1000000" })
+      public int _vertexCount;
+
+      Graph<Integer, DefaultEdge<Integer>> _graph;
+      CompactGraph<Integer, DefaultEdge<Integer>> _compactGraph;
+      Integer _target;
+
+      @Setup
+      public void setUp()
+      {
+         _graph = createGraph(_vertexCount);
+         _compactGraph = ((MapGraph<Integer, DefaultEdge<Integer>>) _graph).freeze();
+         _compactGraph.reverse();
+         _target = _vertexCount / 2;
+      }
+   }
+
+   /**
+    * Creates a directed {@link Graph} where each vertex {@code i} is connected
+    * to {@code i + 1} (so everything is reachable from vertex {@code 0}) and to
+    * a few further random vertices with random costs.
+    */
+   static Graph<Integer, DefaultEdge<Integer>> createGraph(final int vertexCount)
+   {
+      final Random random = new Random(4711L);
+
+      final MapGraphBuilder<Integer, DefaultEdge<Integer>> builder = MapGraphBuilder.withDefaultEdgeFactory();
+      final Graph<Integer, DefaultEdge<Integer>> graph = builder.setDirected(true).build();
+
+      for (int vertex = 0; vertex < vertexCount; ++vertex)
+      {
+         graph.addEdge(vertex, (vertex + 1) % vertexCount).setCost(1 + random.nextInt(100));
+
+         for (int i = 1; i < EDGES_PER_VERTEX; ++i)
+         {
+            graph.addEdge(vertex, random.nextInt(vertexCount)).setCost(1 + random.nextInt(100));
+         }
+      }
+
+      return graph;
+   }
+}
@@ -0,0 +1,71 @@
+package net.sf.javagimmicks.io;
+
+import java.io.File;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * The algorithms available for calculating {@link File} checksums via
+ * {@link FileUtils#getChecksum(File, ChecksumAlgorithm)}. None of them is a
+ * cryptographic hash - they are meant for detecting changes, not tampering.
+ */
+public enum ChecksumAlgorithm
+{
+   /**
+    * The {@link Adler32} checksum - very fast but weak for small inputs.
+    */
+   ADLER32
+   {
+      @Override
+      public Checksum createChecksum()
+      {
+         return new Adler32();
+      }
+   },
+
+   /**
+    * The {@link CRC32} checksum (as used by ZIP).
+    */
+   CRC32
+   {
+      @Override
+      public Checksum createChecksum()
+      {
+         return new CRC32();
+      }
+   },
+
+   /**
+    * The CRC-32C checksum (using the Castagnoli polynomial) which has better
+    * error detection properties than {@link #CRC32}.
+    */
+   CRC32C
+   {
+      @Override
+      public Checksum createChecksum()
+      {
+         return new Crc32c();
+      }
+   },
+
+   /**
+    * The 64 bit XXH64 hash (with seed {@code 0}) - fast and with a far lower
+    * collision probability than the 32 bit checksums.
+    */
+   XXHASH64
+   {
+      @Override
+      public Checksum createChecksum()
+      {
+         return new XxHash64();
+      }
+   };
+
+   /**
+    * Creates a new {@link Checksum} instance for this algorithm.
+    * 
+    * @return a new {@link Checksum} instance for this algorithm
+    */
+   public abstract Checksum createChecksum();
+}
@@ -0,0 +1,84 @@
+package net.sf.javagimmicks.io;
+
+import java.util.zip.Checksum;
+
+/**
+ * A table driven CRC-32C (Castagnoli) {@link Checksum} implementation that
+ * processes eight bytes per step ("slicing-by-8").
+ */
+class Crc32c implements Checksum
+{
+   private static final int POLYNOMIAL = 0x82F63B78;
+
+   private static final int[][] TABLES = new int[8][256];
+
+   static
+   {
+      for (int n = 0; n < 256; ++n)
+      {
+         int crc = n;
+         for (int bit = 0; bit < 8; ++bit)
+         {
+            crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+         }
+
+         TABLES[0][n] = crc;
+      }
+
+      for (int n = 0; n < 256; ++n)
+      {
+         for (int k = 1; k < 8; ++k)
+         {
+            final int previous = TABLES[k - 1][n];
+            TABLES[k][n] = (previous >>> 8) ^ TABLES[0][previous & 0xFF];
+         }
+      }
+   }
+
+   private int _crc = 0xFFFFFFFF;
+
+   @Override
+   public void update(final int b)
+   {
+      _crc = (_crc >>> 8) ^ TABLES[0][(_crc ^ b) & 0xFF];
+   }
+
+   @Override
+   public void update(final byte[] b, int off, int len)
+   {
+      final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+      final int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+
+      int crc = _crc;
+
+      for (; len >= 8; off += 8, len -= 8)
+      {
+         final int low = crc ^ ((b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16
+               | (b[off + 3] & 0xFF) << 24);
+         final int high = (b[off + 4] & 0xFF) | (b[off + 5] & 0xFF) << 8 | (b[off + 6] & 0xFF) << 16
+               | (b[off + 7] & 0xFF) << 24;
+
+         crc = t7[low & 0xFF] ^ t6[(low >>> 8) & 0xFF] ^ t5[(low >>> 16) & 0xFF] ^ t4[low >>> 24]
+               ^ t3[high & 0xFF] ^ t2[(high >>> 8) & 0xFF] ^ t1[(high >>> 16) & 0xFF] ^ t0[high >>> 24];
+      }
+
+      for (; len > 0; ++off, --len)
+      {
+         crc = (crc >>> 8) ^ t0[(crc ^ b[off]) & 0xFF];
+      }
+
+      _crc = crc;
+   }
+
+   @Override
+   public long getValue()
+   {
+      return ~_crc & 0xFFFFFFFFL;
+   }
+
+   @Override
+   public void reset()
+   {
+      _crc = 0xFFFFFFFF;
+   }
+}
@@ -2,10 +2,23 @@ package net.sf.javagimmicks.io;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A simple visitor-style implementation for traversing {@link File}s within the
  * file system.
+ * <p>
+ * The type of every {@link File} is determined only once - a
+ * {@link TypedFileVisitor} gets it passed along, so it does not have to query
+ * the file system again. Entries that are neither directories nor normal files
+ * (like pipes, sockets or devices) are never visited. With a
+ * {@link #setParallelism(int) parallelism} greater than {@code 1}, sub-folders
+ * are traversed concurrently by a pool of worker {@link Thread}s.
  */
 public class FileTraverser
 {
@@ -14,6 +27,7 @@ public class FileTraverser
    private TypeFilter _typeFilter = TypeFilter.FILE;
    private FileFilter _fileFilter;
    private boolean _recursive = true;
+   private int _parallelism = 1;
 
    /**
     * Creates a new instance for the given root folder.
@@ -53,7 +67,50 @@ public class FileTraverser
          return;
       }
 
-      scan(_root, visitor);
+      run(new TypedFileVisitor()
+      {
+         @Override
+         public void visit(final File file, final boolean directory)
+         {
+            visitor.visit(file);
+         }
+      });
+   }
+
+   /**
+    * Starts a new run with the given settings and using the given
+    * {@link TypedFileVisitor} to report visited {@link File}s.
+    * <p>
+    * If the {@link #setParallelism(int) parallelism} is greater than
+    * {@code 1}, the {@link TypedFileVisitor} is called concurrently from
+    * different {@link Thread}s and the order of visited {@link File}s is
+    * undefined. Exceptions thrown by the {@link TypedFileVisitor} stop the run
+    * and are re-thrown. If the calling {@link Thread} is interrupted, the run
+    * stops as well, the interrupted state is restored and an
+    * {@link IllegalStateException} is thrown - so a partial traversal is never
+    * mistaken for a complete one.
+    * 
+    * @param visitor
+    *           the {@link TypedFileVisitor} where to report visited
+    *           {@link File}s
+    * @throws IllegalStateException
+    *            if the run was interrupted
+    */
+   public void run(final TypedFileVisitor visitor)
+   {
+      if (visitor == null)
+      {
+         return;
+      }
+
+      if (_parallelism > 1)
+      {
+         new ParallelScan(visitor).run();
+      }
+      else
+      {
+         scan(_root, visitor);
+      }
    }
 
    /**
@@ -138,36 +195,226 @@ public class FileTraverser
       this._recursive = recursive;
    }
 
-   private void scan(final File directory, final FileVisitor visitor)
+   /**
+    * Returns the maximum number of {@link Thread}s used for traversing.
+    * 
+    * @return the maximum number of {@link Thread}s used for traversing
+    */
+   public int getParallelism()
+   {
+      return _parallelism;
+   }
+
+   /**
+    * Sets the maximum number of {@link Thread}s used for traversing. With
+    * {@code 1} (the default) all {@link File}s are traversed depth-first by the
+    * {@link Thread} calling {@link #run(FileVisitor)}.
+    * 
+    * @param parallelism
+    *           the maximum number of {@link Thread}s used for traversing
+    * @throws IllegalArgumentException
+    *            if the given number is smaller than {@code 1}
+    */
+   public void setParallelism(final int parallelism)
+   {
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      this._parallelism = parallelism;
+   }
+
+   private void scan(final File directory, final TypedFileVisitor visitor)
    {
       final File[] children = directory.listFiles(_fileFilter);
+      if (children == null)
+      {
+         return;
+      }
+
+      final boolean[] directories = getDirectoryFlags(children);
 
-      for (final File child : children)
+      for (int i = 0; i < children.length; ++i)
       {
-         if (child.isDirectory())
+         if (directories[i])
          {
             if (_typeFilter._acceptsFolders)
             {
-               visitor.visit(child);
+               visitor.visit(children[i], true);
             }
 
             if (_recursive)
             {
-               scan(child, visitor);
+               scan(children[i], visitor);
             }
          }
       }
 
+      visitFiles(children, directories, visitor);
+   }
+
+   private void visitFiles(final File[] children, final boolean[] directories, final TypedFileVisitor visitor)
+   {
       if (_typeFilter._acceptsFiles)
       {
-         for (final File child : children)
+         for (int i = 0; i < children.length; ++i)
+         {
+            // Only query non-directories - skips pipes, sockets, devices, ...
+            if (!directories[i] && children[i].isFile())
+            {
+               visitor.visit(children[i], false);
+            }
+         }
+      }
+   }
+
+   private static boolean[] getDirectoryFlags(final File[] children)
+   {
+      final boolean[] result = new boolean[children.length];
+      for (int i = 0; i < children.length; ++i)
+      {
+         result[i] = children[i].isDirectory();
+      }
+
+      return result;
+   }
+
+   /**
+    * Traverses the folder tree by submitting one task per folder to a
+    * {@link ExecutorService} and waits until the number of pending tasks
+    * drops to zero.
+    */
+   private class ParallelScan
+   {
+      private final TypedFileVisitor _visitor;
+
+      private final ExecutorService _executor;
+      private final AtomicInteger _pendingCount = new AtomicInteger();
+      private final CountDownLatch _finished = new CountDownLatch(1);
+
+      private volatile Throwable _failure;
+
+      public ParallelScan(final TypedFileVisitor visitor)
+      {
+         _visitor = visitor;
+         _executor = Executors.newFixedThreadPool(_parallelism, new ThreadFactory()
          {
-            if (child.isFile())
+            private final AtomicInteger _threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable)
             {
-               visitor.visit(child);
+               final Thread result = new Thread(runnable, "FileTraverser-" + _threadCount.getAndIncrement());
+               result.setDaemon(true);
+
+               return result;
             }
+         });
+      }
+
+      public void run()
+      {
+         try
+         {
+            submit(_root);
+
+            _finished.await();
+         }
+         catch (final InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Scan was interrupted!", e);
+         }
+         finally
+         {
+            _executor.shutdownNow();
+         }
+
+         final Throwable failure = _failure;
+         if (failure instanceof RuntimeException)
+         {
+            throw (RuntimeException) failure;
+         }
+         else if (failure instanceof Error)
+         {
+            throw (Error) failure;
+         }
+      }
+
+      private void submit(final File directory)
+      {
+         _pendingCount.incrementAndGet();
+
+         try
+         {
+            _executor.execute(new Runnable()
+            {
+               @Override
+               public void run()
+               {
+                  try
+                  {
+                     if (_failure == null && !Thread.currentThread().isInterrupted())
+                     {
+                        scan(directory);
+                     }
+                  }
+                  catch (final Throwable t)
+                  {
+                     _failure = t;
+                  }
+                  finally
+                  {
+                     finish();
+                  }
+               }
+            });
+         }
+         catch (final RejectedExecutionException e)
+         {
+            // The run was interrupted and the executor shut down
+            finish();
          }
       }
+
+      private void finish()
+      {
+         if (_pendingCount.decrementAndGet() == 0)
+         {
+            _finished.countDown();
+         }
+      }
+
+      private void scan(final File directory)
+      {
+         final File[] children = directory.listFiles(_fileFilter);
+         if (children == null)
+         {
+            return;
+         }
+
+         final boolean[] directories = getDirectoryFlags(children);
+
+         for (int i = 0; i < children.length; ++i)
+         {
+            if (directories[i])
+            {
+               if (_typeFilter._acceptsFolders)
+               {
+                  _visitor.visit(children[i], true);
+               }
+
+               if (_recursive)
+               {
+                  submit(children[i]);
+               }
+            }
+         }
+
+         visitFiles(children, directories, _visitor);
+      }
    }
 
    /**
@@ -184,6 +431,24 @@ public class FileTraverser
       void visit(File file);
    }
 
+   /**
+    * A visitor for {@link File} instances that additionally gets told if a
+    * visited {@link File} is a directory - so it does not need to query the
+    * file system for that once again.
+    */
+   public static interface TypedFileVisitor
+   {
+      /**
+       * Callback method for a visited {@link File}
+       * 
+       * @param file
+       *           the {@link File} that was visited
+       * @param directory
+       *           if the visited {@link File} is a directory
+       */
+      void visit(File file, boolean directory);
+   }
+
    /**
     * Determines what types of {@link File}s to report to
     * {@link FileVisitor#visit(File)} within calls to
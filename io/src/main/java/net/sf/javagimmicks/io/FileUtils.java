@@ -5,12 +5,19 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
 import java.util.List;
 import java.util.zip.Adler32;
-import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -18,6 +25,17 @@ import java.util.zip.ZipInputStream;
  */
 public class FileUtils
 {
+   /**
+    * The minimum size of files that are memory mapped for checksum
+    * calculation and content comparison.
+    */
+   public static final long MAPPING_THRESHOLD = 1024L * 1024L;
+
+   static final long MAPPING_SIZE = 16L * 1024L * 1024L;
+   static final int BUFFER_SIZE = 64 * 1024;
+
+   private static final Pattern ENTRY_SEPARATOR_PATTERN = Pattern.compile("[/\\\\]");
+
    private FileUtils()
    {}
 
@@ -50,51 +68,297 @@ public class FileUtils
     * @param file
     *           the {@link File} to calculate the checksum from
     * @return the resulting checksum as {@code long} value
+    * @see #getChecksum(File, ChecksumAlgorithm)
     */
    public static long getChecksum(final File file)
    {
+      return getChecksum(file, ChecksumAlgorithm.ADLER32);
+   }
+
+   /**
+    * Returns the checksum of the contents of a given {@link File} using the
+    * given {@link ChecksumAlgorithm}.
+    * <p>
+    * The contents are read via a {@link FileChannel} - files of at least
+    * {@link #MAPPING_THRESHOLD} bytes are memory mapped.
+    * 
+    * @param file
+    *           the {@link File} to calculate the checksum from
+    * @param algorithm
+    *           the {@link ChecksumAlgorithm} to use
+    * @return the resulting checksum as {@code long} value or {@code 0} if the
+    *         given {@link File} is a directory, could not be read or the
+    *         current {@link Thread} was interrupted
+    */
+   public static long getChecksum(final File file, final ChecksumAlgorithm algorithm)
+   {
+      if (algorithm == null)
+      {
+         throw new IllegalArgumentException("Checksum algorithm must not be null!");
+      }
+
       if (file.isDirectory())
       {
          return 0L;
       }
 
-      CheckedInputStream cis = null;
       try
       {
-         cis = new CheckedInputStream(
-               new FileInputStream(file), new Adler32());
+         return calculateChecksum(file, algorithm.createChecksum());
+      }
+      catch (final IOException e)
+      {
+         return 0L;
+      }
+   }
 
-         final byte[] tempBuf = new byte[8192];
+   /**
+    * Checks if the contents of two given {@link File}s are equal by comparing
+    * them byte by byte. Returns as soon as a difference is found - so files of
+    * different size are not read at all.
+    * <p>
+    * Files of at least {@link #MAPPING_THRESHOLD} bytes are memory mapped and
+    * compared without copying.
+    * 
+    * @param file1
+    *           the first {@link File} to compare
+    * @param file2
+    *           the second {@link File} to compare
+    * @return if both {@link File}s have the same contents
+    * @throws IOException
+    *            if any of the {@link File}s could not be read (e.g. because
+    *            it does not exist or is a directory)
+    * @throws InterruptedIOException
+    *            if the current {@link Thread} is interrupted
+    */
+   public static boolean contentEquals(final File file1, final File file2) throws IOException
+   {
+      return compareRegions(file1, file2, 0L, -1L);
+   }
 
-         final Thread currentThread = Thread.currentThread();
+   /**
+    * Checks if two given {@link File}s have the same contents within a given
+    * region by comparing them byte by byte. Returns as soon as a difference is
+    * found.
+    * <p>
+    * Regions of at least {@link #MAPPING_THRESHOLD} bytes are memory mapped
+    * and compared without copying.
+    * 
+    * @param file1
+    *           the first {@link File} to compare
+    * @param file2
+    *           the second {@link File} to compare
+    * @param position
+    *           the position of the region within the {@link File}s
+    * @param length
+    *           the length of the region
+    * @return if both {@link File}s have the same contents within the given
+    *         region - {@code false} if any of them ends before the region
+    * @throws IOException
+    *            if any of the {@link File}s could not be read (e.g. because
+    *            it does not exist or is a directory)
+    * @throws InterruptedIOException
+    *            if the current {@link Thread} is interrupted
+    * @throws IllegalArgumentException
+    *            if the given position or length is negative
+    */
+   public static boolean regionEquals(final File file1, final File file2, final long position, final long length)
+         throws IOException
+   {
+      if (position < 0L || length < 0L)
+      {
+         throw new IllegalArgumentException("Position and length must not be negative!");
+      }
+
+      return compareRegions(file1, file2, position, length);
+   }
 
-         while (cis.read(tempBuf) >= 0)
+   /**
+    * Compares the given region (or the complete files, if the length is
+    * negative) of two {@link File}s.
+    */
+   private static boolean compareRegions(final File file1, final File file2, final long position, long length)
+         throws IOException
+   {
+      final FileInputStream in1 = new FileInputStream(file1);
+      try
+      {
+         final FileInputStream in2 = new FileInputStream(file2);
+         try
+         {
+            final FileChannel channel1 = in1.getChannel();
+            final FileChannel channel2 = in2.getChannel();
+
+            final long size1 = channel1.size();
+            final long size2 = channel2.size();
+
+            if (length < 0L)
+            {
+               if (size1 != size2)
+               {
+                  return false;
+               }
+
+               length = size1;
+            }
+            else if (size1 < position + length || size2 < position + length)
+            {
+               return false;
+            }
+
+            return compareRegions(channel1, channel2, position, length);
+         }
+         finally
+         {
+            in2.close();
+         }
+      }
+      finally
+      {
+         in1.close();
+      }
+   }
+
+   private static boolean compareRegions(final FileChannel channel1, final FileChannel channel2, long position,
+         final long length) throws IOException
+   {
+      final Thread currentThread = Thread.currentThread();
+      final long end = position + length;
+
+      if (length >= MAPPING_THRESHOLD)
+      {
+         for (; position < end; position += MAPPING_SIZE)
          {
             if (currentThread.isInterrupted())
             {
-               return 0L;
+               throw new InterruptedIOException();
+            }
+
+            final long regionLength = Math.min(MAPPING_SIZE, end - position);
+            if (!channel1.map(MapMode.READ_ONLY, position, regionLength).equals(
+                  channel2.map(MapMode.READ_ONLY, position, regionLength)))
+            {
+               return false;
             }
          }
 
-         return cis.getChecksum().getValue();
+         return true;
       }
-      catch (final IOException e)
+
+      final int bufferSize = (int) Math.min(Math.max(length, 1L), BUFFER_SIZE);
+      final ByteBuffer buffer1 = ByteBuffer.allocate(bufferSize);
+      final ByteBuffer buffer2 = ByteBuffer.allocate(bufferSize);
+
+      while (position < end)
       {
-         return 0L;
+         if (currentThread.isInterrupted())
+         {
+            throw new InterruptedIOException();
+         }
+
+         final int blockLength = (int) Math.min(bufferSize, end - position);
+         buffer1.clear().limit(blockLength);
+         buffer2.clear().limit(blockLength);
+
+         if (readFully(channel1, buffer1, position) < blockLength
+               || readFully(channel2, buffer2, position) < blockLength)
+         {
+            // One of the files was truncated in the meantime
+            return false;
+         }
+
+         buffer1.flip();
+         buffer2.flip();
+
+         if (!buffer1.equals(buffer2))
+         {
+            return false;
+         }
+
+         position += blockLength;
       }
-      finally
+
+      return true;
+   }
+
+   private static long calculateChecksum(final File file, final Checksum checksum) throws IOException
+   {
+      final FileInputStream in = new FileInputStream(file);
+      try
       {
-         if (cis != null)
+         final FileChannel channel = in.getChannel();
+         final long size = channel.size();
+
+         final Thread currentThread = Thread.currentThread();
+
+         // Checksum only accepts byte arrays, so direct buffers would just
+         // add another copy - mapped files are copied in chunks instead
+         final byte[] chunk = new byte[(int) Math.min(Math.max(size, 1L), BUFFER_SIZE)];
+
+         if (size >= MAPPING_THRESHOLD)
          {
-            try
+            for (long position = 0L; position < size; position += MAPPING_SIZE)
             {
-               cis.close();
+               final MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, position,
+                     Math.min(MAPPING_SIZE, size - position));
+
+               while (mapped.hasRemaining())
+               {
+                  if (currentThread.isInterrupted())
+                  {
+                     return 0L;
+                  }
+
+                  final int length = Math.min(chunk.length, mapped.remaining());
+                  mapped.get(chunk, 0, length);
+                  checksum.update(chunk, 0, length);
+               }
             }
-            catch (final IOException e)
+         }
+         else
+         {
+            final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            for (int length = channel.read(buffer); length >= 0; length = channel.read(buffer))
             {
+               if (currentThread.isInterrupted())
+               {
+                  return 0L;
+               }
+
+               checksum.update(chunk, 0, buffer.position());
+               buffer.clear();
             }
          }
+
+         return checksum.getValue();
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+
+   /**
+    * Reads from the given {@link FileChannel} starting at the given position
+    * until the given {@link ByteBuffer} is full or the end of the file is
+    * reached.
+    */
+   private static int readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+         throws IOException
+   {
+      int result = 0;
+      while (buffer.hasRemaining())
+      {
+         final int length = channel.read(buffer, position + result);
+         if (length < 0)
+         {
+            break;
+         }
+
+         result += length;
       }
+
+      return result;
    }
 
    /**
@@ -109,29 +373,16 @@ public class FileUtils
     * @param targetFolder
     *           the target {@link File folder} where to unzip the files
     * @throws IOException
-    *            if any internal file operation fails
+    *            if any internal file operation fails or the ZIP file
+    *            contains an entry that points outside the target
+    *            {@link File folder}
     * @throws IllegalArgumentException
     *            if the given target {@link File folder} is not a directory
     */
    public static void unzip(final InputStream zipFile, final File targetFolder) throws IOException,
          IllegalArgumentException
    {
-      if (targetFolder.exists())
-      {
-         if (!targetFolder.isDirectory())
-         {
-            throw new IllegalArgumentException(String.format(
-                  "Given existing target folder '%1$s' is not a directory!", targetFolder));
-         }
-      }
-      else
-      {
-         if (!targetFolder.mkdirs())
-         {
-            throw new IOException(String.format(
-                  "Could not create target folder '%1$s'!", targetFolder));
-         }
-      }
+      prepareTargetFolder(targetFolder);
 
       final ZipInputStream zis = new ZipInputStream(zipFile);
       final byte[] buffer = new byte[8192];
@@ -144,11 +395,11 @@ public class FileUtils
             {
                if (entry.isDirectory())
                {
-                  new File(targetFolder, entry.getName()).mkdirs();
+                  getEntryFile(targetFolder, entry.getName()).mkdirs();
                }
                else
                {
-                  final File targetFile = new File(targetFolder, entry.getName());
+                  final File targetFile = getEntryFile(targetFolder, entry.getName());
                   targetFile.getParentFile().mkdirs();
 
                   final FileOutputStream fos = new FileOutputStream(targetFile);
@@ -178,7 +429,8 @@ public class FileUtils
    }
 
    /**
-    * Unzips a given ZIP {@link File} into a given target {@link File folder}.
+    * Unzips a given ZIP {@link File} into a given target {@link File folder}
+    * using as many {@link Thread}s as there are available processors.
     * <p>
     * The given target {@link File folder} must either exist (and must really be
     * a directory) or is must be producible by the calling application.
@@ -188,12 +440,50 @@ public class FileUtils
     * @param targetFolder
     *           the target {@link File folder} where to unzip the files
     * @throws IOException
-    *            if any internal file operation fails
+    *            if any internal file operation fails or the ZIP {@link File}
+    *            contains an entry that points outside the target
+    *            {@link File folder}
     * @throws IllegalArgumentException
     *            if the given ZIP {@link File} is not valid or the given target
     *            {@link File folder} is not a directory
+    * @see #unzip(File, File, int)
     */
    public static void unzip(final File zipFile, final File targetFolder) throws IOException, IllegalArgumentException
+   {
+      unzip(zipFile, targetFolder, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Unzips a given ZIP {@link File} into a given target {@link File folder}
+    * by extracting the entries in parallel on the given number of
+    * {@link Thread}s (including the calling one).
+    * <p>
+    * Unlike {@link #unzip(InputStream, File)} this reads the ZIP {@link File}
+    * via random access: all entry paths are validated and all folders are
+    * created before any {@link File} is extracted, and every {@link File} is
+    * pre-sized and written through a {@link FileChannel}.
+    * <p>
+    * The given target {@link File folder} must either exist (and must really be
+    * a directory) or is must be producible by the calling application.
+    * 
+    * @param zipFile
+    *           the ZIP {@link File} to unzip
+    * @param targetFolder
+    *           the target {@link File folder} where to unzip the files
+    * @param parallelism
+    *           the maximum number of {@link Thread}s to use - must be at least
+    *           {@code 1}
+    * @throws IOException
+    *            if any internal file operation fails or the ZIP {@link File}
+    *            contains an entry that points outside the target
+    *            {@link File folder}
+    * @throws IllegalArgumentException
+    *            if the given ZIP {@link File} is not valid, the given target
+    *            {@link File folder} is not a directory or the given
+    *            parallelism is smaller than {@code 1}
+    */
+   public static void unzip(final File zipFile, final File targetFolder, final int parallelism) throws IOException,
+         IllegalArgumentException
    {
       if (zipFile == null || !zipFile.exists() || !zipFile.isFile())
       {
@@ -201,6 +491,68 @@ public class FileUtils
                "Given ZIP file '%1$s' is null, does not exist or is not a file!", zipFile));
       }
 
-      unzip(new FileInputStream(zipFile), targetFolder);
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      prepareTargetFolder(targetFolder);
+
+      final ZipFile zip = new ZipFile(zipFile);
+      try
+      {
+         new ParallelUnzipper(zip, targetFolder, parallelism).unzip();
+      }
+      finally
+      {
+         zip.close();
+      }
+   }
+
+   /**
+    * Returns the {@link File} where to extract the ZIP entry with the given
+    * name - rejecting names that point outside the target {@link File folder}
+    * (via {@code ..} segments or drive letters).
+    */
+   static File getEntryFile(final File targetFolder, final String entryName) throws IOException
+   {
+      File result = targetFolder;
+
+      for (final String segment : ENTRY_SEPARATOR_PATTERN.split(entryName))
+      {
+         if (segment.length() == 0 || segment.equals("."))
+         {
+            continue;
+         }
+
+         if (segment.equals("..") || segment.indexOf(':') >= 0)
+         {
+            throw new IOException(String.format("ZIP entry '%1$s' points outside the target folder!", entryName));
+         }
+
+         result = new File(result, segment);
+      }
+
+      return result;
+   }
+
+   private static void prepareTargetFolder(final File targetFolder) throws IOException, IllegalArgumentException
+   {
+      if (targetFolder.exists())
+      {
+         if (!targetFolder.isDirectory())
+         {
+            throw new IllegalArgumentException(String.format(
+                  "Given existing target folder '%1$s' is not a directory!", targetFolder));
+         }
+      }
+      else
+      {
+         if (!targetFolder.mkdirs())
+         {
+            throw new IOException(String.format(
+                  "Could not create target folder '%1$s'!", targetFolder));
+         }
+      }
    }
 }
@@ -0,0 +1,249 @@
+package net.sf.javagimmicks.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts the entries of a {@link ZipFile} on a bounded number of worker
+ * {@link Thread}s.
+ * <p>
+ * All entry paths are validated and all folders are created up front (each one
+ * only once). Then the workers share a single cursor into the {@link List} of
+ * file entries (sorted by size, largest first, to balance the load) and write
+ * each one through a {@link FileChannel} into a pre-sized {@link File}. The
+ * calling {@link Thread} takes part in the work as well, so a parallelism of
+ * {@code 1} does not start any additional {@link Thread}.
+ */
+class ParallelUnzipper
+{
+   private static final Comparator<ZipEntry> SIZE_DESCENDING = new Comparator<ZipEntry>()
+   {
+      @Override
+      public int compare(final ZipEntry o1, final ZipEntry o2)
+      {
+         final long size1 = o1.getSize();
+         final long size2 = o2.getSize();
+
+         return size1 > size2 ? -1 : (size1 < size2 ? 1 : 0);
+      }
+   };
+
+   private final ZipFile _zipFile;
+   private final File _targetFolder;
+   private final int _parallelism;
+
+   private final List<ZipEntry> _fileEntries = new ArrayList<ZipEntry>();
+   private final List<File> _targetFiles = new ArrayList<File>();
+
+   private final AtomicInteger _cursor = new AtomicInteger();
+   private final AtomicReference<Throwable> _failure = new AtomicReference<Throwable>();
+
+   ParallelUnzipper(final ZipFile zipFile, final File targetFolder, final int parallelism)
+   {
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      _zipFile = zipFile;
+      _targetFolder = targetFolder;
+      _parallelism = parallelism;
+   }
+
+   public void unzip() throws IOException
+   {
+      prepare();
+
+      final int workerCount = Math.max(Math.min(_parallelism, _fileEntries.size()) - 1, 0);
+
+      final CountDownLatch latch = new CountDownLatch(workerCount);
+      final Thread[] workers = new Thread[workerCount];
+
+      for (int i = 0; i < workers.length; ++i)
+      {
+         workers[i] = new Thread(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  work();
+               }
+               finally
+               {
+                  latch.countDown();
+               }
+            }
+         }, "Unzip-" + i);
+
+         workers[i].setDaemon(true);
+         workers[i].start();
+      }
+
+      work();
+
+      try
+      {
+         latch.await();
+      }
+      catch (final InterruptedException e)
+      {
+         for (final Thread worker : workers)
+         {
+            worker.interrupt();
+         }
+
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Unzipping was interrupted!");
+      }
+
+      final Throwable failure = _failure.get();
+      if (failure instanceof IOException)
+      {
+         throw (IOException) failure;
+      }
+      else if (failure != null)
+      {
+         throw new IOException("Unzipping failed!", failure);
+      }
+
+      if (Thread.currentThread().isInterrupted())
+      {
+         throw new InterruptedIOException("Unzipping was interrupted!");
+      }
+   }
+
+   /**
+    * Validates all entry paths, creates all needed folders and collects the
+    * file entries. Of multiple file entries with the same name only the last
+    * one is extracted - like a sequential extraction would leave it.
+    */
+   private void prepare() throws IOException
+   {
+      // Sorted, so that parent folders are created before their children
+      final Set<String> folderPaths = new TreeSet<String>();
+      final Map<String, ZipEntry> fileEntries = new LinkedHashMap<String, ZipEntry>();
+
+      for (final Enumeration<? extends ZipEntry> entries = _zipFile.entries(); entries.hasMoreElements();)
+      {
+         final ZipEntry entry = entries.nextElement();
+         final File targetFile = FileUtils.getEntryFile(_targetFolder, entry.getName());
+
+         if (entry.isDirectory())
+         {
+            folderPaths.add(targetFile.getPath());
+         }
+         else
+         {
+            folderPaths.add(targetFile.getParentFile().getPath());
+
+            // Two workers must never write the same file concurrently
+            fileEntries.put(targetFile.getPath(), entry);
+         }
+      }
+
+      _fileEntries.addAll(fileEntries.values());
+
+      for (final String folderPath : folderPaths)
+      {
+         final File folder = new File(folderPath);
+         if (!folder.mkdirs() && !folder.isDirectory())
+         {
+            throw new IOException(String.format("Could not create folder '%1$s'!", folder));
+         }
+      }
+
+      Collections.sort(_fileEntries, SIZE_DESCENDING);
+
+      for (final ZipEntry entry : _fileEntries)
+      {
+         _targetFiles.add(FileUtils.getEntryFile(_targetFolder, entry.getName()));
+      }
+   }
+
+   private void work()
+   {
+      final Thread currentThread = Thread.currentThread();
+      final byte[] buffer = new byte[FileUtils.BUFFER_SIZE];
+
+      for (int i = _cursor.getAndIncrement(); i < _fileEntries.size(); i = _cursor.getAndIncrement())
+      {
+         if (currentThread.isInterrupted() || _failure.get() != null)
+         {
+            return;
+         }
+
+         try
+         {
+            extract(_fileEntries.get(i), _targetFiles.get(i), buffer);
+         }
+         catch (final Throwable t)
+         {
+            // Report anything - otherwise a dying worker would go unnoticed
+            _failure.compareAndSet(null, t);
+            return;
+         }
+      }
+   }
+
+   private void extract(final ZipEntry entry, final File targetFile, final byte[] buffer) throws IOException
+   {
+      final InputStream in = _zipFile.getInputStream(entry);
+      try
+      {
+         final RandomAccessFile out = new RandomAccessFile(targetFile, "rw");
+         try
+         {
+            // Pre-sizing lets the file system allocate the file in one go
+            final long size = entry.getSize();
+            if (size > 0L)
+            {
+               out.setLength(size);
+            }
+
+            final FileChannel channel = out.getChannel();
+            long position = 0L;
+
+            for (int length = in.read(buffer); length >= 0; length = in.read(buffer))
+            {
+               final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+               while (byteBuffer.hasRemaining())
+               {
+                  position += channel.write(byteBuffer, position);
+               }
+            }
+
+            // Cut off what is left of a longer existing file or a wrong size
+            channel.truncate(position);
+         }
+         finally
+         {
+            out.close();
+         }
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+}
@@ -0,0 +1,161 @@
+package net.sf.javagimmicks.io;
+
+import java.util.zip.Checksum;
+
+/**
+ * A streaming implementation of the 64 bit XXH64 hash (with seed {@code 0})
+ * as a {@link Checksum}.
+ */
+class XxHash64 implements Checksum
+{
+   private static final long PRIME1 = 0x9E3779B185EBCA87L;
+   private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+   private static final long PRIME3 = 0x165667B19E3779F9L;
+   private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+   private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+   private long _v1;
+   private long _v2;
+   private long _v3;
+   private long _v4;
+
+   // Input that does not yet fill a complete 32 byte stripe
+   private final byte[] _buffer = new byte[32];
+   private int _bufferSize;
+
+   private long _totalLength;
+
+   public XxHash64()
+   {
+      reset();
+   }
+
+   @Override
+   public void update(final int b)
+   {
+      update(new byte[] { (byte) b }, 0, 1);
+   }
+
+   @Override
+   public void update(final byte[] b, int off, int len)
+   {
+      _totalLength += len;
+
+      if (_bufferSize > 0)
+      {
+         final int count = Math.min(32 - _bufferSize, len);
+         System.arraycopy(b, off, _buffer, _bufferSize, count);
+         _bufferSize += count;
+         off += count;
+         len -= count;
+
+         if (_bufferSize < 32)
+         {
+            return;
+         }
+
+         processStripe(_buffer, 0);
+         _bufferSize = 0;
+      }
+
+      for (; len >= 32; off += 32, len -= 32)
+      {
+         processStripe(b, off);
+      }
+
+      System.arraycopy(b, off, _buffer, 0, len);
+      _bufferSize = len;
+   }
+
+   @Override
+   public long getValue()
+   {
+      long hash;
+      if (_totalLength >= 32)
+      {
+         hash = Long.rotateLeft(_v1, 1) + Long.rotateLeft(_v2, 7) + Long.rotateLeft(_v3, 12)
+               + Long.rotateLeft(_v4, 18);
+         hash = mergeRound(hash, _v1);
+         hash = mergeRound(hash, _v2);
+         hash = mergeRound(hash, _v3);
+         hash = mergeRound(hash, _v4);
+      }
+      else
+      {
+         hash = PRIME5;
+      }
+
+      hash += _totalLength;
+
+      int off = 0;
+      for (; off + 8 <= _bufferSize; off += 8)
+      {
+         hash ^= round(0L, getLong(_buffer, off));
+         hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+      }
+
+      if (off + 4 <= _bufferSize)
+      {
+         hash ^= (getInt(_buffer, off) & 0xFFFFFFFFL) * PRIME1;
+         hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+         off += 4;
+      }
+
+      for (; off < _bufferSize; ++off)
+      {
+         hash ^= (_buffer[off] & 0xFF) * PRIME5;
+         hash = Long.rotateLeft(hash, 11) * PRIME1;
+      }
+
+      hash ^= hash >>> 33;
+      hash *= PRIME2;
+      hash ^= hash >>> 29;
+      hash *= PRIME3;
+      hash ^= hash >>> 32;
+
+      return hash;
+   }
+
+   @Override
+   public void reset()
+   {
+      _v1 = PRIME1 + PRIME2;
+      _v2 = PRIME2;
+      _v3 = 0L;
+      _v4 = -PRIME1;
+
+      _bufferSize = 0;
+      _totalLength = 0L;
+   }
+
+   private void processStripe(final byte[] b, final int off)
+   {
+      _v1 = round(_v1, getLong(b, off));
+      _v2 = round(_v2, getLong(b, off + 8));
+      _v3 = round(_v3, getLong(b, off + 16));
+      _v4 = round(_v4, getLong(b, off + 24));
+   }
+
+   private static long round(long accumulator, final long input)
+   {
+      accumulator += input * PRIME2;
+      accumulator = Long.rotateLeft(accumulator, 31);
+      return accumulator * PRIME1;
+   }
+
+   private static long mergeRound(long accumulator, final long value)
+   {
+      accumulator ^= round(0L, value);
+      return accumulator * PRIME1 + PRIME4;
+   }
+
+   private static long getLong(final byte[] b, final int off)
+   {
+      return (getInt(b, off) & 0xFFFFFFFFL) | ((long) getInt(b, off + 4) << 32);
+   }
+
+   private static int getInt(final byte[] b, final int off)
+   {
+      return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+   }
+}
@@ -0,0 +1,440 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.javagimmicks.io.ChecksumAlgorithm;
+import net.sf.javagimmicks.io.FileUtils;
+
+/**
+ * A persistent index of {@link File} checksums that allows incremental folder
+ * comparisons - if a {@link File}'s size and change date did not change since
+ * its checksum was recorded, the recorded checksum is used instead of reading
+ * the {@link File} again.
+ * <p>
+ * Set an instance via {@link FolderDiffBuilder#setChecksumIndex(ChecksumIndex)}
+ * and call {@link #store()} after {@link FolderDiffBuilder#buildFolderDiff()}
+ * to persist the index for the next run. The index is stored in a compact
+ * binary format (with prefix compressed paths) and loaded via memory mapping.
+ * Storing is done atomically by writing a temporary {@link File} and renaming
+ * it (on platforms that cannot rename onto an existing {@link File}, the old
+ * index is deleted right before).
+ * <p>
+ * Instances are thread-safe.
+ */
+public class ChecksumIndex
+{
+   private static final int MAGIC = 0x4A474349;
+   private static final int VERSION = 1;
+
+   /**
+    * Checksums of {@link File}s changed less than this number of milliseconds
+    * ago are not recorded - the change date resolution of some file systems
+    * is too coarse to detect further changes within the same interval.
+    */
+   static final long RACY_INTERVAL = 2000L;
+
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private final File _indexFile;
+   private final ChecksumAlgorithm _algorithm;
+
+   private final ConcurrentMap<String, IndexEntry> _entries = new ConcurrentHashMap<String, IndexEntry>();
+
+   /**
+    * Creates a new instance for the given index {@link File} using the given
+    * {@link ChecksumAlgorithm} and loads the index if the {@link File} exists.
+    * An existing index that was written with another
+    * {@link ChecksumAlgorithm} or is invalid is ignored (and overwritten by
+    * {@link #store()}).
+    * 
+    * @param indexFile
+    *           the {@link File} to load the index from and store it to
+    * @param algorithm
+    *           the {@link ChecksumAlgorithm} to use for calculating checksums
+    * @throws IOException
+    *            if the index {@link File} exists but could not be read
+    */
+   public ChecksumIndex(final File indexFile, final ChecksumAlgorithm algorithm) throws IOException
+   {
+      if (indexFile == null)
+      {
+         throw new IllegalArgumentException("Index file must not be null!");
+      }
+
+      if (algorithm == null)
+      {
+         throw new IllegalArgumentException("Checksum algorithm must not be null!");
+      }
+
+      _indexFile = indexFile;
+      _algorithm = algorithm;
+
+      if (indexFile.isFile())
+      {
+         load();
+      }
+   }
+
+   /**
+    * Creates a new instance for the given index {@link File} using
+    * {@link ChecksumAlgorithm#XXHASH64} and loads the index if the
+    * {@link File} exists.
+    * 
+    * @param indexFile
+    *           the {@link File} to load the index from and store it to
+    * @throws IOException
+    *            if the index {@link File} exists but could not be read
+    * @see #ChecksumIndex(File, ChecksumAlgorithm)
+    */
+   public ChecksumIndex(final File indexFile) throws IOException
+   {
+      this(indexFile, ChecksumAlgorithm.XXHASH64);
+   }
+
+   /**
+    * Returns the {@link File} where this index is stored.
+    * 
+    * @return the {@link File} where this index is stored
+    */
+   public File getIndexFile()
+   {
+      return _indexFile;
+   }
+
+   /**
+    * Returns the {@link ChecksumAlgorithm} used by this index.
+    * 
+    * @return the {@link ChecksumAlgorithm} used by this index
+    */
+   public ChecksumAlgorithm getAlgorithm()
+   {
+      return _algorithm;
+   }
+
+   /**
+    * Returns the number of {@link File}s with a recorded checksum.
+    * 
+    * @return the number of {@link File}s with a recorded checksum
+    */
+   public int size()
+   {
+      return _entries.size();
+   }
+
+   /**
+    * Returns the checksum of a given {@link File} - from the index, if the
+    * {@link File}'s size and change date did not change since it was recorded,
+    * otherwise it is calculated and recorded.
+    * 
+    * @param file
+    *           the {@link File} to get the checksum for
+    * @return the checksum of the given {@link File}
+    * @see FileUtils#getChecksum(File, ChecksumAlgorithm)
+    */
+   public long getChecksum(final File file)
+   {
+      final String path = file.getAbsolutePath();
+      final long size = file.length();
+      final long lastModified = file.lastModified();
+
+      final IndexEntry entry = _entries.get(path);
+      if (entry != null && entry.matches(size, lastModified))
+      {
+         entry._accessed = true;
+         return entry._checksum;
+      }
+
+      final long checksum = FileUtils.getChecksum(file, _algorithm);
+
+      // Don't record results of interrupted or failed calculations (which
+      // return 0), racy files or files that changed during the calculation
+      if (!Thread.currentThread().isInterrupted() && checksum != 0L
+            && System.currentTimeMillis() - lastModified >= RACY_INTERVAL && size == file.length()
+            && lastModified == file.lastModified())
+      {
+         final IndexEntry newEntry = new IndexEntry(size, lastModified, checksum);
+         newEntry._accessed = true;
+         _entries.put(path, newEntry);
+      }
+
+      return checksum;
+   }
+
+   /**
+    * Returns the recorded checksum of a given {@link File} if its size and
+    * change date did not change since it was recorded - without calculating
+    * it otherwise.
+    * 
+    * @param file
+    *           the {@link File} to get the recorded checksum for
+    * @return the recorded checksum or {@code null} if there is no up to date
+    *         checksum recorded
+    */
+   public Long getRecordedChecksum(final File file)
+   {
+      final IndexEntry entry = _entries.get(file.getAbsolutePath());
+      if (entry == null || !entry.matches(file.length(), file.lastModified()))
+      {
+         return null;
+      }
+
+      entry._accessed = true;
+      return entry._checksum;
+   }
+
+   /**
+    * Removes all recorded checksums.
+    */
+   public void clear()
+   {
+      _entries.clear();
+   }
+
+   /**
+    * Atomically writes this index to the {@link #getIndexFile() index file}.
+    * Entries of {@link File}s that were not accessed since this index was
+    * loaded and don't exist anymore are dropped.
+    * 
+    * @throws IOException
+    *            if writing the index fails
+    */
+   public void store() throws IOException
+   {
+      final List<Entry<String, IndexEntry>> entries = new ArrayList<Entry<String, IndexEntry>>();
+      for (final Entry<String, IndexEntry> entry : _entries.entrySet())
+      {
+         if (entry.getValue()._accessed || new File(entry.getKey()).exists())
+         {
+            entries.add(entry);
+         }
+      }
+
+      // Sorting maximizes the shared prefixes of subsequent paths
+      Collections.sort(entries, new Comparator<Entry<String, IndexEntry>>()
+      {
+         @Override
+         public int compare(final Entry<String, IndexEntry> o1, final Entry<String, IndexEntry> o2)
+         {
+            return o1.getKey().compareTo(o2.getKey());
+         }
+      });
+
+      final File folder = _indexFile.getAbsoluteFile().getParentFile();
+      folder.mkdirs();
+
+      final File tempFile = File.createTempFile(_indexFile.getName(), ".tmp", folder);
+      try
+      {
+         final FileOutputStream fileOut = new FileOutputStream(tempFile);
+         try
+         {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 65536));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeBytes(out, _algorithm.name().getBytes(UTF8));
+            writeVarInt(out, entries.size());
+
+            byte[] previousPath = new byte[0];
+            for (final Entry<String, IndexEntry> entry : entries)
+            {
+               final byte[] path = entry.getKey().getBytes(UTF8);
+
+               int sharedLength = 0;
+               final int maxSharedLength = Math.min(path.length, previousPath.length);
+               while (sharedLength < maxSharedLength && path[sharedLength] == previousPath[sharedLength])
+               {
+                  ++sharedLength;
+               }
+
+               writeVarInt(out, sharedLength);
+               writeVarInt(out, path.length - sharedLength);
+               out.write(path, sharedLength, path.length - sharedLength);
+
+               final IndexEntry indexEntry = entry.getValue();
+               out.writeLong(indexEntry._size);
+               out.writeLong(indexEntry._lastModified);
+               out.writeLong(indexEntry._checksum);
+
+               previousPath = path;
+            }
+
+            out.flush();
+            fileOut.getFD().sync();
+         }
+         finally
+         {
+            fileOut.close();
+         }
+
+         if (!tempFile.renameTo(_indexFile))
+         {
+            // Some platforms cannot rename onto an existing file
+            if (!_indexFile.delete() || !tempFile.renameTo(_indexFile))
+            {
+               throw new IOException(String.format("Could not rename '%1$s' to '%2$s'!", tempFile, _indexFile));
+            }
+         }
+      }
+      finally
+      {
+         if (tempFile.exists())
+         {
+            tempFile.delete();
+         }
+      }
+   }
+
+   private void load() throws IOException
+   {
+      final Map<String, IndexEntry> entries = new HashMap<String, IndexEntry>();
+
+      final FileInputStream in = new FileInputStream(_indexFile);
+      try
+      {
+         final FileChannel channel = in.getChannel();
+         final long size = channel.size();
+         if (size > Integer.MAX_VALUE)
+         {
+            return;
+         }
+
+         final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0L, size);
+
+         if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+               || !_algorithm.name().equals(new String(readBytes(buffer), UTF8)))
+         {
+            return;
+         }
+
+         final int count = readVarInt(buffer);
+
+         byte[] path = new byte[256];
+         for (int i = 0; i < count; ++i)
+         {
+            final int sharedLength = readVarInt(buffer);
+            final int suffixLength = readVarInt(buffer);
+            final int length = sharedLength + suffixLength;
+
+            if (length > path.length)
+            {
+               final byte[] newPath = new byte[Math.max(length, 2 * path.length)];
+               System.arraycopy(path, 0, newPath, 0, sharedLength);
+               path = newPath;
+            }
+
+            buffer.get(path, sharedLength, suffixLength);
+
+            entries.put(new String(path, 0, length, UTF8),
+                  new IndexEntry(buffer.getLong(), buffer.getLong(), buffer.getLong()));
+         }
+      }
+      catch (final BufferUnderflowException e)
+      {
+         // A truncated index is ignored completely
+         return;
+      }
+      catch (final IndexOutOfBoundsException e)
+      {
+         // So is an index with invalid lengths
+         return;
+      }
+      catch (final IllegalArgumentException e)
+      {
+         return;
+      }
+      finally
+      {
+         in.close();
+      }
+
+      _entries.putAll(entries);
+   }
+
+   private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException
+   {
+      writeVarInt(out, bytes.length);
+      out.write(bytes);
+   }
+
+   private static byte[] readBytes(final ByteBuffer buffer)
+   {
+      final byte[] result = new byte[readVarInt(buffer)];
+      buffer.get(result);
+
+      return result;
+   }
+
+   private static void writeVarInt(final DataOutputStream out, int value) throws IOException
+   {
+      while ((value & ~0x7F) != 0)
+      {
+         out.write((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+
+      out.write(value);
+   }
+
+   private static int readVarInt(final ByteBuffer buffer)
+   {
+      int result = 0;
+      for (int shift = 0; shift < 32; shift += 7)
+      {
+         final byte b = buffer.get();
+         result |= (b & 0x7F) << shift;
+
+         if ((b & 0x80) == 0)
+         {
+            if (result < 0)
+            {
+               throw new IllegalArgumentException("Negative length!");
+            }
+
+            return result;
+         }
+      }
+
+      throw new IllegalArgumentException("Malformed length!");
+   }
+
+   private static class IndexEntry
+   {
+      private final long _size;
+      private final long _lastModified;
+      private final long _checksum;
+
+      private volatile boolean _accessed;
+
+      public IndexEntry(final long size, final long lastModified, final long checksum)
+      {
+         _size = size;
+         _lastModified = lastModified;
+         _checksum = checksum;
+      }
+
+      public boolean matches(final long size, final long lastModified)
+      {
+         return _size == size && _lastModified == lastModified;
+      }
+   }
+}
@@ -0,0 +1,55 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.io.File;
+
+/**
+ * Reports how many {@link File}s each {@link ComparisonTier} settled during a
+ * folder comparison.
+ * <p>
+ * {@link ComparisonTier#PATH} counts single {@link File}s, all other tiers
+ * count pairs of source and target {@link File}s with the same path. Folders
+ * are not counted at all.
+ * 
+ * @see FolderDiff#getStatistics()
+ */
+public class ComparisonStatistics
+{
+   private final long[] _settledCounts;
+
+   ComparisonStatistics(final long[] settledCounts)
+   {
+      _settledCounts = settledCounts;
+   }
+
+   /**
+    * Returns the number of {@link File}s or pairs of {@link File}s settled by
+    * the given {@link ComparisonTier}.
+    * 
+    * @param tier
+    *           the {@link ComparisonTier} to get the count for
+    * @return the number of {@link File}s or pairs of {@link File}s settled by
+    *         the given {@link ComparisonTier}
+    */
+   public long getSettledCount(final ComparisonTier tier)
+   {
+      return _settledCounts[tier.ordinal()];
+   }
+
+   @Override
+   public String toString()
+   {
+      final StringBuilder result = new StringBuilder();
+
+      for (final ComparisonTier tier : ComparisonTier.values())
+      {
+         if (result.length() > 0)
+         {
+            result.append(", ");
+         }
+
+         result.append(tier).append('=').append(getSettledCount(tier));
+      }
+
+      return result.toString();
+   }
+}
@@ -0,0 +1,55 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.io.File;
+
+/**
+ * The tiers of the content comparison that {@link FolderDiffBuilder} runs if
+ * {@link FolderDiffBuilder#setCompareChecksum(boolean) checksum comparison} is
+ * enabled - in the order of their application. Each tier only processes the
+ * files that were not settled by one of the previous tiers.
+ * 
+ * @see ComparisonStatistics
+ */
+public enum ComparisonTier
+{
+   /**
+    * {@link File}s that exist only on one side (or are a folder on the other
+    * side) and so need no content comparison at all.
+    */
+   PATH,
+
+   /**
+    * {@link File} pairs that differ in size (and so must differ in content).
+    */
+   SIZE,
+
+   /**
+    * {@link File} pairs that were settled by their change dates - different if
+    * {@link FolderDiffBuilder#setCompareLastModified(boolean) change date
+    * comparison} is enabled and the dates differ, equal if
+    * {@link FolderDiffBuilder#setTrustLastModified(boolean) the change date
+    * short-cut} is enabled and the dates are the same.
+    */
+   LAST_MODIFIED,
+
+   /**
+    * {@link File} pairs that were settled by the up to date checksums recorded
+    * in the {@link FolderDiffBuilder#setChecksumIndex(ChecksumIndex) checksum
+    * index} - without reading any of them.
+    */
+   CHECKSUM_INDEX,
+
+   /**
+    * {@link File} pairs that were settled by comparing only the first and last
+    * bytes of their contents.
+    */
+   HEAD_TAIL,
+
+   /**
+    * {@link File} pairs that needed a comparison of their complete contents -
+    * which means calculating (and recording) their checksums if a
+    * {@link FolderDiffBuilder#setChecksumIndex(ChecksumIndex) checksum index}
+    * is used.
+    */
+   CONTENT
+}
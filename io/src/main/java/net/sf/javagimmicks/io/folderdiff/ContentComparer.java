@@ -0,0 +1,323 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.sf.javagimmicks.io.FileUtils;
+
+/**
+ * Compares the contents of all source and target {@link FileInfo}s with the
+ * same path up front on a bounded number of worker {@link Thread}s and caches
+ * the results within the {@link FileInfo}s - so that later content
+ * comparisons are pure lookups.
+ * <p>
+ * Every pair runs through the {@link ComparisonTier}s in order and stops at
+ * the first one that settles it, so the expensive tiers only see the
+ * survivors of the cheap ones. The number of settled {@link File}s per tier is
+ * recorded and available via {@link #getStatistics()}.
+ * <p>
+ * The workers share a single cursor into the {@link List} of pairs and pick
+ * the next one from there, so no per-file task objects are created. The
+ * calling {@link Thread} takes part in the work as well, so a parallelism of
+ * {@code 1} does not need any additional {@link Thread}. The worker
+ * {@link Thread}s are taken from an {@link ExecutorService} (see
+ * {@link #newExecutor(int)}) that is owned by the caller - so one instance can
+ * {@link #compare(List, List)} many (e.g. folder level wise) {@link List}s
+ * without starting new {@link Thread}s for each of them.
+ */
+class ContentComparer
+{
+   /**
+    * The number of bytes at the start and the end of {@link File}s that are
+    * compared in the {@link ComparisonTier#HEAD_TAIL} tier.
+    */
+   static final long HEAD_TAIL_SIZE = 4096L;
+
+   /**
+    * Creates an {@link ExecutorService} with {@code parallelism - 1} daemon
+    * worker {@link Thread}s (the calling {@link Thread} is the last one) - or
+    * returns {@code null} if the parallelism is {@code 1}. The caller is
+    * responsible for shutting it down.
+    */
+   static ExecutorService newExecutor(final int parallelism)
+   {
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      if (parallelism == 1)
+      {
+         return null;
+      }
+
+      return Executors.newFixedThreadPool(parallelism - 1, new ThreadFactory()
+      {
+         private final AtomicInteger _threadCount = new AtomicInteger();
+
+         @Override
+         public Thread newThread(final Runnable runnable)
+         {
+            final Thread result = new Thread(runnable, "FolderDiff-Compare-" + _threadCount.getAndIncrement());
+            result.setDaemon(true);
+
+            return result;
+         }
+      });
+   }
+
+   private final ExecutorService _executor;
+   private final int _parallelism;
+   private final boolean _compareLastModified;
+   private final boolean _trustLastModified;
+
+   private final AtomicLongArray _settledCounts = new AtomicLongArray(ComparisonTier.values().length);
+
+   /**
+    * Creates a new instance - the {@link ExecutorService} (see
+    * {@link #newExecutor(int)}) may only be {@code null} if the parallelism
+    * is {@code 1}.
+    */
+   ContentComparer(final ExecutorService executor, final int parallelism, final boolean compareLastModified,
+         final boolean trustLastModified)
+   {
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      if (executor == null && parallelism > 1)
+      {
+         throw new IllegalArgumentException("Executor must not be null for a parallelism greater than 1!");
+      }
+
+      _executor = executor;
+      _parallelism = parallelism;
+      _compareLastModified = compareLastModified;
+      _trustLastModified = trustLastModified;
+   }
+
+   /**
+    * Links all source and target files with the same path as
+    * {@link FileInfo#getCounterpart() counterparts}, compares their contents
+    * and returns when all of them are done. If the calling {@link Thread} is
+    * interrupted, the workers stop picking up new pairs (the remaining
+    * comparisons are then done lazily on access) and the interrupted state is
+    * restored.
+    */
+   public void compare(final List<FileInfo> sourceFiles, final List<FileInfo> targetFiles)
+   {
+      final List<FileInfo> pairs = linkCounterparts(sourceFiles, targetFiles);
+
+      final int workerCount = Math.max(Math.min(_parallelism, pairs.size()) - 1, 0);
+
+      final AtomicInteger cursor = new AtomicInteger();
+      final CountDownLatch latch = new CountDownLatch(workerCount);
+      final List<Future<?>> workers = new ArrayList<Future<?>>(workerCount);
+
+      for (int i = 0; i < workerCount; ++i)
+      {
+         workers.add(_executor.submit(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  work(pairs, cursor);
+               }
+               finally
+               {
+                  latch.countDown();
+               }
+            }
+         }));
+      }
+
+      work(pairs, cursor);
+
+      try
+      {
+         latch.await();
+      }
+      catch (final InterruptedException e)
+      {
+         for (final Future<?> worker : workers)
+         {
+            worker.cancel(true);
+         }
+
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Returns the number of {@link File}s settled per {@link ComparisonTier}
+    * so far.
+    */
+   public ComparisonStatistics getStatistics()
+   {
+      final long[] settledCounts = new long[_settledCounts.length()];
+      for (int i = 0; i < settledCounts.length; ++i)
+      {
+         settledCounts[i] = _settledCounts.get(i);
+      }
+
+      return new ComparisonStatistics(settledCounts);
+   }
+
+   /**
+    * Links the source and target files with the same path and returns the
+    * linked source files - all other files are settled by path.
+    */
+   private List<FileInfo> linkCounterparts(final List<FileInfo> sourceFiles, final List<FileInfo> targetFiles)
+   {
+      final Map<List<String>, FileInfo> sourceFileMap = new HashMap<List<String>, FileInfo>();
+      for (final FileInfo sourceFile : sourceFiles)
+      {
+         if (!sourceFile.isDirectory())
+         {
+            sourceFileMap.put(sourceFile.getPathFragments(), sourceFile);
+         }
+      }
+
+      final List<FileInfo> result = new ArrayList<FileInfo>();
+      long unmatchedCount = 0L;
+
+      for (final FileInfo targetFile : targetFiles)
+      {
+         if (targetFile.isDirectory())
+         {
+            continue;
+         }
+
+         final FileInfo sourceFile = sourceFileMap.remove(targetFile.getPathFragments());
+         if (sourceFile == null)
+         {
+            ++unmatchedCount;
+            continue;
+         }
+
+         sourceFile.setCounterpart(targetFile);
+         result.add(sourceFile);
+      }
+
+      unmatchedCount += sourceFileMap.size();
+      _settledCounts.addAndGet(ComparisonTier.PATH.ordinal(), unmatchedCount);
+
+      return result;
+   }
+
+   private void work(final List<FileInfo> pairs, final AtomicInteger cursor)
+   {
+      final Thread currentThread = Thread.currentThread();
+
+      for (int i = cursor.getAndIncrement(); i < pairs.size(); i = cursor.getAndIncrement())
+      {
+         if (currentThread.isInterrupted())
+         {
+            return;
+         }
+
+         final FileInfo sourceFile = pairs.get(i);
+
+         try
+         {
+            compare(sourceFile, sourceFile.getCounterpart());
+         }
+         catch (final IOException e)
+         {
+            // An interrupted comparison is incomplete - so don't settle it
+            if (!currentThread.isInterrupted())
+            {
+               settle(sourceFile, ComparisonTier.CONTENT, false);
+            }
+         }
+      }
+   }
+
+   private void compare(final FileInfo sourceFile, final FileInfo targetFile) throws IOException
+   {
+      final long size = sourceFile.getSize();
+      if (size != targetFile.getSize())
+      {
+         settle(sourceFile, ComparisonTier.SIZE, false);
+         return;
+      }
+
+      final boolean sameLastModified = sourceFile.getLastModified() == targetFile.getLastModified();
+      if (_compareLastModified && !sameLastModified)
+      {
+         settle(sourceFile, ComparisonTier.LAST_MODIFIED, false);
+         return;
+      }
+
+      if (_trustLastModified && sameLastModified)
+      {
+         settle(sourceFile, ComparisonTier.LAST_MODIFIED, true);
+         return;
+      }
+
+      final File file1 = sourceFile.getOriginalFile();
+      final File file2 = targetFile.getOriginalFile();
+
+      final ChecksumIndex checksumIndex = sourceFile.getChecksumIndex();
+      if (checksumIndex != null)
+      {
+         final Long checksum1 = checksumIndex.getRecordedChecksum(file1);
+         final Long checksum2 = checksumIndex.getRecordedChecksum(file2);
+
+         if (checksum1 != null && checksum2 != null)
+         {
+            settle(sourceFile, ComparisonTier.CHECKSUM_INDEX, checksum1.equals(checksum2));
+            return;
+         }
+      }
+
+      if (size <= 2 * HEAD_TAIL_SIZE)
+      {
+         settle(sourceFile, ComparisonTier.HEAD_TAIL, FileUtils.regionEquals(file1, file2, 0L, size));
+         return;
+      }
+
+      if (!FileUtils.regionEquals(file1, file2, 0L, HEAD_TAIL_SIZE)
+            || !FileUtils.regionEquals(file1, file2, size - HEAD_TAIL_SIZE, HEAD_TAIL_SIZE))
+      {
+         settle(sourceFile, ComparisonTier.HEAD_TAIL, false);
+         return;
+      }
+
+      if (checksumIndex != null)
+      {
+         // Read the complete files once to have them recorded for the next run
+         final long checksum1 = sourceFile.getChecksum();
+         final long checksum2 = targetFile.getChecksum();
+
+         if (!Thread.currentThread().isInterrupted())
+         {
+            settle(sourceFile, ComparisonTier.CONTENT, checksum1 == checksum2);
+         }
+         return;
+      }
+
+      settle(sourceFile, ComparisonTier.CONTENT,
+            FileUtils.regionEquals(file1, file2, HEAD_TAIL_SIZE, size - 2 * HEAD_TAIL_SIZE));
+   }
+
+   private void settle(final FileInfo sourceFile, final ComparisonTier tier, final boolean contentEqual)
+   {
+      sourceFile.setContentEqual(contentEqual);
+      _settledCounts.incrementAndGet(tier.ordinal());
+   }
+}
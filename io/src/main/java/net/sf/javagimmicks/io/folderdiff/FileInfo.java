@@ -1,6 +1,7 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import net.sf.javagimmicks.io.FileUtils;
@@ -28,17 +29,29 @@ public class FileInfo
    }
 
    private final File _file;
-   private long _checkSum;
+   private long _checksum;
+   private volatile boolean _checksumCalculated;
+   private FileInfo _counterpart;
+   private volatile Boolean _contentEqual;
    private final PathInfo _pathInfo;
    private final Origin _origin;
+   private final ChecksumIndex _checksumIndex;
 
-   FileInfo(final File file, final int skipFragments, final Origin origin)
+   // Size and change date are read once on first access
+   private long _size;
+   private long _lastModified;
+   private volatile boolean _attributesRead;
+
+   FileInfo(final File file, final List<String> pathFragments, final boolean directory, final Origin origin,
+         final ChecksumIndex checksumIndex)
    {
       _file = file;
 
-      _pathInfo = new PathInfo(file, skipFragments);
+      _pathInfo = new PathInfo(pathFragments, directory);
 
       _origin = origin;
+
+      _checksumIndex = checksumIndex;
    }
 
    /**
@@ -61,35 +74,53 @@ public class FileInfo
     */
    public boolean isDirectory()
    {
-      return _file.isDirectory();
+      return _pathInfo.isDirectory();
    }
 
    /**
-    * Returns the size (byte count) of the underlying {@link File}.
+    * Returns the size (byte count) of the underlying {@link File} - as read on
+    * the first call of this method or {@link #getLastModified()}.
     * 
     * @return the size (byte count) of the underlying {@link File}
     */
    public long getSize()
    {
-      return _file.length();
+      readAttributes();
+      return _size;
    }
 
    /**
-    * Returns the change date of the underlying {@link File}.
+    * Returns the change date of the underlying {@link File} - as read on the
+    * first call of this method or {@link #getSize()}.
     * 
     * @return the change date of the underlying {@link File}
     */
    public long getLastModified()
    {
-      return _file.lastModified();
+      readAttributes();
+      return _lastModified;
+   }
+
+   private void readAttributes()
+   {
+      if (!_attributesRead)
+      {
+         _size = _file.length();
+         _lastModified = _file.lastModified();
+         _attributesRead = true;
+      }
    }
 
    /**
     * Returns the checksum of the underlying {@link File} using
-    * {@link FileUtils#getChecksum(File)} for checksum calculation.
+    * {@link FileUtils#getChecksum(File)} for checksum calculation - or the
+    * {@link ChecksumIndex} of the {@link FolderDiffBuilder}, if one was set.
+    * <p>
+    * The checksum is calculated only once and cached afterwards.
     * 
     * @return the checksum of the underlying {@link File}
     * @see FileUtils#getChecksum(File)
+    * @see ChecksumIndex#getChecksum(File)
     */
    public long getChecksum()
    {
@@ -98,12 +129,82 @@ public class FileInfo
          return 0L;
       }
 
-      if (_checkSum == 0L)
+      if (!_checksumCalculated)
+      {
+         final long checksum = _checksumIndex != null ? _checksumIndex.getChecksum(_file) : FileUtils
+               .getChecksum(_file);
+
+         // An interrupted calculation is incomplete - so don't cache it
+         if (Thread.currentThread().isInterrupted())
+         {
+            return checksum;
+         }
+
+         _checksum = checksum;
+         _checksumCalculated = true;
+      }
+
+      return _checksum;
+   }
+
+   /**
+    * Returns the {@link FileInfo} with the same path on the other side of the
+    * comparison - if it is a file as well and both are compared by content.
+    * 
+    * @return the counterpart {@link FileInfo} or {@code null}
+    */
+   FileInfo getCounterpart()
+   {
+      return _counterpart;
+   }
+
+   void setCounterpart(final FileInfo counterpart)
+   {
+      _counterpart = counterpart;
+      counterpart._counterpart = this;
+   }
+
+   /**
+    * Returns if the contents of the underlying {@link File} and the one of the
+    * {@link #getCounterpart() counterpart} are equal using
+    * {@link FileUtils#contentEquals(File, File)}. The result is calculated
+    * only once and cached for both sides.
+    */
+   boolean isContentEqual()
+   {
+      Boolean contentEqual = _contentEqual;
+      if (contentEqual == null)
       {
-         _checkSum = FileUtils.getChecksum(_file);
+         try
+         {
+            contentEqual = FileUtils.contentEquals(_file, _counterpart._file);
+         }
+         catch (final IOException e)
+         {
+            contentEqual = Boolean.FALSE;
+         }
+
+         // An interrupted comparison is incomplete - so don't cache it
+         if (Thread.currentThread().isInterrupted())
+         {
+            return contentEqual;
+         }
+
+         setContentEqual(contentEqual);
       }
 
-      return _checkSum;
+      return contentEqual;
+   }
+
+   void setContentEqual(final boolean contentEqual)
+   {
+      _counterpart._contentEqual = contentEqual;
+      _contentEqual = contentEqual;
+   }
+
+   ChecksumIndex getChecksumIndex()
+   {
+      return _checksumIndex;
    }
 
    /**
@@ -1,20 +1,23 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import net.sf.javagimmicks.io.FileTraverser;
-import net.sf.javagimmicks.io.FileTraverser.FileVisitor;
 import net.sf.javagimmicks.io.FileTraverser.TypeFilter;
-import net.sf.javagimmicks.io.FileUtils;
-import net.sf.javagimmicks.io.FilenameFilterFileFilterAdapter;
-import net.sf.javagimmicks.io.FilenameFilterFileFilterAdapter.Mode;
+import net.sf.javagimmicks.io.FileTraverser.TypedFileVisitor;
 import net.sf.javagimmicks.io.folderdiff.FileInfo.Origin;
 
 class FileScanner
 {
+   private static final Pattern SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(File.separator));
+
    private final Origin _origin;
 
    private final FolderDiffBuilder _builder;
@@ -22,10 +25,11 @@ class FileScanner
    private final FilenameFilter _filter;
    private final File _rootFile;
    private final boolean _recursive;
+   private final int _parallelism;
 
    public FileScanner(final Origin origin, final FolderDiffBuilder builder, final File rootFile,
          final FilenameFilter filter,
-         final boolean recursive)
+         final boolean recursive, final int parallelism)
    {
       if (rootFile == null)
       {
@@ -39,37 +43,80 @@ class FileScanner
       _rootFile = rootFile;
       _filter = filter;
       _recursive = recursive;
+      _parallelism = parallelism;
    }
 
+   /**
+    * Scans the root folder and returns the found {@link FileInfo}s sorted by
+    * {@link FileInfoComparatorBuilder#PATH_COMPARATOR path}.
+    */
    public List<FileInfo> scan()
    {
-      final ArrayList<FileInfo> result = new ArrayList<FileInfo>();
+      final List<FileInfo> result = Collections.synchronizedList(new ArrayList<FileInfo>());
 
       if (_rootFile.isDirectory())
       {
-         final int skipSegments = FileUtils.getPathSegments(_rootFile).size();
+         // All visited Files are created by the traverser below the root, so
+         // their relative path can be derived without querying the file system
+         final String rootPath = _rootFile.getPath();
+         final int skipLength = rootPath.endsWith(File.separator) ? rootPath.length() : rootPath.length() + 1;
+
+         final ChecksumIndex checksumIndex = _builder.getChecksumIndex();
 
-         final FileVisitor scanVisitor = new FileVisitor()
+         final TypedFileVisitor scanVisitor = new TypedFileVisitor()
          {
             @Override
-            public void visit(final File file)
+            public void visit(final File file, final boolean directory)
             {
-               if (file.isDirectory())
+               if (directory)
                {
-                  _builder.fireEvent(new FolderDiffEvent(_builder, file));
+                  // Listeners are never called concurrently
+                  synchronized (_builder)
+                  {
+                     _builder.fireEvent(new FolderDiffEvent(_builder, file));
+                  }
                }
-               result.add(new FileInfo(file, skipSegments, _origin));
+
+               final List<String> pathFragments = Arrays.asList(SEPARATOR_PATTERN.split(file.getPath().substring(
+                     skipLength)));
+
+               result.add(new FileInfo(file, pathFragments, directory, _origin, checksumIndex));
             }
          };
 
          final FileTraverser traverser = new FileTraverser(_rootFile);
-         traverser.setFileFilter(new FilenameFilterFileFilterAdapter(_filter, Mode.BOTH));
+         traverser.setFileFilter(new FilenameFileFilter(_filter));
          traverser.setTypeFilter(TypeFilter.BOTH);
          traverser.setRecursive(_recursive);
+         traverser.setParallelism(_parallelism);
 
          traverser.run(scanVisitor);
       }
 
-      return result;
+      final List<FileInfo> sortedResult = new ArrayList<FileInfo>(result);
+      Collections.sort(sortedResult, FileInfoComparatorBuilder.PATH_COMPARATOR);
+
+      return sortedResult;
+   }
+
+   /**
+    * Applies a {@link FilenameFilter} to files and folders alike - so unlike
+    * {@link net.sf.javagimmicks.io.FilenameFilterFileFilterAdapter} it does not
+    * need to query the type of the given {@link File}s.
+    */
+   private static class FilenameFileFilter implements FileFilter
+   {
+      private final FilenameFilter _filter;
+
+      public FilenameFileFilter(final FilenameFilter filter)
+      {
+         _filter = filter;
+      }
+
+      @Override
+      public boolean accept(final File file)
+      {
+         return _filter.accept(file.getParentFile(), file.getName());
+      }
    }
 }
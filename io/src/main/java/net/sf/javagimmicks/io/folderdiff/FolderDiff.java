@@ -1,10 +1,17 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * A model class representing the results of a folder comparison.
+ * <p>
+ * If the comparison was done in {@link FolderDiffBuilder#setStreaming(boolean)
+ * streaming mode}, this is only a {@link #isSummaryOnly() summary}: the
+ * {@link PathInfo} sets are empty and only the numbers of paths per
+ * classification are available.
  */
 public class FolderDiff
 {
@@ -17,10 +24,18 @@ public class FolderDiff
    private final SortedSet<PathInfo> _filesEqual;
    private final SortedSet<PathInfo> _filesAll;
 
+   private final long _equalCount;
+   private final long _differentCount;
+   private final long _sourceOnlyCount;
+   private final long _targetOnlyCount;
+   private final boolean _summaryOnly;
+
+   private final ComparisonStatistics _statistics;
+
    FolderDiff(final File sourceFolder, final File targetFolder,
          final SortedSet<PathInfo> all, final SortedSet<PathInfo> equal,
          final SortedSet<PathInfo> different, final SortedSet<PathInfo> sourceOnly,
-         final SortedSet<PathInfo> targetOnly)
+         final SortedSet<PathInfo> targetOnly, final ComparisonStatistics statistics)
    {
       _sourceFolder = sourceFolder;
       _targetFolder = targetFolder;
@@ -30,6 +45,52 @@ public class FolderDiff
       _filesTargetOnly = targetOnly;
       _filesEqual = equal;
       _filesAll = all;
+
+      _equalCount = equal.size();
+      _differentCount = different.size();
+      _sourceOnlyCount = sourceOnly.size();
+      _targetOnlyCount = targetOnly.size();
+      _summaryOnly = false;
+
+      _statistics = statistics;
+   }
+
+   FolderDiff(final File sourceFolder, final File targetFolder,
+         final long equalCount, final long differentCount, final long sourceOnlyCount, final long targetOnlyCount,
+         final ComparisonStatistics statistics)
+   {
+      _sourceFolder = sourceFolder;
+      _targetFolder = targetFolder;
+
+      final SortedSet<PathInfo> empty = Collections.unmodifiableSortedSet(new TreeSet<PathInfo>(
+            FileInfoComparatorBuilder.PATH_INFO_COMPARATOR));
+
+      _filesDifferent = empty;
+      _filesSourceOnly = empty;
+      _filesTargetOnly = empty;
+      _filesEqual = empty;
+      _filesAll = empty;
+
+      _equalCount = equalCount;
+      _differentCount = differentCount;
+      _sourceOnlyCount = sourceOnlyCount;
+      _targetOnlyCount = targetOnlyCount;
+      _summaryOnly = true;
+
+      _statistics = statistics;
+   }
+
+   /**
+    * Returns if this instance is only a summary of the comparison - i.e. if
+    * all {@link PathInfo} sets are empty and only the numbers of paths are
+    * available.
+    * 
+    * @return if this instance is only a summary of the comparison
+    * @see FolderDiffBuilder#setStreaming(boolean)
+    */
+   public boolean isSummaryOnly()
+   {
+      return _summaryOnly;
    }
 
    /**
@@ -115,4 +176,80 @@ public class FolderDiff
    {
       return _filesAll;
    }
+
+   /**
+    * Returns the number of {@link File}s that are different in the
+    * {@link #getSourceFolder() source folder} and {@link #getTargetFolder()
+    * target folder} (also available if this is a {@link #isSummaryOnly()
+    * summary}).
+    * 
+    * @return the number of different {@link File}s
+    */
+   public long getDifferentCount()
+   {
+      return _differentCount;
+   }
+
+   /**
+    * Returns the number of {@link File}s that are only present in the
+    * {@link #getSourceFolder() source folder} (also available if this is a
+    * {@link #isSummaryOnly() summary}).
+    * 
+    * @return the number of {@link File}s only present in the
+    *         {@link #getSourceFolder() source folder}
+    */
+   public long getSourceOnlyCount()
+   {
+      return _sourceOnlyCount;
+   }
+
+   /**
+    * Returns the number of {@link File}s that are only present in the
+    * {@link #getTargetFolder() target folder} (also available if this is a
+    * {@link #isSummaryOnly() summary}).
+    * 
+    * @return the number of {@link File}s only present in the
+    *         {@link #getTargetFolder() target folder}
+    */
+   public long getTargetOnlyCount()
+   {
+      return _targetOnlyCount;
+   }
+
+   /**
+    * Returns the number of {@link File}s that are equal in the
+    * {@link #getSourceFolder() source folder} and {@link #getTargetFolder()
+    * target folder} (also available if this is a {@link #isSummaryOnly()
+    * summary}).
+    * 
+    * @return the number of equal {@link File}s
+    */
+   public long getEqualCount()
+   {
+      return _equalCount;
+   }
+
+   /**
+    * Returns the number of all compared {@link File}s (also available if this
+    * is a {@link #isSummaryOnly() summary}).
+    * 
+    * @return the number of all compared {@link File}s
+    */
+   public long getAllCount()
+   {
+      return _equalCount + _differentCount + _sourceOnlyCount + _targetOnlyCount;
+   }
+
+   /**
+    * Returns the {@link ComparisonStatistics} which tell how many {@link File}s
+    * were settled by which {@link ComparisonTier} (only filled if
+    * {@link FolderDiffBuilder#setCompareChecksum(boolean) checksum comparison}
+    * was enabled).
+    * 
+    * @return the {@link ComparisonStatistics} of the comparison
+    */
+   public ComparisonStatistics getStatistics()
+   {
+      return _statistics;
+   }
 }
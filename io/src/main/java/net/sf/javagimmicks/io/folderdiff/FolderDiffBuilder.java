@@ -1,22 +1,24 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 
-import net.sf.javagimmicks.collections.CollectionDifference;
-import net.sf.javagimmicks.collections.diff.Difference;
-import net.sf.javagimmicks.collections.diff.DifferenceList;
-import net.sf.javagimmicks.collections.diff.DifferenceUtils;
-import net.sf.javagimmicks.collections.transformer.TransformerUtils;
 import net.sf.javagimmicks.event.EventListener;
 import net.sf.javagimmicks.event.ObservableBase;
+import net.sf.javagimmicks.io.FileTraverser;
 import net.sf.javagimmicks.io.folderdiff.FileInfo.Origin;
-import net.sf.javagimmicks.util.Function;
+import net.sf.javagimmicks.io.folderdiff.FolderDiffEvent.Classification;
+import net.sf.javagimmicks.io.folderdiff.MergeJoinDiffer.ResultHandler;
 
 /**
  * This class is the starting point for comparing two folders - it allows to
@@ -24,7 +26,9 @@ import net.sf.javagimmicks.util.Function;
  * {@link FolderDiff} object which wraps the results.
  * <p>
  * Folder comparison always needs a source and target folder specification and
- * can be performed {@link #setRecursive(boolean) recursively} or not.
+ * can be performed {@link #setRecursive(boolean) recursively} or not. Both
+ * folders are scanned at the same time, each by a bounded number of
+ * {@link Thread}s - see {@link #setScanParallelism(int)}.
  * <p>
  * It is also configurable how {@link File} contents are to be compared. Clients
  * can activate any of the following modes (all are off by default):
@@ -37,6 +41,24 @@ import net.sf.javagimmicks.util.Function;
  * first-hit algorithm (e.g. checksum is not compared if size already
  * differs).</b>
  * <p>
+ * If checksum comparison is enabled, all files that exist on both sides are
+ * compared up front by a bounded number of worker {@link Thread}s (see
+ * {@link #setChecksumParallelism(int)}) in several {@link ComparisonTier
+ * tiers}: files of different size are never read, and the first and last bytes
+ * are compared before the rest of the contents. Optionally files with the same
+ * size and change date can be considered equal without reading them at all -
+ * see {@link #setTrustLastModified(boolean)} - or compared by the checksums
+ * recorded in a previous run - see {@link #setChecksumIndex(ChecksumIndex)}.
+ * How many files were settled by which tier is reported via
+ * {@link FolderDiff#getStatistics()}.
+ * <p>
+ * Every path is reported to registered {@link EventListener}s via a
+ * {@link FolderDiffEvent} of type {@link FolderDiffEvent.Type#PathClassified}
+ * as soon as it is classified. For very large folders, the
+ * {@link #setStreaming(boolean) streaming mode} walks both folders level by
+ * level and only returns a summary {@link FolderDiff} - so memory consumption
+ * depends on the folder depth instead of the total number of files.
+ * <p>
  * Finally it is possible to filter compared files/folders per side via
  * includes/excludes (following Ant style).
  */
@@ -55,6 +77,23 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
    private final FileInfoComparatorBuilder _comparatorBuilder = new FileInfoComparatorBuilder(this);
 
    private boolean _recursive;
+   private int _checksumParallelism = DEFAULT_CHECKSUM_PARALLELISM;
+   private int _scanParallelism = DEFAULT_SCAN_PARALLELISM;
+   private boolean _trustLastModified;
+   private ChecksumIndex _checksumIndex;
+   private boolean _streaming;
+
+   /**
+    * The default number of {@link Thread}s used for comparing file contents -
+    * the number of available processors.
+    */
+   public static final int DEFAULT_CHECKSUM_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+   /**
+    * The default number of {@link Thread}s used for scanning each of the two
+    * folders - the number of available processors.
+    */
+   public static final int DEFAULT_SCAN_PARALLELISM = Runtime.getRuntime().availableProcessors();
 
    /**
     * Creates a new instance for the given {@link File source folder} and
@@ -93,56 +132,111 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
     * Starts a new comparison run and wraps the results into a
     * {@link FolderDiff} object.
     * <p>
+    * Both folders are scanned into path sorted lists which are then classified
+    * in a single linear pass - so the comparison scales with the number of
+    * scanned files, no matter how much the folders differ.
+    * <p>
     * <b>Attention:</b> this operation is not Thread-safe! Client should take
     * care about proper synchronization!
     * 
     * @return the {@link FolderDiff} object containing the results of the
     *         comparison
+    * @throws IllegalStateException
+    *            if the calling {@link Thread} was interrupted during the scan
+    *            (its interrupted state is restored)
     */
    public FolderDiff buildFolderDiff()
    {
       final IncludeExcludeFilenameFilter sourceFilter = new IncludeExcludeFilenameFilter(_sourceIncludes,
             _sourceExcludes);
-      final FileScanner sourceScanner = new FileScanner(Origin.Source, this, _sourceFolder, sourceFilter, _recursive);
-      final List<FileInfo> sourceFiles = sourceScanner.scan();
-
       final IncludeExcludeFilenameFilter targetFilter = new IncludeExcludeFilenameFilter(_targetIncludes,
             _targetExcludes);
-      final FileScanner targetScanner = new FileScanner(Origin.Target, this, _targetFolder, targetFilter, _recursive);
-      final List<FileInfo> targetFiles = targetScanner.scan();
 
-      final SortedSet<PathInfo> filesAll = new TreeSet<PathInfo>(PATH_COMPARATOR);
-      filesAll.addAll(getPathInfoCollection(sourceFiles));
-      filesAll.addAll(getPathInfoCollection(targetFiles));
+      final Comparator<FileInfo> comparator = _comparatorBuilder.buildComparator();
+
+      // One bounded pool of comparison Threads for the whole run
+      final ExecutorService compareExecutor = _comparatorBuilder.isCompareChecksum() ? ContentComparer
+            .newExecutor(_checksumParallelism) : null;
+      try
+      {
+         final ContentComparer contentComparer = new ContentComparer(compareExecutor,
+               compareExecutor != null ? _checksumParallelism : 1, isCompareLastModified(), _trustLastModified);
+
+         return _streaming ? buildStreamingFolderDiff(sourceFilter, targetFilter, comparator, contentComparer)
+               : buildScannedFolderDiff(sourceFilter, targetFilter, comparator, contentComparer);
+      }
+      finally
+      {
+         if (compareExecutor != null)
+         {
+            compareExecutor.shutdownNow();
+         }
+      }
+   }
+
+   private FolderDiff buildStreamingFolderDiff(final FilenameFilter sourceFilter, final FilenameFilter targetFilter,
+         final Comparator<FileInfo> comparator, final ContentComparer contentComparer)
+   {
+      final ResultCollector collector = new ResultCollector(false);
 
-      final DifferenceList<FileInfo> differences = DifferenceUtils.findDifferences(sourceFiles, targetFiles,
-            _comparatorBuilder.buildComparator());
+      new StreamingDiffer(this, sourceFilter, targetFilter, _recursive, comparator,
+            _comparatorBuilder.isCompareChecksum() ? contentComparer : null, collector).diff(_sourceFolder,
+            _targetFolder);
 
-      final SortedSet<PathInfo> filesDifferent = new TreeSet<PathInfo>(PATH_COMPARATOR);
-      final SortedSet<PathInfo> filesSourceOnly = new TreeSet<PathInfo>(PATH_COMPARATOR);
-      final SortedSet<PathInfo> filesTargetOnly = new TreeSet<PathInfo>(PATH_COMPARATOR);
+      return new FolderDiff(_sourceFolder, _targetFolder, collector._equalCount, collector._differentCount,
+            collector._sourceOnlyCount, collector._targetOnlyCount, contentComparer.getStatistics());
+   }
 
-      for (final Difference<FileInfo> difference : differences)
+   private FolderDiff buildScannedFolderDiff(final FilenameFilter sourceFilter, final FilenameFilter targetFilter,
+         final Comparator<FileInfo> comparator, final ContentComparer contentComparer)
+   {
+      final FileScanner sourceScanner = new FileScanner(Origin.Source, this, _sourceFolder, sourceFilter, _recursive,
+            _scanParallelism);
+      final FileScanner targetScanner = new FileScanner(Origin.Target, this, _targetFolder, targetFilter, _recursive,
+            _scanParallelism);
+
+      // Scan the source folder in the background and the target folder here
+      final FutureTask<List<FileInfo>> sourceScan = new FutureTask<List<FileInfo>>(new Callable<List<FileInfo>>()
+      {
+         @Override
+         public List<FileInfo> call()
+         {
+            return sourceScanner.scan();
+         }
+      });
+
+      final Thread sourceScanThread = new Thread(sourceScan, "FolderDiff-Scan");
+      sourceScanThread.setDaemon(true);
+      sourceScanThread.start();
+
+      final List<FileInfo> targetFiles;
+      try
       {
-         final List<FileInfo> listDelete = difference.deleteRange();
-         final List<FileInfo> listAdd = difference.addRange();
+         targetFiles = targetScanner.scan();
+      }
+      catch (final RuntimeException e)
+      {
+         sourceScan.cancel(true);
+         throw e;
+      }
+
+      final List<FileInfo> sourceFiles = getScanResult(sourceScan);
+      checkInterrupted();
 
-         final CollectionDifference<FileInfo> collectionDifference = CollectionDifference.create(listDelete,
-               listAdd);
+      if (_comparatorBuilder.isCompareChecksum())
+      {
+         contentComparer.compare(sourceFiles, targetFiles);
 
-         filesDifferent.addAll(getPathInfoCollection(collectionDifference.getBoth()));
-         filesSourceOnly.addAll(getPathInfoCollection(collectionDifference.getOnlyA()));
-         filesTargetOnly.addAll(getPathInfoCollection(collectionDifference.getOnlyB()));
+         // An interrupted comparison leaves unsettled pairs behind
+         checkInterrupted();
       }
 
-      final SortedSet<PathInfo> filesEqual = new TreeSet<PathInfo>(filesAll);
-      filesEqual.removeAll(filesDifferent);
-      filesEqual.removeAll(filesSourceOnly);
-      filesEqual.removeAll(filesTargetOnly);
+      final ResultCollector collector = new ResultCollector(true);
+      MergeJoinDiffer.diff(sourceFiles, targetFiles, comparator, collector);
 
-      return new FolderDiff(
-            _sourceFolder, _targetFolder,
-            filesAll, filesEqual, filesDifferent, filesSourceOnly, filesTargetOnly);
+      return new FolderDiff(_sourceFolder, _targetFolder, collector._filesAll, collector._filesEqual,
+            collector._filesDifferent, collector._filesSourceOnly, collector._filesTargetOnly,
+            contentComparer.getStatistics());
    }
 
    /**
@@ -215,6 +309,64 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
       return _recursive;
    }
 
+   /**
+    * Returns the maximum number of {@link Thread}s used for comparing
+    * {@link File} contents (if checksum comparison is enabled).
+    * 
+    * @return the maximum number of {@link Thread}s used for comparing
+    *         {@link File} contents
+    */
+   public int getChecksumParallelism()
+   {
+      return _checksumParallelism;
+   }
+
+   /**
+    * Returns the maximum number of {@link Thread}s used for scanning each of
+    * the two folders.
+    * 
+    * @return the maximum number of {@link Thread}s used for scanning each of
+    *         the two folders
+    */
+   public int getScanParallelism()
+   {
+      return _scanParallelism;
+   }
+
+   /**
+    * Returns if {@link File}s with the same size and change date are
+    * considered equal without comparing their contents.
+    * 
+    * @return if {@link File}s with the same size and change date are
+    *         considered equal without comparing their contents
+    */
+   public boolean isTrustLastModified()
+   {
+      return _trustLastModified;
+   }
+
+   /**
+    * Returns the {@link ChecksumIndex} used for looking up and recording
+    * {@link File} checksums.
+    * 
+    * @return the {@link ChecksumIndex} or {@code null} if none is used
+    */
+   public ChecksumIndex getChecksumIndex()
+   {
+      return _checksumIndex;
+   }
+
+   /**
+    * Returns if the comparison is done in streaming mode.
+    * 
+    * @return if the comparison is done in streaming mode
+    * @see #setStreaming(boolean)
+    */
+   public boolean isStreaming()
+   {
+      return _streaming;
+   }
+
    /**
     * Returns if {@link File}s should be compared via checksum.
     * 
@@ -372,6 +524,112 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
       return this;
    }
 
+   /**
+    * Sets the maximum number of {@link Thread}s used for comparing
+    * {@link File} contents if checksum comparison is enabled (including the
+    * {@link Thread} calling {@link #buildFolderDiff()}). The {@link Thread}s
+    * only exist during {@link #buildFolderDiff()}.
+    * 
+    * @param checksumParallelism
+    *           the maximum number of {@link Thread}s - must be at least
+    *           {@code 1}
+    * @return the {@link FolderDiffBuilder} itself
+    * @throws IllegalArgumentException
+    *            if the given number is smaller than {@code 1}
+    */
+   public FolderDiffBuilder setChecksumParallelism(final int checksumParallelism)
+   {
+      if (checksumParallelism < 1)
+      {
+         throw new IllegalArgumentException("Checksum parallelism must be at least 1!");
+      }
+
+      _checksumParallelism = checksumParallelism;
+      return this;
+   }
+
+   /**
+    * Sets the maximum number of {@link Thread}s used for scanning each of the
+    * two folders (which are always scanned at the same time). Registered
+    * {@link EventListener}s are called from these {@link Thread}s - but never
+    * concurrently.
+    * 
+    * @param scanParallelism
+    *           the maximum number of {@link Thread}s - must be at least
+    *           {@code 1}
+    * @return the {@link FolderDiffBuilder} itself
+    * @throws IllegalArgumentException
+    *            if the given number is smaller than {@code 1}
+    * @see FileTraverser#setParallelism(int)
+    */
+   public FolderDiffBuilder setScanParallelism(final int scanParallelism)
+   {
+      if (scanParallelism < 1)
+      {
+         throw new IllegalArgumentException("Scan parallelism must be at least 1!");
+      }
+
+      _scanParallelism = scanParallelism;
+      return this;
+   }
+
+   /**
+    * Enables or disables the change date short-cut of checksum comparison: if
+    * enabled, {@link File}s with the same size and change date are considered
+    * equal without comparing their contents (which is much faster but misses
+    * changes that preserved the change date).
+    * 
+    * @param trustLastModified
+    *           if the change date short-cut should be enabled or disabled
+    * @return the {@link FolderDiffBuilder} itself
+    */
+   public FolderDiffBuilder setTrustLastModified(final boolean trustLastModified)
+   {
+      _trustLastModified = trustLastModified;
+      return this;
+   }
+
+   /**
+    * Sets a {@link ChecksumIndex} for incremental comparisons. If checksum
+    * comparison is enabled, pairs of {@link File}s with up to date checksums in
+    * the index are compared by these checksums without reading them, and the
+    * checksums of all completely read {@link File}s are recorded. Call
+    * {@link ChecksumIndex#store()} afterwards to persist the index.
+    * 
+    * @param checksumIndex
+    *           the {@link ChecksumIndex} to use or {@code null} to use none
+    * @return the {@link FolderDiffBuilder} itself
+    */
+   public FolderDiffBuilder setChecksumIndex(final ChecksumIndex checksumIndex)
+   {
+      _checksumIndex = checksumIndex;
+      return this;
+   }
+
+   /**
+    * Enables or disables the streaming mode: if enabled, the source and target
+    * folder are walked side by side one folder level at a time instead of
+    * being scanned completely, the classification of every path is only
+    * reported to the registered {@link EventListener}s (via
+    * {@link FolderDiffEvent}s of type
+    * {@link FolderDiffEvent.Type#PathClassified}) and
+    * {@link #buildFolderDiff()} returns a {@link FolderDiff#isSummaryOnly()
+    * summary} only. So the memory consumption depends on the depth of the
+    * folders instead of the number of contained {@link File}s.
+    * <p>
+    * The {@link #setScanParallelism(int) scan parallelism} is not used in
+    * streaming mode.
+    * 
+    * @param streaming
+    *           if streaming mode should be enabled or disabled
+    * @return the {@link FolderDiffBuilder} itself
+    */
+   public FolderDiffBuilder setStreaming(final boolean streaming)
+   {
+      _streaming = streaming;
+      return this;
+   }
+
    /**
     * Enables or disables {@link File} change date comparison.
     * 
@@ -421,7 +679,16 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
     * <li>Clears all include/exclude filters on source and target side</li>
     * <li>Disables all three file comparison options (file will only be compared
     * by existence)</li>
+    * <li>Disables the {@link #setTrustLastModified(boolean) change date
+    * short-cut}</li>
+    * <li>Removes the {@link #setChecksumIndex(ChecksumIndex) checksum
+    * index}</li>
+    * <li>Resets the {@link #setScanParallelism(int) scan parallelism} to
+    * {@link #DEFAULT_SCAN_PARALLELISM}</li>
     * <li>Enables recursion</li>
+    * <li>Resets the {@link #setChecksumParallelism(int) checksum parallelism}
+    * to {@link #DEFAULT_CHECKSUM_PARALLELISM}</li>
+    * <li>Disables the {@link #setStreaming(boolean) streaming mode}</li>
     * </ul>
     * 
     * @return the {@link FolderDiffBuilder} itself
@@ -436,22 +703,126 @@ public class FolderDiffBuilder extends ObservableBase<FolderDiffEvent>
       setCompareChecksum(false);
       setCompareLastModified(false);
       setCompareSize(false);
+      setTrustLastModified(false);
+      setChecksumIndex(null);
+      setScanParallelism(DEFAULT_SCAN_PARALLELISM);
       setRecursive(true);
+      setChecksumParallelism(DEFAULT_CHECKSUM_PARALLELISM);
+      setStreaming(false);
 
       return this;
    }
 
-   private static Collection<PathInfo> getPathInfoCollection(final Collection<FileInfo> collection)
+   /**
+    * Aborts the current run if the calling {@link Thread} is interrupted -
+    * keeping the interrupted state.
+    */
+   static void checkInterrupted()
    {
-      return TransformerUtils.decorate(collection, FILE_TO_PATH_INFO);
+      if (Thread.currentThread().isInterrupted())
+      {
+         throw new IllegalStateException("Scan was interrupted!");
+      }
+   }
+
+   private static List<FileInfo> getScanResult(final FutureTask<List<FileInfo>> scan)
+   {
+      try
+      {
+         return scan.get();
+      }
+      catch (final InterruptedException e)
+      {
+         scan.cancel(true);
+         Thread.currentThread().interrupt();
+
+         // Diffing a partial scan would report wrong results
+         throw new IllegalStateException("Scan was interrupted!", e);
+      }
+      catch (final ExecutionException e)
+      {
+         final Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+         else if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new IllegalStateException(cause);
+      }
    }
 
-   private static final Function<FileInfo, PathInfo> FILE_TO_PATH_INFO = new Function<FileInfo, PathInfo>()
+   /**
+    * Fires a {@link FolderDiffEvent} for every classified path and counts
+    * them - and optionally collects them as well.
+    */
+   private class ResultCollector implements ResultHandler
    {
+      private final SortedSet<PathInfo> _filesAll;
+      private final SortedSet<PathInfo> _filesEqual;
+      private final SortedSet<PathInfo> _filesDifferent;
+      private final SortedSet<PathInfo> _filesSourceOnly;
+      private final SortedSet<PathInfo> _filesTargetOnly;
+
+      private long _equalCount;
+      private long _differentCount;
+      private long _sourceOnlyCount;
+      private long _targetOnlyCount;
+
+      public ResultCollector(final boolean collect)
+      {
+         _filesAll = collect ? new TreeSet<PathInfo>(PATH_COMPARATOR) : null;
+         _filesEqual = collect ? new TreeSet<PathInfo>(PATH_COMPARATOR) : null;
+         _filesDifferent = collect ? new TreeSet<PathInfo>(PATH_COMPARATOR) : null;
+         _filesSourceOnly = collect ? new TreeSet<PathInfo>(PATH_COMPARATOR) : null;
+         _filesTargetOnly = collect ? new TreeSet<PathInfo>(PATH_COMPARATOR) : null;
+      }
+
       @Override
-      public PathInfo apply(final FileInfo source)
+      public void onEqual(final FileInfo sourceFile, final FileInfo targetFile)
       {
-         return source.getPathInfo();
+         ++_equalCount;
+         report(Classification.Equal, sourceFile, targetFile, _filesEqual);
       }
-   };
+
+      @Override
+      public void onDifferent(final FileInfo sourceFile, final FileInfo targetFile)
+      {
+         ++_differentCount;
+         report(Classification.Different, sourceFile, targetFile, _filesDifferent);
+      }
+
+      @Override
+      public void onSourceOnly(final FileInfo sourceFile)
+      {
+         ++_sourceOnlyCount;
+         report(Classification.SourceOnly, sourceFile, null, _filesSourceOnly);
+      }
+
+      @Override
+      public void onTargetOnly(final FileInfo targetFile)
+      {
+         ++_targetOnlyCount;
+         report(Classification.TargetOnly, null, targetFile, _filesTargetOnly);
+      }
+
+      private void report(final Classification classification, final FileInfo sourceFile,
+            final FileInfo targetFile, final SortedSet<PathInfo> files)
+      {
+         final FolderDiffEvent event = new FolderDiffEvent(FolderDiffBuilder.this, classification, sourceFile,
+               targetFile);
+         fireEvent(event);
+
+         if (files != null)
+         {
+            final PathInfo pathInfo = event.getPathInfo();
+
+            files.add(pathInfo);
+            _filesAll.add(pathInfo);
+         }
+      }
+   }
 }
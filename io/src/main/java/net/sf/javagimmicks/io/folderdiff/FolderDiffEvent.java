@@ -6,7 +6,8 @@ import net.sf.javagimmicks.event.Event;
 
 /**
  * An {@link Event} implementation representing simple status information about
- * a folder comparison scan run.
+ * a folder comparison scan run - including the classification of every
+ * compared path as soon as it is known.
  * 
  * @see FolderDiffBuilder#buildFolderDiff()
  */
@@ -25,13 +26,47 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       /**
        * A source and target {@link FileInfo file} were compared
        */
-      FilesCompared
+      FilesCompared,
+
+      /**
+       * A path was classified - see {@link FolderDiffEvent#getClassification()}
+       */
+      PathClassified
+   }
+
+   /**
+    * The possible classifications of a path reported by
+    * {@link FolderDiffEvent}s of {@link Type} {@link Type#PathClassified}.
+    */
+   public static enum Classification
+   {
+      /**
+       * The path exists in the source and target folder with equal contents
+       */
+      Equal,
+
+      /**
+       * The path exists in the source and target folder with different
+       * contents
+       */
+      Different,
+
+      /**
+       * The path only exists in the source folder
+       */
+      SourceOnly,
+
+      /**
+       * The path only exists in the target folder
+       */
+      TargetOnly
    }
 
    private final FolderDiffBuilder _source;
    private final Type _type;
 
    private final File _scannedFolder;
+   private final Classification _classification;
 
    private final FileInfo _sourceFileInfo;
    private final FileInfo _targetFileInfo;
@@ -42,6 +77,7 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       _type = Type.FolderScanned;
 
       _scannedFolder = scannedFolder;
+      _classification = null;
 
       _sourceFileInfo = null;
       _targetFileInfo = null;
@@ -53,6 +89,7 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       _type = Type.FilesCompared;
 
       _scannedFolder = null;
+      _classification = null;
 
       if (fileInfo1.isSource() && fileInfo2.isTarget())
       {
@@ -71,6 +108,19 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       }
    }
 
+   FolderDiffEvent(final FolderDiffBuilder source, final Classification classification,
+         final FileInfo sourceFileInfo, final FileInfo targetFileInfo)
+   {
+      _source = source;
+      _type = Type.PathClassified;
+
+      _scannedFolder = null;
+      _classification = classification;
+
+      _sourceFileInfo = sourceFileInfo;
+      _targetFileInfo = targetFileInfo;
+   }
+
    /**
     * Returns the {@link Type} of this event.
     * 
@@ -105,6 +155,18 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       return getType() == Type.FilesCompared;
    }
 
+   /**
+    * Returns if the {@link #getType() Type} of this event is
+    * {@link Type#PathClassified}.
+    * 
+    * @return if the {@link #getType() Type} of this event is
+    *         {@link Type#PathClassified}
+    */
+   public boolean isPathClassified()
+   {
+      return getType() == Type.PathClassified;
+   }
+
    /**
     * Returns the scanned {@link File folder} if the event {@link #getType()
     * Type} is {@link Type#FolderScanned}, otherwise {@code null}.
@@ -117,12 +179,46 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
       return _scannedFolder;
    }
 
+   /**
+    * Returns the {@link Classification} of the path if the event
+    * {@link #getType() Type} is {@link Type#PathClassified}, otherwise
+    * {@code null}.
+    * 
+    * @return the {@link Classification} of the path if the event
+    *         {@link #getType() Type} is {@link Type#PathClassified}, otherwise
+    *         {@code null}
+    */
+   public Classification getClassification()
+   {
+      return _classification;
+   }
+
+   /**
+    * Returns the classified {@link PathInfo} if the event {@link #getType()
+    * Type} is {@link Type#PathClassified}, otherwise {@code null}.
+    * 
+    * @return the classified {@link PathInfo} if the event {@link #getType()
+    *         Type} is {@link Type#PathClassified}, otherwise {@code null}
+    */
+   public PathInfo getPathInfo()
+   {
+      if (_classification == null)
+      {
+         return null;
+      }
+
+      return _sourceFileInfo != null ? _sourceFileInfo.getPathInfo() : _targetFileInfo.getPathInfo();
+   }
+
    /**
     * Returns the source {@link FileInfo} if the event {@link #getType() Type}
-    * is {@link Type#FilesCompared}, otherwise {@code null}.
+    * is {@link Type#FilesCompared} or {@link Type#PathClassified} (unless the
+    * path only exists in the target folder), otherwise {@code null}.
     * 
     * @return the source {@link FileInfo} if the event {@link #getType() Type}
-    *         is {@link Type#FilesCompared}, otherwise {@code null}
+    *         is {@link Type#FilesCompared} or {@link Type#PathClassified}
+    *         (unless the path only exists in the target folder), otherwise
+    *         {@code null}
     */
    public FileInfo getSourceFileInfo()
    {
@@ -131,10 +227,13 @@ public class FolderDiffEvent implements Event<FolderDiffEvent>
 
    /**
     * Returns the target {@link FileInfo} if the event {@link #getType() Type}
-    * is {@link Type#FilesCompared}, otherwise {@code null}.
+    * is {@link Type#FilesCompared} or {@link Type#PathClassified} (unless the
+    * path only exists in the source folder), otherwise {@code null}.
     * 
     * @return the target {@link FileInfo} if the event {@link #getType() Type}
-    *         is {@link Type#FilesCompared}, otherwise {@code null}
+    *         is {@link Type#FilesCompared} or {@link Type#PathClassified}
+    *         (unless the path only exists in the source folder), otherwise
+    *         {@code null}
     */
    public FileInfo getTargetFileInfo()
    {
@@ -0,0 +1,88 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Classifies the {@link FileInfo}s of the source and target folder in a single
+ * linear pass - like a merge join of two sorted tables.
+ * <p>
+ * Both {@link List}s must be sorted by
+ * {@link FileInfoComparatorBuilder#PATH_COMPARATOR}. Then every path that
+ * occurs only on one side is reported as source or target only, and every pair
+ * of {@link FileInfo}s with the same path is compared with the given
+ * {@link Comparator} and reported as equal or different.
+ */
+class MergeJoinDiffer
+{
+   private static final Comparator<FileInfo> PATH_COMPARATOR = FileInfoComparatorBuilder.PATH_COMPARATOR;
+
+   private MergeJoinDiffer()
+   {}
+
+   public static void diff(final List<FileInfo> sourceFiles, final List<FileInfo> targetFiles,
+         final Comparator<FileInfo> comparator, final ResultHandler handler)
+   {
+      final int sourceCount = sourceFiles.size();
+      final int targetCount = targetFiles.size();
+
+      int sourceIndex = 0;
+      int targetIndex = 0;
+
+      while (sourceIndex < sourceCount && targetIndex < targetCount)
+      {
+         final FileInfo sourceFile = sourceFiles.get(sourceIndex);
+         final FileInfo targetFile = targetFiles.get(targetIndex);
+
+         final int pathCompare = PATH_COMPARATOR.compare(sourceFile, targetFile);
+         if (pathCompare < 0)
+         {
+            handler.onSourceOnly(sourceFile);
+            ++sourceIndex;
+         }
+         else if (pathCompare > 0)
+         {
+            handler.onTargetOnly(targetFile);
+            ++targetIndex;
+         }
+         else
+         {
+            if (comparator.compare(sourceFile, targetFile) == 0)
+            {
+               handler.onEqual(sourceFile, targetFile);
+            }
+            else
+            {
+               handler.onDifferent(sourceFile, targetFile);
+            }
+
+            ++sourceIndex;
+            ++targetIndex;
+         }
+      }
+
+      for (; sourceIndex < sourceCount; ++sourceIndex)
+      {
+         handler.onSourceOnly(sourceFiles.get(sourceIndex));
+      }
+
+      for (; targetIndex < targetCount; ++targetIndex)
+      {
+         handler.onTargetOnly(targetFiles.get(targetIndex));
+      }
+   }
+
+   /**
+    * Receives the classification of every path in ascending path order.
+    */
+   public static interface ResultHandler
+   {
+      void onEqual(FileInfo sourceFile, FileInfo targetFile);
+
+      void onDifferent(FileInfo sourceFile, FileInfo targetFile);
+
+      void onSourceOnly(FileInfo sourceFile);
+
+      void onTargetOnly(FileInfo targetFile);
+   }
+}
@@ -1,12 +1,9 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import net.sf.javagimmicks.io.FileUtils;
-
 /**
  * A supporting model class that holds some path information about a compared
  * {@link File}.
@@ -16,11 +13,10 @@ public class PathInfo
    private final List<String> _pathFragments;
    private final boolean _directory;
 
-   PathInfo(final File file, final int skipFragments)
+   PathInfo(final List<String> pathFragments, final boolean directory)
    {
-      final List<String> allSegments = FileUtils.getPathSegments(file);
-      _pathFragments = new ArrayList<String>(allSegments.subList(skipFragments, allSegments.size()));
-      _directory = file.isDirectory();
+      _pathFragments = pathFragments;
+      _directory = directory;
    }
 
    /**
@@ -0,0 +1,199 @@
+package net.sf.javagimmicks.io.folderdiff;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.sf.javagimmicks.io.folderdiff.FileInfo.Origin;
+import net.sf.javagimmicks.io.folderdiff.MergeJoinDiffer.ResultHandler;
+
+/**
+ * Walks the source and target folder side by side - one folder level at a time
+ * - and classifies the paths of every level with the {@link MergeJoinDiffer}
+ * before dropping them again. So only the {@link FileInfo}s of the folders on
+ * the current path are held in memory, no matter how many {@link File}s the
+ * trees contain.
+ * <p>
+ * The {@link FileInfoComparatorBuilder#PATH_COMPARATOR path order} puts the
+ * contents of a folder before the folder itself, so sub folders are walked
+ * (in name order) before the paths of their parent level are classified. This
+ * way the {@link ResultHandler} receives the paths in exactly the same order
+ * as if both folders had been scanned completely.
+ */
+class StreamingDiffer
+{
+   private final FolderDiffBuilder _builder;
+
+   private final FilenameFilter _sourceFilter;
+   private final FilenameFilter _targetFilter;
+   private final boolean _recursive;
+
+   private final Comparator<FileInfo> _comparator;
+   private final ContentComparer _contentComparer;
+   private final ResultHandler _handler;
+
+   /**
+    * Creates a new instance - the {@link ContentComparer} may be {@code null}
+    * if {@link File} contents are not compared.
+    */
+   StreamingDiffer(final FolderDiffBuilder builder, final FilenameFilter sourceFilter,
+         final FilenameFilter targetFilter, final boolean recursive, final Comparator<FileInfo> comparator,
+         final ContentComparer contentComparer, final ResultHandler handler)
+   {
+      _builder = builder;
+
+      _sourceFilter = sourceFilter;
+      _targetFilter = targetFilter;
+      _recursive = recursive;
+
+      _comparator = comparator;
+      _contentComparer = contentComparer;
+      _handler = handler;
+   }
+
+   /**
+    * Walks the given folders and reports all paths to the
+    * {@link ResultHandler}. If the calling {@link Thread} is interrupted, the
+    * walk stops with an {@link IllegalStateException} (and the interrupted
+    * state kept) - so a partial walk is never mistaken for a complete one.
+    */
+   public void diff(final File sourceFolder, final File targetFolder)
+   {
+      diff(sourceFolder, targetFolder, Collections.<String> emptyList());
+   }
+
+   private void diff(final File sourceFolder, final File targetFolder, final List<String> pathFragments)
+   {
+      FolderDiffBuilder.checkInterrupted();
+
+      final List<FileInfo> sourceFiles = list(sourceFolder, pathFragments, Origin.Source, _sourceFilter);
+      final List<FileInfo> targetFiles = list(targetFolder, pathFragments, Origin.Target, _targetFilter);
+
+      if (_recursive)
+      {
+         diffSubFolders(sourceFiles, targetFiles);
+      }
+
+      if (_contentComparer != null)
+      {
+         _contentComparer.compare(sourceFiles, targetFiles);
+
+         // An interrupted comparison leaves unsettled pairs behind
+         FolderDiffBuilder.checkInterrupted();
+      }
+
+      MergeJoinDiffer.diff(sourceFiles, targetFiles, _comparator, _handler);
+   }
+
+   /**
+    * Walks the sub folders of the current level in name order - they come
+    * first on both sides.
+    */
+   private void diffSubFolders(final List<FileInfo> sourceFiles, final List<FileInfo> targetFiles)
+   {
+      final int sourceCount = countFolders(sourceFiles);
+      final int targetCount = countFolders(targetFiles);
+
+      int sourceIndex = 0;
+      int targetIndex = 0;
+
+      while (sourceIndex < sourceCount || targetIndex < targetCount)
+      {
+         final FileInfo sourceFolder = sourceIndex < sourceCount ? sourceFiles.get(sourceIndex) : null;
+         final FileInfo targetFolder = targetIndex < targetCount ? targetFiles.get(targetIndex) : null;
+
+         final int nameCompare;
+         if (sourceFolder == null)
+         {
+            nameCompare = 1;
+         }
+         else if (targetFolder == null)
+         {
+            nameCompare = -1;
+         }
+         else
+         {
+            nameCompare = FileInfoComparatorBuilder.PATH_COMPARATOR.compare(sourceFolder, targetFolder);
+         }
+
+         if (nameCompare < 0)
+         {
+            diff(sourceFolder.getOriginalFile(), null, sourceFolder.getPathFragments());
+            ++sourceIndex;
+         }
+         else if (nameCompare > 0)
+         {
+            diff(null, targetFolder.getOriginalFile(), targetFolder.getPathFragments());
+            ++targetIndex;
+         }
+         else
+         {
+            diff(sourceFolder.getOriginalFile(), targetFolder.getOriginalFile(), sourceFolder.getPathFragments());
+            ++sourceIndex;
+            ++targetIndex;
+         }
+      }
+   }
+
+   /**
+    * Lists the accepted children of the given folder sorted by
+    * {@link FileInfoComparatorBuilder#PATH_COMPARATOR path} and fires a
+    * {@link FolderDiffEvent} for every found sub folder.
+    */
+   private List<FileInfo> list(final File folder, final List<String> pathFragments, final Origin origin,
+         final FilenameFilter filter)
+   {
+      if (folder == null)
+      {
+         return Collections.emptyList();
+      }
+
+      final String[] names = folder.list(filter);
+      if (names == null)
+      {
+         return Collections.emptyList();
+      }
+
+      final ChecksumIndex checksumIndex = _builder.getChecksumIndex();
+
+      final List<FileInfo> result = new ArrayList<FileInfo>(names.length);
+      for (final String name : names)
+      {
+         final File file = new File(folder, name);
+
+         final boolean directory = file.isDirectory();
+         if (directory)
+         {
+            _builder.fireEvent(new FolderDiffEvent(_builder, file));
+         }
+         else if (!file.isFile())
+         {
+            continue;
+         }
+
+         final List<String> childPathFragments = new ArrayList<String>(pathFragments.size() + 1);
+         childPathFragments.addAll(pathFragments);
+         childPathFragments.add(name);
+
+         result.add(new FileInfo(file, childPathFragments, directory, origin, checksumIndex));
+      }
+
+      Collections.sort(result, FileInfoComparatorBuilder.PATH_COMPARATOR);
+
+      return result;
+   }
+
+   private static int countFolders(final List<FileInfo> files)
+   {
+      int result = 0;
+      while (result < files.size() && files.get(result).isDirectory())
+      {
+         ++result;
+      }
+
+      return result;
+   }
+}
@@ -0,0 +1,195 @@
+package net.sf.javagimmicks.io;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.sf.javagimmicks.io.FileTraverser.FileVisitor;
+import net.sf.javagimmicks.io.FileTraverser.TypeFilter;
+import net.sf.javagimmicks.io.FileTraverser.TypedFileVisitor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileTraverserTest
+{
+   @Rule
+   public TemporaryFolder _folder = new TemporaryFolder();
+
+   @Before
+   public void setup() throws IOException
+   {
+      for (int i = 0; i < 5; ++i)
+      {
+         final File folder = _folder.newFolder("folder" + i);
+         for (int j = 0; j < 5; ++j)
+         {
+            final File subFolder = new File(folder, "sub" + j);
+            subFolder.mkdir();
+
+            new File(subFolder, "file.txt").createNewFile();
+            new File(subFolder, "file.bin").createNewFile();
+         }
+
+         new File(folder, "file.txt").createNewFile();
+      }
+   }
+
+   @Test
+   public void testParallel()
+   {
+      for (final TypeFilter typeFilter : TypeFilter.values())
+      {
+         final Map<String, Boolean> expected = traverse(typeFilter, 1);
+         final Map<String, Boolean> actual = traverse(typeFilter, 4);
+
+         Assert.assertEquals(typeFilter.name(), expected, actual);
+      }
+
+      final Map<String, Boolean> all = traverse(TypeFilter.BOTH, 4);
+      Assert.assertEquals(5 + 25 + 5 + 50, all.size());
+      Assert.assertEquals(Boolean.TRUE, all.get(new File(new File(_folder.getRoot(), "folder0"), "sub0").getPath()));
+      Assert.assertEquals(Boolean.FALSE, all.get(new File(new File(_folder.getRoot(), "folder0"), "file.txt")
+            .getPath()));
+   }
+
+   @Test
+   public void testNonRecursiveAndFiltered()
+   {
+      final FileTraverser traverser = new FileTraverser(_folder.getRoot());
+      traverser.setRecursive(false);
+      traverser.setTypeFilter(TypeFilter.BOTH);
+      traverser.setParallelism(4);
+
+      final Set<String> visited = Collections.synchronizedSet(new TreeSet<String>());
+      traverser.run(new FileVisitor()
+      {
+         @Override
+         public void visit(final File file)
+         {
+            visited.add(file.getName());
+         }
+      });
+      Assert.assertEquals(5, visited.size());
+
+      traverser.setRecursive(true);
+      traverser.setTypeFilter(TypeFilter.FILE);
+      traverser.setFileFilter(new FilenameFilterFileFilterAdapter(new FilenameFilter()
+      {
+         @Override
+         public boolean accept(final File dir, final String name)
+         {
+            return !name.endsWith(".bin");
+         }
+      }, FilenameFilterFileFilterAdapter.Mode.FILE));
+
+      visited.clear();
+      traverser.run(new FileVisitor()
+      {
+         @Override
+         public void visit(final File file)
+         {
+            visited.add(file.getName());
+         }
+      });
+      Assert.assertEquals(Collections.singleton("file.txt"), visited);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testParallelFailure()
+   {
+      final FileTraverser traverser = new FileTraverser(_folder.getRoot());
+      traverser.setParallelism(4);
+
+      traverser.run(new TypedFileVisitor()
+      {
+         @Override
+         public void visit(final File file, final boolean directory)
+         {
+            throw new IllegalStateException("Visitor failed!");
+         }
+      });
+   }
+
+   @Test
+   public void testParallelInterrupted()
+   {
+      final FileTraverser traverser = new FileTraverser(_folder.getRoot());
+      traverser.setParallelism(4);
+
+      Thread.currentThread().interrupt();
+      try
+      {
+         traverser.run(new TypedFileVisitor()
+         {
+            @Override
+            public void visit(final File file, final boolean directory)
+            {
+            }
+         });
+         Assert.fail("Interrupted run must not complete normally!");
+      }
+      catch (final IllegalStateException e)
+      {
+         // Expected - the interrupted state is restored
+         Assert.assertTrue(Thread.currentThread().isInterrupted());
+      }
+      finally
+      {
+         Thread.interrupted();
+      }
+   }
+
+   @Test
+   public void testSpecialFilesSkipped() throws IOException, InterruptedException
+   {
+      final File pipe = new File(new File(_folder.getRoot(), "folder0"), "pipe");
+      try
+      {
+         if (new ProcessBuilder("mkfifo", pipe.getPath()).start().waitFor() != 0)
+         {
+            return;
+         }
+      }
+      catch (final IOException e)
+      {
+         // No mkfifo available on this platform
+         return;
+      }
+      Assert.assertFalse(pipe.isFile());
+
+      for (final int parallelism : new int[] { 1, 4 })
+      {
+         final Map<String, Boolean> all = traverse(TypeFilter.BOTH, parallelism);
+         Assert.assertEquals(5 + 25 + 5 + 50, all.size());
+         Assert.assertFalse(all.containsKey(pipe.getPath()));
+      }
+   }
+
+   private Map<String, Boolean> traverse(final TypeFilter typeFilter, final int parallelism)
+   {
+      final FileTraverser traverser = new FileTraverser(_folder.getRoot());
+      traverser.setTypeFilter(typeFilter);
+      traverser.setParallelism(parallelism);
+
+      final Map<String, Boolean> result = Collections.synchronizedMap(new HashMap<String, Boolean>());
+      traverser.run(new TypedFileVisitor()
+      {
+         @Override
+         public void visit(final File file, final boolean directory)
+         {
+            Assert.assertNull("Visited twice: " + file, result.put(file.getPath(), directory));
+         }
+      });
+
+      return result;
+   }
+}
@@ -0,0 +1,241 @@
+package net.sf.javagimmicks.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.Checksum;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileUtilsTest
+{
+   @Rule
+   public TemporaryFolder _folder = new TemporaryFolder();
+
+   @Test
+   public void testChecksum() throws IOException
+   {
+      final File file = createFile("check.txt", "123456789".getBytes("US-ASCII"));
+
+      Assert.assertEquals(0x091E01DEL, FileUtils.getChecksum(file));
+      Assert.assertEquals(0x091E01DEL, FileUtils.getChecksum(file, ChecksumAlgorithm.ADLER32));
+      Assert.assertEquals(0xCBF43926L, FileUtils.getChecksum(file, ChecksumAlgorithm.CRC32));
+      Assert.assertEquals(0xE3069283L, FileUtils.getChecksum(file, ChecksumAlgorithm.CRC32C));
+
+      final File emptyFile = createFile("empty.txt", new byte[0]);
+      Assert.assertEquals(0xEF46DB3751D8E999L, FileUtils.getChecksum(emptyFile, ChecksumAlgorithm.XXHASH64));
+
+      final File abcFile = createFile("abc.txt", "abc".getBytes("US-ASCII"));
+      Assert.assertEquals(0x44BC2CF5AD770999L, FileUtils.getChecksum(abcFile, ChecksumAlgorithm.XXHASH64));
+
+      final File textFile = createFile("text.txt", "Nobody inspects the spammish repetition".getBytes("US-ASCII"));
+      Assert.assertEquals(0xFBCEA83C8A378BF1L, FileUtils.getChecksum(textFile, ChecksumAlgorithm.XXHASH64));
+
+      Assert.assertEquals(0L, FileUtils.getChecksum(_folder.getRoot()));
+   }
+
+   @Test
+   public void testMappedChecksum() throws IOException
+   {
+      // Spans more than one mapped region
+      final byte[] content = createRandomContent((int) FileUtils.MAPPING_SIZE + 12345);
+      final File file = createFile("large.bin", content);
+
+      for (final ChecksumAlgorithm algorithm : ChecksumAlgorithm.values())
+      {
+         final Checksum checksum = algorithm.createChecksum();
+         checksum.update(content, 0, content.length);
+
+         Assert.assertEquals(algorithm.name(), checksum.getValue(), FileUtils.getChecksum(file, algorithm));
+      }
+   }
+
+   @Test
+   public void testContentEquals() throws IOException
+   {
+      final byte[] content = createRandomContent(3 * FileUtils.BUFFER_SIZE + 17);
+
+      final File file = createFile("file.bin", content);
+      final File equalFile = createFile("equal.bin", content);
+      Assert.assertTrue(FileUtils.contentEquals(file, equalFile));
+
+      content[content.length - 1]++;
+      final File differentFile = createFile("different.bin", content);
+      Assert.assertFalse(FileUtils.contentEquals(file, differentFile));
+
+      final File shorterFile = createFile("shorter.bin", new byte[content.length - 1]);
+      Assert.assertFalse(FileUtils.contentEquals(file, shorterFile));
+
+      final File emptyFile1 = createFile("empty1.bin", new byte[0]);
+      final File emptyFile2 = createFile("empty2.bin", new byte[0]);
+      Assert.assertTrue(FileUtils.contentEquals(emptyFile1, emptyFile2));
+   }
+
+   @Test
+   public void testMappedContentEquals() throws IOException
+   {
+      final byte[] content = createRandomContent((int) FileUtils.MAPPING_SIZE + 12345);
+
+      final File file = createFile("large.bin", content);
+      final File equalFile = createFile("equal.bin", content);
+      Assert.assertTrue(FileUtils.contentEquals(file, equalFile));
+
+      content[content.length - 1]++;
+      final File differentFile = createFile("different.bin", content);
+      Assert.assertFalse(FileUtils.contentEquals(file, differentFile));
+   }
+
+   @Test(expected = IOException.class)
+   public void testContentEqualsMissingFile() throws IOException
+   {
+      final File file = createFile("file.bin", new byte[1]);
+
+      FileUtils.contentEquals(file, new File(_folder.getRoot(), "missing.bin"));
+   }
+
+   @Test
+   public void testUnzipFile() throws IOException
+   {
+      final byte[] largeContent = createRandomContent(200000);
+      final byte[] smallContent = "small".getBytes("US-ASCII");
+
+      final File zipFile = createZip("test.zip", new String[] { "folder/", "folder/large.bin", "small.txt",
+            "nested/deep/small.txt", "empty.txt" }, new byte[][] { null, largeContent, smallContent, smallContent,
+            new byte[0] });
+
+      for (final int parallelism : new int[] { 1, 4 })
+      {
+         final File targetFolder = new File(_folder.getRoot(), "target" + parallelism);
+         FileUtils.unzip(zipFile, targetFolder, parallelism);
+
+         Assert.assertTrue(new File(targetFolder, "folder").isDirectory());
+         Assert.assertTrue(FileUtils.contentEquals(new File(targetFolder, "folder/large.bin"),
+               createFile("large" + parallelism + ".bin", largeContent)));
+         Assert.assertEquals(smallContent.length, new File(targetFolder, "small.txt").length());
+         Assert.assertEquals(smallContent.length, new File(targetFolder, "nested/deep/small.txt").length());
+         Assert.assertTrue(new File(targetFolder, "empty.txt").isFile());
+         Assert.assertEquals(0L, new File(targetFolder, "empty.txt").length());
+      }
+   }
+
+   @Test
+   public void testUnzipRejectsOutsideEntries() throws IOException
+   {
+      final File zipFile = createZip("evil.zip", new String[] { "good.txt", "folder/../../evil.txt" },
+            new byte[][] { new byte[1], new byte[1] });
+
+      final File targetFolder = new File(_folder.getRoot(), "target");
+      try
+      {
+         FileUtils.unzip(zipFile, targetFolder);
+         Assert.fail("Expected an IOException!");
+      }
+      catch (final IOException expected)
+      {
+      }
+
+      // Nothing is extracted if any entry is invalid
+      Assert.assertFalse(new File(targetFolder, "good.txt").exists());
+      Assert.assertFalse(new File(_folder.getRoot(), "evil.txt").exists());
+   }
+
+   @Test
+   public void testUnzipDuplicateEntries() throws IOException
+   {
+      final byte[] firstContent = "first".getBytes("US-ASCII");
+      final byte[] lastContent = "last!".getBytes("US-ASCII");
+
+      final File zipFile = createZip("duplicates.zip", new String[] { "dup1.txt", "dup2.txt" }, new byte[][] {
+            firstContent, lastContent });
+      renameEntries(zipFile, "dup2.txt", "dup1.txt");
+
+      final File targetFolder = new File(_folder.getRoot(), "target");
+      FileUtils.unzip(zipFile, targetFolder, 4);
+
+      // Only the last entry is extracted - like a sequential extraction would
+      Assert.assertTrue(FileUtils.contentEquals(new File(targetFolder, "dup1.txt"),
+            createFile("last.txt", lastContent)));
+      Assert.assertEquals(1, targetFolder.list().length);
+   }
+
+   private File createZip(final String name, final String[] entryNames, final byte[][] contents)
+         throws IOException
+   {
+      final File file = _folder.newFile(name);
+
+      final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+      try
+      {
+         for (int i = 0; i < entryNames.length; ++i)
+         {
+            out.putNextEntry(new ZipEntry(entryNames[i]));
+            if (contents[i] != null)
+            {
+               out.write(contents[i]);
+            }
+            out.closeEntry();
+         }
+      }
+      finally
+      {
+         out.close();
+      }
+
+      return file;
+   }
+
+   /**
+    * Replaces all occurrences of an entry name in the raw bytes of a ZIP file -
+    * {@link ZipOutputStream} does not allow to create duplicate entries.
+    */
+   private static void renameEntries(final File zipFile, final String oldName, final String newName)
+         throws IOException
+   {
+      final byte[] bytes = new byte[(int) zipFile.length()];
+      final RandomAccessFile file = new RandomAccessFile(zipFile, "rw");
+      try
+      {
+         file.readFully(bytes);
+
+         final String content = new String(bytes, "ISO-8859-1").replace(oldName, newName);
+         file.seek(0L);
+         file.write(content.getBytes("ISO-8859-1"));
+      }
+      finally
+      {
+         file.close();
+      }
+   }
+
+   private File createFile(final String name, final byte[] content) throws IOException
+   {
+      final File file = _folder.newFile(name);
+
+      final FileOutputStream out = new FileOutputStream(file);
+      try
+      {
+         out.write(content);
+      }
+      finally
+      {
+         out.close();
+      }
+
+      return file;
+   }
+
+   private static byte[] createRandomContent(final int size)
+   {
+      final byte[] result = new byte[size];
+      new Random(42L).nextBytes(result);
+
+      return result;
+   }
+}
@@ -0,0 +1,126 @@
+package net.sf.javagimmicks.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A simple benchmark comparing the stream based
+ * {@link FileUtils#unzip(java.io.InputStream, File)} with the parallel
+ * {@link FileUtils#unzip(File, File, int)}.
+ * <p>
+ * A ZIP file with many small and a few large, moderately compressible entries
+ * is created in a temporary folder and extracted a few times per variant - the
+ * result is the best time of each variant. Run via {@link #main}.
+ */
+public class UnzipBenchmark
+{
+   private static final int NUM_SMALL_FILES = 4000;
+   private static final int SMALL_FILE_SIZE = 16 * 1024;
+   private static final int NUM_LARGE_FILES = 16;
+   private static final int LARGE_FILE_SIZE = 16 * 1024 * 1024;
+   private static final int NUM_ROUNDS = 5;
+
+   public static void main(final String[] args) throws IOException
+   {
+      final File folder = File.createTempFile("UnzipBenchmark", "");
+      folder.delete();
+      folder.mkdirs();
+
+      try
+      {
+         final File zipFile = createZip(new File(folder, "benchmark.zip"));
+         System.out.printf("ZIP file: %,d bytes%n", zipFile.length());
+
+         final File targetFolder = new File(folder, "target");
+         final int processorCount = Runtime.getRuntime().availableProcessors();
+
+         run("stream", zipFile, targetFolder, 0);
+         run("file (1 thread)", zipFile, targetFolder, 1);
+         run(String.format("file (%d threads)", processorCount), zipFile, targetFolder, processorCount);
+      }
+      finally
+      {
+         delete(folder);
+      }
+   }
+
+   private static void run(final String name, final File zipFile, final File targetFolder, final int parallelism)
+         throws IOException
+   {
+      long bestMillis = Long.MAX_VALUE;
+
+      for (int i = 0; i < NUM_ROUNDS; ++i)
+      {
+         delete(targetFolder);
+
+         final long start = System.nanoTime();
+         if (parallelism == 0)
+         {
+            FileUtils.unzip(new FileInputStream(zipFile), targetFolder);
+         }
+         else
+         {
+            FileUtils.unzip(zipFile, targetFolder, parallelism);
+         }
+
+         bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1000000L);
+      }
+
+      System.out.printf("%-20s %,8d ms%n", name, bestMillis);
+   }
+
+   private static File createZip(final File file) throws IOException
+   {
+      final Random random = new Random(42L);
+
+      // Random bytes from a small alphabet compress to roughly half the size
+      final byte[] content = new byte[LARGE_FILE_SIZE];
+      for (int i = 0; i < content.length; ++i)
+      {
+         content[i] = (byte) ('a' + random.nextInt(16));
+      }
+
+      final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+      try
+      {
+         for (int i = 0; i < NUM_SMALL_FILES; ++i)
+         {
+            out.putNextEntry(new ZipEntry(String.format("small/%02d/file%d.txt", i % 64, i)));
+            out.write(content, random.nextInt(content.length - SMALL_FILE_SIZE), SMALL_FILE_SIZE);
+            out.closeEntry();
+         }
+
+         for (int i = 0; i < NUM_LARGE_FILES; ++i)
+         {
+            out.putNextEntry(new ZipEntry(String.format("large/file%d.txt", i)));
+            out.write(content);
+            out.closeEntry();
+         }
+      }
+      finally
+      {
+         out.close();
+      }
+
+      return file;
+   }
+
+   private static void delete(final File file)
+   {
+      final File[] children = file.listFiles();
+      if (children != null)
+      {
+         for (final File child : children)
+         {
+            delete(child);
+         }
+      }
+
+      file.delete();
+   }
+}
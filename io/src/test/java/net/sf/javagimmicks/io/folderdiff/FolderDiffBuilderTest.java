@@ -1,11 +1,15 @@
 package net.sf.javagimmicks.io.folderdiff;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
 
+import net.sf.javagimmicks.event.EventListener;
+import net.sf.javagimmicks.io.ChecksumAlgorithm;
 import net.sf.javagimmicks.io.FileUtils;
 
 import org.junit.After;
@@ -81,6 +85,230 @@ public class FolderDiffBuilderTest
       });
    }
 
+   @Test
+   public void testWithChecksumParallelism()
+   {
+      _builder.setChecksumParallelism(1);
+      testWithChecksum();
+
+      _builder.setChecksumParallelism(8);
+      testWithChecksum();
+
+      _builder.setScanParallelism(1);
+      testWithChecksum();
+
+      _builder.setScanParallelism(8);
+      testWithChecksum();
+   }
+
+   @Test
+   public void testInterruptedScan()
+   {
+      _builder.setCompareChecksum(true);
+      for (final int scanParallelism : new int[] { 1, 4, 0 })
+      {
+         // 0 means streaming mode
+         _builder.setStreaming(scanParallelism == 0);
+         _builder.setScanParallelism(Math.max(scanParallelism, 1));
+
+         Thread.currentThread().interrupt();
+         try
+         {
+            _builder.buildFolderDiff();
+            Assert.fail("Interrupted scan must not produce a diff!");
+         }
+         catch (final IllegalStateException e)
+         {
+            // Expected - the interrupted state is restored
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+         }
+         finally
+         {
+            Thread.interrupted();
+         }
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidChecksumParallelism()
+   {
+      _builder.setChecksumParallelism(0);
+   }
+
+   @Test
+   public void testComparisonTiers() throws IOException
+   {
+      final File sourceFolder = new File(_sourceFolder.getRoot(), "tiers");
+      final File targetFolder = new File(_targetFolder.getRoot(), "tiers");
+
+      final byte[] content = new byte[(int) (4 * ContentComparer.HEAD_TAIL_SIZE)];
+      createFile(sourceFolder, "Equal.bin", content);
+      createFile(targetFolder, "Equal.bin", content);
+      createFile(sourceFolder, "SourceOnly.bin", content);
+
+      createFile(sourceFolder, "DifferentSize.bin", content);
+      createFile(targetFolder, "DifferentSize.bin", new byte[content.length + 1]);
+
+      createFile(sourceFolder, "DifferentTail.bin", content);
+      content[content.length - 1] = 1;
+      createFile(targetFolder, "DifferentTail.bin", content);
+      content[content.length - 1] = 0;
+
+      createFile(sourceFolder, "DifferentMiddle.bin", content);
+      content[content.length / 2] = 1;
+      createFile(targetFolder, "DifferentMiddle.bin", content);
+
+      final FolderDiffBuilder builder = new FolderDiffBuilder(sourceFolder, targetFolder);
+      builder.setCompareChecksum(true);
+
+      final FolderDiff diff = builder.buildFolderDiff();
+      assertPathInfosEqual(diff.getEqual(), new String[][] { { "Equal.bin" } });
+      assertPathInfosEqual(diff.getDifferent(), new String[][] {
+            { "DifferentSize.bin" },
+            { "DifferentTail.bin" },
+            { "DifferentMiddle.bin" },
+      });
+
+      final ComparisonStatistics statistics = diff.getStatistics();
+      Assert.assertEquals(1L, statistics.getSettledCount(ComparisonTier.PATH));
+      Assert.assertEquals(1L, statistics.getSettledCount(ComparisonTier.SIZE));
+      Assert.assertEquals(0L, statistics.getSettledCount(ComparisonTier.LAST_MODIFIED));
+      Assert.assertEquals(1L, statistics.getSettledCount(ComparisonTier.HEAD_TAIL));
+      Assert.assertEquals(2L, statistics.getSettledCount(ComparisonTier.CONTENT));
+
+      // With the change date short-cut, the middle difference goes unnoticed
+      final long lastModified = 1000000000000L;
+      for (final String name : new String[] { "Equal.bin", "DifferentMiddle.bin" })
+      {
+         new File(sourceFolder, name).setLastModified(lastModified);
+         new File(targetFolder, name).setLastModified(lastModified);
+      }
+      new File(sourceFolder, "DifferentTail.bin").setLastModified(lastModified);
+      new File(targetFolder, "DifferentTail.bin").setLastModified(lastModified + 2000L);
+
+      builder.setTrustLastModified(true);
+
+      final FolderDiff shortCutDiff = builder.buildFolderDiff();
+      assertPathInfosEqual(shortCutDiff.getEqual(), new String[][] {
+            { "Equal.bin" },
+            { "DifferentMiddle.bin" },
+      });
+
+      final ComparisonStatistics shortCutStatistics = shortCutDiff.getStatistics();
+      Assert.assertEquals(2L, shortCutStatistics.getSettledCount(ComparisonTier.LAST_MODIFIED));
+      Assert.assertEquals(0L, shortCutStatistics.getSettledCount(ComparisonTier.CONTENT));
+   }
+
+   @Test
+   public void testChecksumIndex() throws IOException
+   {
+      final File sourceFolder = new File(_sourceFolder.getRoot(), "indexed");
+      final File targetFolder = new File(_targetFolder.getRoot(), "indexed");
+
+      final byte[] content = new byte[(int) (4 * ContentComparer.HEAD_TAIL_SIZE)];
+      createFile(sourceFolder, "Equal.bin", content);
+      createFile(targetFolder, "Equal.bin", content);
+      createFile(sourceFolder, "Different.bin", content);
+      content[content.length / 2] = 1;
+      createFile(targetFolder, "Different.bin", content);
+
+      // Files changed just now are not recorded
+      for (final File folder : new File[] { sourceFolder, targetFolder })
+      {
+         for (final File file : folder.listFiles())
+         {
+            file.setLastModified(file.lastModified() - 10000L);
+         }
+      }
+
+      final File indexFile = new File(_sourceFolder.getRoot(), "checksums.idx");
+
+      final FolderDiffBuilder builder = new FolderDiffBuilder(sourceFolder, targetFolder);
+      builder.setCompareChecksum(true);
+      builder.setChecksumIndex(new ChecksumIndex(indexFile));
+
+      final FolderDiff coldDiff = builder.buildFolderDiff();
+      assertPathInfosEqual(coldDiff.getEqual(), new String[][] { { "Equal.bin" } });
+      assertPathInfosEqual(coldDiff.getDifferent(), new String[][] { { "Different.bin" } });
+      Assert.assertEquals(2L, coldDiff.getStatistics().getSettledCount(ComparisonTier.CONTENT));
+      Assert.assertEquals(4, builder.getChecksumIndex().size());
+
+      builder.getChecksumIndex().store();
+
+      final ChecksumIndex loadedIndex = new ChecksumIndex(indexFile);
+      Assert.assertEquals(4, loadedIndex.size());
+      builder.setChecksumIndex(loadedIndex);
+
+      final FolderDiff warmDiff = builder.buildFolderDiff();
+      assertPathInfosEqual(warmDiff.getEqual(), new String[][] { { "Equal.bin" } });
+      assertPathInfosEqual(warmDiff.getDifferent(), new String[][] { { "Different.bin" } });
+      Assert.assertEquals(2L, warmDiff.getStatistics().getSettledCount(ComparisonTier.CHECKSUM_INDEX));
+      Assert.assertEquals(0L, warmDiff.getStatistics().getSettledCount(ComparisonTier.CONTENT));
+
+      // A changed file is read again
+      final File changedFile = new File(targetFolder, "Equal.bin");
+      final long lastModified = changedFile.lastModified();
+      createFile(targetFolder, "Equal.bin", content);
+      changedFile.setLastModified(lastModified - 10000L);
+
+      final FolderDiff changedDiff = builder.buildFolderDiff();
+      assertPathInfosEqual(changedDiff.getDifferent(), new String[][] { { "Equal.bin" }, { "Different.bin" } });
+      Assert.assertEquals(1L, changedDiff.getStatistics().getSettledCount(ComparisonTier.CHECKSUM_INDEX));
+      Assert.assertEquals(1L, changedDiff.getStatistics().getSettledCount(ComparisonTier.CONTENT));
+
+      // A different algorithm ignores the stored index
+      Assert.assertEquals(0, new ChecksumIndex(indexFile, ChecksumAlgorithm.CRC32).size());
+   }
+
+   @Test
+   public void testStreaming()
+   {
+      _builder.setCompareSize(true);
+      _builder.setCompareChecksum(true);
+
+      final List<FolderDiffEvent> events = new ArrayList<FolderDiffEvent>();
+      _builder.addListener(new EventListener<FolderDiffEvent>()
+      {
+         @Override
+         public void eventOccured(final FolderDiffEvent event)
+         {
+            if (event.isPathClassified())
+            {
+               events.add(event);
+            }
+         }
+      });
+
+      final FolderDiff diff = _builder.buildFolderDiff();
+      Assert.assertFalse(diff.isSummaryOnly());
+      Assert.assertEquals(diff.getAll().size(), events.size());
+
+      final List<FolderDiffEvent> fullEvents = new ArrayList<FolderDiffEvent>(events);
+      events.clear();
+
+      _builder.setStreaming(true);
+      final FolderDiff summary = _builder.buildFolderDiff();
+
+      Assert.assertTrue(summary.isSummaryOnly());
+      Assert.assertTrue(summary.getAll().isEmpty());
+      Assert.assertEquals(5L, summary.getEqualCount());
+      Assert.assertEquals(2L, summary.getDifferentCount());
+      Assert.assertEquals(3L, summary.getSourceOnlyCount());
+      Assert.assertEquals(3L, summary.getTargetOnlyCount());
+      Assert.assertEquals(13L, summary.getAllCount());
+
+      // Streaming reports the same classifications in the same order
+      Assert.assertEquals(fullEvents.size(), events.size());
+      for (int i = 0; i < events.size(); ++i)
+      {
+         Assert.assertEquals(fullEvents.get(i).getClassification(), events.get(i).getClassification());
+         Assert.assertEquals(fullEvents.get(i).getPathInfo().getPathFragments(), events.get(i).getPathInfo()
+               .getPathFragments());
+      }
+
+      Assert.assertEquals(diff.getEqual().size(), summary.getEqualCount());
+   }
+
    @Test
    public void testWithoutChecksum()
    {
@@ -118,6 +346,21 @@ public class FolderDiffBuilderTest
       });
    }
 
+   private static void createFile(final File folder, final String name, final byte[] content) throws IOException
+   {
+      folder.mkdirs();
+
+      final FileOutputStream out = new FileOutputStream(new File(folder, name));
+      try
+      {
+         out.write(content);
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
    private static void assertPathInfosEqual(final SortedSet<PathInfo> actual, final String[][] expected)
    {
       Assert.assertNotNull("Expected paths are null!", expected);
@@ -3,12 +3,33 @@ package net.sf.javagimmicks.math;
 import java.math.BigInteger;
 
 import net.sf.javagimmicks.math.sequence.FactorialSequence;
+import net.sf.javagimmicks.math.sequence.NumberSequence;
 
 /**
  * Provides some extension to {@link Math} by providing additional utility
  */
 public class MathExt
 {
+   // All rows of Pascal's triangle whose values fit into a long
+   private static final long[][] PASCAL_ROWS = new long[67][];
+
+   static
+   {
+      for (int n = 0; n < PASCAL_ROWS.length; ++n)
+      {
+         final long[] row = new long[n + 1];
+         row[0] = row[n] = 1L;
+         for (int k = 1; k < n; ++k)
+         {
+            row[k] = PASCAL_ROWS[n - 1][k - 1] + PASCAL_ROWS[n - 1][k];
+         }
+
+         PASCAL_ROWS[n] = row;
+      }
+   }
+
+   private static final long OVERFLOW = -1L;
+
    private MathExt()
    {}
 
@@ -16,14 +37,32 @@ public class MathExt
     * Calculates the <a
     * href="http://en.wikipedia.org/wiki/Factorial">factorial</a> for a given
     * number.
+    * <p>
+    * The factorial is computed directly (see
+    * {@link FactorialSequence#primeSwing(int)}) and not cached - use the
+    * {@link NumberSequence} returned by {@link FactorialSequence#get()} for
+    * cached access to frequently used values.
     * 
     * @param base
     *           the base number of which to calculate the factorial
     * @return the resulting factorial
+    * @throws IllegalArgumentException
+    *            if {@code base} is {@code null}, negative or greater than
+    *            {@link Integer#MAX_VALUE}
     */
    public static BigInteger factorial(final BigInteger base)
    {
-      return FactorialSequence.getValue(base);
+      if (base == null)
+      {
+         throw new IllegalArgumentException("Base must not be null!");
+      }
+
+      if (base.bitLength() >= Integer.SIZE)
+      {
+         throw new IllegalArgumentException(String.format("Base must not be greater than %1$s!", Integer.MAX_VALUE));
+      }
+
+      return FactorialSequence.primeSwing(base.intValue());
    }
 
    /**
@@ -40,6 +79,41 @@ public class MathExt
       return factorial(BigInteger.valueOf(base));
    }
 
+   /**
+    * Calculates the <a
+    * href="http://en.wikipedia.org/wiki/Factorial">factorial</a> for a given
+    * number as {@code long}.
+    * 
+    * @param base
+    *           the base number of which to calculate the factorial
+    * @return the resulting factorial
+    * @throws IllegalArgumentException
+    *            if {@code base} is negative
+    * @throws ArithmeticException
+    *            if the factorial does not fit into a {@code long} - i.e.
+    *            {@code base} is greater than {@code 20}
+    */
+   public static long factorialAsLong(final int base)
+   {
+      if (base < 0)
+      {
+         throw new IllegalArgumentException("Factorial is not defined for negative numbers!");
+      }
+
+      if (base > 20)
+      {
+         throw new ArithmeticException(String.format("Factorial of %1$s does not fit into a long!", base));
+      }
+
+      long result = 1L;
+      for (int i = 2; i <= base; ++i)
+      {
+         result *= i;
+      }
+
+      return result;
+   }
+
    /**
     * Calculates the <a
     * href="http://en.wikipedia.org/wiki/Binomial_coefficient">binomial
@@ -50,6 +124,10 @@ public class MathExt
     * @param k
     *           the <b>k</b> part of the binomial coefficient
     * @return the resulting binomial coefficient
+    * @throws IllegalArgumentException
+    *            if one argument is {@code null}, {@code k} is greater than
+    *            {@code n} or {@code min(k, n - k)} is greater than
+    *            {@link Integer#MAX_VALUE}
     */
    public static BigInteger binomial(final BigInteger n, final BigInteger k)
    {
@@ -63,22 +141,19 @@ public class MathExt
          throw new IllegalArgumentException("k was greater than n!");
       }
 
-      final BigInteger nMinusK = n.subtract(k);
-      if (nMinusK.compareTo(k) > 0)
-      {
-         return binomial(n, nMinusK);
-      }
-
-      BigInteger result = BigInteger.ONE;
-
-      for (BigInteger i = k.add(BigInteger.ONE); i.compareTo(n) <= 0; i = i.add(BigInteger.ONE))
+      if (k.signum() >= 0 && n.bitLength() < Long.SIZE)
       {
-         result = result.multiply(i);
+         final long result = binomialOrOverflow(n.longValue(), k.longValue());
+         if (result != OVERFLOW)
+         {
+            return BigInteger.valueOf(result);
+         }
       }
 
-      result = result.divide(factorial(nMinusK));
+      // n! / (k! * (n-k)!) = (n * ... * (n-k+1)) / k! for the smaller k
+      final BigInteger kMin = k.min(n.subtract(k));
 
-      return result;
+      return FactorialSequence.fallingFactorial(n, kMin).divide(factorial(kMin));
    }
 
    /**
@@ -94,6 +169,104 @@ public class MathExt
     */
    public static BigInteger binomial(final long n, final long k)
    {
+      if (n >= k && k >= 0)
+      {
+         final long result = binomialOrOverflow(n, k);
+         if (result != OVERFLOW)
+         {
+            return BigInteger.valueOf(result);
+         }
+      }
+
       return binomial(BigInteger.valueOf(n), BigInteger.valueOf(k));
    }
+
+   /**
+    * Calculates the <a
+    * href="http://en.wikipedia.org/wiki/Binomial_coefficient">binomial
+    * coefficient</a> for a given <b>n</b> and <b>k</b> number as {@code long}
+    * without creating any {@link BigInteger}s.
+    * 
+    * @param n
+    *           the <b>n</b> part of the binomial coefficient
+    * @param k
+    *           the <b>k</b> part of the binomial coefficient
+    * @return the resulting binomial coefficient
+    * @throws IllegalArgumentException
+    *            if {@code k} is negative or greater than {@code n}
+    * @throws ArithmeticException
+    *            if the binomial coefficient does not fit into a {@code long}
+    */
+   public static long binomialAsLong(final long n, final long k)
+   {
+      if (n < k)
+      {
+         throw new IllegalArgumentException("k was greater than n!");
+      }
+
+      if (k < 0)
+      {
+         throw new IllegalArgumentException("k must be between 0 and n!");
+      }
+
+      final long result = binomialOrOverflow(n, k);
+      if (result == OVERFLOW)
+      {
+         throw new ArithmeticException(String.format("Binomial coefficient of %1$s and %2$s does not fit into a long!",
+               n, k));
+      }
+
+      return result;
+   }
+
+   /**
+    * Calculates the binomial coefficient for {@code 0 <= k <= n} from the
+    * cached rows of Pascal's triangle or - for larger {@code n} - with the
+    * multiplicative formula {@code C(m, i) = C(m-1, i-1) * m / i}, where every
+    * intermediate result is a binomial coefficient as well. Each step is
+    * reduced by the greatest common divisor first, so it only overflows if the
+    * intermediate result does.
+    * 
+    * @return the binomial coefficient or {@link #OVERFLOW}
+    */
+   private static long binomialOrOverflow(final long n, final long k)
+   {
+      final long kMin = Math.min(k, n - k);
+      if (n < PASCAL_ROWS.length)
+      {
+         return PASCAL_ROWS[(int) n][(int) kMin];
+      }
+
+      long result = 1L;
+      for (long i = 1; i <= kMin; ++i)
+      {
+         // result * factor / i is integral and gcd(result / g, i / g) = 1,
+         // so i / g divides the factor
+         final long factor = n - kMin + i;
+         final long g = gcd(result, i);
+         final long reducedResult = result / g;
+         final long reducedFactor = factor / (i / g);
+
+         if (reducedResult > Long.MAX_VALUE / reducedFactor)
+         {
+            return OVERFLOW;
+         }
+
+         result = reducedResult * reducedFactor;
+      }
+
+      return result;
+   }
+
+   private static long gcd(long a, long b)
+   {
+      while (b != 0)
+      {
+         final long remainder = a % b;
+         a = b;
+         b = remainder;
+      }
+
+      return a;
+   }
 }
\ No newline at end of file
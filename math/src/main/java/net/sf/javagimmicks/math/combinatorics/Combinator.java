@@ -1,6 +1,6 @@
 package net.sf.javagimmicks.math.combinatorics;
 
-import static net.sf.javagimmicks.math.MathExt.factorial;
+import static net.sf.javagimmicks.math.MathExt.binomial;
 
 import java.math.BigInteger;
 import java.util.Collection;
@@ -80,15 +80,43 @@ public class Combinator<T> extends CombinatoricIterable<T>
    protected BigInteger calculateTotal(final int n, final int r)
    {
       /*
-       * The factorial of the number of elements divided by the factorials of
-       * the size of the combinations and the number of elements minus the size
-       * of the combinations. That is, with the number of elements = n and the
-       * size of the combinations = r: n n! ( ) = --------- r (n-r)!r!
+       * The binomial coefficient of the number of elements and the size of the
+       * combinations. That is, with the number of elements = n and the size of
+       * the combinations = r: n! / ((n-r)! * r!) - which is computed without
+       * any factorials and as long if possible.
        */
-      final BigInteger nFact = factorial(n);
-      final BigInteger rFact = factorial(r);
-      final BigInteger nminusrFact = factorial(n - r);
-      return nFact.divide(rFact.multiply(nminusrFact));
+      return binomial((long) n, (long) r);
+   }
+
+   /**
+    * Computes the combination with the given rank directly: for each position,
+    * it skips as many candidates as there are combinations (with the remaining
+    * elements) that start with them.
+    */
+   @Override
+   protected void unrank(final BigInteger rank, final int[] indices)
+   {
+      final int n = _elements.size();
+      final int r = indices.length;
+
+      BigInteger remaining = rank;
+      int candidate = 0;
+      for (int i = 0; i < r; ++i)
+      {
+         while (true)
+         {
+            final BigInteger count = binomial((long) (n - candidate - 1), (long) (r - i - 1));
+            if (remaining.compareTo(count) < 0)
+            {
+               break;
+            }
+
+            remaining = remaining.subtract(count);
+            ++candidate;
+         }
+
+         indices[i] = candidate++;
+      }
    }
 
    @Override
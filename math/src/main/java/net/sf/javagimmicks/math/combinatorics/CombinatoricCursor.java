@@ -0,0 +1,218 @@
+package net.sf.javagimmicks.math.combinatorics;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A cursor over (a range of) the tuples of a {@link CombinatoricIterable} that
+ * - unlike its {@link Iterator} - does not create a new {@link List} per tuple
+ * but keeps the indices of the current tuple's elements within one reused
+ * {@code int} array.
+ * <p>
+ * Each tuple is identified by its <i>rank</i> - its (zero-based) position in
+ * the iteration order. A cursor covers the tuples within a range of ranks and
+ * can be split into two cursors covering one half of the remaining range each
+ * (see {@link #trySplit()}), so the tuples can be processed by multiple
+ * {@link Thread}s - every cursor must only be used by one {@link Thread} at a
+ * time.
+ * <p>
+ * <b>Example:</b>
+ * 
+ * <pre>
+ * final CombinatoricCursor&lt;String&gt; cursor = permuter.cursor();
+ * while (cursor.next())
+ * {
+ *    final int[] indices = cursor.getIndices();
+ *    ...
+ * }
+ * </pre>
+ * 
+ * @param <T>
+ *           the type of elements that this instance operates on
+ */
+public class CombinatoricCursor<T>
+{
+   private final CombinatoricIterable<T> _iterable;
+   private final int[] _indices;
+
+   private BigInteger _fromRank;
+   private final BigInteger _toRank;
+
+   // The number of ranks from _fromRank to _toRank (saturated at Long.MAX_VALUE)
+   private long _count;
+
+   // The number of tuples visited since _fromRank
+   private long _visited;
+
+   CombinatoricCursor(final CombinatoricIterable<T> iterable, final BigInteger fromRank, final BigInteger toRank)
+   {
+      _iterable = iterable;
+      _indices = new int[iterable.getTupleSize()];
+      _toRank = toRank;
+
+      reset(fromRank);
+   }
+
+   /**
+    * Returns if there are more tuples left within the range of this instance.
+    * 
+    * @return if there are more tuples left
+    */
+   public boolean hasNext()
+   {
+      return _visited < _count;
+   }
+
+   /**
+    * Moves this cursor to the next tuple.
+    * 
+    * @return if the cursor could be moved - i.e. if there was a next tuple
+    */
+   public boolean next()
+   {
+      if (_visited >= _count)
+      {
+         return false;
+      }
+
+      if (_visited == 0)
+      {
+         _iterable.moveTo(_fromRank, _indices);
+      }
+      else
+      {
+         _iterable.computeNext(_indices);
+      }
+
+      ++_visited;
+      return true;
+   }
+
+   /**
+    * Returns the indices of the elements of the current tuple (within
+    * {@link CombinatoricIterable#getElements()}).
+    * <p>
+    * <b>Attention:</b> the returned array is reused for all tuples and must
+    * not be modified.
+    * 
+    * @return the indices of the elements of the current tuple
+    * @throws IllegalStateException
+    *            if {@link #next()} was not called yet
+    */
+   public int[] getIndices()
+   {
+      checkCurrent();
+
+      return _indices;
+   }
+
+   /**
+    * Returns the element at the given position within the current tuple.
+    * 
+    * @param position
+    *           the position within the current tuple
+    * @return the resulting element
+    * @throws IllegalStateException
+    *            if {@link #next()} was not called yet
+    */
+   public T get(final int position)
+   {
+      checkCurrent();
+
+      return _iterable._elements.get(_indices[position]);
+   }
+
+   /**
+    * Returns the size of the tuples of this cursor.
+    * 
+    * @return the size of the tuples of this cursor
+    */
+   public int getTupleSize()
+   {
+      return _indices.length;
+   }
+
+   /**
+    * Returns the rank of the current tuple.
+    * 
+    * @return the rank of the current tuple
+    * @throws IllegalStateException
+    *            if {@link #next()} was not called yet
+    */
+   public BigInteger getRank()
+   {
+      checkCurrent();
+
+      return _fromRank.add(BigInteger.valueOf(_visited - 1));
+   }
+
+   /**
+    * Returns the number of tuples left within the range of this instance.
+    * 
+    * @return the number of tuples left
+    */
+   public BigInteger getRemaining()
+   {
+      return _toRank.subtract(getNextRank());
+   }
+
+   /**
+    * Returns the number of tuples left within the range of this instance as
+    * {@code long} - or {@link Long#MAX_VALUE} if it does not fit.
+    * 
+    * @return the number of tuples left
+    */
+   public long estimateRemaining()
+   {
+      return _count == Long.MAX_VALUE ? Long.MAX_VALUE : _count - _visited;
+   }
+
+   /**
+    * Splits off the first half of the remaining tuples into a new cursor -
+    * this instance continues with the second half (starting with the next call
+    * to {@link #next()}).
+    * 
+    * @return a new {@link CombinatoricCursor} covering the first half of the
+    *         remaining tuples or {@code null} if there are less than two
+    *         tuples left
+    */
+   public CombinatoricCursor<T> trySplit()
+   {
+      final BigInteger nextRank = getNextRank();
+      final BigInteger remaining = _toRank.subtract(nextRank);
+      if (remaining.compareTo(BigInteger.ONE) <= 0)
+      {
+         return null;
+      }
+
+      final BigInteger splitRank = nextRank.add(remaining.shiftRight(1));
+      final CombinatoricCursor<T> prefix = new CombinatoricCursor<T>(_iterable, nextRank, splitRank);
+
+      reset(splitRank);
+
+      return prefix;
+   }
+
+   private BigInteger getNextRank()
+   {
+      return _visited == 0 ? _fromRank : _fromRank.add(BigInteger.valueOf(_visited));
+   }
+
+   private void reset(final BigInteger fromRank)
+   {
+      final BigInteger count = _toRank.subtract(fromRank);
+
+      _fromRank = fromRank;
+      _count = count.bitLength() < Long.SIZE ? count.longValue() : Long.MAX_VALUE;
+      _visited = 0;
+   }
+
+   private void checkCurrent()
+   {
+      if (_visited == 0)
+      {
+         throw new IllegalStateException("There is no current tuple - call next() first!");
+      }
+   }
+}
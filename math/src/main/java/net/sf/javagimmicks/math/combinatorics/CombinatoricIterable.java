@@ -4,12 +4,15 @@ import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.ZERO;
 
 import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 /**
  * An {@link Iterable} that performs a combinatoric algorithm on a given set of
@@ -24,6 +27,9 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
    protected final BigInteger _size;
    protected final int _tupleSize;
 
+   // The size as long or -1 if it does not fit
+   private final long _longSize;
+
    protected CombinatoricIterable(final Collection<T> elements, final int tupleSize)
    {
       if (tupleSize < 0)
@@ -34,6 +40,7 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
 
       _elements = new ArrayList<T>(elements);
       _size = calculateTotal(elements.size(), tupleSize);
+      _longSize = _size.bitLength() < Long.SIZE ? _size.longValue() : -1L;
    }
 
    protected CombinatoricIterable(final T[] elements, final int r)
@@ -51,6 +58,25 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
       return _size;
    }
 
+   /**
+    * Returns the total number of tuples that this instance will create as
+    * {@code long}.
+    * 
+    * @return the total number of tuples that this instance will create
+    * @throws ArithmeticException
+    *            if the total number of tuples does not fit into a {@code long}
+    *            - use {@link #size()} instead
+    */
+   public long sizeAsLong()
+   {
+      if (_longSize < 0)
+      {
+         throw new ArithmeticException(String.format("Size %1$s does not fit into a long!", _size));
+      }
+
+      return _longSize;
+   }
+
    /**
     * Returns the size of the tuples that this instance will create.
     * 
@@ -71,6 +97,72 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
       return Collections.unmodifiableList(_elements);
    }
 
+   /**
+    * Returns the tuple with the given rank - i.e. at the given position in the
+    * iteration order - without iterating over the previous ones.
+    * 
+    * @param rank
+    *           the rank of the tuple to return
+    * @return the resulting tuple
+    * @throws IndexOutOfBoundsException
+    *            if {@code rank} is negative or not less than {@link #size()}
+    */
+   public List<T> get(final BigInteger rank)
+   {
+      checkRank(rank, _size.subtract(ONE));
+
+      final int[] indices = new int[_tupleSize];
+      moveTo(rank, indices);
+
+      return getResult(indices);
+   }
+
+   /**
+    * Returns the tuple with the given rank - i.e. at the given position in the
+    * iteration order - without iterating over the previous ones.
+    * 
+    * @param rank
+    *           the rank of the tuple to return
+    * @return the resulting tuple
+    * @throws IndexOutOfBoundsException
+    *            if {@code rank} is negative or not less than {@link #size()}
+    */
+   public List<T> get(final long rank)
+   {
+      return get(BigInteger.valueOf(rank));
+   }
+
+   /**
+    * Returns a new {@link CombinatoricCursor} over all tuples of this
+    * instance.
+    * 
+    * @return a new {@link CombinatoricCursor} over all tuples of this instance
+    */
+   public CombinatoricCursor<T> cursor()
+   {
+      return new CombinatoricCursor<T>(this, ZERO, _size);
+   }
+
+   /**
+    * Returns a new {@link CombinatoricCursor} over the tuples within the given
+    * range of ranks.
+    * 
+    * @param fromRank
+    *           the rank of the first tuple (inclusive)
+    * @param toRank
+    *           the rank of the last tuple (exclusive)
+    * @return a new {@link CombinatoricCursor} over the given range of tuples
+    * @throws IndexOutOfBoundsException
+    *            if the range is not within {@code 0} and {@link #size()}
+    */
+   public CombinatoricCursor<T> cursor(final BigInteger fromRank, final BigInteger toRank)
+   {
+      checkRank(toRank, _size);
+      checkRank(fromRank, toRank);
+
+      return new CombinatoricCursor<T>(this, fromRank, toRank);
+   }
+
    @Override
    public Iterator<List<T>> iterator()
    {
@@ -81,6 +173,29 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
 
    abstract protected void computeNext(int[] indices);
 
+   /**
+    * Computes the indices of the tuple with the given rank (i.e. its position
+    * in the iteration order) - the rank is always greater than {@code 0} and
+    * less than {@link #size()}.
+    * <p>
+    * This default implementation starts with the first tuple and calls
+    * {@link #computeNext(int[])} as often as necessary - sub classes should
+    * override it with a direct computation.
+    * 
+    * @param rank
+    *           the rank of the tuple to compute
+    * @param indices
+    *           the array to fill with the indices of the tuple's elements
+    */
+   protected void unrank(final BigInteger rank, final int[] indices)
+   {
+      initialiseIndices(indices);
+      for (BigInteger i = ZERO; i.compareTo(rank) < 0; i = i.add(ONE))
+      {
+         computeNext(indices);
+      }
+   }
+
    protected void initialiseIndices(final int[] indices)
    {
       for (int i = 0; i < indices.length; i++)
@@ -89,32 +204,48 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
       }
    }
 
-   private class CombinationIterator implements Iterator<List<T>>
+   /**
+    * Moves the given indices to the tuple with the given rank.
+    */
+   final void moveTo(final BigInteger rank, final int[] indices)
    {
-      private final int[] _indices;
-      private BigInteger _numLeft = _size;
+      if (rank.signum() == 0)
+      {
+         initialiseIndices(indices);
+      }
+      else
+      {
+         unrank(rank, indices);
+      }
+   }
 
-      private CombinationIterator()
+   private void checkRank(final BigInteger rank, final BigInteger maxRank)
+   {
+      if (rank.signum() < 0 || rank.compareTo(maxRank) > 0)
       {
-         _indices = new int[_tupleSize];
-         initialiseIndices(_indices);
+         throw new IndexOutOfBoundsException(String.format("Rank %1$s is not between 0 and %2$s!", rank, maxRank));
       }
+   }
+
+   private class CombinationIterator implements Iterator<List<T>>
+   {
+      private final CombinatoricCursor<T> _cursor = cursor();
 
       @Override
       public boolean hasNext()
       {
-         return _numLeft.compareTo(ZERO) == 1;
+         return _cursor.hasNext();
       }
 
       @Override
       public List<T> next()
       {
-         if (!_numLeft.equals(_size))
+         if (!_cursor.next())
          {
-            computeNext(_indices);
+            throw new NoSuchElementException();
          }
-         _numLeft = _numLeft.subtract(ONE);
-         return getResult(_indices);
+
+         return getResult(_cursor.getIndices());
       }
 
       @Override
@@ -126,11 +257,38 @@ public abstract class CombinatoricIterable<T> implements Iterable<List<T>>
 
    private List<T> getResult(final int[] indices)
    {
-      final ArrayList<T> result = new ArrayList<T>(indices.length);
-      for (final int index : indices)
+      final Object[] result = new Object[indices.length];
+      for (int i = 0; i < indices.length; ++i)
+      {
+         result[i] = _elements.get(indices[i]);
+      }
+
+      return new Tuple<T>(result);
+   }
+
+   /**
+    * An unmodifiable {@link List} directly backed by an array.
+    */
+   private static class Tuple<T> extends AbstractList<T> implements RandomAccess
+   {
+      private final Object[] _elements;
+
+      private Tuple(final Object[] elements)
+      {
+         _elements = elements;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public T get(final int index)
+      {
+         return (T) _elements[index];
+      }
+
+      @Override
+      public int size()
       {
-         result.add(_elements.get(index));
+         return _elements.length;
       }
-      return Collections.unmodifiableList(result);
    }
 }
@@ -3,7 +3,9 @@ package net.sf.javagimmicks.math.combinatorics;
 import static net.sf.javagimmicks.math.MathExt.factorial;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * A class that permutes a given array of elements. It is an iterator that
@@ -54,6 +56,40 @@ public class Permuter<T> extends CombinatoricIterable<T>
       return factorial(n);
    }
 
+   /**
+    * Computes the permutation with the given rank directly by interpreting it
+    * as a number in the factorial number system - each digit selects one of
+    * the remaining elements.
+    */
+   @Override
+   protected void unrank(final BigInteger rank, final int[] indices)
+   {
+      final int n = indices.length;
+
+      // factorials[i] = i!
+      final BigInteger[] factorials = new BigInteger[Math.max(n, 1)];
+      factorials[0] = BigInteger.ONE;
+      for (int i = 1; i < n; ++i)
+      {
+         factorials[i] = factorials[i - 1].multiply(BigInteger.valueOf(i));
+      }
+
+      final List<Integer> available = new ArrayList<Integer>(n);
+      for (int i = 0; i < n; ++i)
+      {
+         available.add(i);
+      }
+
+      BigInteger remaining = rank;
+      for (int i = 0; i < n; ++i)
+      {
+         final BigInteger[] digitAndRemainder = remaining.divideAndRemainder(factorials[n - 1 - i]);
+
+         indices[i] = available.remove(digitAndRemainder[0].intValue());
+         remaining = digitAndRemainder[1];
+      }
+   }
+
    @Override
    protected void computeNext(final int[] indices)
    {
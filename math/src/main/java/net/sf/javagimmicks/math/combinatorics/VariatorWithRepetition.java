@@ -87,6 +87,26 @@ public class VariatorWithRepetition<T> extends CombinatoricIterable<T>
       return BigInteger.valueOf(n).pow(r);
    }
 
+   /**
+    * Computes the variation with the given rank directly by interpreting it as
+    * a number with the base of the number of elements - the last index is the
+    * least significant digit.
+    */
+   @Override
+   protected void unrank(final BigInteger rank, final int[] indices)
+   {
+      final BigInteger base = BigInteger.valueOf(_elements.size());
+
+      BigInteger remaining = rank;
+      for (int i = indices.length - 1; i >= 0; --i)
+      {
+         final BigInteger[] quotientAndDigit = remaining.divideAndRemainder(base);
+
+         indices[i] = quotientAndDigit[1].intValue();
+         remaining = quotientAndDigit[0];
+      }
+   }
+
    @Override
    protected void computeNext(final int[] indices)
    {
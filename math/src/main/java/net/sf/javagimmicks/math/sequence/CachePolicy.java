@@ -0,0 +1,154 @@
+package net.sf.javagimmicks.math.sequence;
+
+import java.math.BigInteger;
+
+/**
+ * Describes which values a {@link CachedNumberSequence} keeps in its cache.
+ * <p>
+ * A policy has two independent aspects:
+ * <ul>
+ * <li>a <b>maximum size</b> - if the cache grows beyond it, the least recently
+ * used values are evicted</li>
+ * <li>a <b>checkpoint interval</b> {@code k} - only the values at every
+ * {@code k}-th index are kept, all others are recomputed when requested again
+ * (an {@link InductiveNumberSequence} resumes its computation from the
+ * nearest checkpoint)</li>
+ * </ul>
+ * Instances are immutable and can be created via {@link #unbounded()},
+ * {@link #leastRecentlyUsed(int)}, {@link #checkpoints(int)} and
+ * {@link #checkpoints(int, int)}.
+ */
+public final class CachePolicy
+{
+   private static final CachePolicy UNBOUNDED = new CachePolicy(Integer.MAX_VALUE, 1);
+
+   /**
+    * Returns a {@link CachePolicy} that keeps all values forever.
+    * 
+    * @return a {@link CachePolicy} that keeps all values forever
+    */
+   public static CachePolicy unbounded()
+   {
+      return UNBOUNDED;
+   }
+
+   /**
+    * Returns a {@link CachePolicy} that keeps all values but at most the given
+    * number of them - the least recently used values are evicted first.
+    * 
+    * @param maxSize
+    *           the maximum number of values to keep
+    * @return the resulting {@link CachePolicy}
+    * @throws IllegalArgumentException
+    *            if {@code maxSize} is less than 1
+    */
+   public static CachePolicy leastRecentlyUsed(final int maxSize)
+   {
+      return new CachePolicy(maxSize, 1);
+   }
+
+   /**
+    * Returns a {@link CachePolicy} that keeps only the values at every
+    * {@code interval}-th index (without any size limit).
+    * 
+    * @param interval
+    *           the distance between two indices whose values are kept
+    * @return the resulting {@link CachePolicy}
+    * @throws IllegalArgumentException
+    *            if {@code interval} is less than 1
+    */
+   public static CachePolicy checkpoints(final int interval)
+   {
+      return new CachePolicy(Integer.MAX_VALUE, interval);
+   }
+
+   /**
+    * Returns a {@link CachePolicy} that keeps only the values at every
+    * {@code interval}-th index and at most {@code maxSize} of them - the least
+    * recently used values are evicted first.
+    * 
+    * @param interval
+    *           the distance between two indices whose values are kept
+    * @param maxSize
+    *           the maximum number of values to keep
+    * @return the resulting {@link CachePolicy}
+    * @throws IllegalArgumentException
+    *            if {@code interval} or {@code maxSize} is less than 1
+    */
+   public static CachePolicy checkpoints(final int interval, final int maxSize)
+   {
+      return new CachePolicy(maxSize, interval);
+   }
+
+   private final int _maxSize;
+   private final int _checkpointInterval;
+   private final BigInteger _bigCheckpointInterval;
+
+   private CachePolicy(final int maxSize, final int checkpointInterval)
+   {
+      if (maxSize < 1)
+      {
+         throw new IllegalArgumentException("Maximum size must be at least 1!");
+      }
+
+      if (checkpointInterval < 1)
+      {
+         throw new IllegalArgumentException("Checkpoint interval must be at least 1!");
+      }
+
+      _maxSize = maxSize;
+      _checkpointInterval = checkpointInterval;
+      _bigCheckpointInterval = BigInteger.valueOf(checkpointInterval);
+   }
+
+   /**
+    * Returns the maximum number of values to keep.
+    * 
+    * @return the maximum number of values to keep ({@link Integer#MAX_VALUE}
+    *         if there is no limit)
+    */
+   public int getMaxSize()
+   {
+      return _maxSize;
+   }
+
+   /**
+    * Returns if there is a maximum number of values to keep.
+    * 
+    * @return if there is a maximum number of values to keep
+    */
+   public boolean isBounded()
+   {
+      return _maxSize != Integer.MAX_VALUE;
+   }
+
+   /**
+    * Returns the distance between two indices whose values are kept.
+    * 
+    * @return the distance between two indices whose values are kept ({@code 1}
+    *         if all values are kept)
+    */
+   public int getCheckpointInterval()
+   {
+      return _checkpointInterval;
+   }
+
+   /**
+    * Determines if the value at the given index should be kept.
+    * 
+    * @param index
+    *           the index to check
+    * @return if the value at the given index should be kept
+    */
+   public boolean isCheckpoint(final BigInteger index)
+   {
+      return _checkpointInterval == 1 || index.mod(_bigCheckpointInterval).signum() == 0;
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("CachePolicy[maxSize=%1$s, checkpointInterval=%2$s]", isBounded() ? _maxSize
+            : "unbounded", _checkpointInterval);
+   }
+}
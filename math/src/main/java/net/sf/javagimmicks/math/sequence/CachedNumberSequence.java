@@ -1,73 +1,308 @@
 package net.sf.javagimmicks.math.sequence;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An abstract helper for creating {@link NumberSequence} instances that cache
  * already calculated values for later use.
+ * <p>
+ * Which values are kept is controlled by a {@link CachePolicy} (by default all
+ * of them). Lookups don't lock at all and every value is computed only once
+ * even if it is requested concurrently - different indices are computed
+ * concurrently, concurrent requests for the same index wait for the one
+ * computation.
  */
 public abstract class CachedNumberSequence<N extends Number> implements NumberSequence<N>
 {
-   private final ReadWriteLock _cacheLock = new ReentrantReadWriteLock();
-   private final Map<BigInteger, N> _cache = new TreeMap<BigInteger, N>();
+   private final CachePolicy _cachePolicy;
+   private final ConcurrentNavigableMap<BigInteger, Entry<N>> _cache = new ConcurrentSkipListMap<BigInteger, Entry<N>>();
+   private final AtomicInteger _size = new AtomicInteger();
+   private final AtomicLong _accessClock = new AtomicLong();
+   private final Lock _evictionLock = new ReentrantLock();
 
    protected CachedNumberSequence()
-   {}
+   {
+      this(CachePolicy.unbounded());
+   }
+
+   protected CachedNumberSequence(final CachePolicy cachePolicy)
+   {
+      if (cachePolicy == null)
+      {
+         throw new IllegalArgumentException("Cache policy must not be null!");
+      }
+
+      _cachePolicy = cachePolicy;
+   }
 
    abstract protected N compute(BigInteger index);
 
+   /**
+    * Returns the {@link CachePolicy} of this instance.
+    * 
+    * @return the {@link CachePolicy} of this instance
+    */
+   public final CachePolicy getCachePolicy()
+   {
+      return _cachePolicy;
+   }
+
    @Override
    public final N get(final BigInteger index)
    {
-      N result = getCached(index);
-      if (result == null)
+      Entry<N> entry = _cache.get(index);
+      if (entry == null)
       {
-         _cacheLock.writeLock().lock();
-         try
+         final Entry<N> newEntry = new Entry<N>(new Callable<N>()
+         {
+            @Override
+            public N call()
+            {
+               return compute(index);
+            }
+         });
+
+         entry = _cache.putIfAbsent(index, newEntry);
+         if (entry == null)
          {
-            result = _cache.get(index);
-            if (result == null)
+            entry = newEntry;
+            _size.incrementAndGet();
+
+            newEntry.run();
+            touch(newEntry);
+
+            if (_cachePolicy.isCheckpoint(index))
             {
-               result = compute(index);
-               _cache.put(index, result);
+               evictIfNecessary();
+            }
+            else
+            {
+               // The entry was only there to let concurrent requests wait
+               remove(index, newEntry);
             }
          }
-         finally
+      }
+
+      return getValue(index, entry);
+   }
+
+   protected N getCached(final BigInteger index)
+   {
+      final Entry<N> entry = _cache.get(index);
+      if (entry == null || !entry.isDone())
+      {
+         return null;
+      }
+
+      try
+      {
+         touch(entry);
+         return entry.get();
+      }
+      catch (final ExecutionException e)
+      {
+         return null;
+      }
+      catch (final InterruptedException e)
+      {
+         // Cannot happen - the entry is already done
+         Thread.currentThread().interrupt();
+         return null;
+      }
+   }
+
+   protected final void putToCache(final BigInteger index, final N value)
+   {
+      final Entry<N> entry = new Entry<N>(new Callable<N>()
+      {
+         @Override
+         public N call()
          {
-            _cacheLock.writeLock().unlock();
+            return value;
+         }
+      });
+      entry.run();
+      touch(entry);
+
+      if (_cache.put(index, entry) == null)
+      {
+         _size.incrementAndGet();
+      }
+
+      evictIfNecessary();
+   }
+
+   /**
+    * Returns the highest index not greater than the given one whose value is
+    * currently cached.
+    * 
+    * @param maxIndex
+    *           the maximum index to consider
+    * @return the resulting index or {@code null} if there is no such one
+    */
+   protected final BigInteger getHighestCachedIndex(final BigInteger maxIndex)
+   {
+      for (final Map.Entry<BigInteger, Entry<N>> entry : _cache.headMap(maxIndex, true).descendingMap().entrySet())
+      {
+         if (entry.getValue().isDone())
+         {
+            return entry.getKey();
          }
       }
 
-      return result;
+      return null;
    }
 
-   protected final N getCached(final BigInteger index)
+   private N getValue(final BigInteger index, final Entry<N> entry)
    {
-      _cacheLock.readLock().lock();
+      boolean interrupted = false;
       try
       {
-         return _cache.get(index);
+         while (true)
+         {
+            try
+            {
+               final N result = entry.get();
+               touch(entry);
+
+               return result;
+            }
+            catch (final InterruptedException e)
+            {
+               interrupted = true;
+            }
+            catch (final ExecutionException e)
+            {
+               // Failed computations are not cached
+               remove(index, entry);
+
+               final Throwable cause = e.getCause();
+               if (cause instanceof RuntimeException)
+               {
+                  throw (RuntimeException) cause;
+               }
+               else if (cause instanceof Error)
+               {
+                  throw (Error) cause;
+               }
+
+               throw new IllegalStateException(cause);
+            }
+         }
       }
       finally
       {
-         _cacheLock.readLock().unlock();
+         if (interrupted)
+         {
+            Thread.currentThread().interrupt();
+         }
       }
    }
 
-   protected final void putToCache(final BigInteger index, final N value)
+   private void touch(final Entry<N> entry)
+   {
+      if (_cachePolicy.isBounded())
+      {
+         entry._lastAccess = _accessClock.incrementAndGet();
+      }
+   }
+
+   private void remove(final BigInteger index, final Entry<N> entry)
    {
-      _cacheLock.writeLock().lock();
+      if (_cache.remove(index, entry))
+      {
+         _size.decrementAndGet();
+      }
+   }
+
+   /**
+    * Evicts the least recently used values if the cache became too large -
+    * down to 7/8 of the maximum size, so that not every new value causes an
+    * eviction run. Runs only on one {@link Thread} at a time, others don't
+    * wait for it.
+    */
+   private void evictIfNecessary()
+   {
+      final int maxSize = _cachePolicy.getMaxSize();
+      if (!_cachePolicy.isBounded() || _size.get() <= maxSize || !_evictionLock.tryLock())
+      {
+         return;
+      }
+
       try
       {
-         _cache.put(index, value);
+         // Sort copies of the access times - the entries' ones change
+         // concurrently, which would break the sorting contract
+         final List<EvictionCandidate<N>> candidates = new ArrayList<EvictionCandidate<N>>(_size.get());
+         for (final Map.Entry<BigInteger, Entry<N>> entry : _cache.entrySet())
+         {
+            final Entry<N> value = entry.getValue();
+            if (value.isDone())
+            {
+               candidates.add(new EvictionCandidate<N>(value.getLastAccess(), entry.getKey(), value));
+            }
+         }
+
+         Collections.sort(candidates);
+
+         final int targetSize = maxSize - maxSize / 8;
+         for (int i = 0; i < candidates.size() && _size.get() > targetSize; ++i)
+         {
+            final EvictionCandidate<N> candidate = candidates.get(i);
+            remove(candidate._index, candidate._entry);
+         }
       }
       finally
       {
-         _cacheLock.writeLock().unlock();
+         _evictionLock.unlock();
+      }
+   }
+
+   private static class Entry<N> extends FutureTask<N>
+   {
+      private volatile long _lastAccess;
+
+      public Entry(final Callable<N> callable)
+      {
+         super(callable);
+      }
+
+      public long getLastAccess()
+      {
+         return _lastAccess;
+      }
+   }
+
+   private static class EvictionCandidate<N> implements Comparable<EvictionCandidate<N>>
+   {
+      private final long _lastAccess;
+      private final BigInteger _index;
+      private final Entry<N> _entry;
+
+      public EvictionCandidate(final long lastAccess, final BigInteger index, final Entry<N> entry)
+      {
+         _lastAccess = lastAccess;
+         _index = index;
+         _entry = entry;
+      }
+
+      @Override
+      public int compareTo(final EvictionCandidate<N> o)
+      {
+         return _lastAccess < o._lastAccess ? -1 : (_lastAccess > o._lastAccess ? 1 : 0);
       }
    }
 }
@@ -4,12 +4,29 @@ import static java.math.BigInteger.ONE;
 
 import java.math.BigInteger;
 
+import net.sf.javagimmicks.math.sequence.ProductTree.Factors;
+
 /**
  * An implementation of {@link NumberSequence} for the <a
  * href="http://en.wikipedia.org/wiki/Factorial">factorial</a> sequence.
+ * <p>
+ * Values are computed directly for the requested index (see
+ * {@link #primeSwing(int)}), so only the requested values are cached - not
+ * all the values with a lower index.
  */
-public class FactorialSequence extends InductiveNumberSequence<BigInteger>
+public class FactorialSequence extends CachedNumberSequence<BigInteger>
 {
+   private static final long[] SMALL_FACTORIALS = new long[21];
+
+   static
+   {
+      SMALL_FACTORIALS[0] = 1L;
+      for (int i = 1; i < SMALL_FACTORIALS.length; ++i)
+      {
+         SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+      }
+   }
+
    /**
     * Returns a caches singleton instance of {@link FactorialSequence}.
     * 
@@ -33,22 +50,182 @@ public class FactorialSequence extends InductiveNumberSequence<BigInteger>
       return get().get(index);
    }
 
+   /**
+    * Computes the factorial of the given number without any caching using
+    * Peter Luschny's prime swing algorithm.
+    * <p>
+    * It is based on the recursion {@code n! = ((n/2)!)^2 * swing(n)} where the
+    * <i>swing</i> number {@code swing(n)} is computed from its prime
+    * factorization. All (partial) products are built by binary splitting, large
+    * ones in parallel (as many {@link Thread}s as processors are available).
+    * 
+    * @param n
+    *           the number of which to calculate the factorial
+    * @return the resulting factorial
+    * @throws IllegalArgumentException
+    *            if {@code n} is negative
+    */
+   public static BigInteger primeSwing(final int n)
+   {
+      if (n < 0)
+      {
+         throw new IllegalArgumentException("Factorial is not defined for negative numbers!");
+      }
+
+      if (n < SMALL_FACTORIALS.length)
+      {
+         return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+      }
+
+      return primeSwing(n, sievePrimes(n));
+   }
+
+   /**
+    * Computes the <a
+    * href="http://en.wikipedia.org/wiki/Falling_and_rising_factorials">falling
+    * factorial</a> {@code n * (n-1) * ... * (n-k+1)} (which equals
+    * {@code n! / (n-k)!}) without any caching by binary splitting.
+    * 
+    * @param n
+    *           the number to start with
+    * @param k
+    *           the number of factors
+    * @return the resulting falling factorial
+    * @throws IllegalArgumentException
+    *            if {@code k} is negative or greater than {@code n}
+    */
+   public static BigInteger fallingFactorial(final BigInteger n, final BigInteger k)
+   {
+      if (n == null || k == null)
+      {
+         throw new IllegalArgumentException("At least one argument was null!");
+      }
+
+      if (k.signum() < 0 || k.compareTo(n) > 0)
+      {
+         throw new IllegalArgumentException("k must be between 0 and n!");
+      }
+
+      return ProductTree.product(n.subtract(k).add(ONE), n);
+   }
+
    /**
     * Creates a new instance.
     */
    public FactorialSequence()
+   {}
+
+   /**
+    * Creates a new instance using the given {@link CachePolicy}.
+    * 
+    * @param cachePolicy
+    *           the {@link CachePolicy} to use
+    */
+   public FactorialSequence(final CachePolicy cachePolicy)
    {
-      super(ONE);
+      super(cachePolicy);
    }
 
    @Override
-   protected BigInteger computeInductive(final BigInteger index)
+   protected BigInteger compute(final BigInteger index)
    {
-      if (isStartIndex(index))
+      if (index.signum() <= 0)
+      {
+         throw new IndexOutOfBoundsException("Index must be 1 or greater!");
+      }
+
+      if (index.bitLength() >= Integer.SIZE)
+      {
+         throw new IndexOutOfBoundsException(String.format("Index must be %1$s or lower!", Integer.MAX_VALUE));
+      }
+
+      return primeSwing(index.intValue());
+   }
+
+   private static BigInteger primeSwing(final int n, final int[] primes)
+   {
+      if (n < SMALL_FACTORIALS.length)
+      {
+         return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+      }
+
+      final BigInteger half = primeSwing(n / 2, primes);
+
+      return half.multiply(half).multiply(swing(n, primes));
+   }
+
+   /**
+    * Computes {@code n! / ((n/2)!)^2} - the exponent of each prime {@code p}
+    * within it is the number of odd values {@code n / p^i} for {@code i >= 1}.
+    * Each resulting prime power is not greater than {@code n}.
+    */
+   private static BigInteger swing(final int n, final int[] primes)
+   {
+      final Factors factors = new Factors(n / 16);
+
+      for (final int prime : primes)
+      {
+         if (prime > n)
+         {
+            break;
+         }
+
+         long primePower = 1L;
+         for (int q = n / prime; q > 0; q /= prime)
+         {
+            if ((q & 1) == 1)
+            {
+               primePower *= prime;
+            }
+         }
+
+         factors.add(primePower);
+      }
+
+      return ProductTree.product(factors);
+   }
+
+   /**
+    * Collects all primes up to the given number with a sieve of Eratosthenes
+    * over the odd numbers.
+    */
+   private static int[] sievePrimes(final int n)
+   {
+      // composite[i] stands for the odd number 2 * i + 1
+      final boolean[] composite = new boolean[(n - 1) / 2 + 1];
+      int count = n >= 2 ? 1 : 0;
+
+      for (int i = 1; i < composite.length; ++i)
+      {
+         if (composite[i])
+         {
+            continue;
+         }
+
+         ++count;
+
+         final long prime = 2L * i + 1;
+         for (long multiple = prime * prime; multiple <= n; multiple += 2 * prime)
+         {
+            composite[(int) (multiple / 2)] = true;
+         }
+      }
+
+      final int[] primes = new int[count];
+      int index = 0;
+      if (n >= 2)
+      {
+         primes[index++] = 2;
+      }
+
+      for (int i = 1; i < composite.length; ++i)
       {
-         return ONE;
+         if (!composite[i])
+         {
+            primes[index++] = 2 * i + 1;
+         }
       }
 
-      return getCached(index.subtract(ONE)).multiply(index);
+      return primes;
    }
 }
@@ -8,8 +8,12 @@ import java.math.BigInteger;
 /**
  * An implementation of {@link NumberSequence} for the <a
  * href="http://en.wikipedia.org/wiki/Fibonacci_number">Fibonacci</a> sequence.
+ * <p>
+ * Values are computed directly for the requested index (see
+ * {@link #fastDoubling(BigInteger)}), so only the requested values are cached
+ * - not all the values with a lower index.
  */
-public class FibonacciSequence extends InductiveNumberSequence<BigInteger>
+public class FibonacciSequence extends CachedNumberSequence<BigInteger>
 {
    /**
     * Returns a caches singleton instance of {@link FibonacciSequence}.
@@ -34,29 +38,77 @@ public class FibonacciSequence extends InductiveNumberSequence<BigInteger>
       return get().get(index);
    }
 
+   /**
+    * Computes the Fibonacci number at the given index without any caching
+    * using the <i>fast doubling</i> method.
+    * <p>
+    * It walks the bits of the index from the highest to the lowest one and
+    * uses the identities {@code F(2k) = F(k) * (2 * F(k+1) - F(k))} and
+    * {@code F(2k+1) = F(k)^2 + F(k+1)^2}, so it needs only
+    * {@code O(log(index))} steps.
+    * 
+    * @param index
+    *           the index of the Fibonacci number to compute
+    * @return the resulting Fibonacci number
+    * @throws IllegalArgumentException
+    *            if {@code index} is {@code null} or negative
+    */
+   public static BigInteger fastDoubling(final BigInteger index)
+   {
+      if (index == null || index.signum() < 0)
+      {
+         throw new IllegalArgumentException("Index must not be null or negative!");
+      }
+
+      // Invariant: a = F(k), b = F(k+1) for the bits of the index processed so far
+      BigInteger a = ZERO;
+      BigInteger b = ONE;
+
+      for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+      {
+         final BigInteger f2k = a.multiply(b.shiftLeft(1).subtract(a));
+         final BigInteger f2k1 = a.multiply(a).add(b.multiply(b));
+
+         if (index.testBit(bit))
+         {
+            a = f2k1;
+            b = f2k.add(f2k1);
+         }
+         else
+         {
+            a = f2k;
+            b = f2k1;
+         }
+      }
+
+      return a;
+   }
+
    /**
     * Creates a new instance.
     */
    public FibonacciSequence()
+   {}
+
+   /**
+    * Creates a new instance using the given {@link CachePolicy}.
+    * 
+    * @param cachePolicy
+    *           the {@link CachePolicy} to use
+    */
+   public FibonacciSequence(final CachePolicy cachePolicy)
    {
-      super(ZERO);
+      super(cachePolicy);
    }
 
    @Override
-   protected BigInteger computeInductive(final BigInteger index)
+   protected BigInteger compute(final BigInteger index)
    {
-      if (ZERO.equals(index))
+      if (index.signum() < 0)
       {
-         return ZERO;
+         throw new IndexOutOfBoundsException("Index must be 0 or greater!");
       }
-      else if (ONE.equals(index))
-      {
-         return ONE;
-      }
-
-      final BigInteger index1 = index.subtract(ONE);
-      final BigInteger index2 = index1.subtract(ONE);
 
-      return getCached(index1).add(getCached(index2));
+      return fastDoubling(index);
    }
 }
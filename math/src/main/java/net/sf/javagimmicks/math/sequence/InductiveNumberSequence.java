@@ -3,6 +3,9 @@ package net.sf.javagimmicks.math.sequence;
 import static java.math.BigInteger.ONE;
 
 import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An abstract helper for creating {@link NumberSequence}s that uses caching
@@ -12,21 +15,58 @@ import java.math.BigInteger;
  * {@link #getCached(BigInteger)}. This is pretty useful for sequences that are
  * <b>inductive</b> - i.e. they need previous values for calculation of the
  * current value.
+ * <p>
+ * If a sequence only needs a fixed number of previous values (its
+ * <i>induction depth</i> - e.g. {@code 2} for the Fibonacci sequence), it can
+ * declare it upon construction. Then only these previous values are guaranteed
+ * to be retrievable and the sequence works well with {@link CachePolicy}s that
+ * don't keep all values: for each checkpoint (see
+ * {@link CachePolicy#checkpoints(int)}) the values up to the induction depth
+ * before it are kept as well and the computation of a value resumes from the
+ * nearest such block of values below it. Without a declared induction depth,
+ * the computation always starts at the start index if not all values are kept.
  */
 public abstract class InductiveNumberSequence<N extends Number> extends CachedNumberSequence<N>
 {
+   private static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
    private final BigInteger _startIndex;
+   private final int _depth;
+   private final boolean _keepsAllValues;
+
+   private final ThreadLocal<Map<BigInteger, N>> _window = new ThreadLocal<Map<BigInteger, N>>();
 
-   private BigInteger _cacheIndex;
+   // Only maintained if all values are kept and no induction depth is declared
+   private final AtomicReference<BigInteger> _completeIndex;
 
    protected InductiveNumberSequence(final BigInteger startIndex)
    {
+      this(startIndex, UNLIMITED_DEPTH, CachePolicy.unbounded());
+   }
+
+   protected InductiveNumberSequence(final BigInteger startIndex, final CachePolicy cachePolicy)
+   {
+      this(startIndex, UNLIMITED_DEPTH, cachePolicy);
+   }
+
+   protected InductiveNumberSequence(final BigInteger startIndex, final int depth, final CachePolicy cachePolicy)
+   {
+      super(cachePolicy);
+
       if (startIndex == null)
       {
          throw new IllegalArgumentException("Start index cannot be null!");
       }
+
+      if (depth < 1)
+      {
+         throw new IllegalArgumentException("Induction depth must be at least 1!");
+      }
+
       _startIndex = startIndex;
-      _cacheIndex = _startIndex.subtract(ONE);
+      _depth = depth;
+      _keepsAllValues = !cachePolicy.isBounded() && cachePolicy.getCheckpointInterval() == 1;
+      _completeIndex = new AtomicReference<BigInteger>(_startIndex.subtract(ONE));
    }
 
    abstract protected N computeInductive(BigInteger currentIndex);
@@ -41,6 +81,22 @@ public abstract class InductiveNumberSequence<N extends Number> extends CachedNu
       return _startIndex;
    }
 
+   @Override
+   protected final N getCached(final BigInteger index)
+   {
+      final Map<BigInteger, N> window = _window.get();
+      if (window != null)
+      {
+         final N result = window.get(index);
+         if (result != null)
+         {
+            return result;
+         }
+      }
+
+      return super.getCached(index);
+   }
+
    @Override
    protected final N compute(final BigInteger index)
    {
@@ -49,14 +105,144 @@ public abstract class InductiveNumberSequence<N extends Number> extends CachedNu
          throw new IndexOutOfBoundsException(String.format("Index must be %1$s or greater!", _startIndex));
       }
 
-      N result = null;
-      for (BigInteger currentIndex = _cacheIndex.add(ONE); currentIndex.compareTo(index) <= 0; currentIndex = currentIndex
+      final Map<BigInteger, N> previousWindow = _window.get();
+      final Map<BigInteger, N> window = new LinkedHashMap<BigInteger, N>()
+      {
+         private static final long serialVersionUID = 3711587419472493045L;
+
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<BigInteger, N> eldest)
+         {
+            return size() > _depth;
+         }
+      };
+      _window.set(window);
+
+      try
+      {
+         final BigInteger resumeIndex = resume(index, window);
+         final CachePolicy cachePolicy = getCachePolicy();
+
+         N result = null;
+         for (BigInteger currentIndex = resumeIndex; currentIndex.compareTo(index) <= 0; currentIndex = currentIndex
+               .add(ONE))
+         {
+            result = computeInductive(currentIndex);
+            window.put(currentIndex, result);
+
+            if (cachePolicy.isCheckpoint(currentIndex))
+            {
+               keepCheckpoint(currentIndex, window);
+            }
+         }
+
+         // All values from the start index up to the resume index were cached before
+         if (_keepsAllValues && _depth == UNLIMITED_DEPTH)
+         {
+            updateCompleteIndex(index);
+         }
+
+         return result;
+      }
+      finally
+      {
+         if (previousWindow != null)
+         {
+            _window.set(previousWindow);
+         }
+         else
+         {
+            _window.remove();
+         }
+      }
+   }
+
+   /**
+    * Determines the index where to start the computation of the given index
+    * and puts the required previous values into the given window.
+    */
+   private BigInteger resume(final BigInteger index, final Map<BigInteger, N> window)
+   {
+      if (_depth == UNLIMITED_DEPTH)
+      {
+         if (!_keepsAllValues)
+         {
+            return _startIndex;
+         }
+
+         final BigInteger completeIndex = _completeIndex.get();
+         return completeIndex.compareTo(index) < 0 ? completeIndex.add(ONE) : _startIndex;
+      }
+
+      for (BigInteger candidate = getHighestCachedIndex(index.subtract(ONE)); candidate != null
+            && candidate.compareTo(_startIndex) >= 0; candidate = getHighestCachedIndex(candidate.subtract(ONE)))
+      {
+         if (loadBlock(candidate, window))
+         {
+            return candidate.add(ONE);
+         }
+
+         window.clear();
+      }
+
+      return _startIndex;
+   }
+
+   /**
+    * Loads the values up to the induction depth before and at the given index
+    * (but not below the start index) into the window.
+    */
+   private boolean loadBlock(final BigInteger lastIndex, final Map<BigInteger, N> window)
+   {
+      BigInteger firstIndex = lastIndex.subtract(BigInteger.valueOf(_depth - 1));
+      if (firstIndex.compareTo(_startIndex) < 0)
+      {
+         firstIndex = _startIndex;
+      }
+
+      for (BigInteger currentIndex = firstIndex; currentIndex.compareTo(lastIndex) <= 0; currentIndex = currentIndex
             .add(ONE))
       {
-         result = computeInductive(currentIndex);
-         putToCache(currentIndex, result);
+         final N value = super.getCached(currentIndex);
+         if (value == null)
+         {
+            return false;
+         }
+
+         window.put(currentIndex, value);
+      }
+
+      return true;
+   }
+
+   /**
+    * Puts the value at the given checkpoint index and the previous ones up to
+    * the induction depth into the cache (the requested value as well, so it is
+    * available before {@link #get(BigInteger)} returns).
+    */
+   private void keepCheckpoint(final BigInteger checkpointIndex, final Map<BigInteger, N> window)
+   {
+      if (_depth == UNLIMITED_DEPTH)
+      {
+         putToCache(checkpointIndex, window.get(checkpointIndex));
+         return;
       }
 
-      return result;
+      for (final Map.Entry<BigInteger, N> entry : window.entrySet())
+      {
+         putToCache(entry.getKey(), entry.getValue());
+      }
+   }
+
+   private void updateCompleteIndex(final BigInteger index)
+   {
+      while (true)
+      {
+         final BigInteger completeIndex = _completeIndex.get();
+         if (completeIndex.compareTo(index) >= 0 || _completeIndex.compareAndSet(completeIndex, index))
+         {
+            return;
+         }
+      }
    }
 }
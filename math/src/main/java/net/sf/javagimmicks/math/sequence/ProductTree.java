@@ -0,0 +1,273 @@
+package net.sf.javagimmicks.math.sequence;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Multiplies many factors by binary splitting - i.e. along a balanced binary
+ * tree, so that the operands of each multiplication have roughly the same size
+ * and {@link BigInteger}'s sub-quadratic multiplication algorithms can kick
+ * in.
+ * <p>
+ * Small factors are packed into {@code long}s first (see {@link Factors}) and
+ * large products are split into chunks that are multiplied on a bounded number
+ * of worker {@link Thread}s - the calling {@link Thread} takes part in the work
+ * as well. The partial results are then combined pairwise, again in parallel.
+ */
+class ProductTree
+{
+   /**
+    * The minimum number of (packed) factors per parallel chunk - below that,
+    * starting a {@link Thread} is more expensive than the multiplications.
+    */
+   private static final int MIN_CHUNK_SIZE = 1 << 10;
+
+   private ProductTree()
+   {}
+
+   /**
+    * Multiplies the given factors using as many {@link Thread}s as there are
+    * processors available.
+    */
+   static BigInteger product(final Factors factors)
+   {
+      return product(factors, Runtime.getRuntime().availableProcessors());
+   }
+
+   static BigInteger product(final Factors factors, final int parallelism)
+   {
+      if (parallelism < 1)
+      {
+         throw new IllegalArgumentException("Parallelism must be at least 1!");
+      }
+
+      final long[] values = factors.toArray();
+      final int chunkCount = Math.min(parallelism, values.length / MIN_CHUNK_SIZE);
+      if (chunkCount < 2)
+      {
+         return product(values, 0, values.length);
+      }
+
+      final BigInteger[] partials = new BigInteger[chunkCount];
+      final Task[] tasks = new Task[chunkCount];
+      for (int i = 0; i < chunkCount; ++i)
+      {
+         final int from = (int) ((long) values.length * i / chunkCount);
+         final int to = (int) ((long) values.length * (i + 1) / chunkCount);
+
+         tasks[i] = new Task()
+         {
+            @Override
+            BigInteger compute()
+            {
+               return product(values, from, to);
+            }
+         };
+      }
+      runAll(tasks, partials);
+
+      return combine(partials);
+   }
+
+   /**
+    * Multiplies all numbers within the given (inclusive) range.
+    */
+   static BigInteger product(final BigInteger from, final BigInteger to)
+   {
+      final int compare = from.compareTo(to);
+      if (compare > 0)
+      {
+         return BigInteger.ONE;
+      }
+      else if (compare == 0)
+      {
+         return from;
+      }
+
+      if (from.signum() > 0 && to.bitLength() < Long.SIZE)
+      {
+         final long count = to.longValue() - from.longValue() + 1;
+         if (count <= Integer.MAX_VALUE)
+         {
+            final Factors factors = new Factors((int) Math.min(count, 1 << 16));
+            for (long i = from.longValue(); i <= to.longValue(); ++i)
+            {
+               factors.add(i);
+            }
+
+            return product(factors);
+         }
+      }
+
+      final BigInteger middle = from.add(to).shiftRight(1);
+      return product(from, middle).multiply(product(middle.add(BigInteger.ONE), to));
+   }
+
+   private static BigInteger product(final long[] values, final int from, final int to)
+   {
+      final int length = to - from;
+      if (length == 0)
+      {
+         return BigInteger.ONE;
+      }
+      else if (length == 1)
+      {
+         return BigInteger.valueOf(values[from]);
+      }
+      else if (length == 2)
+      {
+         return BigInteger.valueOf(values[from]).multiply(BigInteger.valueOf(values[from + 1]));
+      }
+
+      final int middle = (from + to) >>> 1;
+      return product(values, from, middle).multiply(product(values, middle, to));
+   }
+
+   private static BigInteger combine(final BigInteger[] chunkProducts)
+   {
+      BigInteger[] partials = chunkProducts;
+      while (partials.length > 1)
+      {
+         final BigInteger[] current = partials;
+         final BigInteger[] next = new BigInteger[(current.length + 1) / 2];
+         final Task[] tasks = new Task[current.length / 2];
+         for (int i = 0; i < tasks.length; ++i)
+         {
+            final int index = 2 * i;
+            tasks[i] = new Task()
+            {
+               @Override
+               BigInteger compute()
+               {
+                  return current[index].multiply(current[index + 1]);
+               }
+            };
+         }
+         runAll(tasks, next);
+
+         if (current.length % 2 == 1)
+         {
+            next[next.length - 1] = current[current.length - 1];
+         }
+
+         partials = next;
+      }
+
+      return partials[0];
+   }
+
+   private static void runAll(final Task[] tasks, final BigInteger[] results)
+   {
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      final FutureTask<BigInteger>[] futures = new FutureTask[tasks.length];
+      for (int i = 1; i < tasks.length; ++i)
+      {
+         futures[i] = new FutureTask<BigInteger>(tasks[i], null);
+
+         final Thread worker = new Thread(futures[i], "ProductTree-" + i);
+         worker.setDaemon(true);
+         worker.start();
+      }
+
+      results[0] = tasks[0].compute();
+
+      try
+      {
+         for (int i = 1; i < tasks.length; ++i)
+         {
+            futures[i].get();
+            results[i] = tasks[i]._result;
+         }
+      }
+      catch (final InterruptedException e)
+      {
+         for (int i = 1; i < tasks.length; ++i)
+         {
+            futures[i].cancel(true);
+         }
+
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Multiplication was interrupted!", e);
+      }
+      catch (final ExecutionException e)
+      {
+         final Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+         else if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new IllegalStateException(cause);
+      }
+   }
+
+   private static abstract class Task implements Runnable
+   {
+      private BigInteger _result;
+
+      abstract BigInteger compute();
+
+      @Override
+      public void run()
+      {
+         _result = compute();
+      }
+   }
+
+   /**
+    * A growable list of positive factors that packs consecutive small factors
+    * into a single {@code long} as long as their product does not overflow.
+    */
+   static class Factors
+   {
+      private long[] _values;
+      private int _size;
+      private long _current = 1L;
+
+      Factors(final int initialCapacity)
+      {
+         _values = new long[Math.max(initialCapacity, 4)];
+      }
+
+      void add(final long factor)
+      {
+         if (factor <= 1L)
+         {
+            return;
+         }
+
+         if (_current <= Long.MAX_VALUE / factor)
+         {
+            _current *= factor;
+            return;
+         }
+
+         if (_size == _values.length)
+         {
+            _values = Arrays.copyOf(_values, 2 * _size);
+         }
+
+         _values[_size++] = _current;
+         _current = factor;
+      }
+
+      long[] toArray()
+      {
+         if (_current == 1L)
+         {
+            return Arrays.copyOf(_values, _size);
+         }
+
+         final long[] result = Arrays.copyOf(_values, _size + 1);
+         result[_size] = _current;
+
+         return result;
+      }
+   }
+}
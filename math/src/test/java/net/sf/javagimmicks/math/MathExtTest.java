@@ -1,6 +1,7 @@
 package net.sf.javagimmicks.math;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
 
@@ -15,4 +16,70 @@ public class MathExtTest
    {
       assertEquals(BigInteger.valueOf(15), MathExt.binomial(BigInteger.valueOf(6), BigInteger.valueOf(2)));
    }
+
+   @Test
+   public void testFactorial()
+   {
+      assertEquals(BigInteger.ONE, MathExt.factorial(0));
+      assertEquals(BigInteger.ONE, MathExt.factorial(1));
+      assertEquals(BigInteger.valueOf(3628800L), MathExt.factorial(10));
+      assertEquals(new BigInteger("51090942171709440000"), MathExt.factorial(21));
+   }
+
+   @Test
+   public void testBinomial()
+   {
+      for (int n = 0; n <= 60; ++n)
+      {
+         BigInteger expected = BigInteger.ONE;
+         for (int k = 0; k <= n; ++k)
+         {
+            assertEquals("Binomial of " + n + " and " + k, expected, MathExt.binomial(n, k));
+            expected = expected.multiply(BigInteger.valueOf(n - k)).divide(BigInteger.valueOf(k + 1));
+         }
+      }
+
+      // Beyond the cached rows of Pascal's triangle and beyond long
+      assertEquals(new BigInteger("14226520737620288370"), MathExt.binomial(67, 33));
+      assertEquals(new BigInteger("100891344545564193334812497256"), MathExt.binomial(100, 50));
+      assertEquals(BigInteger.valueOf(499999999500000000L), MathExt.binomial(1000000000L, 2L));
+
+      final BigInteger huge = BigInteger.ONE.shiftLeft(80);
+      assertEquals(huge, MathExt.binomial(huge, BigInteger.ONE));
+      assertEquals(huge, MathExt.binomial(huge, huge.subtract(BigInteger.ONE)));
+   }
+
+   @Test
+   public void testAsLong()
+   {
+      for (int base = 0; base <= 20; ++base)
+      {
+         assertEquals(MathExt.factorial(base).longValue(), MathExt.factorialAsLong(base));
+      }
+
+      for (int n = 0; n <= 200; ++n)
+      {
+         for (int k = 0; k <= n; ++k)
+         {
+            final BigInteger expected = MathExt.binomial(BigInteger.valueOf(n), BigInteger.valueOf(k));
+            try
+            {
+               assertEquals(expected.longValue(), MathExt.binomialAsLong(n, k));
+               assertTrue(expected.bitLength() < Long.SIZE);
+            }
+            catch (final ArithmeticException e)
+            {
+               assertTrue(expected.bitLength() >= Long.SIZE);
+            }
+         }
+      }
+
+      assertEquals(499999999500000000L, MathExt.binomialAsLong(1000000000L, 999999998L));
+   }
+
+   @Test(expected = ArithmeticException.class)
+   public void testFactorialAsLongOverflow()
+   {
+      MathExt.factorialAsLong(21);
+   }
 }
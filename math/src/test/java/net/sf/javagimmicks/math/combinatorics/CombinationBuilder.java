@@ -1,5 +1,6 @@
 package net.sf.javagimmicks.math.combinatorics;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +35,60 @@ public class CombinationBuilder<T>
       }
    }
 
+   /**
+    * Checks that {@link CombinatoricIterable#get(BigInteger)} and (split)
+    * {@link CombinatoricCursor}s return the same tuples in the same order as
+    * the {@link java.util.Iterator} of the given {@link CombinatoricIterable}.
+    */
+   public static <T> void assertRandomAccess(final CombinatoricIterable<T> iterable)
+   {
+      final List<List<T>> expected = new ArrayList<List<T>>();
+      CollectionUtils.addAll(expected, iterable.iterator());
+      Assert.assertEquals(iterable.size(), BigInteger.valueOf(expected.size()));
+
+      for (int rank = 0; rank < expected.size(); ++rank)
+      {
+         Assert.assertEquals("Tuple with rank " + rank, expected.get(rank), iterable.get(rank));
+      }
+
+      // Visit the first tuple, then split the rest into pieces of different
+      // size and walk them in order
+      final CombinatoricCursor<T> first = iterable.cursor();
+      final List<List<T>> actual = new ArrayList<List<T>>();
+      if (first.next())
+      {
+         actual.add(iterable.get(first.getRank()));
+      }
+
+      final List<CombinatoricCursor<T>> cursors = new ArrayList<CombinatoricCursor<T>>();
+      cursors.add(first);
+      for (int i = 0; i < 5; ++i)
+      {
+         final CombinatoricCursor<T> prefix = first.trySplit();
+         if (prefix != null)
+         {
+            cursors.add(cursors.size() - 1, prefix);
+         }
+      }
+
+      for (final CombinatoricCursor<T> cursor : cursors)
+      {
+         while (cursor.next())
+         {
+            Assert.assertEquals(BigInteger.valueOf(actual.size()), cursor.getRank());
+
+            final List<T> tuple = new ArrayList<T>();
+            for (int i = 0; i < cursor.getTupleSize(); ++i)
+            {
+               tuple.add(cursor.get(i));
+            }
+            actual.add(tuple);
+         }
+      }
+
+      Assert.assertEquals(expected, actual);
+   }
+
    private AssertionError newAssertionFailed(final ArrayList<List<T>> actual)
    {
       final String message = String.format(
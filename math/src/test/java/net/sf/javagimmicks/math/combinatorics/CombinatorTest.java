@@ -1,5 +1,12 @@
 package net.sf.javagimmicks.math.combinatorics;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
 import net.sf.javagimmicks.math.combinatorics.Combinator;
 
 import org.junit.Test;
@@ -18,4 +25,37 @@ public class CombinatorTest
             .add("c", "d")
             .assertEquals(new Combinator<String>(2, "a", "b", "c", "d"));
    }
+
+   @Test
+   public void testSize()
+   {
+      final Combinator<String> combinator = new Combinator<String>(2, "a", "b", "c", "d");
+      assertEquals(BigInteger.valueOf(6L), combinator.size());
+      assertEquals(6L, combinator.sizeAsLong());
+
+      final List<Integer> elements = new ArrayList<Integer>();
+      for (int i = 0; i < 100; ++i)
+      {
+         elements.add(i);
+      }
+
+      assertEquals(75287520L, new Combinator<Integer>(elements, 5).sizeAsLong());
+
+      final Combinator<Integer> large = new Combinator<Integer>(elements, 50);
+      assertEquals(new BigInteger("100891344545564193334812497256"), large.size());
+      try
+      {
+         large.sizeAsLong();
+         fail(ArithmeticException.class.getName() + " expected!");
+      }
+      catch (final ArithmeticException ignore)
+      {
+      }
+   }
+
+   @Test
+   public void testRandomAccess()
+   {
+      CombinationBuilder.assertRandomAccess(new Combinator<Integer>(3, 0, 1, 2, 3, 4, 5, 6, 7));
+   }
 }
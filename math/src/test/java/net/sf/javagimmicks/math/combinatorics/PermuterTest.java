@@ -1,5 +1,14 @@
 package net.sf.javagimmicks.math.combinatorics;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import net.sf.javagimmicks.math.combinatorics.Permuter;
 
 import org.junit.Test;
@@ -18,4 +27,28 @@ public class PermuterTest
             .add("c", "b", "a")
             .assertEquals(new Permuter<String>("a", "b", "c"));
    }
+
+   @Test
+   public void testRandomAccess()
+   {
+      CombinationBuilder.assertRandomAccess(new Permuter<Integer>(0, 1, 2, 3, 4, 5));
+
+      // More permutations than fit into a long - the last one is the reverse
+      final List<Integer> elements = new ArrayList<Integer>();
+      for (int i = 0; i < 25; ++i)
+      {
+         elements.add(i);
+      }
+
+      final Permuter<Integer> permuter = new Permuter<Integer>(elements);
+      final List<Integer> reversed = new ArrayList<Integer>(elements);
+      Collections.reverse(reversed);
+      assertEquals(reversed, permuter.get(permuter.size().subtract(BigInteger.ONE)));
+
+      final CombinatoricCursor<Integer> cursor = permuter.cursor(permuter.size().subtract(BigInteger.ONE),
+            permuter.size());
+      assertTrue(cursor.next());
+      assertEquals(Integer.valueOf(24), cursor.get(0));
+      assertFalse(cursor.next());
+   }
 }
@@ -21,4 +21,10 @@ public class VariatorWithRepetitionTest
             .add("c", "c")
             .assertEquals(new VariatorWithRepetition<String>(2, "a", "b", "c"));
    }
+
+   @Test
+   public void testRandomAccess()
+   {
+      CombinationBuilder.assertRandomAccess(new VariatorWithRepetition<Integer>(4, 0, 1, 2));
+   }
 }
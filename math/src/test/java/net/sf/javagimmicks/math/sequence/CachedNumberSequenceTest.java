@@ -0,0 +1,175 @@
+package net.sf.javagimmicks.math.sequence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CachedNumberSequenceTest
+{
+   @Test
+   public void testLeastRecentlyUsed()
+   {
+      final SquareSequence s = new SquareSequence(CachePolicy.leastRecentlyUsed(8));
+
+      for (int i = 0; i < 100; ++i)
+      {
+         assertEquals(BigInteger.valueOf(i * i), s.get(BigInteger.valueOf(i)));
+      }
+      assertEquals(100, s._computeCount.get());
+
+      // Recently used values are still cached
+      s.get(BigInteger.valueOf(99));
+      s.get(BigInteger.valueOf(98));
+      assertEquals(100, s._computeCount.get());
+
+      // Older ones were evicted
+      assertEquals(BigInteger.ZERO, s.get(BigInteger.ZERO));
+      assertEquals(101, s._computeCount.get());
+   }
+
+   @Test
+   public void testCheckpoints()
+   {
+      final LucasSequence s = new LucasSequence(CachePolicy.checkpoints(100));
+
+      assertEquals(FibonacciSequence.fastDoubling(BigInteger.valueOf(999)).add(
+            FibonacciSequence.fastDoubling(BigInteger.valueOf(1001))), s.get(BigInteger.valueOf(1000)));
+      assertEquals(1001, s._computeCount.getAndSet(0));
+
+      // Resumes at the nearest checkpoint below
+      final BigInteger expected = FibonacciSequence.fastDoubling(BigInteger.valueOf(949)).add(
+            FibonacciSequence.fastDoubling(BigInteger.valueOf(951)));
+      assertEquals(expected, s.get(BigInteger.valueOf(950)));
+      assertEquals(50, s._computeCount.getAndSet(0));
+
+      // Non-checkpoint values are not kept, checkpoint values are
+      assertEquals(expected, s.get(BigInteger.valueOf(950)));
+      assertEquals(50, s._computeCount.getAndSet(0));
+
+      s.get(BigInteger.valueOf(1000));
+      s.get(BigInteger.valueOf(500));
+      assertEquals(0, s._computeCount.get());
+   }
+
+   @Test
+   public void testInductiveResume()
+   {
+      final LucasSequence s = new LucasSequence(CachePolicy.unbounded());
+
+      s.get(BigInteger.valueOf(100));
+      assertEquals(101, s._computeCount.getAndSet(0));
+
+      s.get(BigInteger.valueOf(150));
+      assertEquals(50, s._computeCount.getAndSet(0));
+
+      s.get(BigInteger.valueOf(42));
+      assertEquals(0, s._computeCount.get());
+   }
+
+   @Test
+   public void testComputeOnce() throws InterruptedException
+   {
+      final CountDownLatch computing = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final SquareSequence s = new SquareSequence(CachePolicy.unbounded())
+      {
+         @Override
+         protected BigInteger compute(final BigInteger index)
+         {
+            if (index.equals(BigInteger.ONE))
+            {
+               computing.countDown();
+               try
+               {
+                  release.await();
+               }
+               catch (final InterruptedException e)
+               {
+                  throw new IllegalStateException(e);
+               }
+            }
+
+            return super.compute(index);
+         }
+      };
+
+      final Thread[] threads = new Thread[4];
+      for (int i = 0; i < threads.length; ++i)
+      {
+         threads[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               s.get(BigInteger.ONE);
+            }
+         };
+         threads[i].start();
+      }
+
+      assertTrue(computing.await(10, TimeUnit.SECONDS));
+
+      // Other indices are not blocked by the running computation
+      assertEquals(BigInteger.valueOf(4), s.get(BigInteger.valueOf(2)));
+
+      release.countDown();
+      for (final Thread thread : threads)
+      {
+         thread.join();
+      }
+
+      assertEquals(2, s._computeCount.get());
+   }
+
+   private static class SquareSequence extends CachedNumberSequence<BigInteger>
+   {
+      private final AtomicInteger _computeCount = new AtomicInteger();
+
+      public SquareSequence(final CachePolicy cachePolicy)
+      {
+         super(cachePolicy);
+      }
+
+      @Override
+      protected BigInteger compute(final BigInteger index)
+      {
+         _computeCount.incrementAndGet();
+
+         return index.multiply(index);
+      }
+   }
+
+   private static class LucasSequence extends InductiveNumberSequence<BigInteger>
+   {
+      private final AtomicInteger _computeCount = new AtomicInteger();
+
+      public LucasSequence(final CachePolicy cachePolicy)
+      {
+         super(BigInteger.ZERO, 2, cachePolicy);
+      }
+
+      @Override
+      protected BigInteger computeInductive(final BigInteger currentIndex)
+      {
+         _computeCount.incrementAndGet();
+
+         if (isStartIndex(currentIndex))
+         {
+            return BigInteger.valueOf(2);
+         }
+         else if (BigInteger.ONE.equals(currentIndex))
+         {
+            return BigInteger.ONE;
+         }
+
+         return getCached(currentIndex.subtract(BigInteger.ONE)).add(
+               getCached(currentIndex.subtract(BigInteger.valueOf(2))));
+      }
+   }
+}
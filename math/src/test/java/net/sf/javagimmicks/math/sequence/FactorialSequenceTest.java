@@ -36,4 +36,41 @@ public class FactorialSequenceTest
       {
       }
    }
+
+   @Test
+   public void testPrimeSwing()
+   {
+      BigInteger expected = BigInteger.ONE;
+      for (int n = 0; n <= 3000; ++n)
+      {
+         if (n > 0)
+         {
+            expected = expected.multiply(BigInteger.valueOf(n));
+         }
+
+         assertEquals("Factorial of " + n, expected, FactorialSequence.primeSwing(n));
+      }
+
+      // Large enough to be multiplied in parallel
+      final int n = 50000;
+      BigInteger large = expected;
+      for (int i = 3001; i <= n; ++i)
+      {
+         large = large.multiply(BigInteger.valueOf(i));
+      }
+      assertEquals(large, FactorialSequence.primeSwing(n));
+      assertEquals(large, new FactorialSequence().get(BigInteger.valueOf(n)));
+   }
+
+   @Test
+   public void testFallingFactorial()
+   {
+      assertEquals(BigInteger.ONE, FactorialSequence.fallingFactorial(BigInteger.TEN, BigInteger.ZERO));
+      assertEquals(BigInteger.valueOf(720L), FactorialSequence.fallingFactorial(BigInteger.TEN, BigInteger.valueOf(3L)));
+      assertEquals(FactorialSequence.primeSwing(10), FactorialSequence.fallingFactorial(BigInteger.TEN, BigInteger.TEN));
+
+      final BigInteger huge = BigInteger.ONE.shiftLeft(100);
+      assertEquals(huge.multiply(huge.subtract(BigInteger.ONE)),
+            FactorialSequence.fallingFactorial(huge, BigInteger.valueOf(2L)));
+   }
 }
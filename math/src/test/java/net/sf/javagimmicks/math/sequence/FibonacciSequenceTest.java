@@ -37,4 +37,19 @@ public class FibonacciSequenceTest
       {
       }
    }
+
+   @Test
+   public void testFastDoubling()
+   {
+      BigInteger previous = BigInteger.ONE;
+      BigInteger expected = BigInteger.ZERO;
+      for (int i = 0; i <= 5000; ++i)
+      {
+         assertEquals("Fibonacci number " + i, expected, FibonacciSequence.fastDoubling(BigInteger.valueOf(i)));
+
+         final BigInteger next = previous.add(expected);
+         previous = expected;
+         expected = next;
+      }
+   }
 }
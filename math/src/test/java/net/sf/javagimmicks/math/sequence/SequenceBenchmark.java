@@ -0,0 +1,96 @@
+package net.sf.javagimmicks.math.sequence;
+
+import java.math.BigInteger;
+
+/**
+ * A simple benchmark comparing the direct computations of
+ * {@link FactorialSequence#primeSwing(int)} and
+ * {@link FibonacciSequence#fastDoubling(BigInteger)} with the step-by-step
+ * computations (like {@link FactorialSequence} and {@link FibonacciSequence}
+ * did before).
+ * <p>
+ * Each variant is run a few times - the result is the best time. Run via
+ * {@link #main}, optionally passing the factorial and the Fibonacci index.
+ */
+public class SequenceBenchmark
+{
+   private static final int NUM_ROUNDS = 3;
+
+   public static void main(final String[] args)
+   {
+      final int factorialIndex = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+      final int fibonacciIndex = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+      run(String.format("%,d! step-by-step", factorialIndex), new Computation()
+      {
+         @Override
+         public BigInteger compute()
+         {
+            BigInteger result = BigInteger.ONE;
+            for (int i = 2; i <= factorialIndex; ++i)
+            {
+               result = result.multiply(BigInteger.valueOf(i));
+            }
+
+            return result;
+         }
+      });
+
+      run(String.format("%,d! prime swing", factorialIndex), new Computation()
+      {
+         @Override
+         public BigInteger compute()
+         {
+            return FactorialSequence.primeSwing(factorialIndex);
+         }
+      });
+
+      run(String.format("F(%,d) step-by-step", fibonacciIndex), new Computation()
+      {
+         @Override
+         public BigInteger compute()
+         {
+            BigInteger previous = BigInteger.ONE;
+            BigInteger result = BigInteger.ZERO;
+            for (int i = 0; i < fibonacciIndex; ++i)
+            {
+               final BigInteger next = previous.add(result);
+               previous = result;
+               result = next;
+            }
+
+            return result;
+         }
+      });
+
+      run(String.format("F(%,d) fast doubling", fibonacciIndex), new Computation()
+      {
+         @Override
+         public BigInteger compute()
+         {
+            return FibonacciSequence.fastDoubling(BigInteger.valueOf(fibonacciIndex));
+         }
+      });
+   }
+
+   private static void run(final String name, final Computation computation)
+   {
+      long bestNanos = Long.MAX_VALUE;
+      int bitLength = 0;
+
+      for (int i = 0; i < NUM_ROUNDS; ++i)
+      {
+         final long start = System.nanoTime();
+         bitLength = computation.compute().bitLength();
+
+         bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+      }
+
+      System.out.printf("%-28s %,8d ms %,12d bits%n", name, bestNanos / 1000000L, bitLength);
+   }
+
+   private static interface Computation
+   {
+      BigInteger compute();
+   }
+}